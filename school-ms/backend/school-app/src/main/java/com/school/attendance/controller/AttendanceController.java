@@ -3,7 +3,11 @@ package com.school.attendance.controller;
 import com.school.attendance.model.Attendance;
 import com.school.attendance.model.AttendanceStatus;
 import com.school.attendance.service.AttendanceService;
+import com.school.attendance.service.AttendanceSummaryService;
+import com.school.attendance.service.AttendanceSummaryService.Granularity;
+import com.school.attendance.service.LiveAttendanceCounters;
 import com.school.attendance.dto.*;
+import com.school.common.report.HeavyReport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,9 +16,11 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -28,6 +34,12 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private LiveAttendanceCounters liveAttendanceCounters;
+
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+
     @Operation(summary = "Mark bulk attendance", description = "Records attendance for multiple students at once")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Attendance marked successfully"),
@@ -126,6 +138,20 @@ public class AttendanceController {
         return ResponseEntity.ok(attendanceService.getAttendanceByDate(date));
     }
 
+    @Operation(summary = "Get live attendance counters", description = "Returns today's per-class present/absent/late counters from memory")
+    @GetMapping("/live/snapshot")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    public ResponseEntity<LiveAttendanceSnapshot> getLiveSnapshot() {
+        return ResponseEntity.ok(liveAttendanceCounters.snapshot());
+    }
+
+    @Operation(summary = "Stream live attendance counters", description = "Server-Sent Events stream of today's per-class counters, pushed as attendance is marked")
+    @GetMapping(value = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    public SseEmitter streamLiveAttendance() {
+        return liveAttendanceCounters.subscribe();
+    }
+
     @Operation(summary = "Get attendance by date range", description = "Retrieves all attendance records within a date range")
     @GetMapping("/date-range")
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
@@ -212,6 +238,7 @@ public class AttendanceController {
             @ApiResponse(responseCode = "400", description = "Invalid month or year")
     })
     @GetMapping("/report/monthly")
+    @HeavyReport
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
     public ResponseEntity<MonthlyAttendanceReport> getMonthlyReport(
             @RequestParam Integer grade,
@@ -227,6 +254,7 @@ public class AttendanceController {
             @ApiResponse(responseCode = "400", description = "Invalid month or year")
     })
     @GetMapping("/stats/monthly")
+    @HeavyReport
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
     public ResponseEntity<MonthlyAttendanceStats> getMonthlyStats(
             @RequestParam Integer grade,
@@ -236,6 +264,48 @@ public class AttendanceController {
         return ResponseEntity.ok(attendanceService.generateMonthlyStats(grade, section, year, month));
     }
 
+    @Operation(summary = "Class attendance trend", description = "Daily or monthly attendance counts for a grade and section, served from the daily summary table")
+    @GetMapping("/summary/class")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    public ResponseEntity<List<AttendanceTrendPoint>> getClassTrend(
+            @RequestParam Integer grade,
+            @RequestParam String section,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "DAY") Granularity granularity) {
+        return ResponseEntity.ok(attendanceSummaryService.getClassTrend(grade, section, startDate, endDate, granularity));
+    }
+
+    @Operation(summary = "Grade attendance trend", description = "Daily or monthly attendance counts for a grade across all sections")
+    @GetMapping("/summary/grade")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    public ResponseEntity<List<AttendanceTrendPoint>> getGradeTrend(
+            @RequestParam Integer grade,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "DAY") Granularity granularity) {
+        return ResponseEntity.ok(attendanceSummaryService.getGradeTrend(grade, startDate, endDate, granularity));
+    }
+
+    @Operation(summary = "School attendance trend", description = "Daily or monthly attendance counts for the whole school")
+    @GetMapping("/summary/school")
+    @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER')")
+    public ResponseEntity<List<AttendanceTrendPoint>> getSchoolTrend(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "DAY") Granularity granularity) {
+        return ResponseEntity.ok(attendanceSummaryService.getSchoolTrend(startDate, endDate, granularity));
+    }
+
+    @Operation(summary = "Rebuild attendance summary", description = "ADMIN-ONLY: Backfills the daily class summary table from raw attendance for a date range")
+    @PostMapping("/summary/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Integer> rebuildSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(attendanceSummaryService.rebuild(startDate, endDate));
+    }
+
     @Operation(summary = "Delete attendance record", description = "Removes an attendance record from the system")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Attendance record deleted successfully"),
@@ -2,8 +2,11 @@ package com.school.attendance.controller;
 
 import com.school.attendance.dto.EmployeeBulkAttendanceRequest;
 import com.school.attendance.dto.EmployeeAttendanceDTO;
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
 import com.school.attendance.model.EmployeeAttendanceStatus;
 import com.school.attendance.service.EmployeeAttendanceService;
+import com.school.common.report.HeavyReport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -162,19 +165,20 @@ public class EmployeeAttendanceController {
     }
     
     @GetMapping("/report/monthly")
-    public ResponseEntity<Map<String, Object>> getMonthlyAttendanceReport(
+    @HeavyReport
+    public ResponseEntity<StaffMonthlyAttendanceReport> getMonthlyAttendanceReport(
             @RequestParam int year,
             @RequestParam int month,
             @RequestParam(value = "employeeType", required = false, defaultValue = "ALL") String employeeType) {
-        Map<String, Object> report = employeeAttendanceService.getMonthlyAttendanceReport(year, month, employeeType);
+        StaffMonthlyAttendanceReport report = employeeAttendanceService.getMonthlyAttendanceReport(year, month, employeeType);
         return ResponseEntity.ok(report);
     }
     
     @GetMapping("/current-month")
-    public ResponseEntity<Map<String, Object>> getCurrentMonthAttendance(
+    public ResponseEntity<StaffMonthlyAttendanceReport> getCurrentMonthAttendance(
             @RequestParam(value = "employeeType", required = false, defaultValue = "ALL") String employeeType) {
         LocalDate now = LocalDate.now();
-        Map<String, Object> report = employeeAttendanceService.getMonthlyAttendanceReport(now.getYear(), now.getMonthValue(), employeeType);
+        StaffMonthlyAttendanceReport report = employeeAttendanceService.getMonthlyAttendanceReport(now.getYear(), now.getMonthValue(), employeeType);
         return ResponseEntity.ok(report);
     }
 
@@ -198,11 +202,11 @@ public class EmployeeAttendanceController {
     }
     
     @GetMapping("/stats/employee/{employeeId}")
-    public ResponseEntity<Map<String, Object>> getAttendanceStats(
+    public ResponseEntity<StaffAttendanceStats> getAttendanceStats(
             @PathVariable Long employeeId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        Map<String, Object> stats = employeeAttendanceService.getEmployeeAttendanceStats(employeeId, startDate, endDate);
+        StaffAttendanceStats stats = employeeAttendanceService.getEmployeeAttendanceStats(employeeId, startDate, endDate);
         return ResponseEntity.ok(stats);
     }
     
@@ -0,0 +1,50 @@
+package com.school.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One point of an attendance trend. {@code periodStart} is the day, or the first day of the
+ * month for monthly granularity. Grade and section are null when aggregated above that level.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceTrendPoint {
+    private LocalDate periodStart;
+    private Integer grade;
+    private String section;
+    private long present;
+    private long absent;
+    private long late;
+    private long total;
+
+    /** Grade-level aggregate (JPQL constructor expression). */
+    public AttendanceTrendPoint(LocalDate periodStart, Integer grade, Long present, Long absent, Long late,
+            Long total) {
+        this(periodStart, grade, null, present, absent, late, total);
+    }
+
+    /** School-level aggregate (JPQL constructor expression). */
+    public AttendanceTrendPoint(LocalDate periodStart, Long present, Long absent, Long late, Long total) {
+        this(periodStart, null, null, present, absent, late, total);
+    }
+
+    private AttendanceTrendPoint(LocalDate periodStart, Integer grade, String section, Long present, Long absent,
+            Long late, Long total) {
+        this(periodStart, grade, section, nz(present), nz(absent), nz(late), nz(total));
+    }
+
+    public double getAttendancePercentage() {
+        return total > 0 ? (present * 100.0) / total : 0;
+    }
+
+    private static long nz(Long value) {
+        return value != null ? value : 0L;
+    }
+}
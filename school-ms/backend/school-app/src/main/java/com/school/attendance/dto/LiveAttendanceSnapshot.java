@@ -0,0 +1,37 @@
+package com.school.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveAttendanceSnapshot {
+    private LocalDate date;
+    private LocalDateTime generatedAt;
+    private long present;
+    private long absent;
+    private long late;
+    private long total;
+    private List<ClassCounter> classes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassCounter {
+        private Integer grade;
+        private String section;
+        private long present;
+        private long absent;
+        private long late;
+        private long total;
+    }
+}
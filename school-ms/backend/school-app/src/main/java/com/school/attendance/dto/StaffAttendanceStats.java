@@ -0,0 +1,26 @@
+package com.school.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffAttendanceStats {
+    private Long staffId;
+    private String staffName;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private long totalWorkingDays;
+    private long presentDays;
+    private long absentDays;
+    private long lateDays;
+    private long halfDays;
+    private long leaveDays;
+    private String attendancePercentage;
+}
@@ -0,0 +1,39 @@
+package com.school.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StaffMonthlyAttendanceReport {
+    private int year;
+    private int month;
+    private String monthName;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private long totalWorkingDays;
+    private List<EmployeeSummary> employeeSummaries;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EmployeeSummary {
+        private Long employeeId;
+        private String employeeName;
+        private String department;
+        private long presentDays;
+        private long absentDays;
+        private long lateDays;
+        private long halfDays;
+        private long leaveDays;
+        private String attendancePercentage;
+    }
+}
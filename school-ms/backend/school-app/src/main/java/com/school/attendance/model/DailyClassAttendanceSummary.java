@@ -0,0 +1,51 @@
+package com.school.attendance.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized per-day, per-class attendance counts.
+ * Maintained incrementally by {@link com.school.attendance.service.AttendanceSummaryService}
+ * so trend reports never scan raw attendance rows.
+ */
+@Entity
+@Table(name = "attendance_daily_class_summary", uniqueConstraints = @UniqueConstraint(columnNames = {
+        "summary_date", "grade", "section" }))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyClassAttendanceSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "summary_date", nullable = false)
+    private LocalDate summaryDate;
+
+    @Column(nullable = false)
+    private Integer grade;
+
+    @Column(nullable = false)
+    private String section;
+
+    @Column(name = "present_count", nullable = false)
+    private long presentCount;
+
+    @Column(name = "absent_count", nullable = false)
+    private long absentCount;
+
+    @Column(name = "late_count", nullable = false)
+    private long lateCount;
+
+    @Column(name = "total_count", nullable = false)
+    private long totalCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -3,8 +3,11 @@ package com.school.attendance.repository;
 import com.school.attendance.model.Attendance;
 import com.school.attendance.model.AttendanceStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,5 +41,30 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
 
         long countByStudent_IdAndDateBetween(Long studentId, LocalDate startDate, LocalDate endDate);
 
+        /**
+         * Attendance counts for a date grouped by class.
+         * Each row is [grade (Integer), section (String), status (AttendanceStatus), count (Long)].
+         */
+        @Query("SELECT s.grade, s.section, a.status, COUNT(a) FROM Attendance a JOIN a.student s "
+                        + "WHERE a.date = :date GROUP BY s.grade, s.section, a.status")
+        List<Object[]> countByClassAndStatusOnDate(@Param("date") LocalDate date);
+
+        /**
+         * Attendance counts for a student grouped by day.
+         * Each row is [date (LocalDate), status (AttendanceStatus), count (Long)].
+         */
+        @Query("SELECT a.date, a.status, COUNT(a) FROM Attendance a WHERE a.student.id = :studentId "
+                        + "GROUP BY a.date, a.status")
+        List<Object[]> countByDateAndStatusForStudent(@Param("studentId") Long studentId);
+
+        /**
+         * Attendance counts for a set of students in a date range, grouped by student.
+         * Each row is [studentId (Long), status (AttendanceStatus), count (Long)].
+         */
+        @Query("SELECT a.student.id, a.status, COUNT(a) FROM Attendance a WHERE a.student.id IN :studentIds "
+                        + "AND a.date BETWEEN :startDate AND :endDate GROUP BY a.student.id, a.status")
+        List<Object[]> countByStudentAndStatusBetween(@Param("studentIds") Collection<Long> studentIds,
+                        @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
         // removed duplicate deleteByStudent_Id declaration
 }
\ No newline at end of file
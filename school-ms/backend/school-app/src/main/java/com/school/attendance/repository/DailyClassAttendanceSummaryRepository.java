@@ -0,0 +1,34 @@
+package com.school.attendance.repository;
+
+import com.school.attendance.dto.AttendanceTrendPoint;
+import com.school.attendance.model.DailyClassAttendanceSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyClassAttendanceSummaryRepository extends JpaRepository<DailyClassAttendanceSummary, Long> {
+
+    List<DailyClassAttendanceSummary> findByGradeAndSectionAndSummaryDateBetweenOrderBySummaryDateAsc(
+            Integer grade, String section, LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT new com.school.attendance.dto.AttendanceTrendPoint(s.summaryDate, s.grade, "
+            + "SUM(s.presentCount), SUM(s.absentCount), SUM(s.lateCount), SUM(s.totalCount)) "
+            + "FROM DailyClassAttendanceSummary s "
+            + "WHERE s.grade = :grade AND s.summaryDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY s.summaryDate, s.grade ORDER BY s.summaryDate")
+    List<AttendanceTrendPoint> sumByGradePerDay(@Param("grade") Integer grade,
+            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.school.attendance.dto.AttendanceTrendPoint(s.summaryDate, "
+            + "SUM(s.presentCount), SUM(s.absentCount), SUM(s.lateCount), SUM(s.totalCount)) "
+            + "FROM DailyClassAttendanceSummary s "
+            + "WHERE s.summaryDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY s.summaryDate ORDER BY s.summaryDate")
+    List<AttendanceTrendPoint> sumSchoolPerDay(@Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+}
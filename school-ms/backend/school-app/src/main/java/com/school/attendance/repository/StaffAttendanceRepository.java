@@ -39,6 +39,37 @@ public interface StaffAttendanceRepository extends JpaRepository<StaffAttendance
     @Query("SELECT COUNT(sa) FROM StaffAttendance sa WHERE sa.staff.id = :staffId AND sa.status = :status AND sa.attendanceDate BETWEEN :startDate AND :endDate")
     Long countByStaffIdAndStatusAndAttendanceDateBetween(@Param("staffId") Long staffId, @Param("status") StaffAttendanceStatus status, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
     
+    /**
+     * Per-staff status counts for a date range.
+     * Each row is [staffId, firstName, middleName, lastName, department, roleName, status, count].
+     */
+    @Query("SELECT s.id, s.firstName, s.middleName, s.lastName, s.department, r.name, sa.status, COUNT(sa) " +
+           "FROM StaffAttendance sa JOIN sa.staff s LEFT JOIN s.staffRole r " +
+           "WHERE sa.attendanceDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY s.id, s.firstName, s.middleName, s.lastName, s.department, r.name, sa.status")
+    List<Object[]> countByStaffAndStatusBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Per-day status counts by staff role for a date range. Each row is [attendanceDate, roleName, status, count].
+     */
+    @Query("SELECT sa.attendanceDate, r.name, sa.status, COUNT(sa) FROM StaffAttendance sa JOIN sa.staff s LEFT JOIN s.staffRole r " +
+           "WHERE sa.attendanceDate BETWEEN :startDate AND :endDate GROUP BY sa.attendanceDate, r.name, sa.status")
+    List<Object[]> countByDateRoleAndStatusBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Status counts by staff role for a date range. Each row is [roleName, status, count].
+     */
+    @Query("SELECT r.name, sa.status, COUNT(sa) FROM StaffAttendance sa JOIN sa.staff s LEFT JOIN s.staffRole r " +
+           "WHERE sa.attendanceDate BETWEEN :startDate AND :endDate GROUP BY r.name, sa.status")
+    List<Object[]> countByRoleAndStatusBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Status counts for one staff member in a date range. Each row is [status, count].
+     */
+    @Query("SELECT sa.status, COUNT(sa) FROM StaffAttendance sa WHERE sa.staff.id = :staffId " +
+           "AND sa.attendanceDate BETWEEN :startDate AND :endDate GROUP BY sa.status")
+    List<Object[]> countByStatusForStaffBetween(@Param("staffId") Long staffId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
     // Custom findById method with eager loading of Staff entity and StaffRole
     @Query("SELECT sa FROM StaffAttendance sa JOIN FETCH sa.staff s LEFT JOIN FETCH s.staffRole WHERE sa.id = :id")
     Optional<StaffAttendance> findByIdWithStaff(@Param("id") Long id);
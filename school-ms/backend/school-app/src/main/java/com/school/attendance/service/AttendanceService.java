@@ -58,5 +58,11 @@ public interface AttendanceService {
    */
   void deleteAllForStudent(Long studentId);
 
+  /**
+   * Moves a student's attendance in the daily class summary and live counters from their old
+   * class to the new one. Call when a student's grade or section changes.
+   */
+  void moveStudentClass(Long studentId, Integer oldGrade, String oldSection, Integer newGrade, String newSection);
+
   double getStudentAttendancePercentage(Long studentId, LocalDate startDate, LocalDate endDate);
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -37,6 +38,12 @@ public class AttendanceServiceImpl implements AttendanceService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private LiveAttendanceCounters liveAttendanceCounters;
+
+    @Autowired
+    private AttendanceSummaryService attendanceSummaryService;
+
     @Override
     public void markAttendance(AttendanceDTO attendanceDTO) {
         Student student = studentRepository.findById(attendanceDTO.getStudentId())
@@ -45,6 +52,7 @@ public class AttendanceServiceImpl implements AttendanceService {
         Attendance attendance = attendanceRepository
                 .findByStudent_IdAndDate(attendanceDTO.getStudentId(), attendanceDTO.getDate())
                 .orElse(new Attendance());
+        AttendanceStatus previousStatus = attendance.getStatus();
 
         attendance.setStudent(student);
         attendance.setDate(attendanceDTO.getDate());
@@ -53,6 +61,8 @@ public class AttendanceServiceImpl implements AttendanceService {
         attendance.setCheckInTime(LocalTime.now());
 
         attendanceRepository.save(attendance);
+        recordStatusChange(attendance.getDate(), student.getGrade(), student.getSection(),
+                previousStatus, attendance.getStatus(), 1);
 
         if (attendanceDTO.getStatus() == AttendanceStatus.ABSENT && student.getGuardianEmail() != null) {
             notificationService.sendAttendanceNotification(
@@ -76,9 +86,16 @@ public class AttendanceServiceImpl implements AttendanceService {
         Attendance attendance = attendanceRepository.findById(id)
                 .orElseThrow(() -> new AttendanceNotFoundException("Attendance record not found"));
 
+        AttendanceStatus previousStatus = attendance.getStatus();
         attendance.setStatus(status);
         attendance.setRemarks(remarks);
-        return attendanceRepository.save(attendance);
+        Attendance saved = attendanceRepository.save(attendance);
+        Student student = saved.getStudent();
+        if (student != null) {
+            recordStatusChange(saved.getDate(), student.getGrade(), student.getSection(),
+                    previousStatus, status, 1);
+        }
+        return saved;
     }
 
     @Override
@@ -189,7 +206,8 @@ public class AttendanceServiceImpl implements AttendanceService {
             throw new IllegalArgumentException("No students found in grade " + grade + " section " + section);
         }
 
-        return students.stream().map(student -> {
+        int[] created = new int[1];
+        List<Attendance> result = students.stream().map(student -> {
             // Upsert: if a record already exists for this student/date, return it as-is to
             // avoid duplicates
             Optional<Attendance> existingOpt = attendanceRepository.findByStudent_IdAndDate(student.getId(), date);
@@ -203,8 +221,13 @@ public class AttendanceServiceImpl implements AttendanceService {
             attendance.setStatus(defaultStatus);
             attendance.setRemarks(remarks);
             attendance.setCheckInTime(LocalTime.now());
+            created[0]++;
             return attendanceRepository.save(attendance);
         }).collect(Collectors.toList());
+
+        // One summary upsert for the whole class rather than one per student
+        recordStatusChange(date, grade, section, null, defaultStatus, created[0]);
+        return result;
     }
 
     @Override
@@ -330,10 +353,14 @@ public class AttendanceServiceImpl implements AttendanceService {
 
     @Override
     public void deleteAttendance(Long id) {
-        if (!attendanceRepository.existsById(id)) {
-            throw new AttendanceNotFoundException("Attendance record not found");
+        Attendance attendance = attendanceRepository.findById(id)
+                .orElseThrow(() -> new AttendanceNotFoundException("Attendance record not found"));
+        Student student = attendance.getStudent();
+        attendanceRepository.delete(attendance);
+        if (student != null) {
+            recordStatusChange(attendance.getDate(), student.getGrade(), student.getSection(),
+                    attendance.getStatus(), null, 1);
         }
-        attendanceRepository.deleteById(id);
     }
 
     @Override
@@ -345,10 +372,30 @@ public class AttendanceServiceImpl implements AttendanceService {
 
     @Override
     public void deleteAllForStudent(Long studentId) {
-        if (!studentRepository.existsById(studentId)) {
-            throw new StudentNotFoundException("Student not found");
+        Student student = studentRepository.findById(studentId)
+                .orElseThrow(() -> new StudentNotFoundException("Student not found"));
+        for (Object[] row : attendanceRepository.countByDateAndStatusForStudent(studentId)) {
+            attendanceSummaryService.applyChange((LocalDate) row[0], student.getGrade(), student.getSection(),
+                    (AttendanceStatus) row[1], null, ((Number) row[2]).intValue());
         }
         attendanceRepository.deleteByStudent_Id(studentId);
+        liveAttendanceCounters.invalidate();
+    }
+
+    @Override
+    public void moveStudentClass(Long studentId, Integer oldGrade, String oldSection, Integer newGrade,
+            String newSection) {
+        if (Objects.equals(oldGrade, newGrade) && Objects.equals(oldSection, newSection)) {
+            return;
+        }
+        for (Object[] row : attendanceRepository.countByDateAndStatusForStudent(studentId)) {
+            LocalDate date = (LocalDate) row[0];
+            AttendanceStatus status = (AttendanceStatus) row[1];
+            int count = ((Number) row[2]).intValue();
+            attendanceSummaryService.applyChange(date, oldGrade, oldSection, status, null, count);
+            attendanceSummaryService.applyChange(date, newGrade, newSection, null, status, count);
+        }
+        liveAttendanceCounters.invalidate();
     }
 
     @Override
@@ -380,6 +427,21 @@ public class AttendanceServiceImpl implements AttendanceService {
         return alerts;
     }
 
+    /**
+     * Propagates a status transition to the materialized daily summary (same transaction)
+     * and to the live dashboard counters (after commit).
+     */
+    private void recordStatusChange(LocalDate date, Integer grade, String section,
+            AttendanceStatus from, AttendanceStatus to, int count) {
+        if (count <= 0) {
+            return;
+        }
+        attendanceSummaryService.applyChange(date, grade, section, from, to, count);
+        for (int i = 0; i < count; i++) {
+            liveAttendanceCounters.recordChange(date, grade, section, from, to);
+        }
+    }
+
     private int countConsecutiveAbsences(Long studentId, LocalDate endDate) {
         int count = 0;
         LocalDate currentDate = endDate;
@@ -0,0 +1,168 @@
+package com.school.attendance.service;
+
+import com.school.attendance.dto.AttendanceTrendPoint;
+import com.school.attendance.model.AttendanceStatus;
+import com.school.attendance.model.DailyClassAttendanceSummary;
+import com.school.attendance.repository.DailyClassAttendanceSummaryRepository;
+import com.school.exception.InvalidDateRangeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains and queries the materialized {@code attendance_daily_class_summary} table.
+ * <p>
+ * Attendance writes apply signed deltas with a single atomic upsert in the same transaction,
+ * so the summary never drifts from the raw rows. Summaries are retained when old raw
+ * attendance is purged, which keeps long-range trends available.
+ */
+@Service
+public class AttendanceSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceSummaryService.class);
+
+    public enum Granularity {
+        DAY,
+        MONTH
+    }
+
+    private static final String UPSERT_DELTA_SQL = "INSERT INTO attendance_daily_class_summary "
+            + "(summary_date, grade, section, present_count, absent_count, late_count, total_count, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, now()) "
+            + "ON CONFLICT (summary_date, grade, section) DO UPDATE SET "
+            + "present_count = attendance_daily_class_summary.present_count + EXCLUDED.present_count, "
+            + "absent_count = attendance_daily_class_summary.absent_count + EXCLUDED.absent_count, "
+            + "late_count = attendance_daily_class_summary.late_count + EXCLUDED.late_count, "
+            + "total_count = attendance_daily_class_summary.total_count + EXCLUDED.total_count, "
+            + "updated_at = now()";
+
+    private static final String REBUILD_SQL = "INSERT INTO attendance_daily_class_summary "
+            + "(summary_date, grade, section, present_count, absent_count, late_count, total_count, updated_at) "
+            + "SELECT a.date, s.grade, s.section, "
+            + "COUNT(*) FILTER (WHERE a.status = 'PRESENT'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'ABSENT'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'LATE'), "
+            + "COUNT(*), now() "
+            + "FROM attendance a JOIN students s ON s.id = a.student_id "
+            + "WHERE a.date BETWEEN ? AND ? "
+            + "GROUP BY a.date, s.grade, s.section";
+
+    private final DailyClassAttendanceSummaryRepository summaryRepository;
+    private final JdbcTemplate jdbc;
+
+    public AttendanceSummaryService(DailyClassAttendanceSummaryRepository summaryRepository, JdbcTemplate jdbc) {
+        this.summaryRepository = summaryRepository;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Applies a status transition for {@code count} students of one class on one day.
+     * Use {@code from == null} for new records and {@code to == null} for deleted ones.
+     */
+    public void applyChange(LocalDate date, Integer grade, String section,
+            AttendanceStatus from, AttendanceStatus to, int count) {
+        if (date == null || grade == null || section == null || from == to || count == 0) {
+            return;
+        }
+        long present = delta(AttendanceStatus.PRESENT, from, to) * count;
+        long absent = delta(AttendanceStatus.ABSENT, from, to) * count;
+        long late = delta(AttendanceStatus.LATE, from, to) * count;
+        long total = ((to != null ? 1 : 0) - (from != null ? 1 : 0)) * (long) count;
+        jdbc.update(UPSERT_DELTA_SQL, Date.valueOf(date), grade, section, present, absent, late, total);
+    }
+
+    /**
+     * Rebuilds the summary rows for a date range from raw attendance. Used as the one-off
+     * backfill and to repair the table after manual data fixes.
+     *
+     * @return number of summary rows written
+     */
+    @Transactional
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        jdbc.update("DELETE FROM attendance_daily_class_summary WHERE summary_date BETWEEN ? AND ?",
+                Date.valueOf(startDate), Date.valueOf(endDate));
+        int rows = jdbc.update(REBUILD_SQL, Date.valueOf(startDate), Date.valueOf(endDate));
+        log.info("Rebuilt {} attendance summary rows for {} to {}", rows, startDate, endDate);
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public List<AttendanceTrendPoint> getClassTrend(Integer grade, String section, LocalDate startDate,
+            LocalDate endDate, Granularity granularity) {
+        validateRange(startDate, endDate);
+        List<AttendanceTrendPoint> daily = summaryRepository
+                .findByGradeAndSectionAndSummaryDateBetweenOrderBySummaryDateAsc(grade, section, startDate, endDate)
+                .stream()
+                .map(this::toPoint)
+                .collect(Collectors.toList());
+        return rollUp(daily, granularity);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AttendanceTrendPoint> getGradeTrend(Integer grade, LocalDate startDate, LocalDate endDate,
+            Granularity granularity) {
+        validateRange(startDate, endDate);
+        return rollUp(summaryRepository.sumByGradePerDay(grade, startDate, endDate), granularity);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AttendanceTrendPoint> getSchoolTrend(LocalDate startDate, LocalDate endDate,
+            Granularity granularity) {
+        validateRange(startDate, endDate);
+        return rollUp(summaryRepository.sumSchoolPerDay(startDate, endDate), granularity);
+    }
+
+    private List<AttendanceTrendPoint> rollUp(List<AttendanceTrendPoint> daily, Granularity granularity) {
+        if (granularity != Granularity.MONTH) {
+            return daily;
+        }
+        Map<LocalDate, AttendanceTrendPoint> months = new LinkedHashMap<>();
+        for (AttendanceTrendPoint p : daily) {
+            LocalDate month = p.getPeriodStart().withDayOfMonth(1);
+            AttendanceTrendPoint acc = months.computeIfAbsent(month, m -> AttendanceTrendPoint.builder()
+                    .periodStart(m)
+                    .grade(p.getGrade())
+                    .section(p.getSection())
+                    .build());
+            acc.setPresent(acc.getPresent() + p.getPresent());
+            acc.setAbsent(acc.getAbsent() + p.getAbsent());
+            acc.setLate(acc.getLate() + p.getLate());
+            acc.setTotal(acc.getTotal() + p.getTotal());
+        }
+        return new ArrayList<>(months.values());
+    }
+
+    private AttendanceTrendPoint toPoint(DailyClassAttendanceSummary s) {
+        return AttendanceTrendPoint.builder()
+                .periodStart(s.getSummaryDate())
+                .grade(s.getGrade())
+                .section(s.getSection())
+                .present(s.getPresentCount())
+                .absent(s.getAbsentCount())
+                .late(s.getLateCount())
+                .total(s.getTotalCount())
+                .build();
+    }
+
+    private static long delta(AttendanceStatus status, AttendanceStatus from, AttendanceStatus to) {
+        return (Objects.equals(to, status) ? 1 : 0) - (Objects.equals(from, status) ? 1 : 0);
+    }
+
+    private static void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            throw new InvalidDateRangeException("Start date cannot be after end date");
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.school.attendance.service;
 
 import com.school.attendance.dto.EmployeeBulkAttendanceRequest;
 import com.school.attendance.dto.EmployeeAttendanceDTO;
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
 import com.school.attendance.model.EmployeeAttendanceStatus;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -67,12 +69,12 @@ public interface EmployeeAttendanceService {
     /**
      * Get monthly attendance report
      */
-    Map<String, Object> getMonthlyAttendanceReport(int year, int month, String employeeType);
+    StaffMonthlyAttendanceReport getMonthlyAttendanceReport(int year, int month, String employeeType);
     
     /**
      * Get attendance statistics for an employee
      */
-    Map<String, Object> getEmployeeAttendanceStats(Long employeeId, LocalDate startDate, LocalDate endDate);
+    StaffAttendanceStats getEmployeeAttendanceStats(Long employeeId, LocalDate startDate, LocalDate endDate);
     
     /**
      * Get overall attendance statistics
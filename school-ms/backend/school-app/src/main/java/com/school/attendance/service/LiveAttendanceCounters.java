@@ -0,0 +1,234 @@
+package com.school.attendance.service;
+
+import com.school.attendance.dto.LiveAttendanceSnapshot;
+import com.school.attendance.model.AttendanceStatus;
+import com.school.attendance.repository.AttendanceRepository;
+import com.school.common.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live per-class attendance counters for today.
+ * <p>
+ * Counters are seeded once per day with a single grouped query and then maintained
+ * incrementally from attendance writes (after commit), so dashboards can be streamed
+ * to any number of viewers over Server-Sent Events without extra database load.
+ * Pushes are coalesced: at most one event every {@code PUBLISH_INTERVAL_MS}.
+ */
+@Component
+public class LiveAttendanceCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveAttendanceCounters.class);
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final long PUBLISH_INTERVAL_MS = 2000L;
+    private static final long RESYNC_INTERVAL_MS = 5 * 60 * 1000L;
+    private static final int STATUS_COUNT = AttendanceStatus.values().length;
+
+    private final AttendanceRepository attendanceRepository;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private volatile Day day;
+
+    public LiveAttendanceCounters(AttendanceRepository attendanceRepository) {
+        this.attendanceRepository = attendanceRepository;
+    }
+
+    /**
+     * Records a status transition for a student's attendance once the current transaction commits.
+     * Use {@code from == null} for a new record and {@code to == null} for a deleted one.
+     */
+    public void recordChange(LocalDate date, Integer grade, String section,
+            AttendanceStatus from, AttendanceStatus to) {
+        if (date == null || from == to) {
+            return;
+        }
+        AfterCommit.run(() -> apply(date, grade, section, from, to));
+    }
+
+    /**
+     * Drops today's counters so they are re-seeded from the database on next access.
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            day = null;
+            dirty.set(true);
+        });
+    }
+
+    /**
+     * Returns the current counters for today.
+     */
+    public LiveAttendanceSnapshot snapshot() {
+        Day d = today();
+        List<LiveAttendanceSnapshot.ClassCounter> classes = new ArrayList<>(d.counters.size());
+        long present = 0, absent = 0, late = 0, total = 0;
+        for (Map.Entry<ClassKey, LongAdder[]> e : d.counters.entrySet()) {
+            LongAdder[] c = e.getValue();
+            long p = c[AttendanceStatus.PRESENT.ordinal()].sum();
+            long a = c[AttendanceStatus.ABSENT.ordinal()].sum();
+            long l = c[AttendanceStatus.LATE.ordinal()].sum();
+            long t = 0;
+            for (LongAdder adder : c) {
+                t += adder.sum();
+            }
+            classes.add(LiveAttendanceSnapshot.ClassCounter.builder()
+                    .grade(e.getKey().grade())
+                    .section(e.getKey().section())
+                    .present(p)
+                    .absent(a)
+                    .late(l)
+                    .total(t)
+                    .build());
+            present += p;
+            absent += a;
+            late += l;
+            total += t;
+        }
+        classes.sort(Comparator.comparing(LiveAttendanceSnapshot.ClassCounter::getGrade,
+                Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(LiveAttendanceSnapshot.ClassCounter::getSection,
+                        Comparator.nullsLast(Comparator.naturalOrder())));
+        return LiveAttendanceSnapshot.builder()
+                .date(d.date)
+                .generatedAt(LocalDateTime.now())
+                .present(present)
+                .absent(absent)
+                .late(late)
+                .total(total)
+                .classes(classes)
+                .build();
+    }
+
+    /**
+     * Registers a new SSE subscriber and sends it the current snapshot immediately.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        try {
+            emitter.send(SseEmitter.event().name("attendance").data(snapshot()));
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    @Scheduled(fixedDelay = PUBLISH_INTERVAL_MS)
+    public void publish() {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        Day d = day;
+        boolean rolledOver = d == null || !d.date.equals(LocalDate.now());
+        if (!dirty.getAndSet(false) && !rolledOver) {
+            return;
+        }
+        LiveAttendanceSnapshot payload = snapshot();
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("attendance").data(payload));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    /**
+     * Periodically reconciles the counters with the database while someone is watching,
+     * correcting any drift from writes that raced with the daily seed.
+     */
+    @Scheduled(fixedDelay = RESYNC_INTERVAL_MS)
+    public void resync() {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        day = load(LocalDate.now());
+        dirty.set(true);
+    }
+
+    private void apply(LocalDate date, Integer grade, String section, AttendanceStatus from, AttendanceStatus to) {
+        Day d = day;
+        if (d == null || !d.date.equals(date)) {
+            // Not today's counters; they are seeded from the database on next access
+            return;
+        }
+        LongAdder[] c = d.counters.computeIfAbsent(new ClassKey(grade, section), k -> newAdders());
+        if (from != null) {
+            c[from.ordinal()].decrement();
+        }
+        if (to != null) {
+            c[to.ordinal()].increment();
+        }
+        dirty.set(true);
+    }
+
+    private Day today() {
+        LocalDate now = LocalDate.now();
+        Day d = day;
+        if (d == null || !d.date.equals(now)) {
+            synchronized (this) {
+                d = day;
+                if (d == null || !d.date.equals(now)) {
+                    d = load(now);
+                    day = d;
+                }
+            }
+        }
+        return d;
+    }
+
+    private Day load(LocalDate date) {
+        Day d = new Day(date);
+        for (Object[] row : attendanceRepository.countByClassAndStatusOnDate(date)) {
+            AttendanceStatus status = (AttendanceStatus) row[2];
+            if (status == null) {
+                continue;
+            }
+            ClassKey key = new ClassKey((Integer) row[0], (String) row[1]);
+            d.counters.computeIfAbsent(key, k -> newAdders())[status.ordinal()].add(((Number) row[3]).longValue());
+        }
+        log.debug("Seeded live attendance counters for {} with {} classes", date, d.counters.size());
+        return d;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[STATUS_COUNT];
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private record ClassKey(Integer grade, String section) {
+    }
+
+    private static final class Day {
+        final LocalDate date;
+        final ConcurrentHashMap<ClassKey, LongAdder[]> counters = new ConcurrentHashMap<>();
+
+        Day(LocalDate date) {
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.school.attendance.service;
+
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
+import com.school.attendance.model.StaffAttendanceStatus;
+import com.school.attendance.repository.StaffAttendanceRepository;
+import com.school.common.util.AfterCommit;
+import com.school.core.model.Staff;
+import com.school.hrm.service.HolidayCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregated staff attendance reports built from grouped status counts.
+ * <p>
+ * The current month is kept as an in-memory snapshot (per-staff and per-day status counts)
+ * so the HRM dashboard's current-month report and overview do not hit the database on every
+ * load. Every write to staff attendance must call {@link #invalidate()}; the snapshot is then
+ * rebuilt on next access. Working days are taken from the {@link HolidayCalendar} at read time.
+ */
+@Component
+public class StaffAttendanceReports {
+
+    private static final Logger log = LoggerFactory.getLogger(StaffAttendanceReports.class);
+
+    private static final int STATUS_COUNT = StaffAttendanceStatus.values().length;
+
+    private final StaffAttendanceRepository staffAttendanceRepository;
+    private final HolidayCalendar holidayCalendar;
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile MonthSnapshot currentMonth;
+
+    public StaffAttendanceReports(StaffAttendanceRepository staffAttendanceRepository, HolidayCalendar holidayCalendar) {
+        this.staffAttendanceRepository = staffAttendanceRepository;
+        this.holidayCalendar = holidayCalendar;
+    }
+
+    /**
+     * Builds the monthly report for staff of the given type (ALL, TEACHING or NON_TEACHING).
+     */
+    public StaffMonthlyAttendanceReport monthlyReport(int year, int month, String employeeType) {
+        YearMonth ym = YearMonth.of(year, month);
+        LocalDate startDate = ym.atDay(1);
+        LocalDate endDate = ym.atEndOfMonth();
+        long workingDays = workingDays(startDate, endDate);
+
+        Iterable<StaffRow> rows = ym.equals(YearMonth.now())
+                ? current().staff
+                : loadStaffRows(startDate, endDate);
+
+        List<StaffMonthlyAttendanceReport.EmployeeSummary> summaries = new ArrayList<>();
+        for (StaffRow row : rows) {
+            if (!matchesType(row.roleName, employeeType)) {
+                continue;
+            }
+            summaries.add(StaffMonthlyAttendanceReport.EmployeeSummary.builder()
+                    .employeeId(row.staffId)
+                    .employeeName(row.name)
+                    .department(row.department)
+                    .presentDays(row.count(StaffAttendanceStatus.PRESENT))
+                    .absentDays(row.count(StaffAttendanceStatus.ABSENT))
+                    .lateDays(row.count(StaffAttendanceStatus.LATE))
+                    .halfDays(row.count(StaffAttendanceStatus.HALF_DAY))
+                    .leaveDays(row.count(StaffAttendanceStatus.ON_LEAVE))
+                    .attendancePercentage(percentage(row.count(StaffAttendanceStatus.PRESENT), workingDays))
+                    .build());
+        }
+        summaries.sort(Comparator.comparing(StaffMonthlyAttendanceReport.EmployeeSummary::getEmployeeName,
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+        return StaffMonthlyAttendanceReport.builder()
+                .year(year)
+                .month(month)
+                .monthName(ym.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH))
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalWorkingDays(workingDays)
+                .employeeSummaries(summaries)
+                .build();
+    }
+
+    /**
+     * Counts attendance records per status in [startDate, endDate] for staff of the given type.
+     * Every status is present in the result. Ranges inside the current month are served from memory.
+     */
+    public Map<StaffAttendanceStatus, Long> statusCounts(LocalDate startDate, LocalDate endDate, String employeeType) {
+        long[] counts = new long[STATUS_COUNT];
+        YearMonth now = YearMonth.now();
+        if (!endDate.isBefore(startDate) && YearMonth.from(startDate).equals(now) && YearMonth.from(endDate).equals(now)) {
+            MonthSnapshot s = current();
+            for (int day = startDate.getDayOfMonth(); day <= endDate.getDayOfMonth(); day++) {
+                for (int type = 0; type < 2; type++) {
+                    if (!matchesType(type == 1, employeeType)) {
+                        continue;
+                    }
+                    long[] daily = s.daily[day - 1][type];
+                    for (int i = 0; i < STATUS_COUNT; i++) {
+                        counts[i] += daily[i];
+                    }
+                }
+            }
+        } else {
+            for (Object[] row : staffAttendanceRepository.countByRoleAndStatusBetween(startDate, endDate)) {
+                StaffAttendanceStatus status = (StaffAttendanceStatus) row[1];
+                if (status != null && matchesType((String) row[0], employeeType)) {
+                    counts[status.ordinal()] += ((Number) row[2]).longValue();
+                }
+            }
+        }
+        Map<StaffAttendanceStatus, Long> result = new EnumMap<>(StaffAttendanceStatus.class);
+        for (StaffAttendanceStatus status : StaffAttendanceStatus.values()) {
+            result.put(status, counts[status.ordinal()]);
+        }
+        return result;
+    }
+
+    /**
+     * Builds attendance statistics for one staff member in [startDate, endDate].
+     */
+    public StaffAttendanceStats employeeStats(Staff staff, LocalDate startDate, LocalDate endDate) {
+        long[] counts = new long[STATUS_COUNT];
+        for (Object[] row : staffAttendanceRepository.countByStatusForStaffBetween(staff.getId(), startDate, endDate)) {
+            StaffAttendanceStatus status = (StaffAttendanceStatus) row[0];
+            if (status != null) {
+                counts[status.ordinal()] += ((Number) row[1]).longValue();
+            }
+        }
+        long workingDays = workingDays(startDate, endDate);
+        long present = counts[StaffAttendanceStatus.PRESENT.ordinal()];
+        return StaffAttendanceStats.builder()
+                .staffId(staff.getId())
+                .staffName(staff.getFullName())
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalWorkingDays(workingDays)
+                .presentDays(present)
+                .absentDays(counts[StaffAttendanceStatus.ABSENT.ordinal()])
+                .lateDays(counts[StaffAttendanceStatus.LATE.ordinal()])
+                .halfDays(counts[StaffAttendanceStatus.HALF_DAY.ordinal()])
+                .leaveDays(counts[StaffAttendanceStatus.ON_LEAVE.ordinal()])
+                .attendancePercentage(percentage(present, workingDays))
+                .build();
+    }
+
+    /**
+     * Drops the current-month snapshot once the current transaction commits.
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            currentMonth = null;
+        });
+    }
+
+    private MonthSnapshot current() {
+        YearMonth now = YearMonth.now();
+        MonthSnapshot s = currentMonth;
+        if (s != null && s.month.equals(now)) {
+            return s;
+        }
+        synchronized (this) {
+            s = currentMonth;
+            if (s == null || !s.month.equals(now)) {
+                long gen = generation.get();
+                s = load(now);
+                // Only publish if no write committed while we were loading
+                if (generation.get() == gen) {
+                    currentMonth = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    private MonthSnapshot load(YearMonth month) {
+        LocalDate startDate = month.atDay(1);
+        LocalDate endDate = month.atEndOfMonth();
+        List<StaffRow> staff = loadStaffRows(startDate, endDate);
+        long[][][] daily = new long[month.lengthOfMonth()][2][STATUS_COUNT];
+        for (Object[] row : staffAttendanceRepository.countByDateRoleAndStatusBetween(startDate, endDate)) {
+            StaffAttendanceStatus status = (StaffAttendanceStatus) row[2];
+            if (status == null) {
+                continue;
+            }
+            LocalDate date = (LocalDate) row[0];
+            daily[date.getDayOfMonth() - 1][isTeaching((String) row[1]) ? 1 : 0][status.ordinal()] += ((Number) row[3]).longValue();
+        }
+        log.debug("Loaded staff attendance snapshot for {} with {} staff", month, staff.size());
+        return new MonthSnapshot(month, Collections.unmodifiableList(staff), daily);
+    }
+
+    private List<StaffRow> loadStaffRows(LocalDate startDate, LocalDate endDate) {
+        Map<Long, StaffRow> byStaff = new LinkedHashMap<>();
+        for (Object[] row : staffAttendanceRepository.countByStaffAndStatusBetween(startDate, endDate)) {
+            StaffAttendanceStatus status = (StaffAttendanceStatus) row[6];
+            StaffRow staffRow = byStaff.computeIfAbsent((Long) row[0], id -> new StaffRow(id,
+                    fullName((String) row[1], (String) row[2], (String) row[3]), (String) row[4], (String) row[5]));
+            if (status != null) {
+                staffRow.counts[status.ordinal()] += ((Number) row[7]).longValue();
+            }
+        }
+        return new ArrayList<>(byStaff.values());
+    }
+
+    private long workingDays(LocalDate startDate, LocalDate endDate) {
+        return holidayCalendar.workingDaysBetween(startDate, endDate.plusDays(1));
+    }
+
+    private static String percentage(long presentDays, long workingDays) {
+        double percentage = workingDays > 0 ? (presentDays * 100.0) / workingDays : 0;
+        return String.format("%.2f%%", percentage);
+    }
+
+    private static String fullName(String firstName, String middleName, String lastName) {
+        if (middleName != null && !middleName.trim().isEmpty()) {
+            return firstName + " " + middleName + " " + lastName;
+        }
+        return firstName + " " + lastName;
+    }
+
+    private static boolean isTeaching(String roleName) {
+        return roleName != null && roleName.toLowerCase().contains("teacher");
+    }
+
+    private static boolean matchesType(String roleName, String employeeType) {
+        return matchesType(isTeaching(roleName), employeeType);
+    }
+
+    private static boolean matchesType(boolean teaching, String employeeType) {
+        if (employeeType == null || "ALL".equalsIgnoreCase(employeeType)) {
+            return true;
+        }
+        if ("TEACHING".equalsIgnoreCase(employeeType)) {
+            return teaching;
+        }
+        if ("NON_TEACHING".equalsIgnoreCase(employeeType)) {
+            return !teaching;
+        }
+        return false;
+    }
+
+    private static final class StaffRow {
+        final Long staffId;
+        final String name;
+        final String department;
+        final String roleName;
+        final long[] counts = new long[STATUS_COUNT];
+
+        StaffRow(Long staffId, String name, String department, String roleName) {
+            this.staffId = staffId;
+            this.name = name;
+            this.department = department;
+            this.roleName = roleName;
+        }
+
+        long count(StaffAttendanceStatus status) {
+            return counts[status.ordinal()];
+        }
+    }
+
+    private static final class MonthSnapshot {
+        final YearMonth month;
+        final List<StaffRow> staff;
+        // [dayOfMonth - 1][teaching ? 1 : 0][status ordinal]
+        final long[][][] daily;
+
+        MonthSnapshot(YearMonth month, List<StaffRow> staff, long[][][] daily) {
+            this.month = month;
+            this.staff = staff;
+            this.daily = daily;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.school.attendance.service;
 
 import com.school.attendance.dto.BulkStaffAttendanceRequest;
 import com.school.attendance.dto.StaffAttendanceDTO;
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
 import com.school.attendance.model.StaffAttendanceStatus;
 
 import org.springframework.web.multipart.MultipartFile;
@@ -70,12 +72,12 @@ public interface StaffAttendanceService {
     /**
      * Get monthly attendance report
      */
-    Map<String, Object> getMonthlyAttendanceReport(int year, int month);
+    StaffMonthlyAttendanceReport getMonthlyAttendanceReport(int year, int month);
     
     /**
      * Get attendance statistics for an employee
      */
-    Map<String, Object> getEmployeeAttendanceStats(Long staffId, LocalDate startDate, LocalDate endDate);
+    StaffAttendanceStats getEmployeeAttendanceStats(Long staffId, LocalDate startDate, LocalDate endDate);
     
     /**
      * Check if a date is a holiday
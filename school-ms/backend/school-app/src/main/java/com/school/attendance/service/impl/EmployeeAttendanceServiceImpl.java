@@ -2,12 +2,15 @@ package com.school.attendance.service.impl;
 
 import com.school.attendance.dto.EmployeeBulkAttendanceRequest;
 import com.school.attendance.dto.EmployeeAttendanceDTO;
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
 import com.school.attendance.model.EmployeeAttendanceStatus;
 import com.school.attendance.model.StaffAttendance;
 import com.school.attendance.model.StaffAttendanceStatus;
 import com.school.attendance.repository.StaffAttendanceRepository;
 import com.school.attendance.service.EmployeeAttendanceService;
 import com.school.attendance.service.HolidayAttendanceService;
+import com.school.attendance.service.StaffAttendanceReports;
 import com.school.core.model.Staff;
 import com.school.core.repository.StaffRepository;
 import com.school.hrm.dto.HolidayDTO;
@@ -20,6 +23,7 @@ import javax.persistence.EntityNotFoundException;
 import javax.transaction.Transactional;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,23 +40,28 @@ public class EmployeeAttendanceServiceImpl implements EmployeeAttendanceService
     private final StaffAttendanceRepository staffAttendanceRepository;
     private final StaffRepository staffRepository;
     private final HolidayAttendanceService holidayAttendanceService;
+    private final StaffAttendanceReports staffAttendanceReports;
     
     @Autowired
     public EmployeeAttendanceServiceImpl(
         HolidayService holidayService,
         StaffAttendanceRepository staffAttendanceRepository,
         StaffRepository staffRepository,
-        HolidayAttendanceService holidayAttendanceService
+        HolidayAttendanceService holidayAttendanceService,
+        StaffAttendanceReports staffAttendanceReports
     ) {
         this.holidayService = holidayService;
         this.staffAttendanceRepository = staffAttendanceRepository;
         this.staffRepository = staffRepository;
         this.holidayAttendanceService = holidayAttendanceService;
+        this.staffAttendanceReports = staffAttendanceReports;
     }
     
     @Override
     @Transactional
     public EmployeeAttendanceDTO createAttendance(EmployeeAttendanceDTO attendanceDTO) {
+        staffAttendanceReports.invalidate();
+
         // Check if the date is a holiday, and if so, mark it automatically
         if (isHoliday(attendanceDTO.getAttendanceDate())) {
             attendanceDTO.setStatus(EmployeeAttendanceStatus.HOLIDAY);
@@ -342,6 +351,7 @@ public class EmployeeAttendanceServiceImpl implements EmployeeAttendanceService
         // Update the entity
         staffAttendance.setStatus(convertEmployeeStatusToStaffStatus(attendanceDTO.getStatus()));
         staffAttendance.setNote(attendanceDTO.getReason());
+        staffAttendanceReports.invalidate();
         
         // Save to database
         StaffAttendance savedAttendance = staffAttendanceRepository.save(staffAttendance);
@@ -360,26 +370,26 @@ public class EmployeeAttendanceServiceImpl implements EmployeeAttendanceService
         
         // Delete from database
         staffAttendanceRepository.deleteById(id);
+        staffAttendanceReports.invalidate();
     }
 
     @Override
-    public Map<String, Object> getMonthlyAttendanceReport(int year, int month, String employeeType) {
-        // TODO: Implement report generation
-        Map<String, Object> report = new HashMap<>();
-        return report;
+    public StaffMonthlyAttendanceReport getMonthlyAttendanceReport(int year, int month, String employeeType) {
+        return staffAttendanceReports.monthlyReport(year, month, employeeType);
     }
     
     @Override
-    public Map<String, Object> getEmployeeAttendanceStats(Long employeeId, LocalDate startDate, LocalDate endDate) {
-        // TODO: Implement employee stats
-        Map<String, Object> stats = new HashMap<>();
-        return stats;
+    public StaffAttendanceStats getEmployeeAttendanceStats(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        Staff staff = staffRepository.findById(employeeId)
+            .orElseThrow(() -> new EntityNotFoundException("Staff not found with id: " + employeeId));
+        return staffAttendanceReports.employeeStats(staff, startDate, endDate);
     }
     
     @Override
     public Map<EmployeeAttendanceStatus, Long> getOverallAttendanceStats(LocalDate startDate, LocalDate endDate, String employeeType) {
-        // TODO: Implement overall stats
-        Map<EmployeeAttendanceStatus, Long> stats = new HashMap<>();
+        Map<EmployeeAttendanceStatus, Long> stats = new EnumMap<>(EmployeeAttendanceStatus.class);
+        staffAttendanceReports.statusCounts(startDate, endDate, employeeType)
+            .forEach((status, count) -> stats.merge(convertStaffStatusToEmployeeStatus(status), count, Long::sum));
         return stats;
     }
 
@@ -4,11 +4,13 @@ import com.school.attendance.model.StaffAttendance;
 import com.school.attendance.model.StaffAttendanceStatus;
 import com.school.attendance.repository.StaffAttendanceRepository;
 import com.school.attendance.service.HolidayAttendanceService;
+import com.school.attendance.service.StaffAttendanceReports;
 import com.school.core.model.Staff;
 import com.school.core.repository.StaffRepository;
 import com.school.hrm.dto.HolidayDTO;
 import com.school.hrm.model.Holiday;
 import com.school.hrm.repository.HolidayRepository;
+import com.school.hrm.service.HolidayCalendar;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,21 +29,27 @@ public class HolidayAttendanceServiceImpl implements HolidayAttendanceService {
     private final HolidayRepository holidayRepository;
     private final StaffRepository staffRepository;
     private final StaffAttendanceRepository staffAttendanceRepository;
+    private final HolidayCalendar holidayCalendar;
+    private final StaffAttendanceReports staffAttendanceReports;
 
     @Autowired
     public HolidayAttendanceServiceImpl(
             HolidayRepository holidayRepository,
             StaffRepository staffRepository,
-            StaffAttendanceRepository staffAttendanceRepository) {
+            StaffAttendanceRepository staffAttendanceRepository,
+            HolidayCalendar holidayCalendar,
+            StaffAttendanceReports staffAttendanceReports) {
         this.holidayRepository = holidayRepository;
         this.staffRepository = staffRepository;
         this.staffAttendanceRepository = staffAttendanceRepository;
+        this.holidayCalendar = holidayCalendar;
+        this.staffAttendanceReports = staffAttendanceReports;
     }
 
     @Override
     public boolean isHoliday(LocalDate date) {
-        // Direct database query for better performance and reliability
-        return holidayRepository.existsByDate(date);
+        // Served from the in-memory holiday calendar; no database round-trip
+        return holidayCalendar.isHoliday(date);
     }
 
     @Override
@@ -86,6 +94,8 @@ public class HolidayAttendanceServiceImpl implements HolidayAttendanceService {
             noteText += " - " + holiday.getDescription();
         }
         
+        staffAttendanceReports.invalidate();
+
         // Get all active staff with roles eagerly loaded
         List<Staff> activeStaff = staffRepository.findAllActiveStaffWithRole();
         System.out.println("Found " + activeStaff.size() + " active staff members");
@@ -2,9 +2,12 @@ package com.school.attendance.service.impl;
 
 import com.school.attendance.dto.BulkStaffAttendanceRequest;
 import com.school.attendance.dto.StaffAttendanceDTO;
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
 import com.school.attendance.model.StaffAttendance;
 import com.school.attendance.model.StaffAttendanceStatus;
 import com.school.attendance.repository.StaffAttendanceRepository;
+import com.school.attendance.service.StaffAttendanceReports;
 import com.school.attendance.service.StaffAttendanceService;
 import com.school.exception.ResourceNotFoundException;
 import com.school.core.model.Staff;
@@ -26,16 +29,20 @@ public class StaffAttendanceServiceImpl implements StaffAttendanceService {
 
     private final StaffAttendanceRepository staffAttendanceRepository;
     private final StaffRepository staffRepository;
+    private final StaffAttendanceReports staffAttendanceReports;
 
     @Autowired
-    public StaffAttendanceServiceImpl(StaffAttendanceRepository staffAttendanceRepository, StaffRepository staffRepository) {
+    public StaffAttendanceServiceImpl(StaffAttendanceRepository staffAttendanceRepository, StaffRepository staffRepository,
+            StaffAttendanceReports staffAttendanceReports) {
         this.staffAttendanceRepository = staffAttendanceRepository;
         this.staffRepository = staffRepository;
+        this.staffAttendanceReports = staffAttendanceReports;
     }
 
     @Override
     @Transactional
     public StaffAttendanceDTO createStaffAttendance(StaffAttendanceDTO staffAttendanceDTO) {
+        staffAttendanceReports.invalidate();
         Staff staff = staffRepository.findById(staffAttendanceDTO.getStaffId())
                 .orElseThrow(() -> new ResourceNotFoundException("Staff not found with id: " + staffAttendanceDTO.getStaffId()));
 
@@ -67,6 +74,7 @@ public class StaffAttendanceServiceImpl implements StaffAttendanceService {
     public List<StaffAttendanceDTO> createBulkStaffAttendance(BulkStaffAttendanceRequest request) {
         LocalDate attendanceDate = request.getAttendanceDate();
         List<StaffAttendanceDTO> results = new ArrayList<>();
+        staffAttendanceReports.invalidate();
         
         for (Map.Entry<Long, StaffAttendanceStatus> entry : request.getStaffAttendanceMap().entrySet()) {
             Long staffId = entry.getKey();
@@ -156,6 +164,7 @@ public class StaffAttendanceServiceImpl implements StaffAttendanceService {
         
         staffAttendance.setStatus(staffAttendanceDTO.getStatus());
         staffAttendance.setNote(staffAttendanceDTO.getNote());
+        staffAttendanceReports.invalidate();
         
         StaffAttendance updatedAttendance = staffAttendanceRepository.save(staffAttendance);
         return convertToDTO(updatedAttendance);
@@ -168,25 +177,12 @@ public class StaffAttendanceServiceImpl implements StaffAttendanceService {
             throw new ResourceNotFoundException("Staff attendance not found with id: " + id);
         }
         staffAttendanceRepository.deleteById(id);
+        staffAttendanceReports.invalidate();
     }
     
     @Override
     public Map<StaffAttendanceStatus, Long> getOverallAttendanceStats(LocalDate startDate, LocalDate endDate) {
-        List<StaffAttendance> attendanceRecords = staffAttendanceRepository.findByAttendanceDateBetween(startDate, endDate);
-        
-        // Group by status and count
-        Map<StaffAttendanceStatus, Long> stats = attendanceRecords.stream()
-                .collect(Collectors.groupingBy(
-                    StaffAttendance::getStatus,
-                    Collectors.counting()
-                ));
-                
-        // Ensure all status values are included in the result
-        for (StaffAttendanceStatus status : StaffAttendanceStatus.values()) {
-            stats.putIfAbsent(status, 0L);
-        }
-        
-        return stats;
+        return staffAttendanceReports.statusCounts(startDate, endDate, "ALL");
     }
 
     @Override
@@ -200,77 +196,15 @@ public class StaffAttendanceServiceImpl implements StaffAttendanceService {
     }
     
     @Override
-    public Map<String, Object> getMonthlyAttendanceReport(int year, int month) {
-        // Get the first and last day of the month
-        LocalDate startDate = LocalDate.of(year, month, 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        
-        // Get all attendance records for the month
-        List<StaffAttendance> attendanceList = staffAttendanceRepository.findByAttendanceDateBetween(startDate, endDate);
-        
-        // Process data and create report
-        Map<String, Object> report = new HashMap<>();
-        report.put("year", year);
-        report.put("month", month);
-        report.put("startDate", startDate);
-        report.put("endDate", endDate);
-        report.put("totalWorkingDays", calculateWorkingDays(startDate, endDate));
-        
-        // Process employee summaries (simplified)
-        List<Map<String, Object>> employeeSummaries = new ArrayList<>();
-        // Populate employeeSummaries based on attendance data
-        report.put("employeeSummaries", employeeSummaries);
-        
-        return report;
-    }
-    
-    private int calculateWorkingDays(LocalDate startDate, LocalDate endDate) {
-        // Basic implementation counting weekdays
-        int workingDays = 0;
-        LocalDate date = startDate;
-        while (!date.isAfter(endDate)) {
-            if (date.getDayOfWeek().getValue() < 6) { // Exclude Saturday (6) and Sunday (7)
-                workingDays++;
-            }
-            date = date.plusDays(1);
-        }
-        return workingDays;
+    public StaffMonthlyAttendanceReport getMonthlyAttendanceReport(int year, int month) {
+        return staffAttendanceReports.monthlyReport(year, month, "ALL");
     }
     
     @Override
-    public Map<String, Object> getEmployeeAttendanceStats(Long staffId, LocalDate startDate, LocalDate endDate) {
-        // Get staff member
+    public StaffAttendanceStats getEmployeeAttendanceStats(Long staffId, LocalDate startDate, LocalDate endDate) {
         Staff staff = staffRepository.findById(staffId)
                 .orElseThrow(() -> new ResourceNotFoundException("Staff not found with id: " + staffId));
-        
-        // Get attendance records
-        List<StaffAttendance> attendanceList = staffAttendanceRepository.findByStaffIdAndAttendanceDateBetween(
-                staffId, startDate, endDate);
-        
-        // Create stats
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("staffId", staffId);
-        stats.put("staffName", staff.getFullName());
-        stats.put("startDate", startDate);
-        stats.put("endDate", endDate);
-        stats.put("totalWorkingDays", calculateWorkingDays(startDate, endDate));
-        
-        // Count status occurrences
-        Map<StaffAttendanceStatus, Long> statusCounts = attendanceList.stream()
-                .collect(Collectors.groupingBy(StaffAttendance::getStatus, Collectors.counting()));
-        
-        stats.put("presentDays", statusCounts.getOrDefault(StaffAttendanceStatus.PRESENT, 0L));
-        stats.put("absentDays", statusCounts.getOrDefault(StaffAttendanceStatus.ABSENT, 0L));
-        stats.put("halfDays", statusCounts.getOrDefault(StaffAttendanceStatus.HALF_DAY, 0L));
-        stats.put("leaveDays", statusCounts.getOrDefault(StaffAttendanceStatus.ON_LEAVE, 0L));
-        
-        // Calculate attendance percentage
-        long totalDays = calculateWorkingDays(startDate, endDate);
-        long presentCount = statusCounts.getOrDefault(StaffAttendanceStatus.PRESENT, 0L);
-        double percentage = totalDays > 0 ? (presentCount * 100.0) / totalDays : 0;
-        stats.put("attendancePercentage", String.format("%.2f%%", percentage));
-        
-        return stats;
+        return staffAttendanceReports.employeeStats(staff, startDate, endDate);
     }
     
     @Override
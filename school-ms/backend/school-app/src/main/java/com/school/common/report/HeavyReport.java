@@ -0,0 +1,18 @@
+package com.school.common.report;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method as a heavy report. It runs on the report bulkhead
+ * ({@link HeavyReportAspect}) instead of the request thread, so only a few reports hold database
+ * connections at once; when the bulkhead is full the request gets 503 straight away.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HeavyReport {
+}
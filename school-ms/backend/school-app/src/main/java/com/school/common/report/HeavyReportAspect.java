@@ -0,0 +1,182 @@
+package com.school.common.report;
+
+import com.school.exception.ReportBusyException;
+import com.school.monitoring.SqlRequestStats;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs {@link HeavyReport} methods on the report bulkhead.
+ * <p>
+ * The aspect has the default (lowest) precedence, so {@code @PreAuthorize} has already been
+ * checked on the request thread; the security context, request attributes and the request's SQL
+ * counter are carried over to the bulkhead thread for the method body. Open-session-in-view is
+ * off, so each report's transaction and connection live entirely on the bulkhead thread.
+ * <p>
+ * The body runs in one transaction with the report timeout, so every JDBC and JPA statement gets
+ * the remaining time as its query timeout. A caller that gives up also interrupts the bulkhead
+ * thread, or skips the report if it has not started yet, so the slot is freed.
+ */
+@Aspect
+@Component
+public class HeavyReportAspect {
+
+    private static final Logger log = LoggerFactory.getLogger(HeavyReportAspect.class);
+
+    private static final long TIMEOUT_SECONDS = 120;
+    // Retry-After hints: a full bulkhead frees up within seconds, a timed-out report holds its slot longer
+    private static final long RETRY_AFTER_FULL_SECONDS = 5;
+    private static final long RETRY_AFTER_TIMEOUT_SECONDS = 60;
+
+    private final ThreadPoolBulkhead reportBulkhead;
+    private final TransactionOperations transactions;
+    private final Duration timeout;
+
+    @Autowired
+    public HeavyReportAspect(ThreadPoolBulkhead reportBulkhead, PlatformTransactionManager transactionManager) {
+        this(reportBulkhead, reportTransactions(transactionManager), Duration.ofSeconds(TIMEOUT_SECONDS));
+    }
+
+    HeavyReportAspect(ThreadPoolBulkhead reportBulkhead, TransactionOperations transactions, Duration timeout) {
+        this.reportBulkhead = reportBulkhead;
+        this.transactions = transactions;
+        this.timeout = timeout;
+    }
+
+    static TransactionTemplate reportTransactions(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setTimeout((int) TIMEOUT_SECONDS);
+        return template;
+    }
+
+    @Around("@annotation(com.school.common.report.HeavyReport)")
+    public Object runOnBulkhead(ProceedingJoinPoint joinPoint) throws Throwable {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        SqlRequestStats sqlStats = SqlRequestStats.current();
+        Worker worker = new Worker();
+        CompletableFuture<Object> result;
+        try {
+            result = reportBulkhead.executeCallable(() -> {
+                if (!worker.start()) {
+                    throw new ReportBusyException("Report timed out, please retry later",
+                            RETRY_AFTER_TIMEOUT_SECONDS);
+                }
+                SecurityContextHolder.setContext(securityContext);
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                SqlRequestStats.bind(sqlStats);
+                try {
+                    return proceed(joinPoint);
+                } finally {
+                    SqlRequestStats.clear();
+                    RequestContextHolder.resetRequestAttributes();
+                    SecurityContextHolder.clearContext();
+                    worker.finish();
+                }
+            }).toCompletableFuture();
+        } catch (BulkheadFullException e) {
+            throw rejected(joinPoint);
+        }
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BulkheadFullException) {
+                throw rejected(joinPoint);
+            }
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            // Cancelling the future does not reach the bulkhead thread, so interrupt it directly
+            worker.cancel();
+            log.warn("Report timed out after {} s: {}", timeout.toSeconds(), joinPoint.getSignature().toShortString());
+            throw new ReportBusyException("Report timed out, please retry later", RETRY_AFTER_TIMEOUT_SECONDS);
+        } catch (InterruptedException e) {
+            worker.cancel();
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private static ReportBusyException rejected(ProceedingJoinPoint joinPoint) {
+        log.warn("Report bulkhead full, rejecting {}", joinPoint.getSignature().toShortString());
+        return new ReportBusyException("Too many reports are running, please retry shortly",
+                RETRY_AFTER_FULL_SECONDS);
+    }
+
+    private Object proceed(ProceedingJoinPoint joinPoint) throws Exception {
+        try {
+            return transactions.execute(status -> {
+                try {
+                    return joinPoint.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    // Rolls back like a runtime exception; unwrapped below
+                    throw new CheckedFailure(t);
+                }
+            });
+        } catch (CheckedFailure e) {
+            if (e.getCause() instanceof Exception checked) {
+                throw checked;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class CheckedFailure extends RuntimeException {
+        CheckedFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * The bulkhead thread running one report. The thread is forgotten under the lock before it
+     * returns to the pool, so a late interrupt never reaches the next report.
+     */
+    private static final class Worker {
+        private Thread thread;
+        private boolean cancelled;
+
+        synchronized boolean start() {
+            if (cancelled) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        void finish() {
+            synchronized (this) {
+                thread = null;
+            }
+            // Clear an interrupt that arrived after the body finished
+            Thread.interrupted();
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
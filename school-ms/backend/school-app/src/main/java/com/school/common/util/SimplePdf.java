@@ -6,17 +6,33 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Minimal PDF generator (no external deps). Produces a single-page PDF with
- * Helvetica text lines.
+ * Minimal PDF generator (no external deps). Produces PDFs of Helvetica text
+ * lines, one title and body per page.
  */
 public final class SimplePdf {
     private SimplePdf() {
     }
 
     public static byte[] generate(List<String> lines, String title) {
+        return assemble(List.of(pageContent(lines, title)));
+    }
+
+    /**
+     * Renders the content stream of a single page. Pages can be rendered independently
+     * (e.g. in parallel) and combined with {@link #assemble(List)}.
+     */
+    public static byte[] pageContent(List<String> lines, String title) {
+        return buildContent(lines, title).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Assembles pre-rendered page content streams into one PDF, one page per entry.
+     */
+    public static byte[] assemble(List<byte[]> pageContents) {
         try {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             List<Integer> offsets = new ArrayList<>();
+            int pageCount = pageContents.size();
 
             // PDF header
             write(out, "%PDF-1.4\n");
@@ -27,42 +43,48 @@ public final class SimplePdf {
             write(out, "<< /Type /Catalog /Pages 2 0 R >>\n");
             write(out, "endobj\n");
 
-            // 2: Pages
+            // 2: Pages (page i is object 4 + 2i, its contents 5 + 2i)
+            StringBuilder kids = new StringBuilder();
+            for (int i = 0; i < pageCount; i++) {
+                kids.append(i == 0 ? "" : " ").append(4 + 2 * i).append(" 0 R");
+            }
             offsets.add(out.size());
             write(out, "2 0 obj\n");
-            write(out, "<< /Type /Pages /Count 1 /Kids [3 0 R] >>\n");
+            write(out, "<< /Type /Pages /Count " + pageCount + " /Kids [" + kids + "] >>\n");
             write(out, "endobj\n");
 
-            // 3: Page
+            // 3: Font
             offsets.add(out.size());
             write(out, "3 0 obj\n");
-            write(out, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 595 842] ");
-            write(out, "/Resources << /Font << /F1 4 0 R >> >> /Contents 5 0 R >>\n");
-            write(out, "endobj\n");
-
-            // 4: Font
-            offsets.add(out.size());
-            write(out, "4 0 obj\n");
             write(out, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>\n");
             write(out, "endobj\n");
 
-            // 5: Contents
-            // Build content stream
-            String content = buildContent(lines, title);
-            byte[] contentBytes = content.getBytes(StandardCharsets.US_ASCII);
-
-            offsets.add(out.size());
-            write(out, "5 0 obj\n");
-            write(out, "<< /Length " + contentBytes.length + " >>\n");
-            write(out, "stream\n");
-            out.write(contentBytes);
-            write(out, "\nendstream\n");
-            write(out, "endobj\n");
+            for (int i = 0; i < pageCount; i++) {
+                int pageObj = 4 + 2 * i;
+                byte[] contentBytes = pageContents.get(i);
+
+                // Page
+                offsets.add(out.size());
+                write(out, pageObj + " 0 obj\n");
+                write(out, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 595 842] ");
+                write(out, "/Resources << /Font << /F1 3 0 R >> >> /Contents " + (pageObj + 1) + " 0 R >>\n");
+                write(out, "endobj\n");
+
+                // Contents
+                offsets.add(out.size());
+                write(out, (pageObj + 1) + " 0 obj\n");
+                write(out, "<< /Length " + contentBytes.length + " >>\n");
+                write(out, "stream\n");
+                out.write(contentBytes);
+                write(out, "\nendstream\n");
+                write(out, "endobj\n");
+            }
 
             // xref
+            int objectCount = offsets.size() + 1;
             int xrefStart = out.size();
             write(out, "xref\n");
-            write(out, "0 6\n");
+            write(out, "0 " + objectCount + "\n");
             write(out, String.format("%010d %05d f \n", 0, 65535));
             for (int off : offsets) {
                 write(out, String.format("%010d %05d n \n", off, 0));
@@ -70,7 +92,7 @@ public final class SimplePdf {
 
             // trailer
             write(out, "trailer\n");
-            write(out, "<< /Size 6 /Root 1 0 R >>\n");
+            write(out, "<< /Size " + objectCount + " /Root 1 0 R >>\n");
             write(out, "startxref\n");
             write(out, Integer.toString(xrefStart));
             write(out, "\n%%EOF\n");
@@ -1,7 +1,10 @@
 package com.school.config;
 
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
 import org.springframework.cloud.client.circuitbreaker.Customizer;
@@ -12,7 +15,8 @@ import java.time.Duration;
 
 /**
  * Configuration for application resilience features.
- * Implements circuit breaker patterns for external service calls.
+ * Implements circuit breaker patterns for external service calls and the bulkhead
+ * that keeps heavy reports from starving OLTP requests of database connections.
  */
 @Configuration
 public class ResilienceConfig {
@@ -76,4 +80,22 @@ public class ResilienceConfig {
                         .build()),
                 "paymentService");
     }
-}
\ No newline at end of file
+
+    /**
+     * Bulkhead for endpoints annotated with {@link com.school.common.report.HeavyReport}.
+     * Its thread count is the number of database connections reports may hold at once, so it
+     * must stay well below the Hikari pool size (5 in production); the short queue absorbs a
+     * click or two and anything beyond it is rejected rather than left waiting.
+     */
+    @Bean(destroyMethod = "close")
+    public ThreadPoolBulkhead reportBulkhead(
+            @Value("${reports.bulkhead.max-concurrent:2}") int maxConcurrent,
+            @Value("${reports.bulkhead.queue-capacity:4}") int queueCapacity) {
+        return ThreadPoolBulkhead.of("reports", ThreadPoolBulkheadConfig.custom()
+                .coreThreadPoolSize(maxConcurrent)
+                .maxThreadPoolSize(maxConcurrent)
+                .queueCapacity(queueCapacity)
+                .keepAliveDuration(Duration.ofSeconds(60))
+                .build());
+    }
+}
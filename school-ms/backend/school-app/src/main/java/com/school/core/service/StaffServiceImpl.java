@@ -3,6 +3,8 @@ package com.school.core.service;
 import com.school.common.dto.BulkUploadResponse;
 import com.school.core.model.Staff;
 import com.school.core.repository.StaffRepository;
+import com.school.security.AuthzContextCache;
+import com.school.timetable.service.TimetableGridCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,10 +26,15 @@ public class StaffServiceImpl implements StaffService {
     private static final Logger logger = LoggerFactory.getLogger(StaffServiceImpl.class);
 
     private final StaffRepository staffRepository;
+    private final AuthzContextCache authzContextCache;
+    private final TimetableGridCache gridCache;
 
     @Autowired
-    public StaffServiceImpl(StaffRepository staffRepository) {
+    public StaffServiceImpl(StaffRepository staffRepository, AuthzContextCache authzContextCache,
+            TimetableGridCache gridCache) {
         this.staffRepository = staffRepository;
+        this.authzContextCache = authzContextCache;
+        this.gridCache = gridCache;
     }
 
     @Override
@@ -74,7 +81,9 @@ public class StaffServiceImpl implements StaffService {
             }
         }
 
-        return staffRepository.save(staff);
+        Staff saved = staffRepository.save(staff);
+        staffChanged();
+        return saved;
     }
 
     @Override
@@ -198,17 +207,21 @@ public class StaffServiceImpl implements StaffService {
                         existingStaff.setTeacherDetails(staffDetails.getTeacherDetails());
                     }
 
-                    return staffRepository.save(existingStaff);
+                    Staff saved = staffRepository.save(existingStaff);
+                    staffChanged();
+                    return saved;
                 });
     }
 
     @Override
+    @Transactional
     public boolean deleteStaff(Long id) {
         logger.info("Deleting staff with ID: {}", id);
 
         return staffRepository.findById(id)
                 .map(staff -> {
                     staffRepository.delete(staff);
+                    staffChanged();
                     return true;
                 })
                 .orElse(false);
@@ -326,11 +339,20 @@ public class StaffServiceImpl implements StaffService {
         }
     }
 
+    // Staff rows feed the authorization contexts and the teacher names in cached timetable views
+    private void staffChanged() {
+        authzContextCache.staffChangedAfterCommit();
+        gridCache.allChanged();
+    }
+
     @Override
+    @Transactional
     public Staff save(Staff staff) {
         // Synchronize role fields to ensure consistency
         synchronizeRoleFields(staff);
-        return staffRepository.save(staff);
+        Staff saved = staffRepository.save(staff);
+        staffChanged();
+        return saved;
     }
 
     /**
@@ -10,6 +10,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/exams/marks")
@@ -45,6 +46,15 @@ public class ExamMarksController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/unlock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> unlockMarks(@RequestParam Long examId,
+            @RequestParam Long subjectId,
+            @RequestBody List<Long> studentIds) {
+        service.unlockMarks(examId, subjectId, studentIds);
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping("/edit")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> editLockedMark(@RequestParam Long examId,
@@ -64,6 +74,13 @@ public class ExamMarksController {
         return ResponseEntity.ok().build();
     }
 
+    // Hit/miss/eviction counters of the per-student marks read model
+    @GetMapping("/cache-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> getCacheStats() {
+        return ResponseEntity.ok(service.getReadModelStats());
+    }
+
     // Matrix: subjects constrained by QPF for exam+class; rows are students of the
     // section
     @GetMapping("/matrix")
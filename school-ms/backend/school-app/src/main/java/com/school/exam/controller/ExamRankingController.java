@@ -0,0 +1,40 @@
+package com.school.exam.controller;
+
+import com.school.exam.dto.RankDTO;
+import com.school.exam.service.ExamRankingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/exams/rankings")
+public class ExamRankingController {
+    private static final int MAX_TOP = 100;
+
+    private final ExamRankingService service;
+
+    public ExamRankingController(ExamRankingService service) {
+        this.service = service;
+    }
+
+    // Overall rank first, then one entry per subject the student is ranked in
+    @GetMapping("/student")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('TEACHER') and @authz.isTeacherOfClass(#classId)) or (hasRole('STUDENT') and @authz.isMyStudentId(#studentId))")
+    public ResponseEntity<List<RankDTO>> getStudentRanks(@RequestParam Long examId,
+            @RequestParam Long classId,
+            @RequestParam Long studentId) {
+        return ResponseEntity.ok(service.getStudentRanks(examId, classId, studentId));
+    }
+
+    // Top-N for a subject, or overall when subjectId is omitted
+    @GetMapping("/top")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('TEACHER') and @authz.isTeacherOfClass(#classId))")
+    public ResponseEntity<List<RankDTO>> getTop(@RequestParam Long examId,
+            @RequestParam Long classId,
+            @RequestParam(required = false) Long subjectId,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(service.getTop(examId, classId, subjectId, Math.min(limit, MAX_TOP)));
+    }
+}
@@ -0,0 +1,35 @@
+package com.school.exam.controller;
+
+import com.school.exam.dto.ItemAnalysisDTO;
+import com.school.exam.service.ItemAnalysisService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/exams/item-analysis")
+public class ItemAnalysisController {
+
+    private final ItemAnalysisService service;
+
+    public ItemAnalysisController(ItemAnalysisService service) {
+        this.service = service;
+    }
+
+    // Recomputes and stores the analysis for the whole exam
+    @PostMapping("/{examId}/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ItemAnalysisDTO>> run(@PathVariable Long examId) {
+        return ResponseEntity.ok(service.analyze(examId));
+    }
+
+    // Last stored results; per subject, questions first and then units (computed over each student's unit total)
+    @GetMapping("/{examId}")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ResponseEntity<List<ItemAnalysisDTO>> getResults(@PathVariable Long examId,
+            @RequestParam(required = false) Long subjectId) {
+        return ResponseEntity.ok(service.getResults(examId, subjectId));
+    }
+}
@@ -0,0 +1,58 @@
+package com.school.exam.controller;
+
+import com.school.exam.dto.ReportCardJobDTO;
+import com.school.exam.service.ReportCardService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/exams/report-cards")
+public class ReportCardController {
+
+    private final ReportCardService service;
+
+    public ReportCardController(ReportCardService service) {
+        this.service = service;
+    }
+
+    // Starts generation for a class; poll the returned job for progress. format = PDF (combined) or ZIP
+    @PostMapping("/jobs")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('TEACHER') and @authz.isTeacherOfClassSection(#classId, #section))")
+    public ResponseEntity<ReportCardJobDTO> submit(@RequestParam Long examId,
+            @RequestParam Long classId,
+            @RequestParam Integer grade,
+            @RequestParam String section,
+            @RequestParam(defaultValue = "PDF") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate attendanceFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate attendanceTo) {
+        ReportCardJobDTO job = service.submit(examId, classId, grade, section, format, attendanceFrom, attendanceTo);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    // Only the submitting user or an admin can see a job (403 otherwise)
+    @GetMapping("/jobs/{jobId}")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ResponseEntity<ReportCardJobDTO> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(service.getJob(jobId));
+    }
+
+    // 409 until the job has completed
+    @GetMapping("/jobs/{jobId}/download")
+    @PreAuthorize("hasAnyRole('ADMIN','TEACHER')")
+    public ResponseEntity<byte[]> download(@PathVariable String jobId) {
+        ReportCardService.ReportCardResult result = service.getResult(jobId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(result.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(result.fileName()).build().toString())
+                .body(result.content());
+    }
+}
@@ -45,6 +45,7 @@ public class BulkMarksUpdateRequest {
         private Long questionFormatId;
         private Double obtainedMarks;
         private String evaluatorComments;
+        private Long version; // detail row version; null skips the conflict check
 
         public Long getStudentId() {
             return studentId;
@@ -77,5 +78,13 @@ public class BulkMarksUpdateRequest {
         public void setEvaluatorComments(String evaluatorComments) {
             this.evaluatorComments = evaluatorComments;
         }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        public void setVersion(Long version) {
+            this.version = version;
+        }
     }
 }
@@ -0,0 +1,131 @@
+package com.school.exam.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Item statistics for one question (level QUESTION) or one unit of a subject (level UNIT).
+ * Difficulty is mean obtained / max marks; discrimination is the difference in that ratio
+ * between the top and bottom 27% of students ranked by subject total.
+ * <p>
+ * For a unit, each student's marks are first summed over the unit's questions: responses is the
+ * number of students, and max, mean and standard deviation are those of the per-student unit totals.
+ */
+public class ItemAnalysisDTO {
+    private Long examId;
+    private Long subjectId;
+    private String level; // QUESTION or UNIT
+    private Long questionFormatId;
+    private Integer questionNumber;
+    private String unitName;
+    private long responses;
+    private Double maxMarks;
+    private Double meanMarks;
+    private Double stdDev;
+    private Double difficultyIndex;
+    private Double discriminationIndex;
+    private LocalDateTime computedAt;
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public void setExamId(Long examId) {
+        this.examId = examId;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public void setSubjectId(Long subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public void setLevel(String level) {
+        this.level = level;
+    }
+
+    public Long getQuestionFormatId() {
+        return questionFormatId;
+    }
+
+    public void setQuestionFormatId(Long questionFormatId) {
+        this.questionFormatId = questionFormatId;
+    }
+
+    public Integer getQuestionNumber() {
+        return questionNumber;
+    }
+
+    public void setQuestionNumber(Integer questionNumber) {
+        this.questionNumber = questionNumber;
+    }
+
+    public String getUnitName() {
+        return unitName;
+    }
+
+    public void setUnitName(String unitName) {
+        this.unitName = unitName;
+    }
+
+    public long getResponses() {
+        return responses;
+    }
+
+    public void setResponses(long responses) {
+        this.responses = responses;
+    }
+
+    public Double getMaxMarks() {
+        return maxMarks;
+    }
+
+    public void setMaxMarks(Double maxMarks) {
+        this.maxMarks = maxMarks;
+    }
+
+    public Double getMeanMarks() {
+        return meanMarks;
+    }
+
+    public void setMeanMarks(Double meanMarks) {
+        this.meanMarks = meanMarks;
+    }
+
+    public Double getStdDev() {
+        return stdDev;
+    }
+
+    public void setStdDev(Double stdDev) {
+        this.stdDev = stdDev;
+    }
+
+    public Double getDifficultyIndex() {
+        return difficultyIndex;
+    }
+
+    public void setDifficultyIndex(Double difficultyIndex) {
+        this.difficultyIndex = difficultyIndex;
+    }
+
+    public Double getDiscriminationIndex() {
+        return discriminationIndex;
+    }
+
+    public void setDiscriminationIndex(Double discriminationIndex) {
+        this.discriminationIndex = discriminationIndex;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
@@ -0,0 +1,132 @@
+package com.school.exam.dto;
+
+import java.util.List;
+
+/**
+ * 409 body for a marks save that lost a concurrent update: the current value and version of
+ * every conflicting cell, so the client can merge and resubmit.
+ */
+public class MarksConflictDTO {
+    private String message;
+    private List<Cell> conflicts;
+
+    public MarksConflictDTO() {
+    }
+
+    public MarksConflictDTO(String message, List<Cell> conflicts) {
+        this.message = message;
+        this.conflicts = conflicts;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<Cell> getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(List<Cell> conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * A subject cell (questionFormatId null) or a question cell. Values are null if the row no longer exists.
+     */
+    public static class Cell {
+        private Long studentId;
+        private Long subjectId;
+        private Long questionFormatId;
+        private Long currentVersion;
+        private Double theoryMarks;
+        private Double practicalMarks;
+        private Boolean absent;
+        private String absenceReason;
+        private Double obtainedMarks;
+        private String evaluatorComments;
+
+        public Long getStudentId() {
+            return studentId;
+        }
+
+        public void setStudentId(Long studentId) {
+            this.studentId = studentId;
+        }
+
+        public Long getSubjectId() {
+            return subjectId;
+        }
+
+        public void setSubjectId(Long subjectId) {
+            this.subjectId = subjectId;
+        }
+
+        public Long getQuestionFormatId() {
+            return questionFormatId;
+        }
+
+        public void setQuestionFormatId(Long questionFormatId) {
+            this.questionFormatId = questionFormatId;
+        }
+
+        public Long getCurrentVersion() {
+            return currentVersion;
+        }
+
+        public void setCurrentVersion(Long currentVersion) {
+            this.currentVersion = currentVersion;
+        }
+
+        public Double getTheoryMarks() {
+            return theoryMarks;
+        }
+
+        public void setTheoryMarks(Double theoryMarks) {
+            this.theoryMarks = theoryMarks;
+        }
+
+        public Double getPracticalMarks() {
+            return practicalMarks;
+        }
+
+        public void setPracticalMarks(Double practicalMarks) {
+            this.practicalMarks = practicalMarks;
+        }
+
+        public Boolean getAbsent() {
+            return absent;
+        }
+
+        public void setAbsent(Boolean absent) {
+            this.absent = absent;
+        }
+
+        public String getAbsenceReason() {
+            return absenceReason;
+        }
+
+        public void setAbsenceReason(String absenceReason) {
+            this.absenceReason = absenceReason;
+        }
+
+        public Double getObtainedMarks() {
+            return obtainedMarks;
+        }
+
+        public void setObtainedMarks(Double obtainedMarks) {
+            this.obtainedMarks = obtainedMarks;
+        }
+
+        public String getEvaluatorComments() {
+            return evaluatorComments;
+        }
+
+        public void setEvaluatorComments(String evaluatorComments) {
+            this.evaluatorComments = evaluatorComments;
+        }
+    }
+}
@@ -97,6 +97,7 @@ public class MarksMatrixResponse {
         private Double practicalMarks; // nullable
         private Boolean absent; // nullable
         private String absenceReason;
+        private Long version; // summary row version, null when no marks saved yet
 
         public Long getSubjectId() {
             return subjectId;
@@ -137,5 +138,13 @@ public class MarksMatrixResponse {
         public void setAbsenceReason(String absenceReason) {
             this.absenceReason = absenceReason;
         }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        public void setVersion(Long version) {
+            this.version = version;
+        }
     }
 }
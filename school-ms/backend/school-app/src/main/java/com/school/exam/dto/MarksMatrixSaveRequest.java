@@ -58,6 +58,7 @@ public class MarksMatrixSaveRequest {
         private Double practicalMarks;
         private Boolean absent;
         private String absenceReason;
+        private Long version; // version read with the matrix; null skips the conflict check
 
         public Long getSubjectId() {
             return subjectId;
@@ -98,5 +99,13 @@ public class MarksMatrixSaveRequest {
         public void setAbsenceReason(String absenceReason) {
             this.absenceReason = absenceReason;
         }
+
+        public Long getVersion() {
+            return version;
+        }
+
+        public void setVersion(Long version) {
+            this.version = version;
+        }
     }
 }
@@ -8,6 +8,7 @@ public class QuestionMarkDTO {
     private Double maxMarks;
     private Double obtainedMarks;
     private String evaluatorComments;
+    private Long version; // detail row version; null skips the conflict check
 
     public Long getQuestionId() {
         return questionId;
@@ -64,4 +65,12 @@ public class QuestionMarkDTO {
     public void setEvaluatorComments(String evaluatorComments) {
         this.evaluatorComments = evaluatorComments;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,67 @@
+package com.school.exam.dto;
+
+public class RankDTO {
+    private Long studentId;
+    private String studentName;
+    private Long subjectId; // null for the overall (all subjects) ranking
+    private Double score;
+    private Integer rank; // competition ranking: ties share a rank (1, 2, 2, 4)
+    private Double percentile; // share of the class scoring below, counting ties as half
+    private Integer outOf;
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(Long studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public void setStudentName(String studentName) {
+        this.studentName = studentName;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public void setSubjectId(Long subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public Integer getRank() {
+        return rank;
+    }
+
+    public void setRank(Integer rank) {
+        this.rank = rank;
+    }
+
+    public Double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(Double percentile) {
+        this.percentile = percentile;
+    }
+
+    public Integer getOutOf() {
+        return outOf;
+    }
+
+    public void setOutOf(Integer outOf) {
+        this.outOf = outOf;
+    }
+}
@@ -16,6 +16,7 @@ public class StudentMarksDTO {
     private Double maxTheoryMarks;
     private Double totalPracticalMarks;
     private Double maxPracticalMarks;
+    private Long version; // summary row version; null skips the conflict check
 
     public Long getStudentId() {
         return studentId;
@@ -120,4 +121,12 @@ public class StudentMarksDTO {
     public void setMaxPracticalMarks(Double maxPracticalMarks) {
         this.maxPracticalMarks = maxPracticalMarks;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,21 @@
+package com.school.exam.exception;
+
+import com.school.exam.dto.MarksConflictDTO;
+
+import java.util.List;
+
+/**
+ * Thrown when a marks save was based on stale row versions. Carries the current cell values.
+ */
+public class MarksConflictException extends RuntimeException {
+    private final List<MarksConflictDTO.Cell> conflicts;
+
+    public MarksConflictException(List<MarksConflictDTO.Cell> conflicts) {
+        super("Marks were changed by someone else (" + conflicts.size() + " cell(s))");
+        this.conflicts = conflicts;
+    }
+
+    public List<MarksConflictDTO.Cell> getConflicts() {
+        return conflicts;
+    }
+}
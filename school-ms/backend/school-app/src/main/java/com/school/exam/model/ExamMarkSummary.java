@@ -11,6 +11,9 @@ public class ExamMarkSummary {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    private Long version;
+
     @Column(name = "exam_id", nullable = false)
     private Long examId;
 
@@ -139,4 +142,12 @@ public class ExamMarkSummary {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -2,9 +2,36 @@ package com.school.exam.repository;
 
 import com.school.exam.model.ExamMarkDetail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ExamMarkDetailRepository extends JpaRepository<ExamMarkDetail, Long> {
     List<ExamMarkDetail> findBySummaryId(Long summaryId);
+
+    /**
+     * Details for many summaries at once. Each row is [summaryId, detail].
+     */
+    @Query("select d.summary.id, d from ExamMarkDetail d where d.summary.id in :summaryIds "
+            + "order by d.summary.id, d.questionNumber")
+    List<Object[]> findWithSummaryIdBySummaryIdIn(@Param("summaryIds") Collection<Long> summaryIds);
+
+    /**
+     * Current and maximum marks of one question. Each row is [obtainedMarks, maxMarks].
+     */
+    @Query("select d.obtainedMarks, d.maxMarks from ExamMarkDetail d "
+            + "where d.summary.id = :summaryId and d.questionFormatId = :questionFormatId")
+    List<Object[]> findMarksBySummaryIdAndQuestionFormatId(@Param("summaryId") Long summaryId,
+            @Param("questionFormatId") Long questionFormatId);
+
+    @Modifying
+    @Query("update ExamMarkDetail d set d.obtainedMarks = :marks, d.lastEditReason = :reason, "
+            + "d.lastEditAt = :now, d.updatedAt = :now, d.version = d.version + 1 "
+            + "where d.summary.id = :summaryId and d.questionFormatId = :questionFormatId")
+    int updateObtainedMarks(@Param("summaryId") Long summaryId, @Param("questionFormatId") Long questionFormatId,
+            @Param("marks") Double marks, @Param("reason") String reason, @Param("now") LocalDateTime now);
 }
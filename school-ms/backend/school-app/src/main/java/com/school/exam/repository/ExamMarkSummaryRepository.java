@@ -2,7 +2,10 @@ package com.school.exam.repository;
 
 import com.school.exam.model.ExamMarkSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +13,15 @@ public interface ExamMarkSummaryRepository extends JpaRepository<ExamMarkSummary
     Optional<ExamMarkSummary> findByExamIdAndSubjectIdAndStudentId(Long examId, Long subjectId, Long studentId);
 
     List<ExamMarkSummary> findByExamIdAndSubjectIdAndClassId(Long examId, Long subjectId, Long classId);
+
+    List<ExamMarkSummary> findByExamIdAndClassId(Long examId, Long classId);
+
+    List<ExamMarkSummary> findByExamIdAndStudentIdIn(Long examId, Collection<Long> studentIds);
+
+    List<ExamMarkSummary> findByExamIdAndSubjectIdAndStudentIdIn(Long examId, Long subjectId, Collection<Long> studentIds);
+
+    @Query("select s.id from ExamMarkSummary s "
+            + "where s.examId = :examId and s.subjectId = :subjectId and s.studentId = :studentId")
+    Optional<Long> findIdByExamIdAndSubjectIdAndStudentId(@Param("examId") Long examId,
+            @Param("subjectId") Long subjectId, @Param("studentId") Long studentId);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +15,18 @@ public interface QuestionPaperFormatRepository extends JpaRepository<QuestionPap
 
     @Query("select distinct q.subjectId from QuestionPaperFormat q where q.examId = :examId and q.classId = :classId")
     List<Long> findDistinctSubjectIdsByExamIdAndClassId(@Param("examId") Long examId, @Param("classId") Long classId);
+
+    @Query("select distinct q.classId from QuestionPaperFormat q where q.id in :ids")
+    List<Long> findDistinctClassIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct q.classId from QuestionPaperFormat q where q.examId = :examId and q.subjectId = :subjectId")
+    List<Long> findDistinctClassIdsByExamIdAndSubjectId(@Param("examId") Long examId,
+            @Param("subjectId") Long subjectId);
+
+    /**
+     * Total QPF marks per subject for an exam/class. Each row is [subjectId, totalMarks].
+     */
+    @Query("select q.subjectId, sum(q.marks) from QuestionPaperFormat q where q.examId = :examId and q.classId = :classId "
+            + "group by q.subjectId order by q.subjectId")
+    List<Object[]> sumMarksBySubjectForExamAndClass(@Param("examId") Long examId, @Param("classId") Long classId);
 }
@@ -7,6 +7,7 @@ import com.school.exam.model.Subject;
 import com.school.exam.repository.ExamConfigRepository;
 import com.school.exam.repository.SchoolClassRepository;
 import com.school.exam.repository.SubjectRepository;
+import com.school.timetable.service.TimetableGridCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -41,6 +42,8 @@ public class ExamConfigService {
     private SchoolClassRepository classRepository;
     @Autowired
     private SubjectRepository subjectRepository;
+    @Autowired
+    private TimetableGridCache gridCache;
 
     public List<SchoolClass> getAllClasses() {
         return classRepository.findAll();
@@ -64,11 +67,15 @@ public class ExamConfigService {
             }
         }
         System.out.println("[DEBUG] No duplicate found, saving subject.");
-        return subjectRepository.save(subject);
+        Subject saved = subjectRepository.save(subject);
+        // Subject codes and names are rendered into the cached timetable views
+        gridCache.allChanged();
+        return saved;
     }
 
     public void deleteSubject(Long id) {
         subjectRepository.deleteById(id);
+        gridCache.allChanged();
     }
 
     public void copyExamConfigs(Long sourceClassId, List<Long> targetClassIds) {
@@ -126,6 +133,8 @@ public class ExamConfigService {
                 }
             }
         }
-        return subjectRepository.saveAll(subjects);
+        List<Subject> saved = subjectRepository.saveAll(subjects);
+        gridCache.allChanged();
+        return saved;
     }
 }
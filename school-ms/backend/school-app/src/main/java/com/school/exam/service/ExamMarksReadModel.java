@@ -0,0 +1,276 @@
+package com.school.exam.service;
+
+import com.school.common.util.AfterCommit;
+import com.school.exam.dto.QuestionMarkDTO;
+import com.school.exam.dto.StudentMarksDTO;
+import com.school.exam.model.ExamMarkDetail;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.model.QuestionPaperFormat;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cached read model behind the per-student marks entry screen.
+ * <p>
+ * Entries are keyed by (exam, class, subject) and hold the question paper metadata plus a lazily
+ * filled map of each student's summary and per-question marks, so tabbing through students costs
+ * no queries after the first visit. Writers invalidate precisely after commit: marks writes drop
+ * only the affected students, question paper changes drop the (exam, class, subject) entry.
+ * At most {@code MAX_ENTRIES} subjects are kept, least recently used first out.
+ */
+@Component
+public class ExamMarksReadModel {
+
+    private static final int MAX_ENTRIES = 256;
+
+    private final QuestionPaperFormatRepository qpfRepo;
+    private final ExamMarkSummaryRepository summaryRepo;
+    private final ExamMarkDetailRepository detailRepo;
+
+    private final Map<Key, SubjectMarks> entries = Collections.synchronizedMap(
+            new LinkedHashMap<Key, SubjectMarks>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, SubjectMarks> eldest) {
+                    if (size() > MAX_ENTRIES) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            });
+    // Bumped on every invalidation; a load that raced with one is returned but not cached
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder subjectHits = new LongAdder();
+    private final LongAdder subjectMisses = new LongAdder();
+    private final LongAdder studentHits = new LongAdder();
+    private final LongAdder studentMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ExamMarksReadModel(QuestionPaperFormatRepository qpfRepo, ExamMarkSummaryRepository summaryRepo,
+            ExamMarkDetailRepository detailRepo) {
+        this.qpfRepo = qpfRepo;
+        this.summaryRepo = summaryRepo;
+        this.detailRepo = detailRepo;
+    }
+
+    /**
+     * Builds the marks entry view for one student. Students without saved marks get zeroes.
+     */
+    public StudentMarksDTO getStudentMarks(Long examId, Long classId, Long subjectId, Long studentId) {
+        SubjectMarks subject = subject(new Key(examId, classId, subjectId));
+        StudentMarks marks = student(subject, examId, subjectId, studentId);
+
+        StudentMarksDTO dto = new StudentMarksDTO();
+        dto.setExamId(examId);
+        dto.setSubjectId(subjectId);
+        dto.setStudentId(studentId);
+        dto.setStudentName("");
+        dto.setRollNumber("");
+        dto.setAbsent(marks.absent);
+        dto.setAbsenceReason(marks.absenceReason);
+        dto.setTotalTheoryMarks(marks.theory);
+        dto.setTotalPracticalMarks(marks.practical);
+        dto.setMaxTheoryMarks(subject.maxTheory);
+        dto.setMaxPracticalMarks(subject.maxPractical);
+        dto.setVersion(marks.version);
+
+        List<QuestionMarkDTO> questionMarks = new ArrayList<>(subject.questions.size());
+        for (Question q : subject.questions) {
+            QuestionMarkDTO qm = new QuestionMarkDTO();
+            qm.setQuestionId(q.id());
+            qm.setQuestionNumber(q.number());
+            qm.setChapterName(q.unitName());
+            qm.setMaxMarks(q.maxMarks());
+            qm.setQuestionType(q.type());
+            DetailMarks d = marks.byQuestion.get(q.id());
+            qm.setObtainedMarks(d != null ? d.obtained() : Double.valueOf(0.0));
+            qm.setEvaluatorComments(d != null ? d.comments() : "");
+            qm.setVersion(d != null ? d.version() : null);
+            questionMarks.add(qm);
+        }
+        dto.setQuestionMarks(questionMarks);
+        return dto;
+    }
+
+    /**
+     * Drops the cached marks of the given students for one exam subject once the transaction commits.
+     */
+    public void invalidateStudents(Long examId, Long subjectId, Collection<Long> studentIds) {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            invalidations.increment();
+            for (SubjectMarks s : matching(examId, subjectId)) {
+                s.students.keySet().removeAll(studentIds);
+            }
+        });
+    }
+
+    /**
+     * Drops the cached marks of the given students in every subject of an exam.
+     */
+    public void invalidateStudents(Long examId, Collection<Long> studentIds) {
+        invalidateStudents(examId, null, studentIds);
+    }
+
+    /**
+     * Drops the question paper and all marks cached for one (exam, class, subject).
+     */
+    public void invalidateQuestions(Long examId, Long classId, Long subjectId) {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            invalidations.increment();
+            entries.remove(new Key(examId, classId, subjectId));
+        });
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("entries", (long) entries.size());
+        stats.put("subjectHits", subjectHits.sum());
+        stats.put("subjectMisses", subjectMisses.sum());
+        stats.put("studentHits", studentHits.sum());
+        stats.put("studentMisses", studentMisses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private SubjectMarks subject(Key key) {
+        SubjectMarks cached = entries.get(key);
+        if (cached != null) {
+            subjectHits.increment();
+            return cached;
+        }
+        subjectMisses.increment();
+        long seen = version.get();
+        List<QuestionPaperFormat> qpfList = qpfRepo.findByExamIdAndClassIdAndSubjectId(key.examId(), key.classId(),
+                key.subjectId());
+        List<Question> questions = new ArrayList<>(qpfList.size());
+        double maxTheory = 0;
+        double maxPractical = 0;
+        for (QuestionPaperFormat q : qpfList) {
+            String type = ExamMarksService.determineType(q);
+            questions.add(new Question(q.getId(), q.getQuestionNumber(), q.getUnitName(), q.getMarks(), type));
+            double max = q.getMarks() == null ? 0 : q.getMarks();
+            if ("PRACTICAL".equals(type)) {
+                maxPractical += max;
+            } else {
+                maxTheory += max;
+            }
+        }
+        SubjectMarks loaded = new SubjectMarks(Collections.unmodifiableList(questions), maxTheory, maxPractical);
+        if (version.get() != seen) {
+            return loaded;
+        }
+        synchronized (entries) {
+            SubjectMarks existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            entries.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private StudentMarks student(SubjectMarks subject, Long examId, Long subjectId, Long studentId) {
+        StudentMarks cached = subject.students.get(studentId);
+        if (cached != null) {
+            studentHits.increment();
+            return cached;
+        }
+        studentMisses.increment();
+        long seen = version.get();
+        StudentMarks loaded = StudentMarks.NONE;
+        Optional<ExamMarkSummary> summary = summaryRepo.findByExamIdAndSubjectIdAndStudentId(examId, subjectId,
+                studentId);
+        if (summary.isPresent()) {
+            ExamMarkSummary s = summary.get();
+            Map<Long, DetailMarks> byQuestion = new HashMap<>();
+            for (ExamMarkDetail d : detailRepo.findBySummaryId(s.getId())) {
+                byQuestion.put(d.getQuestionFormatId(),
+                        new DetailMarks(d.getObtainedMarks(), d.getEvaluatorComments(), d.getVersion()));
+            }
+            loaded = new StudentMarks(Boolean.TRUE.equals(s.getIsAbsent()), s.getAbsenceReason(),
+                    s.getTotalTheoryMarks() == null ? 0.0 : s.getTotalTheoryMarks(),
+                    s.getTotalPracticalMarks() == null ? 0.0 : s.getTotalPracticalMarks(), s.getVersion(),
+                    Collections.unmodifiableMap(byQuestion));
+        }
+        if (version.get() == seen) {
+            subject.students.putIfAbsent(studentId, loaded);
+        }
+        return loaded;
+    }
+
+    private List<SubjectMarks> matching(Long examId, Long subjectId) {
+        List<SubjectMarks> result = new ArrayList<>();
+        synchronized (entries) {
+            for (Map.Entry<Key, SubjectMarks> e : entries.entrySet()) {
+                Key k = e.getKey();
+                if (k.examId().equals(examId) && (subjectId == null || k.subjectId().equals(subjectId))) {
+                    result.add(e.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    private record Key(Long examId, Long classId, Long subjectId) {
+    }
+
+    private record Question(Long id, Integer number, String unitName, Double maxMarks, String type) {
+    }
+
+    private record DetailMarks(Double obtained, String comments, Long version) {
+    }
+
+    private static final class SubjectMarks {
+        final List<Question> questions;
+        final double maxTheory;
+        final double maxPractical;
+        final Map<Long, StudentMarks> students = new ConcurrentHashMap<>();
+
+        SubjectMarks(List<Question> questions, double maxTheory, double maxPractical) {
+            this.questions = questions;
+            this.maxTheory = maxTheory;
+            this.maxPractical = maxPractical;
+        }
+    }
+
+    private static final class StudentMarks {
+        // No summary saved yet
+        static final StudentMarks NONE = new StudentMarks(false, null, 0.0, 0.0, null, Collections.emptyMap());
+
+        final boolean absent;
+        final String absenceReason;
+        final Double theory;
+        final Double practical;
+        final Long version;
+        final Map<Long, DetailMarks> byQuestion;
+
+        StudentMarks(boolean absent, String absenceReason, Double theory, Double practical, Long version,
+                Map<Long, DetailMarks> byQuestion) {
+            this.absent = absent;
+            this.absenceReason = absenceReason;
+            this.theory = theory;
+            this.practical = practical;
+            this.version = version;
+            this.byQuestion = byQuestion;
+        }
+    }
+}
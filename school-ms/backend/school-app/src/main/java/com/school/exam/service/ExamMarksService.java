@@ -1,9 +1,11 @@
 package com.school.exam.service;
 
+import com.school.exam.dto.MarksConflictDTO;
 import com.school.exam.dto.QuestionMarkDTO;
 import com.school.exam.dto.StudentMarksDTO;
 import com.school.exam.dto.MarksMatrixResponse;
 import com.school.exam.dto.MarksMatrixSaveRequest;
+import com.school.exam.exception.MarksConflictException;
 import com.school.exam.model.ExamMarkDetail;
 import com.school.exam.model.ExamMarkSummary;
 import com.school.exam.model.QuestionPaperFormat;
@@ -14,12 +16,21 @@ import com.school.exam.repository.ExamMarkSummaryRepository;
 import com.school.exam.repository.QuestionPaperFormatRepository;
 import com.school.student.model.Student;
 import com.school.student.repository.StudentRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,18 +40,33 @@ public class ExamMarksService {
     private final QuestionPaperFormatRepository qpfRepo;
     private final StudentRepository studentRepository;
     private final SubjectRepository subjectRepository;
+    private final MarksBatchWriter marksBatchWriter;
+    private final ExamRankingService rankingService;
+    private final MarksAuditLog auditLog;
+    private final ExamMarksReadModel readModel;
+    private final TransactionTemplate conflictReadTx;
 
     public ExamMarksService(ExamMarkSummaryRepository summaryRepo, ExamMarkDetailRepository detailRepo,
             QuestionPaperFormatRepository qpfRepo, StudentRepository studentRepository,
-            SubjectRepository subjectRepository) {
+            SubjectRepository subjectRepository, MarksBatchWriter marksBatchWriter,
+            ExamRankingService rankingService, MarksAuditLog auditLog, ExamMarksReadModel readModel,
+            PlatformTransactionManager transactionManager) {
         this.summaryRepo = summaryRepo;
         this.detailRepo = detailRepo;
         this.qpfRepo = qpfRepo;
         this.studentRepository = studentRepository;
         this.subjectRepository = subjectRepository;
+        this.marksBatchWriter = marksBatchWriter;
+        this.rankingService = rankingService;
+        this.auditLog = auditLog;
+        this.readModel = readModel;
+        // The failed insert leaves the caller's transaction unusable, so the winner is read in its own
+        this.conflictReadTx = new TransactionTemplate(transactionManager);
+        this.conflictReadTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.conflictReadTx.setReadOnly(true);
     }
 
-    private String determineType(QuestionPaperFormat q) {
+    static String determineType(QuestionPaperFormat q) {
         // TODO: If subject metadata exists, use that; for now infer from unit name
         // keywords
         String unit = q.getUnitName() == null ? "" : q.getUnitName().toLowerCase();
@@ -52,69 +78,49 @@ public class ExamMarksService {
 
     @Transactional(readOnly = true)
     public StudentMarksDTO getStudentMarks(Long examId, Long classId, Long subjectId, Long studentId) {
-        Optional<ExamMarkSummary> existing = summaryRepo.findByExamIdAndSubjectIdAndStudentId(examId, subjectId,
-                studentId);
-        List<QuestionPaperFormat> qpfList = qpfRepo.findByExamIdAndClassIdAndSubjectId(examId, classId, subjectId);
-
-        StudentMarksDTO dto = new StudentMarksDTO();
-        dto.setExamId(examId);
-        dto.setSubjectId(subjectId);
-        dto.setStudentId(studentId);
-        dto.setStudentName("");
-        dto.setRollNumber("");
-        dto.setTotalTheoryMarks(0.0);
-        dto.setTotalPracticalMarks(0.0);
-
-        // Build question marks from QPF
-        List<QuestionMarkDTO> questionMarks = qpfList.stream().map(q -> {
-            QuestionMarkDTO qm = new QuestionMarkDTO();
-            qm.setQuestionId(q.getId());
-            qm.setQuestionNumber(q.getQuestionNumber());
-            qm.setChapterName(q.getUnitName());
-            qm.setMaxMarks(q.getMarks());
-            qm.setQuestionType(determineType(q));
-            qm.setObtainedMarks(0.0);
-            qm.setEvaluatorComments("");
-            return qm;
-        }).collect(Collectors.toList());
-
-        if (existing.isPresent()) {
-            ExamMarkSummary summary = existing.get();
-            dto.setAbsent(Boolean.TRUE.equals(summary.getIsAbsent()));
-            dto.setAbsenceReason(summary.getAbsenceReason());
-            dto.setTotalTheoryMarks(summary.getTotalTheoryMarks() == null ? 0.0 : summary.getTotalTheoryMarks());
-            dto.setTotalPracticalMarks(
-                    summary.getTotalPracticalMarks() == null ? 0.0 : summary.getTotalPracticalMarks());
-
-            List<ExamMarkDetail> details = detailRepo.findBySummaryId(summary.getId());
-            // Merge into questionMarks by questionFormatId
-            for (QuestionMarkDTO qm : questionMarks) {
-                for (ExamMarkDetail d : details) {
-                    if (qm.getQuestionId().equals(d.getQuestionFormatId())) {
-                        qm.setObtainedMarks(d.getObtainedMarks());
-                        qm.setEvaluatorComments(d.getEvaluatorComments());
-                    }
-                }
-            }
-        }
+        return readModel.getStudentMarks(examId, classId, subjectId, studentId);
+    }
 
-        // compute max buckets
-        double maxTheory = questionMarks.stream().filter(q -> "THEORY".equalsIgnoreCase(q.getQuestionType()))
-                .mapToDouble(q -> q.getMaxMarks() == null ? 0 : q.getMaxMarks()).sum();
-        double maxPractical = questionMarks.stream().filter(q -> "PRACTICAL".equalsIgnoreCase(q.getQuestionType()))
-                .mapToDouble(q -> q.getMaxMarks() == null ? 0 : q.getMaxMarks()).sum();
-        dto.setMaxTheoryMarks(maxTheory);
-        dto.setMaxPracticalMarks(maxPractical);
-        dto.setQuestionMarks(questionMarks);
-        return dto;
+    public Map<String, Long> getReadModelStats() {
+        return readModel.stats();
     }
 
+    /**
+     * Saves one student's marks. Rows whose version in the request differs from the stored one are
+     * rejected with a {@link MarksConflictException} carrying their current values; a null version
+     * skips the check. Races between this check and the write are caught by the entities' @Version,
+     * and two first entries for the same student and subject by the summary's unique key; the loser
+     * of the latter gets the same conflict, with the row the other evaluator saved.
+     */
     @Transactional
     public void saveStudentMarks(StudentMarksDTO dto) {
         ExamMarkSummary summary = summaryRepo
                 .findByExamIdAndSubjectIdAndStudentId(dto.getExamId(), dto.getSubjectId(), dto.getStudentId())
                 .orElseGet(ExamMarkSummary::new);
+        Map<Long, ExamMarkDetail> existing = summary.getId() == null
+                ? Collections.emptyMap()
+                : detailRepo.findBySummaryId(summary.getId()).stream()
+                        .collect(Collectors.toMap(ExamMarkDetail::getQuestionFormatId, d -> d, (a, b) -> a));
+
+        List<MarksConflictDTO.Cell> conflicts = new ArrayList<>();
+        if (summary.getId() != null && dto.getVersion() != null && !dto.getVersion().equals(summary.getVersion())) {
+            conflicts.add(MarksConflicts.summaryCell(dto.getStudentId(), dto.getSubjectId(), summary));
+        }
+        for (QuestionMarkDTO qm : dto.getQuestionMarks()) {
+            ExamMarkDetail d = existing.get(qm.getQuestionId());
+            if (d != null && qm.getVersion() != null && !qm.getVersion().equals(d.getVersion())) {
+                conflicts.add(MarksConflicts.detailCell(dto.getStudentId(), dto.getSubjectId(), qm.getQuestionId(),
+                        d));
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new MarksConflictException(conflicts);
+        }
+
         summary.setExamId(dto.getExamId());
+        if (summary.getClassId() == null) {
+            summary.setClassId(resolveClassId(dto));
+        }
         summary.setSubjectId(dto.getSubjectId());
         summary.setStudentId(dto.getStudentId());
         summary.setIsAbsent(dto.isAbsent());
@@ -122,15 +128,23 @@ public class ExamMarksService {
         summary.setTotalTheoryMarks(dto.getTotalTheoryMarks());
         summary.setTotalPracticalMarks(dto.getTotalPracticalMarks());
         summary.setUpdatedAt(LocalDateTime.now());
-        ExamMarkSummary saved = summaryRepo.save(summary);
+        ExamMarkSummary saved;
+        if (summary.getId() == null) {
+            try {
+                saved = summaryRepo.saveAndFlush(summary);
+            } catch (DataIntegrityViolationException e) {
+                throw new MarksConflictException(List.of(MarksConflicts.summaryCell(dto.getStudentId(),
+                        dto.getSubjectId(), currentSummary(dto))));
+            }
+        } else {
+            saved = summaryRepo.save(summary);
+        }
+        rankingService.recordSummary(saved);
+        readModel.invalidateStudents(dto.getExamId(), dto.getSubjectId(), List.of(dto.getStudentId()));
 
         // Save details (upsert by questionFormatId)
-        List<ExamMarkDetail> existing = detailRepo.findBySummaryId(saved.getId());
         for (QuestionMarkDTO qm : dto.getQuestionMarks()) {
-            ExamMarkDetail det = existing.stream()
-                    .filter(d -> d.getQuestionFormatId().equals(qm.getQuestionId()))
-                    .findFirst()
-                    .orElseGet(ExamMarkDetail::new);
+            ExamMarkDetail det = existing.getOrDefault(qm.getQuestionId(), new ExamMarkDetail());
             det.setSummary(saved);
             det.setQuestionFormatId(qm.getQuestionId());
             det.setQuestionNumber(qm.getQuestionNumber());
@@ -144,108 +158,136 @@ public class ExamMarksService {
         }
     }
 
+    private ExamMarkSummary currentSummary(StudentMarksDTO dto) {
+        return conflictReadTx.execute(status -> summaryRepo
+                .findByExamIdAndSubjectIdAndStudentId(dto.getExamId(), dto.getSubjectId(), dto.getStudentId())
+                .orElse(null));
+    }
+
+    /**
+     * The class the marks belong to: that of the question paper rows they were entered against, or
+     * the only class with a question paper for this exam and subject. Null when it is ambiguous,
+     * which only happens for an absent-only entry that is not ranked anyway.
+     */
+    private Long resolveClassId(StudentMarksDTO dto) {
+        List<Long> questionIds = dto.getQuestionMarks() == null ? Collections.emptyList()
+                : dto.getQuestionMarks().stream().map(QuestionMarkDTO::getQuestionId)
+                        .filter(Objects::nonNull).collect(Collectors.toList());
+        List<Long> classIds = questionIds.isEmpty() ? Collections.emptyList()
+                : qpfRepo.findDistinctClassIdsByIdIn(questionIds);
+        if (classIds.isEmpty()) {
+            classIds = qpfRepo.findDistinctClassIdsByExamIdAndSubjectId(dto.getExamId(), dto.getSubjectId());
+        }
+        return classIds.size() == 1 ? classIds.get(0) : null;
+    }
+
     @Transactional
     public void lockMarks(Long examId, Long subjectId, List<Long> studentIds) {
-        for (Long studentId : studentIds) {
-            summaryRepo.findByExamIdAndSubjectIdAndStudentId(examId, subjectId, studentId).ifPresent(summary -> {
-                summary.setLocked(true);
-                summary.setUpdatedAt(LocalDateTime.now());
-                summaryRepo.save(summary);
-            });
+        setLocked(examId, subjectId, studentIds, true);
+    }
+
+    @Transactional
+    public void unlockMarks(Long examId, Long subjectId, List<Long> studentIds) {
+        setLocked(examId, subjectId, studentIds, false);
+    }
+
+    private void setLocked(Long examId, Long subjectId, List<Long> studentIds, boolean locked) {
+        if (studentIds == null || studentIds.isEmpty()) {
+            return;
         }
+        List<Long> distinct = studentIds.stream().distinct().collect(Collectors.toList());
+        // Audit only the rows whose state changed, not every requested student
+        List<Long> changed = marksBatchWriter.setLocked(examId, subjectId, distinct, locked);
+        auditLog.recordLockChange(examId, subjectId, changed, locked);
     }
 
     @Transactional
     public void editLockedMark(Long examId, Long subjectId, Long studentId, Long questionFormatId, Double newMarks,
             String reason) {
-        ExamMarkSummary summary = summaryRepo.findByExamIdAndSubjectIdAndStudentId(examId, subjectId, studentId)
+        Long summaryId = summaryRepo.findIdByExamIdAndSubjectIdAndStudentId(examId, subjectId, studentId)
                 .orElseThrow(() -> new IllegalArgumentException("Marks not found"));
-        List<ExamMarkDetail> details = detailRepo.findBySummaryId(summary.getId());
-        for (ExamMarkDetail d : details) {
-            if (d.getQuestionFormatId().equals(questionFormatId)) {
-                d.setObtainedMarks(newMarks);
-                d.setLastEditReason(reason);
-                d.setLastEditAt(LocalDateTime.now());
-                detailRepo.save(d);
-                break;
-            }
+        List<Object[]> current = detailRepo.findMarksBySummaryIdAndQuestionFormatId(summaryId, questionFormatId);
+        if (current.isEmpty()) {
+            throw new IllegalArgumentException("Marks not found");
+        }
+        Double oldMarks = (Double) current.get(0)[0];
+        Double maxMarks = (Double) current.get(0)[1];
+        if (newMarks != null && maxMarks != null && newMarks > maxMarks + 1e-9) {
+            throw new IllegalArgumentException("Marks exceed maximum: " + newMarks + "/" + maxMarks);
         }
+        detailRepo.updateObtainedMarks(summaryId, questionFormatId, newMarks, reason, LocalDateTime.now());
+        auditLog.recordEdit(examId, subjectId, studentId, questionFormatId, oldMarks, newMarks, reason);
+        readModel.invalidateStudents(examId, subjectId, List.of(studentId));
     }
 
     @Transactional
     public void bulkUpdate(Long examId, Long classId, Long subjectId,
             List<com.school.exam.dto.BulkMarksUpdateRequest.BulkMarkItem> updates) {
-        // Group by student and upsert details
-        for (var item : updates) {
-            ExamMarkSummary summary = summaryRepo
-                    .findByExamIdAndSubjectIdAndStudentId(examId, subjectId, item.getStudentId())
-                    .orElseGet(ExamMarkSummary::new);
-            summary.setExamId(examId);
-            summary.setClassId(classId);
-            summary.setSubjectId(subjectId);
-            summary.setStudentId(item.getStudentId());
-            summary.setUpdatedAt(LocalDateTime.now());
-            summary = summaryRepo.save(summary);
-
-            List<ExamMarkDetail> existing = detailRepo.findBySummaryId(summary.getId());
-            ExamMarkDetail det = existing.stream()
-                    .filter(d -> d.getQuestionFormatId().equals(item.getQuestionFormatId()))
-                    .findFirst().orElseGet(ExamMarkDetail::new);
-            det.setSummary(summary);
-            det.setQuestionFormatId(item.getQuestionFormatId());
-            // Fetch QPF to fill in metadata if new
-            qpfRepo.findById(item.getQuestionFormatId()).ifPresent(q -> {
-                det.setQuestionNumber(q.getQuestionNumber());
-                det.setUnitName(q.getUnitName());
-                det.setQuestionType(determineType(q));
-                det.setMaxMarks(q.getMarks());
-            });
-            det.setObtainedMarks(item.getObtainedMarks());
-            det.setEvaluatorComments(item.getEvaluatorComments());
-            det.setUpdatedAt(LocalDateTime.now());
-            detailRepo.save(det);
+        marksBatchWriter.bulkUpdate(examId, classId, subjectId, updates);
+        if (updates != null && !updates.isEmpty()) {
+            readModel.invalidateStudents(examId, subjectId, updates.stream()
+                    .map(com.school.exam.dto.BulkMarksUpdateRequest.BulkMarkItem::getStudentId)
+                    .collect(Collectors.toSet()));
         }
     }
 
     @Transactional(readOnly = true)
     public MarksMatrixResponse getMarksMatrix(Long examId, Long classId, Integer grade, String section) {
-        // Subjects constrained to QPF for exam/class
-        List<Long> subjectIds = qpfRepo.findDistinctSubjectIdsByExamIdAndClassId(examId, classId);
-        List<Subject> subjects = subjectRepository.findAllById(subjectIds);
-        List<MarksMatrixResponse.SubjectColumn> cols = subjects.stream().map(s -> {
+        // Subjects constrained to QPF for exam/class, with their max totals in one grouped query
+        Map<Long, Double> totalsBySubject = new LinkedHashMap<>();
+        for (Object[] row : qpfRepo.sumMarksBySubjectForExamAndClass(examId, classId)) {
+            totalsBySubject.put((Long) row[0], row[1] == null ? 0.0 : ((Number) row[1]).doubleValue());
+        }
+        Map<Long, Subject> subjectsById = subjectRepository.findAllById(totalsBySubject.keySet()).stream()
+                .collect(Collectors.toMap(Subject::getId, s -> s));
+        List<MarksMatrixResponse.SubjectColumn> cols = new ArrayList<>();
+        for (Map.Entry<Long, Double> e : totalsBySubject.entrySet()) {
+            Subject s = subjectsById.get(e.getKey());
+            if (s == null) {
+                continue;
+            }
             MarksMatrixResponse.SubjectColumn c = new MarksMatrixResponse.SubjectColumn();
             c.setSubjectId(s.getId());
             c.setSubjectName(s.getName());
-            double totalMax = qpfRepo.findByExamIdAndClassIdAndSubjectId(examId, classId, s.getId())
-                    .stream().mapToDouble(q -> q.getMarks() == null ? 0.0 : q.getMarks()).sum();
-            c.setTotalMaxMarks(totalMax);
-            return c;
-        }).collect(Collectors.toList());
+            c.setTotalMaxMarks(e.getValue());
+            cols.add(c);
+        }
 
-        // Students in grade/section
+        // Students in grade/section, and all their summaries for the exam in one query
         List<Student> students = studentRepository.findByGradeAndSection(grade, section);
-        List<MarksMatrixResponse.StudentRow> rows = students.stream().map(st -> {
+        Map<Long, Map<Long, ExamMarkSummary>> summaries = new HashMap<>();
+        if (!students.isEmpty() && !cols.isEmpty()) {
+            List<Long> studentIds = students.stream().map(Student::getId).collect(Collectors.toList());
+            for (ExamMarkSummary sum : summaryRepo.findByExamIdAndStudentIdIn(examId, studentIds)) {
+                summaries.computeIfAbsent(sum.getStudentId(), k -> new HashMap<>()).put(sum.getSubjectId(), sum);
+            }
+        }
+
+        List<MarksMatrixResponse.StudentRow> rows = new ArrayList<>(students.size());
+        for (Student st : students) {
             MarksMatrixResponse.StudentRow r = new MarksMatrixResponse.StudentRow();
             r.setStudentId(st.getId());
             r.setStudentName(st.getFirstName() + " " + st.getLastName());
             r.setRollNumber(st.getRollNumber());
-            List<MarksMatrixResponse.StudentSubjectCell> cells = cols.stream().map(c -> {
+            Map<Long, ExamMarkSummary> bySubject = summaries.getOrDefault(st.getId(), Collections.emptyMap());
+            List<MarksMatrixResponse.StudentSubjectCell> cells = new ArrayList<>(cols.size());
+            for (MarksMatrixResponse.SubjectColumn c : cols) {
                 MarksMatrixResponse.StudentSubjectCell cell = new MarksMatrixResponse.StudentSubjectCell();
                 cell.setSubjectId(c.getSubjectId());
                 // Pull summary totals if present
-                Optional<ExamMarkSummary> sumOpt = summaryRepo.findByExamIdAndSubjectIdAndStudentId(examId,
-                        c.getSubjectId(), st.getId());
-                sumOpt.ifPresent(sum -> {
+                ExamMarkSummary sum = bySubject.get(c.getSubjectId());
+                if (sum != null) {
                     cell.setAbsent(Boolean.TRUE.equals(sum.getIsAbsent()));
                     cell.setAbsenceReason(sum.getAbsenceReason());
                     cell.setTheoryMarks(sum.getTotalTheoryMarks());
                     cell.setPracticalMarks(sum.getTotalPracticalMarks());
-                });
-                return cell;
-            }).collect(Collectors.toList());
+                    cell.setVersion(sum.getVersion());
+                }
+                cells.add(cell);
+            }
             r.setCells(cells);
-            return r;
-        }).collect(Collectors.toList());
+            rows.add(r);
+        }
 
         MarksMatrixResponse resp = new MarksMatrixResponse();
         resp.setSubjects(cols);
@@ -255,38 +297,23 @@ public class ExamMarksService {
 
     @Transactional
     public void saveMarksMatrix(MarksMatrixSaveRequest request) {
-        Long examId = request.getExamId();
-        Long classId = request.getClassId();
+        marksBatchWriter.saveMatrix(request);
 
+        List<ExamRankingService.ScoreChange> changes = new ArrayList<>();
         for (MarksMatrixSaveRequest.Row row : request.getRows()) {
-            Long studentId = row.getStudentId();
             for (MarksMatrixSaveRequest.Cell cell : row.getSubjects()) {
-                Long subjectId = cell.getSubjectId();
-
-                // Validate theory+practical <= exam total for the subject (from QPF sum)
-                double totalMax = qpfRepo.findByExamIdAndClassIdAndSubjectId(examId, classId, subjectId)
-                        .stream().mapToDouble(q -> q.getMarks() == null ? 0.0 : q.getMarks()).sum();
-                double theory = cell.getTheoryMarks() == null ? 0.0 : cell.getTheoryMarks();
-                double practical = cell.getPracticalMarks() == null ? 0.0 : cell.getPracticalMarks();
-                if (theory + practical > totalMax + 1e-9) {
-                    throw new IllegalArgumentException("Marks exceed total for subject " + subjectId + ": "
-                            + (theory + practical) + "/" + totalMax);
+                Double score = null;
+                if (!Boolean.TRUE.equals(cell.getAbsent())
+                        && (cell.getTheoryMarks() != null || cell.getPracticalMarks() != null)) {
+                    score = (cell.getTheoryMarks() == null ? 0.0 : cell.getTheoryMarks())
+                            + (cell.getPracticalMarks() == null ? 0.0 : cell.getPracticalMarks());
                 }
-
-                ExamMarkSummary summary = summaryRepo
-                        .findByExamIdAndSubjectIdAndStudentId(examId, subjectId, studentId)
-                        .orElseGet(ExamMarkSummary::new);
-                summary.setExamId(examId);
-                summary.setClassId(classId);
-                summary.setSubjectId(subjectId);
-                summary.setStudentId(studentId);
-                summary.setIsAbsent(Boolean.TRUE.equals(cell.getAbsent()));
-                summary.setAbsenceReason(cell.getAbsenceReason());
-                summary.setTotalTheoryMarks(cell.getTheoryMarks());
-                summary.setTotalPracticalMarks(cell.getPracticalMarks());
-                summary.setUpdatedAt(LocalDateTime.now());
-                summaryRepo.save(summary);
+                changes.add(new ExamRankingService.ScoreChange(cell.getSubjectId(), row.getStudentId(), score));
             }
         }
+        rankingService.recordScores(request.getExamId(), request.getClassId(), changes);
+        readModel.invalidateStudents(request.getExamId(), changes.stream()
+                .map(ExamRankingService.ScoreChange::studentId)
+                .collect(Collectors.toSet()));
     }
 }
@@ -0,0 +1,359 @@
+package com.school.exam.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.school.common.util.AfterCommit;
+import com.school.exam.dto.RankDTO;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.student.model.Student;
+import com.school.student.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Class ranks and percentiles per (exam, class), for each subject and overall.
+ * <p>
+ * Each (exam, class) is loaded once from {@code exam_mark_summaries} into score boards kept
+ * sorted by score, and then updated incrementally (after commit) as marks are saved. Rank and
+ * percentile lookups are binary searches and top-N is a prefix read, so nothing re-sorts the
+ * class on read. A student's score is theory + practical totals; absent students are not ranked.
+ * Overall scores are the sum of the student's ranked subject scores.
+ * <p>
+ * Boards are kept for at most {@value #MAX_BOARDS} exam/class pairs and dropped after
+ * {@value #IDLE_MINUTES} minutes without a read or write, so past exams do not stay in memory.
+ */
+@Service
+public class ExamRankingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExamRankingService.class);
+
+    private static final int MAX_BOARDS = 500;
+    private static final int IDLE_MINUTES = 60;
+
+    private final ExamMarkSummaryRepository summaryRepo;
+    private final StudentRepository studentRepository;
+    private final Cache<ExamClassKey, ExamBoards> boards = Caffeine.newBuilder()
+            .maximumSize(MAX_BOARDS)
+            .expireAfterAccess(IDLE_MINUTES, TimeUnit.MINUTES)
+            .build();
+    private final AtomicLong version = new AtomicLong();
+
+    public ExamRankingService(ExamMarkSummaryRepository summaryRepo, StudentRepository studentRepository) {
+        this.summaryRepo = summaryRepo;
+        this.studentRepository = studentRepository;
+    }
+
+    /**
+     * A saved subject score. {@code score == null} removes the student from the subject ranking.
+     */
+    public record ScoreChange(Long subjectId, Long studentId, Double score) {
+    }
+
+    /**
+     * Applies saved scores for one exam/class once the current transaction commits.
+     */
+    public void recordScores(Long examId, Long classId, List<ScoreChange> changes) {
+        if (examId == null || classId == null || changes.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            ExamBoards b = boards.getIfPresent(new ExamClassKey(examId, classId));
+            if (b == null) {
+                // Not loaded yet; it is read from the database on first query
+                return;
+            }
+            for (ScoreChange c : changes) {
+                b.put(c.subjectId(), c.studentId(), c.score());
+            }
+        });
+    }
+
+    /**
+     * Convenience for a single summary row.
+     */
+    public void recordSummary(ExamMarkSummary summary) {
+        recordScores(summary.getExamId(), summary.getClassId(),
+                List.of(new ScoreChange(summary.getSubjectId(), summary.getStudentId(), scoreOf(summary))));
+    }
+
+    /**
+     * Returns the student's overall rank followed by one entry per ranked subject, by subject id.
+     */
+    public List<RankDTO> getStudentRanks(Long examId, Long classId, Long studentId) {
+        ExamBoards b = boardsFor(examId, classId);
+        List<RankDTO> result = new ArrayList<>();
+        RankDTO overall = b.overall.ranked.rankOf(studentId);
+        if (overall != null) {
+            result.add(overall);
+        }
+        for (Map.Entry<Long, Board> e : b.bySubjectSnapshot().entrySet()) {
+            RankDTO r = e.getValue().ranked.rankOf(studentId);
+            if (r != null) {
+                r.setSubjectId(e.getKey());
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the top {@code limit} students for a subject, or overall when {@code subjectId} is null.
+     */
+    public List<RankDTO> getTop(Long examId, Long classId, Long subjectId, int limit) {
+        ExamBoards b = boardsFor(examId, classId);
+        Board board = subjectId == null ? b.overall : b.bySubjectSnapshot().get(subjectId);
+        if (board == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<RankDTO> top = board.ranked.top(limit);
+        Map<Long, Student> students = studentRepository
+                .findAllById(top.stream().map(RankDTO::getStudentId).collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(Student::getId, Function.identity()));
+        for (RankDTO r : top) {
+            r.setSubjectId(subjectId);
+            Student st = students.get(r.getStudentId());
+            if (st != null) {
+                r.setStudentName(st.getFirstName() + " " + st.getLastName());
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Drops all loaded boards; they are rebuilt from the database on next access.
+     */
+    public void invalidateAll() {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            boards.invalidateAll();
+        });
+    }
+
+    private ExamBoards boardsFor(Long examId, Long classId) {
+        ExamClassKey key = new ExamClassKey(examId, classId);
+        ExamBoards b = boards.getIfPresent(key);
+        if (b != null) {
+            return b;
+        }
+        long seen = version.get();
+        ExamBoards loaded = new ExamBoards();
+        List<ExamMarkSummary> summaries = summaryRepo.findByExamIdAndClassId(examId, classId);
+        for (ExamMarkSummary s : summaries) {
+            loaded.put(s.getSubjectId(), s.getStudentId(), scoreOf(s));
+        }
+        log.debug("Loaded rankings for exam {} class {} from {} summaries", examId, classId, summaries.size());
+        // Only cache if no scores were recorded while loading, otherwise they could be lost
+        if (version.get() != seen) {
+            return loaded;
+        }
+        ExamBoards existing = boards.asMap().putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static Double scoreOf(ExamMarkSummary s) {
+        if (Boolean.TRUE.equals(s.getIsAbsent())) {
+            return null;
+        }
+        if (s.getTotalTheoryMarks() == null && s.getTotalPracticalMarks() == null) {
+            return null;
+        }
+        double theory = s.getTotalTheoryMarks() == null ? 0.0 : s.getTotalTheoryMarks();
+        double practical = s.getTotalPracticalMarks() == null ? 0.0 : s.getTotalPracticalMarks();
+        return theory + practical;
+    }
+
+    private record ExamClassKey(Long examId, Long classId) {
+    }
+
+    /**
+     * Subject boards plus the overall board for one exam/class. Writes are serialized on this
+     * object; readers use the boards' immutable snapshots without locking.
+     */
+    private static final class ExamBoards {
+        final Board overall = new Board();
+        private final Map<Long, Board> bySubject = new HashMap<>();
+        private final Map<Long, Map<Long, Double>> subjectScoresByStudent = new HashMap<>();
+        private volatile Map<Long, Board> bySubjectView = Collections.emptyMap();
+
+        synchronized void put(Long subjectId, Long studentId, Double score) {
+            Board board = bySubject.get(subjectId);
+            if (board == null) {
+                if (score == null) {
+                    return;
+                }
+                board = new Board();
+                bySubject.put(subjectId, board);
+                bySubjectView = Collections.unmodifiableMap(new TreeMap<>(bySubject));
+            }
+            board.put(studentId, score);
+
+            Map<Long, Double> perSubject = subjectScoresByStudent.computeIfAbsent(studentId, k -> new HashMap<>());
+            if (score == null) {
+                perSubject.remove(subjectId);
+            } else {
+                perSubject.put(subjectId, score);
+            }
+            if (perSubject.isEmpty()) {
+                subjectScoresByStudent.remove(studentId);
+                overall.put(studentId, null);
+            } else {
+                overall.put(studentId, perSubject.values().stream().mapToDouble(Double::doubleValue).sum());
+            }
+        }
+
+        Map<Long, Board> bySubjectSnapshot() {
+            return bySubjectView;
+        }
+    }
+
+    /**
+     * One ranking. Updates copy the sorted arrays (O(n) for a class-sized n) and publish a new snapshot.
+     */
+    private static final class Board {
+        volatile Ranked ranked = Ranked.EMPTY;
+
+        synchronized void put(Long studentId, Double score) {
+            ranked = ranked.with(studentId, score);
+        }
+    }
+
+    /**
+     * Immutable snapshot sorted by score descending, then student id ascending.
+     */
+    private static final class Ranked {
+        static final Ranked EMPTY = new Ranked(new double[0], new long[0], Collections.emptyMap());
+
+        final double[] scores;
+        final long[] ids;
+        final Map<Long, Double> byStudent;
+
+        Ranked(double[] scores, long[] ids, Map<Long, Double> byStudent) {
+            this.scores = scores;
+            this.ids = ids;
+            this.byStudent = byStudent;
+        }
+
+        Ranked with(Long studentId, Double score) {
+            Double previous = byStudent.get(studentId);
+            if (previous == null && score == null) {
+                return this;
+            }
+            int n = scores.length;
+            double[] s = scores;
+            long[] id = ids;
+            if (previous != null) {
+                int at = insertionPoint(s, id, n, previous, studentId);
+                double[] ns = new double[n - 1];
+                long[] ni = new long[n - 1];
+                System.arraycopy(s, 0, ns, 0, at);
+                System.arraycopy(s, at + 1, ns, at, n - at - 1);
+                System.arraycopy(id, 0, ni, 0, at);
+                System.arraycopy(id, at + 1, ni, at, n - at - 1);
+                s = ns;
+                id = ni;
+                n--;
+            }
+            Map<Long, Double> map = new HashMap<>(byStudent);
+            if (score == null) {
+                map.remove(studentId);
+            } else {
+                int at = insertionPoint(s, id, n, score, studentId);
+                double[] ns = new double[n + 1];
+                long[] ni = new long[n + 1];
+                System.arraycopy(s, 0, ns, 0, at);
+                System.arraycopy(s, at, ns, at + 1, n - at);
+                System.arraycopy(id, 0, ni, 0, at);
+                System.arraycopy(id, at, ni, at + 1, n - at);
+                ns[at] = score;
+                ni[at] = studentId;
+                s = ns;
+                id = ni;
+                map.put(studentId, score);
+            }
+            return new Ranked(s, id, Collections.unmodifiableMap(map));
+        }
+
+        RankDTO rankOf(Long studentId) {
+            Double score = byStudent.get(studentId);
+            if (score == null) {
+                return null;
+            }
+            return entry(studentId, score);
+        }
+
+        List<RankDTO> top(int limit) {
+            int count = Math.min(limit, scores.length);
+            List<RankDTO> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(entry(ids[i], scores[i]));
+            }
+            return result;
+        }
+
+        /**
+         * Rank and percentile of one score; ties share the rank and count half towards the percentile.
+         */
+        private RankDTO entry(long studentId, double score) {
+            int n = scores.length;
+            int greater = countAbove(score, false);
+            int greaterOrEqual = countAbove(score, true);
+            int below = n - greaterOrEqual;
+            int equal = greaterOrEqual - greater;
+            RankDTO r = new RankDTO();
+            r.setStudentId(studentId);
+            r.setScore(score);
+            r.setRank(greater + 1);
+            r.setPercentile(Math.round((below + 0.5 * equal) * 10000.0 / n) / 100.0);
+            r.setOutOf(n);
+            return r;
+        }
+
+        /**
+         * Number of entries with a score above {@code score} (or at least {@code score} when inclusive).
+         */
+        private int countAbove(double score, boolean inclusive) {
+            int lo = 0;
+            int hi = scores.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (scores[mid] > score || (inclusive && scores[mid] == score)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * First position whose entry does not sort before (score, studentId).
+         */
+        private static int insertionPoint(double[] s, long[] id, int n, double score, long studentId) {
+            int lo = 0;
+            int hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (s[mid] > score || (s[mid] == score && id[mid] < studentId)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
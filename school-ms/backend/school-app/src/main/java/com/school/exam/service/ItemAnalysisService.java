@@ -0,0 +1,324 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.ItemAnalysisDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Question-level item analysis (difficulty and discrimination indices) for an exam.
+ * <p>
+ * Students are split per subject into the top and bottom 27% by subject total using one grouped
+ * query. All {@code exam_mark_details} rows of the exam are then streamed once, ordered by question,
+ * and folded into constant-size accumulators (Welford mean/variance plus upper/lower group sums);
+ * each question is finalized as soon as the stream moves past it. In the same pass each student's
+ * unit total (obtained and maximum marks over the unit's questions) is summed, and unit-level figures
+ * are computed over those totals, one response per student. Results replace the exam's rows in
+ * {@code exam_item_analysis}.
+ */
+@Service
+public class ItemAnalysisService {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemAnalysisService.class);
+
+    public static final String LEVEL_QUESTION = "QUESTION";
+    public static final String LEVEL_UNIT = "UNIT";
+
+    static final double GROUP_FRACTION = 0.27;
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String STUDENT_TOTALS_SQL = "SELECT s.subject_id, s.student_id, "
+            + "COALESCE(SUM(d.obtained_marks), 0) FROM exam_mark_summaries s "
+            + "JOIN exam_mark_details d ON d.summary_id = s.id "
+            + "WHERE s.exam_id = ? AND (s.is_absent IS NULL OR s.is_absent = false) "
+            + "GROUP BY s.subject_id, s.student_id";
+
+    private static final String DETAILS_SQL = "SELECT d.question_format_id, s.subject_id, s.student_id, "
+            + "d.question_number, d.unit_name, d.max_marks, d.obtained_marks FROM exam_mark_details d "
+            + "JOIN exam_mark_summaries s ON s.id = d.summary_id "
+            + "WHERE s.exam_id = ? AND (s.is_absent IS NULL OR s.is_absent = false) AND d.obtained_marks IS NOT NULL "
+            + "ORDER BY d.question_format_id";
+
+    private static final String DELETE_SQL = "DELETE FROM exam_item_analysis WHERE exam_id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO exam_item_analysis "
+            + "(exam_id, subject_id, level, question_format_id, question_number, unit_name, responses, max_marks, "
+            + "mean_marks, std_dev, difficulty_index, discrimination_index, computed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SQL = "SELECT exam_id, subject_id, level, question_format_id, question_number, "
+            + "unit_name, responses, max_marks, mean_marks, std_dev, difficulty_index, discrimination_index, "
+            + "computed_at FROM exam_item_analysis WHERE exam_id = ?";
+
+    private static final String ORDER_BY = " ORDER BY subject_id, level, question_number, unit_name";
+
+    private final JdbcTemplate jdbc;
+
+    public ItemAnalysisService(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Recomputes and stores the item analysis for an exam, returning the new results.
+     */
+    @Transactional
+    public List<ItemAnalysisDTO> analyze(Long examId) {
+        DetailStream stream = new DetailStream(examId, loadGroups(examId), LocalDateTime.now());
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(DETAILS_SQL);
+            // Postgres only streams with a fetch size inside a transaction
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, examId);
+            return ps;
+        }, stream);
+        List<ItemAnalysisDTO> results = stream.finish();
+
+        jdbc.update(DELETE_SQL, examId);
+        List<Object[]> args = new ArrayList<>(results.size());
+        for (ItemAnalysisDTO r : results) {
+            args.add(new Object[] { r.getExamId(), r.getSubjectId(), r.getLevel(), r.getQuestionFormatId(),
+                    r.getQuestionNumber(), r.getUnitName(), r.getResponses(), r.getMaxMarks(), r.getMeanMarks(),
+                    r.getStdDev(), r.getDifficultyIndex(), r.getDiscriminationIndex(),
+                    Timestamp.valueOf(r.getComputedAt()) });
+        }
+        jdbc.batchUpdate(INSERT_SQL, args, new int[] { Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.BIGINT,
+                Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE,
+                Types.DOUBLE, Types.TIMESTAMP });
+        log.info("Item analysis for exam {}: {} mark rows streamed, {} results stored", examId, stream.rows,
+                results.size());
+        return results;
+    }
+
+    /**
+     * Stored results for an exam, optionally for one subject: per subject, questions then units.
+     */
+    @Transactional(readOnly = true)
+    public List<ItemAnalysisDTO> getResults(Long examId, Long subjectId) {
+        if (subjectId == null) {
+            return jdbc.query(SELECT_SQL + ORDER_BY, (rs, i) -> map(rs), examId);
+        }
+        return jdbc.query(SELECT_SQL + " AND subject_id = ?" + ORDER_BY, (rs, i) -> map(rs), examId, subjectId);
+    }
+
+    /**
+     * Per subject: studentId -> +1 (top 27% by subject total), -1 (bottom 27%). Others are absent.
+     */
+    private Map<Long, Map<Long, Integer>> loadGroups(Long examId) {
+        Map<Long, List<double[]>> totalsBySubject = new HashMap<>();
+        jdbc.query(STUDENT_TOTALS_SQL, (RowCallbackHandler) rs -> totalsBySubject
+                .computeIfAbsent(rs.getLong(1), k -> new ArrayList<>())
+                .add(new double[] { rs.getLong(2), rs.getDouble(3) }), examId);
+
+        Map<Long, Map<Long, Integer>> groups = new HashMap<>();
+        for (Map.Entry<Long, List<double[]>> e : totalsBySubject.entrySet()) {
+            groups.put(e.getKey(), splitGroups(e.getValue()));
+        }
+        return groups;
+    }
+
+    /**
+     * Ranks [studentId, total] pairs by total (descending, then student id) and marks the top and
+     * bottom 27%. Fewer than two students gives no groups.
+     */
+    static Map<Long, Integer> splitGroups(List<double[]> totals) {
+        int n = totals.size();
+        if (n < 2) {
+            return Collections.emptyMap();
+        }
+        totals.sort((a, b) -> a[1] != b[1] ? Double.compare(b[1], a[1]) : Double.compare(a[0], b[0]));
+        int k = Math.max(1, Math.min(n / 2, (int) Math.round(n * GROUP_FRACTION)));
+        Map<Long, Integer> groups = new HashMap<>(4 * k);
+        for (int i = 0; i < k; i++) {
+            groups.put((long) totals.get(i)[0], 1);
+            groups.put((long) totals.get(n - 1 - i)[0], -1);
+        }
+        return groups;
+    }
+
+    private static ItemAnalysisDTO map(ResultSet rs) throws SQLException {
+        ItemAnalysisDTO dto = new ItemAnalysisDTO();
+        dto.setExamId(rs.getLong("exam_id"));
+        dto.setSubjectId(rs.getLong("subject_id"));
+        dto.setLevel(rs.getString("level"));
+        dto.setQuestionFormatId((Long) rs.getObject("question_format_id"));
+        dto.setQuestionNumber((Integer) rs.getObject("question_number"));
+        dto.setUnitName(rs.getString("unit_name"));
+        dto.setResponses(rs.getLong("responses"));
+        dto.setMaxMarks((Double) rs.getObject("max_marks"));
+        dto.setMeanMarks((Double) rs.getObject("mean_marks"));
+        dto.setStdDev((Double) rs.getObject("std_dev"));
+        dto.setDifficultyIndex((Double) rs.getObject("difficulty_index"));
+        dto.setDiscriminationIndex((Double) rs.getObject("discrimination_index"));
+        Timestamp computedAt = rs.getTimestamp("computed_at");
+        dto.setComputedAt(computedAt == null ? null : computedAt.toLocalDateTime());
+        return dto;
+    }
+
+    /**
+     * Folds the question-ordered detail stream; only the current question and each student's
+     * running unit totals are held in memory.
+     */
+    static final class DetailStream implements RowCallbackHandler {
+        final Long examId;
+        final Map<Long, Map<Long, Integer>> groups;
+        final LocalDateTime computedAt;
+        final List<ItemAnalysisDTO> results = new ArrayList<>();
+        // unit -> studentId -> [obtained, max] summed over the unit's questions
+        final Map<UnitKey, Map<Long, double[]>> unitTotals = new LinkedHashMap<>();
+        long rows;
+        ItemAnalysisDTO question;
+        ItemStats stats;
+
+        DetailStream(Long examId, Map<Long, Map<Long, Integer>> groups, LocalDateTime computedAt) {
+            this.examId = examId;
+            this.groups = groups;
+            this.computedAt = computedAt;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            add(rs.getLong(1), rs.getLong(2), rs.getLong(3), (Integer) rs.getObject(4), rs.getString(5),
+                    rs.getDouble(6), rs.getDouble(7));
+        }
+
+        /**
+         * One mark row; rows must arrive grouped by question.
+         */
+        void add(long questionId, long subjectId, long studentId, Integer questionNumber, String unitName,
+                double max, double obtained) {
+            if (question == null || question.getQuestionFormatId() != questionId) {
+                flushQuestion();
+                question = result(subjectId, LEVEL_QUESTION);
+                question.setQuestionFormatId(questionId);
+                question.setQuestionNumber(questionNumber);
+                question.setUnitName(unitName);
+                stats = new ItemStats();
+            }
+            stats.add(obtained, max, group(subjectId, studentId));
+            double[] total = unitTotals.computeIfAbsent(new UnitKey(subjectId, unitName), k -> new HashMap<>())
+                    .computeIfAbsent(studentId, k -> new double[2]);
+            total[0] += obtained;
+            total[1] += max;
+            rows++;
+        }
+
+        List<ItemAnalysisDTO> finish() {
+            flushQuestion();
+            for (Map.Entry<UnitKey, Map<Long, double[]>> e : unitTotals.entrySet()) {
+                Long subjectId = e.getKey().subjectId();
+                ItemStats unitStats = new ItemStats();
+                for (Map.Entry<Long, double[]> student : e.getValue().entrySet()) {
+                    double[] total = student.getValue();
+                    unitStats.add(total[0], total[1], group(subjectId, student.getKey()));
+                }
+                ItemAnalysisDTO unit = result(subjectId, LEVEL_UNIT);
+                unit.setUnitName(e.getKey().unitName());
+                unitStats.fill(unit);
+                results.add(unit);
+            }
+            return results;
+        }
+
+        private int group(long subjectId, long studentId) {
+            return groups.getOrDefault(subjectId, Collections.emptyMap()).getOrDefault(studentId, 0);
+        }
+
+        private void flushQuestion() {
+            if (question != null) {
+                stats.fill(question);
+                results.add(question);
+            }
+        }
+
+        private ItemAnalysisDTO result(Long subjectId, String level) {
+            ItemAnalysisDTO dto = new ItemAnalysisDTO();
+            dto.setExamId(examId);
+            dto.setSubjectId(subjectId);
+            dto.setLevel(level);
+            dto.setComputedAt(computedAt);
+            return dto;
+        }
+    }
+
+    /**
+     * Constant-size accumulator: Welford running mean/variance of obtained marks, plus obtained and
+     * maximum marks summed overall and within the upper and lower groups.
+     */
+    static final class ItemStats {
+        long n;
+        double mean;
+        double m2;
+        double maxSum;
+        double upperObtained;
+        double upperMax;
+        double lowerObtained;
+        double lowerMax;
+
+        void add(double obtained, double max, int group) {
+            n++;
+            double delta = obtained - mean;
+            mean += delta / n;
+            m2 += delta * (obtained - mean);
+            maxSum += max;
+            if (group > 0) {
+                upperObtained += obtained;
+                upperMax += max;
+            } else if (group < 0) {
+                lowerObtained += obtained;
+                lowerMax += max;
+            }
+        }
+
+        /**
+         * Population standard deviation of the obtained marks.
+         */
+        double stdDev() {
+            return n == 0 ? 0.0 : Math.sqrt(m2 / n);
+        }
+
+        Double difficulty() {
+            return maxSum > 0 ? mean * n / maxSum : null;
+        }
+
+        Double discrimination() {
+            if (upperMax <= 0 || lowerMax <= 0) {
+                return null;
+            }
+            return upperObtained / upperMax - lowerObtained / lowerMax;
+        }
+
+        void fill(ItemAnalysisDTO dto) {
+            dto.setResponses(n);
+            dto.setMaxMarks(n == 0 ? null : round(maxSum / n));
+            dto.setMeanMarks(round(mean));
+            dto.setStdDev(round(stdDev()));
+            Double difficulty = difficulty();
+            dto.setDifficultyIndex(difficulty == null ? null : round(difficulty));
+            Double discrimination = discrimination();
+            dto.setDiscriminationIndex(discrimination == null ? null : round(discrimination));
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10000.0) / 10000.0;
+        }
+    }
+
+    private record UnitKey(Long subjectId, String unitName) {
+    }
+}
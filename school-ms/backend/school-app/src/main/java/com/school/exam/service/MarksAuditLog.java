@@ -0,0 +1,74 @@
+package com.school.exam.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Append-only audit of marks locking and post-lock edits ({@code exam_mark_audit}).
+ * <p>
+ * Rows are inserted with one JDBC batch per operation in the caller's transaction, so the
+ * audit commits or rolls back together with the change it describes.
+ */
+@Component
+public class MarksAuditLog {
+
+    public static final String LOCK = "LOCK";
+    public static final String UNLOCK = "UNLOCK";
+    public static final String EDIT = "EDIT";
+
+    private static final String INSERT_SQL = "INSERT INTO exam_mark_audit "
+            + "(exam_id, subject_id, student_id, question_format_id, action, old_marks, new_marks, reason, "
+            + "changed_by, changed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] INSERT_TYPES = { Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
+            Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP };
+
+    private final JdbcTemplate jdbc;
+
+    public MarksAuditLog(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Records a lock or unlock of a subject's marks for a set of students.
+     */
+    public void recordLockChange(Long examId, Long subjectId, Collection<Long> studentIds, boolean locked) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        String action = locked ? LOCK : UNLOCK;
+        String user = currentUser();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(studentIds.size());
+        for (Long studentId : studentIds) {
+            args.add(new Object[] { examId, subjectId, studentId, null, action, null, null, null, user, now });
+        }
+        jdbc.batchUpdate(INSERT_SQL, args, INSERT_TYPES);
+    }
+
+    /**
+     * Records an edit of one question's marks.
+     */
+    public void recordEdit(Long examId, Long subjectId, Long studentId, Long questionFormatId, Double oldMarks,
+            Double newMarks, String reason) {
+        jdbc.update(INSERT_SQL, new Object[] { examId, subjectId, studentId, questionFormatId, EDIT, oldMarks,
+                newMarks, reason, currentUser(), Timestamp.valueOf(LocalDateTime.now()) }, INSERT_TYPES);
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return "system";
+        }
+        return authentication.getName();
+    }
+}
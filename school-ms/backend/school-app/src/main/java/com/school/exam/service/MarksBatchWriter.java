@@ -0,0 +1,282 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.BulkMarksUpdateRequest;
+import com.school.exam.dto.MarksConflictDTO;
+import com.school.exam.dto.MarksMatrixSaveRequest;
+import com.school.exam.exception.MarksConflictException;
+import com.school.exam.model.ExamMarkDetail;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.model.QuestionPaperFormat;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based writer for whole-grid marks saves.
+ * <p>
+ * Everything the request needs (QPF totals or question metadata, summary ids) is prefetched
+ * for the request scope, the whole request is validated in memory, and rows are persisted
+ * with JDBC batch upserts. Saving a full class grid runs a constant number of statements
+ * instead of several per cell. Callers must run inside a transaction.
+ * <p>
+ * Upserts are conditional on the row version sent by the client (when present): a stale cell
+ * leaves its row untouched, shows up as a zero update count, and fails the save with the
+ * current values of all stale cells.
+ * <p>
+ * Locking is set-based too: one UPDATE per request that reports which rows actually changed.
+ */
+@Component
+public class MarksBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(MarksBatchWriter.class);
+
+    private static final String UPSERT_SUMMARY_SQL = "INSERT INTO exam_mark_summaries "
+            + "(exam_id, class_id, subject_id, student_id, is_absent, absence_reason, total_theory_marks, "
+            + "total_practical_marks, locked, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, false, ?, ?) "
+            + "ON CONFLICT (exam_id, subject_id, student_id) DO UPDATE SET "
+            + "class_id = EXCLUDED.class_id, is_absent = EXCLUDED.is_absent, absence_reason = EXCLUDED.absence_reason, "
+            + "total_theory_marks = EXCLUDED.total_theory_marks, total_practical_marks = EXCLUDED.total_practical_marks, "
+            + "updated_at = EXCLUDED.updated_at, version = exam_mark_summaries.version + 1 "
+            + "WHERE CAST(? AS BIGINT) IS NULL OR exam_mark_summaries.version = ?";
+
+    private static final String TOUCH_SUMMARY_SQL = "INSERT INTO exam_mark_summaries "
+            + "(exam_id, class_id, subject_id, student_id, is_absent, locked, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, false, false, ?, ?) "
+            + "ON CONFLICT (exam_id, subject_id, student_id) DO UPDATE SET "
+            + "class_id = EXCLUDED.class_id, updated_at = EXCLUDED.updated_at";
+
+    private static final String UPSERT_DETAIL_SQL = "INSERT INTO exam_mark_details "
+            + "(summary_id, question_format_id, question_number, unit_name, question_type, max_marks, obtained_marks, "
+            + "evaluator_comments, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (summary_id, question_format_id) DO UPDATE SET "
+            + "question_number = EXCLUDED.question_number, unit_name = EXCLUDED.unit_name, "
+            + "question_type = EXCLUDED.question_type, max_marks = EXCLUDED.max_marks, "
+            + "obtained_marks = EXCLUDED.obtained_marks, evaluator_comments = EXCLUDED.evaluator_comments, "
+            + "updated_at = EXCLUDED.updated_at, version = exam_mark_details.version + 1 "
+            + "WHERE CAST(? AS BIGINT) IS NULL OR exam_mark_details.version = ?";
+
+    private static final String SET_LOCKED_SQL = "UPDATE exam_mark_summaries SET locked = ?, updated_at = ? "
+            + "WHERE exam_id = ? AND subject_id = ? AND locked IS DISTINCT FROM ? AND student_id IN (%s) "
+            + "RETURNING student_id";
+
+    private final QuestionPaperFormatRepository qpfRepo;
+    private final ExamMarkSummaryRepository summaryRepo;
+    private final ExamMarkDetailRepository detailRepo;
+    private final JdbcTemplate jdbc;
+
+    public MarksBatchWriter(QuestionPaperFormatRepository qpfRepo, ExamMarkSummaryRepository summaryRepo,
+            ExamMarkDetailRepository detailRepo, JdbcTemplate jdbc) {
+        this.qpfRepo = qpfRepo;
+        this.summaryRepo = summaryRepo;
+        this.detailRepo = detailRepo;
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Upserts the theory/practical totals of every cell in the grid.
+     *
+     * @throws IllegalArgumentException if any cell exceeds the subject's QPF total
+     * @throws MarksConflictException if any cell's version is stale; the caller's transaction must roll back
+     */
+    public void saveMatrix(MarksMatrixSaveRequest request) {
+        Long examId = request.getExamId();
+        Long classId = request.getClassId();
+
+        Map<Long, Double> totals = new HashMap<>();
+        for (Object[] row : qpfRepo.sumMarksBySubjectForExamAndClass(examId, classId)) {
+            totals.put((Long) row[0], row[1] == null ? 0.0 : ((Number) row[1]).doubleValue());
+        }
+
+        // Validate theory+practical <= exam total for the subject; last cell wins for duplicates
+        Map<CellKey, MarksMatrixSaveRequest.Cell> cells = new LinkedHashMap<>();
+        for (MarksMatrixSaveRequest.Row row : request.getRows()) {
+            for (MarksMatrixSaveRequest.Cell cell : row.getSubjects()) {
+                Long subjectId = cell.getSubjectId();
+                double totalMax = totals.getOrDefault(subjectId, 0.0);
+                double theory = cell.getTheoryMarks() == null ? 0.0 : cell.getTheoryMarks();
+                double practical = cell.getPracticalMarks() == null ? 0.0 : cell.getPracticalMarks();
+                if (theory + practical > totalMax + 1e-9) {
+                    throw new IllegalArgumentException("Marks exceed total for subject " + subjectId + ": "
+                            + (theory + practical) + "/" + totalMax);
+                }
+                cells.put(new CellKey(row.getStudentId(), subjectId), cell);
+            }
+        }
+        if (cells.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(cells.size());
+        for (Map.Entry<CellKey, MarksMatrixSaveRequest.Cell> e : cells.entrySet()) {
+            MarksMatrixSaveRequest.Cell cell = e.getValue();
+            args.add(new Object[] { examId, classId, e.getKey().otherId(), e.getKey().studentId(),
+                    Boolean.TRUE.equals(cell.getAbsent()), cell.getAbsenceReason(), cell.getTheoryMarks(),
+                    cell.getPracticalMarks(), now, now, cell.getVersion(), cell.getVersion() });
+        }
+        int[] counts = jdbc.batchUpdate(UPSERT_SUMMARY_SQL, args, new int[] { Types.BIGINT, Types.BIGINT,
+                Types.BIGINT, Types.BIGINT, Types.BOOLEAN, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE,
+                Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT });
+
+        // A version mismatch makes ON CONFLICT skip the row, reported as 0 affected
+        List<CellKey> stale = staleKeys(new ArrayList<>(cells.keySet()), counts);
+        if (!stale.isEmpty()) {
+            Set<Long> staleStudents = stale.stream().map(CellKey::studentId).collect(Collectors.toSet());
+            Map<CellKey, ExamMarkSummary> current = summaryRepo.findByExamIdAndStudentIdIn(examId, staleStudents)
+                    .stream()
+                    .collect(Collectors.toMap(sm -> new CellKey(sm.getStudentId(), sm.getSubjectId()),
+                            Function.identity()));
+            throw new MarksConflictException(stale.stream()
+                    .map(k -> MarksConflicts.summaryCell(k.studentId(), k.otherId(), current.get(k)))
+                    .collect(Collectors.toList()));
+        }
+        log.debug("Saved marks matrix for exam {} class {}: {} cells", examId, classId, args.size());
+    }
+
+    /**
+     * Upserts per-question marks for one exam/class/subject.
+     *
+     * @throws IllegalArgumentException if an item references a question outside the exam/class/subject
+     *         or exceeds its max marks
+     * @throws MarksConflictException if any item's version is stale; the caller's transaction must roll back
+     */
+    public void bulkUpdate(Long examId, Long classId, Long subjectId,
+            List<BulkMarksUpdateRequest.BulkMarkItem> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return;
+        }
+
+        // Last item wins for the same (student, question)
+        Map<CellKey, BulkMarksUpdateRequest.BulkMarkItem> items = new LinkedHashMap<>();
+        for (BulkMarksUpdateRequest.BulkMarkItem item : updates) {
+            items.put(new CellKey(item.getStudentId(), item.getQuestionFormatId()), item);
+        }
+
+        Map<Long, QuestionPaperFormat> questions = qpfRepo.findAllById(items.values().stream()
+                .map(BulkMarksUpdateRequest.BulkMarkItem::getQuestionFormatId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(QuestionPaperFormat::getId, Function.identity()));
+        for (BulkMarksUpdateRequest.BulkMarkItem item : items.values()) {
+            QuestionPaperFormat q = questions.get(item.getQuestionFormatId());
+            if (q == null || !Objects.equals(q.getExamId(), examId) || !Objects.equals(q.getClassId(), classId)
+                    || !Objects.equals(q.getSubjectId(), subjectId)) {
+                throw new IllegalArgumentException("Unknown question " + item.getQuestionFormatId()
+                        + " for exam " + examId + ", class " + classId + ", subject " + subjectId);
+            }
+            double max = q.getMarks() == null ? 0.0 : q.getMarks();
+            if (item.getObtainedMarks() != null && item.getObtainedMarks() > max + 1e-9) {
+                throw new IllegalArgumentException("Marks exceed maximum for question " + q.getQuestionNumber()
+                        + ": " + item.getObtainedMarks() + "/" + max);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> studentIds = items.values().stream()
+                .map(BulkMarksUpdateRequest.BulkMarkItem::getStudentId)
+                .distinct()
+                .collect(Collectors.toList());
+        List<Object[]> summaryArgs = new ArrayList<>(studentIds.size());
+        for (Long studentId : studentIds) {
+            summaryArgs.add(new Object[] { examId, classId, subjectId, studentId, now, now });
+        }
+        jdbc.batchUpdate(TOUCH_SUMMARY_SQL, summaryArgs, new int[] { Types.BIGINT, Types.BIGINT, Types.BIGINT,
+                Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP });
+
+        Map<Long, Long> summaryIds = summaryRepo.findByExamIdAndSubjectIdAndStudentIdIn(examId, subjectId, studentIds)
+                .stream()
+                .collect(Collectors.toMap(ExamMarkSummary::getStudentId, ExamMarkSummary::getId));
+
+        List<Object[]> detailArgs = new ArrayList<>(items.size());
+        for (BulkMarksUpdateRequest.BulkMarkItem item : items.values()) {
+            QuestionPaperFormat q = questions.get(item.getQuestionFormatId());
+            detailArgs.add(new Object[] { summaryIds.get(item.getStudentId()), q.getId(), q.getQuestionNumber(),
+                    q.getUnitName(), ExamMarksService.determineType(q), q.getMarks(), item.getObtainedMarks(),
+                    item.getEvaluatorComments(), now, now, item.getVersion(), item.getVersion() });
+        }
+        int[] counts = jdbc.batchUpdate(UPSERT_DETAIL_SQL, detailArgs, new int[] { Types.BIGINT, Types.BIGINT,
+                Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.VARCHAR,
+                Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT });
+
+        List<CellKey> stale = staleKeys(new ArrayList<>(items.keySet()), counts);
+        if (!stale.isEmpty()) {
+            Map<Long, Long> studentBySummary = new HashMap<>();
+            summaryIds.forEach((studentId, summaryId) -> studentBySummary.put(summaryId, studentId));
+            Map<CellKey, ExamMarkDetail> current = new HashMap<>();
+            for (Object[] row : detailRepo.findWithSummaryIdBySummaryIdIn(stale.stream()
+                    .map(k -> summaryIds.get(k.studentId()))
+                    .collect(Collectors.toSet()))) {
+                ExamMarkDetail d = (ExamMarkDetail) row[1];
+                current.put(new CellKey(studentBySummary.get((Long) row[0]), d.getQuestionFormatId()), d);
+            }
+            throw new MarksConflictException(stale.stream()
+                    .map(k -> MarksConflicts.detailCell(k.studentId(), subjectId, k.otherId(), current.get(k)))
+                    .collect(Collectors.toList()));
+        }
+        log.debug("Bulk updated {} marks for exam {} subject {} across {} students", detailArgs.size(), examId,
+                subjectId, studentIds.size());
+    }
+
+    /**
+     * Locks or unlocks one subject's marks for the given students.
+     *
+     * @return the students whose row changed state; students without marks or already in that state are left out
+     */
+    public List<Long> setLocked(Long examId, Long subjectId, Collection<Long> studentIds, boolean locked) {
+        if (studentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> args = new ArrayList<>(studentIds.size() + 5);
+        args.add(locked);
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.add(examId);
+        args.add(subjectId);
+        args.add(locked);
+        args.addAll(studentIds);
+        int[] types = new int[args.size()];
+        Arrays.fill(types, Types.BIGINT);
+        types[0] = Types.BOOLEAN;
+        types[1] = Types.TIMESTAMP;
+        types[4] = Types.BOOLEAN;
+        String sql = String.format(SET_LOCKED_SQL, String.join(",", Collections.nCopies(studentIds.size(), "?")));
+        return jdbc.queryForList(sql, args.toArray(), types, Long.class);
+    }
+
+    private static List<CellKey> staleKeys(List<CellKey> keys, int[] counts) {
+        List<CellKey> stale = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                stale.add(keys.get(i));
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * (studentId, subjectId) for matrix cells, (studentId, questionFormatId) for bulk items.
+     */
+    private record CellKey(Long studentId, Long otherId) {
+    }
+}
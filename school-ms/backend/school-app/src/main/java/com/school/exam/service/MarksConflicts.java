@@ -0,0 +1,42 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.MarksConflictDTO;
+import com.school.exam.model.ExamMarkDetail;
+import com.school.exam.model.ExamMarkSummary;
+
+/**
+ * Builds the current-value cells reported in a marks conflict.
+ */
+final class MarksConflicts {
+
+    private MarksConflicts() {
+    }
+
+    static MarksConflictDTO.Cell summaryCell(Long studentId, Long subjectId, ExamMarkSummary current) {
+        MarksConflictDTO.Cell cell = new MarksConflictDTO.Cell();
+        cell.setStudentId(studentId);
+        cell.setSubjectId(subjectId);
+        if (current != null) {
+            cell.setCurrentVersion(current.getVersion());
+            cell.setTheoryMarks(current.getTotalTheoryMarks());
+            cell.setPracticalMarks(current.getTotalPracticalMarks());
+            cell.setAbsent(Boolean.TRUE.equals(current.getIsAbsent()));
+            cell.setAbsenceReason(current.getAbsenceReason());
+        }
+        return cell;
+    }
+
+    static MarksConflictDTO.Cell detailCell(Long studentId, Long subjectId, Long questionFormatId,
+            ExamMarkDetail current) {
+        MarksConflictDTO.Cell cell = new MarksConflictDTO.Cell();
+        cell.setStudentId(studentId);
+        cell.setSubjectId(subjectId);
+        cell.setQuestionFormatId(questionFormatId);
+        if (current != null) {
+            cell.setCurrentVersion(current.getVersion());
+            cell.setObtainedMarks(current.getObtainedMarks());
+            cell.setEvaluatorComments(current.getEvaluatorComments());
+        }
+        return cell;
+    }
+}
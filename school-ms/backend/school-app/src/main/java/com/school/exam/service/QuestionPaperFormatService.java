@@ -5,6 +5,7 @@ import com.school.exam.model.QuestionPaperFormat;
 import com.school.exam.repository.QuestionPaperFormatRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -17,26 +18,45 @@ public class QuestionPaperFormatService {
     @Autowired
     private QuestionPaperFormatRepository repository;
 
+    @Autowired
+    private ExamMarksReadModel marksReadModel;
+
     public List<QuestionPaperFormat> getByExamClassSubject(Long examId, Long classId, Long subjectId) {
         return repository.findByExamIdAndClassIdAndSubjectId(examId, classId, subjectId);
     }
 
+    @Transactional
     public QuestionPaperFormat save(QuestionPaperFormat qpf) {
-        return repository.save(qpf);
+        // An update can move the row to another exam/class/subject; the old one is stale too
+        QpfKey previous = qpf.getId() == null ? null : repository.findById(qpf.getId())
+                .map(QpfKey::of)
+                .orElse(null);
+        QuestionPaperFormat saved = repository.save(qpf);
+        if (previous != null) {
+            marksReadModel.invalidateQuestions(previous.examId(), previous.classId(), previous.subjectId());
+        }
+        marksReadModel.invalidateQuestions(saved.getExamId(), saved.getClassId(), saved.getSubjectId());
+        return saved;
     }
 
     public Optional<QuestionPaperFormat> getById(Long id) {
         return repository.findById(id);
     }
 
+    @Transactional
     public void delete(Long id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(q -> {
+            repository.delete(q);
+            // Runs after commit, so a concurrent read cannot re-cache the deleted row
+            marksReadModel.invalidateQuestions(q.getExamId(), q.getClassId(), q.getSubjectId());
+        });
     }
 
     /**
      * Batch save: Overwrites all rows for given exam/class/subject, deletes removed
      * rows, and saves new/updated ones.
      */
+    @Transactional
     public List<QuestionPaperFormat> saveBatch(Long examId, Long classId, Long subjectId,
             List<QuestionPaperFormat> rows) {
         // Fetch existing rows
@@ -50,6 +70,13 @@ public class QuestionPaperFormatService {
         existing.stream()
                 .filter(e -> e.getId() != null && !incomingIds.contains(e.getId()))
                 .forEach(e -> repository.deleteById(e.getId()));
+        // Rows moved in from another exam/class/subject leave that entry stale as well
+        QpfKey target = new QpfKey(examId, classId, subjectId);
+        List<QpfKey> movedFrom = repository.findAllById(incomingIds).stream()
+                .map(QpfKey::of)
+                .filter(k -> !k.equals(target))
+                .distinct()
+                .toList();
         // Set exam/class/subject for all rows (in case frontend omits)
         for (QuestionPaperFormat row : rows) {
             row.setExamId(examId);
@@ -57,7 +84,21 @@ public class QuestionPaperFormatService {
             row.setSubjectId(subjectId);
         }
         // Save all (JPA will update or insert as needed)
-        return repository.saveAll(rows);
+        List<QuestionPaperFormat> saved = repository.saveAll(rows);
+        for (QpfKey k : movedFrom) {
+            marksReadModel.invalidateQuestions(k.examId(), k.classId(), k.subjectId());
+        }
+        marksReadModel.invalidateQuestions(examId, classId, subjectId);
+        return saved;
+    }
+
+    /**
+     * A row's exam/class/subject, copied before a save can change the managed entity.
+     */
+    private record QpfKey(Long examId, Long classId, Long subjectId) {
+        static QpfKey of(QuestionPaperFormat q) {
+            return new QpfKey(q.getExamId(), q.getClassId(), q.getSubjectId());
+        }
     }
 
     // Build a summary for UI validation: total questions, total marks, aggregates
@@ -76,6 +117,7 @@ public class QuestionPaperFormatService {
     }
 
     // Clone QPF from a source exam/class/subject to a target (overwrite target)
+    @Transactional
     public List<QuestionPaperFormat> cloneFrom(Long srcExamId, Long srcClassId, Long srcSubjectId,
             Long destExamId, Long destClassId, Long destSubjectId) {
         // delete existing target rows
@@ -99,6 +141,8 @@ public class QuestionPaperFormatService {
             n.setMarks(r.getMarks());
             copies.add(n);
         }
-        return repository.saveAll(copies);
+        List<QuestionPaperFormat> saved = repository.saveAll(copies);
+        marksReadModel.invalidateQuestions(destExamId, destClassId, destSubjectId);
+        return saved;
     }
 }
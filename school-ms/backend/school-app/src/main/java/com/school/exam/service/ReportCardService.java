@@ -0,0 +1,511 @@
+package com.school.exam.service;
+
+import com.school.attendance.model.AttendanceStatus;
+import com.school.attendance.repository.AttendanceRepository;
+import com.school.common.util.SimplePdf;
+import com.school.exam.dto.RankDTO;
+import com.school.exam.dto.ReportCardJobDTO;
+import com.school.exam.model.Exam;
+import com.school.exam.model.ExamMarkDetail;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.model.Subject;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.ExamRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import com.school.exam.repository.SubjectRepository;
+import com.school.exception.InvalidDateRangeException;
+import com.school.exception.ResourceNotFoundException;
+import com.school.security.AuthzContextCache;
+import com.school.student.model.Student;
+import com.school.student.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Batch report-card generation for a whole class.
+ * <p>
+ * Marks (summaries and per-question details), attendance and student details for the class are
+ * gathered up front in a handful of bulk queries; each student's card is then rendered on a bounded
+ * worker pool and combined into one PDF (a page per student) or a ZIP of per-student PDFs.
+ * Generation runs as a background job whose progress can be polled; finished results are kept
+ * for {@code RESULT_TTL_MINUTES}. Only the user who submitted a job (or an admin) can poll or
+ * download it.
+ */
+@Service
+public class ReportCardService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportCardService.class);
+
+    public static final String FORMAT_PDF = "PDF";
+    public static final String FORMAT_ZIP = "ZIP";
+
+    private static final int MAX_CONCURRENT_JOBS = 2;
+    private static final int MAX_QUEUED_JOBS = 8;
+    private static final int RENDER_QUEUE_CAPACITY = 64;
+    private static final long RESULT_TTL_MINUTES = 30;
+
+    private final ExamRepository examRepository;
+    private final ExamMarkSummaryRepository summaryRepo;
+    private final ExamMarkDetailRepository detailRepo;
+    private final QuestionPaperFormatRepository qpfRepo;
+    private final SubjectRepository subjectRepository;
+    private final StudentRepository studentRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final ExamRankingService rankingService;
+    private final AuthzContextCache authzContextCache;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor jobExecutor;
+    private final ThreadPoolExecutor renderExecutor;
+
+    @Autowired
+    public ReportCardService(ExamRepository examRepository, ExamMarkSummaryRepository summaryRepo,
+            ExamMarkDetailRepository detailRepo, QuestionPaperFormatRepository qpfRepo,
+            SubjectRepository subjectRepository, StudentRepository studentRepository,
+            AttendanceRepository attendanceRepository, ExamRankingService rankingService,
+            AuthzContextCache authzContextCache) {
+        this(examRepository, summaryRepo, detailRepo, qpfRepo, subjectRepository, studentRepository,
+                attendanceRepository, rankingService, authzContextCache,
+                jobPool(MAX_CONCURRENT_JOBS, MAX_QUEUED_JOBS), renderPool());
+    }
+
+    ReportCardService(ExamRepository examRepository, ExamMarkSummaryRepository summaryRepo,
+            ExamMarkDetailRepository detailRepo, QuestionPaperFormatRepository qpfRepo,
+            SubjectRepository subjectRepository, StudentRepository studentRepository,
+            AttendanceRepository attendanceRepository, ExamRankingService rankingService,
+            AuthzContextCache authzContextCache, ThreadPoolExecutor jobExecutor,
+            ThreadPoolExecutor renderExecutor) {
+        this.examRepository = examRepository;
+        this.summaryRepo = summaryRepo;
+        this.detailRepo = detailRepo;
+        this.qpfRepo = qpfRepo;
+        this.subjectRepository = subjectRepository;
+        this.studentRepository = studentRepository;
+        this.attendanceRepository = attendanceRepository;
+        this.rankingService = rankingService;
+        this.authzContextCache = authzContextCache;
+        this.jobExecutor = jobExecutor;
+        this.renderExecutor = renderExecutor;
+    }
+
+    static ThreadPoolExecutor jobPool(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("report-card-job-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    static ThreadPoolExecutor renderPool() {
+        int renderThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        // CallerRunsPolicy pushes back on the job thread when the render queue is full
+        return new ThreadPoolExecutor(renderThreads, renderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(RENDER_QUEUE_CAPACITY), new CustomizableThreadFactory("report-card-render-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Gathers the class data and queues rendering. Attendance defaults to the twelve months
+     * ending on the exam's end date (or today).
+     *
+     * @throws IllegalArgumentException if {@code classId} is not the class of {@code grade}; access is
+     *         checked on the class id while students are loaded by grade, so the two must agree
+     */
+    @Transactional(readOnly = true)
+    public ReportCardJobDTO submit(Long examId, Long classId, Integer grade, String section, String format,
+            LocalDate attendanceFrom, LocalDate attendanceTo) {
+        String fmt = format == null ? FORMAT_PDF : format.toUpperCase(Locale.ROOT);
+        if (!FORMAT_PDF.equals(fmt) && !FORMAT_ZIP.equals(fmt)) {
+            throw new IllegalArgumentException("Unsupported report card format: " + format);
+        }
+        Long classOfGrade = authzContextCache.classIdForGrade(grade);
+        if (classOfGrade == null || !classOfGrade.equals(classId)) {
+            throw new IllegalArgumentException("Class " + classId + " is not the class of grade " + grade);
+        }
+        Exam exam = examRepository.findById(examId)
+                .orElseThrow(() -> new ResourceNotFoundException("Exam not found with id: " + examId));
+        LocalDate to = attendanceTo != null ? attendanceTo
+                : exam.getEndDate() != null ? exam.getEndDate() : LocalDate.now();
+        LocalDate from = attendanceFrom != null ? attendanceFrom : to.minusYears(1).plusDays(1);
+        if (from.isAfter(to)) {
+            throw new InvalidDateRangeException("Start date cannot be after end date");
+        }
+
+        ClassData data = load(exam, classId, grade, section, from, to);
+        Job job = new Job(UUID.randomUUID().toString(), currentUser(), fmt, examId, grade, section,
+                data.students.size());
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> run(job, data));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many report card jobs in progress, please retry shortly");
+        }
+        log.info("Queued report card job {} for exam {} class {}-{} ({} students, {})", job.id, examId, grade,
+                section, data.students.size(), fmt);
+        return job.toDTO();
+    }
+
+    public ReportCardJobDTO getJob(String jobId) {
+        return findJob(jobId).toDTO();
+    }
+
+    /**
+     * Returns the finished result of a job.
+     */
+    public ReportCardResult getResult(String jobId) {
+        Job job = findJob(jobId);
+        if (!Job.COMPLETED.equals(job.status)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Report card job is " + job.status);
+        }
+        return new ReportCardResult(job.fileName, FORMAT_ZIP.equals(job.format) ? "application/zip" : "application/pdf",
+                job.result);
+    }
+
+    public record ReportCardResult(String fileName, String contentType, byte[] content) {
+    }
+
+    @Scheduled(fixedDelay = 5 * 60 * 1000L)
+    public void purgeFinishedJobs() {
+        purgeFinishedJobs(LocalDateTime.now());
+    }
+
+    /**
+     * Drops jobs that finished more than {@code RESULT_TTL_MINUTES} before {@code now}; running jobs stay.
+     */
+    void purgeFinishedJobs(LocalDateTime now) {
+        LocalDateTime cutoff = now.minusMinutes(RESULT_TTL_MINUTES);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        renderExecutor.shutdownNow();
+    }
+
+    private Job findJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Report card job not found: " + jobId);
+        }
+        if (!job.owner.equals(currentUser()) && !isAdmin()) {
+            throw new AccessDeniedException("Report card job belongs to another user");
+        }
+        return job;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return "system";
+        }
+        return authentication.getName();
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null
+                && authentication.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+    }
+
+    private ClassData load(Exam exam, Long classId, Integer grade, String section, LocalDate from, LocalDate to) {
+        ClassData data = new ClassData(exam, classId, grade, section, from, to);
+
+        for (Object[] row : qpfRepo.sumMarksBySubjectForExamAndClass(exam.getId(), classId)) {
+            data.maxBySubject.put((Long) row[0], row[1] == null ? 0.0 : ((Number) row[1]).doubleValue());
+        }
+        for (Subject s : subjectRepository.findAllById(data.maxBySubject.keySet())) {
+            data.subjectNames.put(s.getId(), s.getName());
+        }
+
+        data.students.addAll(studentRepository.findByGradeAndSection(grade, section));
+        if (data.students.isEmpty()) {
+            return data;
+        }
+        List<Long> studentIds = data.students.stream().map(Student::getId).collect(Collectors.toList());
+
+        Map<Long, ExamMarkSummary> summariesById = new HashMap<>();
+        for (ExamMarkSummary sum : summaryRepo.findByExamIdAndStudentIdIn(exam.getId(), studentIds)) {
+            data.summaries.computeIfAbsent(sum.getStudentId(), k -> new HashMap<>()).put(sum.getSubjectId(), sum);
+            summariesById.put(sum.getId(), sum);
+        }
+        if (!summariesById.isEmpty()) {
+            for (Object[] row : detailRepo.findWithSummaryIdBySummaryIdIn(summariesById.keySet())) {
+                data.details.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((ExamMarkDetail) row[1]);
+            }
+        }
+
+        for (Object[] row : attendanceRepository.countByStudentAndStatusBetween(studentIds, from, to)) {
+            long[] counts = data.attendance.computeIfAbsent((Long) row[0], k -> new long[2]);
+            long count = ((Number) row[2]).longValue();
+            if (row[1] == AttendanceStatus.PRESENT) {
+                counts[0] += count;
+            }
+            counts[1] += count;
+        }
+        return data;
+    }
+
+    private void run(Job job, ClassData data) {
+        job.status = Job.RUNNING;
+        try {
+            List<Future<byte[]>> pages = new ArrayList<>(data.students.size());
+            for (Student st : data.students) {
+                pages.add(renderExecutor.submit(() -> {
+                    try {
+                        List<String> lines = buildLines(data, st);
+                        String title = "Report Card - " + data.exam.getName();
+                        byte[] rendered = FORMAT_ZIP.equals(job.format)
+                                ? SimplePdf.generate(lines, title)
+                                : SimplePdf.pageContent(lines, title);
+                        job.completed.incrementAndGet();
+                        return rendered;
+                    } catch (RuntimeException e) {
+                        job.failed.incrementAndGet();
+                        log.warn("Failed to render report card for student {} in job {}", st.getId(), job.id, e);
+                        return null;
+                    }
+                }));
+            }
+
+            List<byte[]> rendered = new ArrayList<>(pages.size());
+            for (Future<byte[]> f : pages) {
+                rendered.add(f.get());
+            }
+
+            String baseName = "report-cards-" + data.grade + "-" + data.section + "-exam-" + data.exam.getId();
+            if (FORMAT_ZIP.equals(job.format)) {
+                job.result = zip(data.students, rendered);
+                job.fileName = baseName + ".zip";
+            } else {
+                job.result = SimplePdf.assemble(rendered.stream().filter(b -> b != null).collect(Collectors.toList()));
+                job.fileName = baseName + ".pdf";
+            }
+            job.status = Job.COMPLETED;
+            log.info("Report card job {} finished: {} rendered, {} failed", job.id, job.completed.get(),
+                    job.failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Interrupted");
+        } catch (ExecutionException | IOException | RuntimeException e) {
+            log.error("Report card job {} failed", job.id, e);
+            job.fail(e.getMessage());
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private List<String> buildLines(ClassData data, Student st) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Student: " + st.getFirstName() + " " + st.getLastName()
+                + (st.getRollNumber() != null ? "    Roll No: " + st.getRollNumber() : ""));
+        lines.add("Class: " + data.grade + "-" + data.section
+                + (st.getStudentId() != null ? "    Admission No: " + st.getStudentId() : ""));
+
+        long[] att = data.attendance.get(st.getId());
+        if (att != null && att[1] > 0) {
+            lines.add(String.format(Locale.US, "Attendance: %.1f%% (%d of %d days, %s to %s)",
+                    att[0] * 100.0 / att[1], att[0], att[1], data.from, data.to));
+        } else {
+            lines.add("Attendance: no records (" + data.from + " to " + data.to + ")");
+        }
+        lines.add("");
+
+        Map<Long, ExamMarkSummary> bySubject = data.summaries.getOrDefault(st.getId(), Collections.emptyMap());
+        double grandTotal = 0;
+        double grandMax = 0;
+        for (Map.Entry<Long, Double> e : data.maxBySubject.entrySet()) {
+            Long subjectId = e.getKey();
+            double max = e.getValue();
+            String name = data.subjectNames.getOrDefault(subjectId, "Subject " + subjectId);
+            ExamMarkSummary sum = bySubject.get(subjectId);
+            grandMax += max;
+            if (sum == null) {
+                lines.add(name + ": not evaluated  (max " + fmt(max) + ")");
+                continue;
+            }
+            if (Boolean.TRUE.equals(sum.getIsAbsent())) {
+                lines.add(name + ": Absent" + (sum.getAbsenceReason() != null ? " - " + sum.getAbsenceReason() : ""));
+                continue;
+            }
+            double[] split = theoryAndPractical(sum, data.details.get(sum.getId()));
+            double total = split[0] + split[1];
+            grandTotal += total;
+            lines.add(name + ": Theory " + fmt(split[0]) + ", Practical " + fmt(split[1]) + ", Total " + fmt(total)
+                    + " / " + fmt(max));
+        }
+
+        lines.add("");
+        lines.add("Grand total: " + fmt(grandTotal) + " / " + fmt(grandMax)
+                + (grandMax > 0 ? String.format(Locale.US, " (%.1f%%)", grandTotal * 100.0 / grandMax) : ""));
+        for (RankDTO r : rankingService.getStudentRanks(data.exam.getId(), data.classId, st.getId())) {
+            if (r.getSubjectId() == null) {
+                lines.add("Class rank: " + r.getRank() + " of " + r.getOutOf());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Uses the summary totals when present, otherwise sums the per-question details by type.
+     */
+    private static double[] theoryAndPractical(ExamMarkSummary sum, List<ExamMarkDetail> details) {
+        if (sum.getTotalTheoryMarks() != null || sum.getTotalPracticalMarks() != null || details == null) {
+            return new double[] {
+                    sum.getTotalTheoryMarks() == null ? 0.0 : sum.getTotalTheoryMarks(),
+                    sum.getTotalPracticalMarks() == null ? 0.0 : sum.getTotalPracticalMarks() };
+        }
+        double theory = 0;
+        double practical = 0;
+        for (ExamMarkDetail d : details) {
+            double obtained = d.getObtainedMarks() == null ? 0.0 : d.getObtainedMarks();
+            if ("PRACTICAL".equalsIgnoreCase(d.getQuestionType())) {
+                practical += obtained;
+            } else {
+                theory += obtained;
+            }
+        }
+        return new double[] { theory, practical };
+    }
+
+    private static byte[] zip(List<Student> students, List<byte[]> pdfs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < students.size(); i++) {
+                byte[] pdf = pdfs.get(i);
+                if (pdf == null) {
+                    continue;
+                }
+                Student st = students.get(i);
+                String label = st.getRollNumber() != null ? st.getRollNumber() : String.valueOf(st.getId());
+                String name = (label + "-" + st.getFirstName() + "-" + st.getLastName())
+                        .replaceAll("[^A-Za-z0-9._-]", "_");
+                zip.putNextEntry(new ZipEntry(name + ".pdf"));
+                zip.write(pdf);
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String fmt(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.US, "%.2f", value);
+    }
+
+    private static final class ClassData {
+        final Exam exam;
+        final Long classId;
+        final Integer grade;
+        final String section;
+        final LocalDate from;
+        final LocalDate to;
+        final Map<Long, Double> maxBySubject = new LinkedHashMap<>();
+        final Map<Long, String> subjectNames = new HashMap<>();
+        final List<Student> students = new ArrayList<>();
+        final Map<Long, Map<Long, ExamMarkSummary>> summaries = new HashMap<>();
+        final Map<Long, List<ExamMarkDetail>> details = new HashMap<>();
+        // studentId -> [present days, recorded days]
+        final Map<Long, long[]> attendance = new HashMap<>();
+
+        ClassData(Exam exam, Long classId, Integer grade, String section, LocalDate from, LocalDate to) {
+            this.exam = exam;
+            this.classId = classId;
+            this.grade = grade;
+            this.section = section;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class Job {
+        static final String QUEUED = "QUEUED";
+        static final String RUNNING = "RUNNING";
+        static final String COMPLETED = "COMPLETED";
+        static final String FAILED = "FAILED";
+
+        final String id;
+        final String owner;
+        final String format;
+        final Long examId;
+        final Integer grade;
+        final String section;
+        final int total;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile String status = QUEUED;
+        volatile String error;
+        volatile String fileName;
+        volatile byte[] result;
+        volatile LocalDateTime finishedAt;
+
+        Job(String id, String owner, String format, Long examId, Integer grade, String section, int total) {
+            this.id = id;
+            this.owner = owner;
+            this.format = format;
+            this.examId = examId;
+            this.grade = grade;
+            this.section = section;
+            this.total = total;
+        }
+
+        void fail(String message) {
+            error = message;
+            status = FAILED;
+        }
+
+        ReportCardJobDTO toDTO() {
+            ReportCardJobDTO dto = new ReportCardJobDTO();
+            dto.setJobId(id);
+            dto.setStatus(status);
+            dto.setFormat(format);
+            dto.setExamId(examId);
+            dto.setGrade(grade);
+            dto.setSection(section);
+            dto.setTotal(total);
+            dto.setCompleted(completed.get());
+            dto.setFailed(failed.get());
+            dto.setError(error);
+            dto.setCreatedAt(createdAt);
+            dto.setFinishedAt(finishedAt);
+            return dto;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.school.exception;
 import com.school.fee.exception.FeeNotFoundException;
 import com.school.fee.exception.InvalidPaymentException;
 import com.school.admission.exception.AdmissionNotFoundException;
+import com.school.exam.dto.MarksConflictDTO;
+import com.school.exam.exception.MarksConflictException;
 import com.school.security.exception.DuplicateEmailException;
 import com.school.security.exception.DuplicateUsernameException;
 import com.school.security.AuthenticationException;
@@ -19,10 +21,12 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.server.ResponseStatusException;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.OptimisticLockException;
 
@@ -172,8 +176,8 @@ public class GlobalExceptionHandler {
     }
 
     // Concurrency exceptions
-    @ExceptionHandler(OptimisticLockException.class)
-    public ResponseEntity<ErrorResponse> handleOptimisticLockException(OptimisticLockException ex) {
+    @ExceptionHandler({ OptimisticLockException.class, ObjectOptimisticLockingFailureException.class })
+    public ResponseEntity<ErrorResponse> handleOptimisticLockException(Exception ex) {
         logger.warn("Optimistic lock conflict: {}", ex.getMessage());
         ErrorResponse error = new ErrorResponse(
                 HttpStatus.CONFLICT.value(),
@@ -182,6 +186,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // Stale marks save: return the current cell values so the client can merge
+    @ExceptionHandler(MarksConflictException.class)
+    public ResponseEntity<MarksConflictDTO> handleMarksConflict(MarksConflictException ex) {
+        logger.warn("Marks conflict: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new MarksConflictDTO(ex.getMessage(), ex.getConflicts()));
+    }
+
     // Database exceptions
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
@@ -204,6 +216,31 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    // Only one school-wide generation runs at a time; the caller can retry once it has finished
+    @ExceptionHandler(TimetableGenerationInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleTimetableGenerationInProgress(
+            TimetableGenerationInProgressException ex) {
+        logger.warn("Timetable generation rejected: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Timetable Generation In Progress",
+                ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    // Report bulkhead full or report timed out; tell the client when to come back
+    @ExceptionHandler(ReportBusyException.class)
+    public ResponseEntity<ErrorResponse> handleReportBusy(ReportBusyException ex) {
+        logger.warn("Report rejected: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     @ExceptionHandler(CannotCreateTransactionException.class)
     public ResponseEntity<ErrorResponse> handleCannotCreateTransaction(CannotCreateTransactionException ex) {
         logger.error("Database unavailable: {}", ex.getMessage());
@@ -235,6 +272,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(error);
     }
 
+    // Services signal busy pools (503) and job state (409) this way; keep their status and reason
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorResponse> handleResponseStatusException(ResponseStatusException ex) {
+        HttpStatus status = ex.getStatus();
+        logger.warn("Request rejected with {}: {}", status.value(), ex.getReason());
+        ErrorResponse error = new ErrorResponse(
+                status.value(),
+                status.getReasonPhrase(),
+                ex.getReason() != null ? ex.getReason() : status.getReasonPhrase());
+        return ResponseEntity.status(status).headers(ex.getResponseHeaders()).body(error);
+    }
+
     // Catch-all handler for any unhandled exceptions
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralException(Exception ex) {
@@ -0,0 +1,18 @@
+package com.school.exception;
+
+/**
+ * Thrown when a heavy report cannot run now because the report bulkhead is full or the report
+ * timed out; the client should retry after {@link #getRetryAfterSeconds()}.
+ */
+public class ReportBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ReportBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,10 @@
+package com.school.exception;
+
+/**
+ * Thrown when a school-wide timetable generation is requested while another one is still running.
+ */
+public class TimetableGenerationInProgressException extends RuntimeException {
+    public TimetableGenerationInProgressException(String message) {
+        super(message);
+    }
+}
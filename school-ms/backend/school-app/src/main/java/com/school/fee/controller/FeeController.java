@@ -7,6 +7,7 @@ import com.school.fee.dto.FeeRequest;
 import com.school.fee.dto.PaymentRequest;
 import com.school.fee.dto.FeePaymentSummary;
 import com.school.fee.dto.SemesterFeeReport;
+import com.school.common.report.HeavyReport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -176,6 +177,7 @@ public class FeeController {
     @Operation(summary = "Generate fee status report", description = "Generates a report of fee payment status")
     @ApiResponse(responseCode = "200", description = "Report generated successfully")
     @GetMapping("/reports/fee-status")
+    @HeavyReport
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER') or hasRole('ADMIN') or hasRole('TEACHER')")
     public ResponseEntity<List<FeePaymentSummary>> getFeeStatusReport(
             @RequestParam(required = false) Integer classGrade) {
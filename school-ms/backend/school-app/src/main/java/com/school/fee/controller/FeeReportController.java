@@ -3,6 +3,7 @@ package com.school.fee.controller;
 import com.school.fee.dto.ClassSectionFeeReport;
 import com.school.fee.dto.SemesterFeeReport;
 import com.school.fee.service.FeeService;
+import com.school.common.report.HeavyReport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -27,6 +28,7 @@ public class FeeReportController {
     @Operation(summary = "Generate semester report", description = "Generates a report of fee payments for a specific semester")
     @ApiResponse(responseCode = "200", description = "Report generated successfully")
     @GetMapping("/semester")
+    @HeavyReport
     public ResponseEntity<SemesterFeeReport> generateSemesterReport(
             @RequestParam Integer year,
             @RequestParam String semester) {
@@ -36,6 +38,7 @@ public class FeeReportController {
     @Operation(summary = "Generate class section report", description = "Generates a report of fee payments for a specific class and section")
     @ApiResponse(responseCode = "200", description = "Report generated successfully")
     @GetMapping("/class-section")
+    @HeavyReport
     public ResponseEntity<ClassSectionFeeReport> generateClassSectionReport(
             @RequestParam Integer grade,
             @RequestParam String section) {
@@ -45,6 +48,7 @@ public class FeeReportController {
     @Operation(summary = "Generate aggregate reports", description = "Generates aggregate reports for all classes and sections")
     @ApiResponse(responseCode = "200", description = "Reports generated successfully")
     @GetMapping("/aggregate")
+    @HeavyReport
     public ResponseEntity<List<ClassSectionFeeReport>> generateAggregateReports() {
         return ResponseEntity.ok(feeService.generateAggregateReports());
     }
@@ -2,8 +2,11 @@ package com.school.hrm.controller;
 
 import com.school.attendance.dto.BulkStaffAttendanceRequest;
 import com.school.attendance.dto.StaffAttendanceDTO;
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
 import com.school.attendance.model.StaffAttendanceStatus;
 import com.school.attendance.service.StaffAttendanceService;
+import com.school.common.report.HeavyReport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
@@ -131,17 +134,18 @@ public class TeacherAttendanceController {
     }
     
     @GetMapping("/report/monthly")
-    public ResponseEntity<Map<String, Object>> getMonthlyAttendanceReport(
+    @HeavyReport
+    public ResponseEntity<StaffMonthlyAttendanceReport> getMonthlyAttendanceReport(
             @RequestParam int year,
             @RequestParam int month) {
-        Map<String, Object> report = staffAttendanceService.getMonthlyAttendanceReport(year, month);
+        StaffMonthlyAttendanceReport report = staffAttendanceService.getMonthlyAttendanceReport(year, month);
         return ResponseEntity.ok(report);
     }
     
     @GetMapping("/current-month")
-    public ResponseEntity<Map<String, Object>> getCurrentMonthAttendance() {
+    public ResponseEntity<StaffMonthlyAttendanceReport> getCurrentMonthAttendance() {
         LocalDate now = LocalDate.now();
-        Map<String, Object> report = staffAttendanceService.getMonthlyAttendanceReport(now.getYear(), now.getMonthValue());
+        StaffMonthlyAttendanceReport report = staffAttendanceService.getMonthlyAttendanceReport(now.getYear(), now.getMonthValue());
         return ResponseEntity.ok(report);
     }
 
@@ -166,11 +170,11 @@ public class TeacherAttendanceController {
     
     @GetMapping("/stats/employee/{staffId}")
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('ADMIN') or (hasRole('TEACHER') and @authz.isMyStaffId(#staffId))")
-    public ResponseEntity<Map<String, Object>> getAttendanceStats(
+    public ResponseEntity<StaffAttendanceStats> getAttendanceStats(
             @PathVariable Long staffId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        Map<String, Object> stats = staffAttendanceService.getEmployeeAttendanceStats(staffId, startDate, endDate);
+        StaffAttendanceStats stats = staffAttendanceService.getEmployeeAttendanceStats(staffId, startDate, endDate);
         return ResponseEntity.ok(stats);
     }
     
@@ -0,0 +1,203 @@
+package com.school.hrm.service;
+
+import com.school.common.util.AfterCommit;
+import com.school.hrm.model.Holiday;
+import com.school.hrm.repository.HolidayRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory holiday calendar shared by attendance, library and HRM.
+ * <p>
+ * Holidays are loaded once into an immutable snapshot of sorted epoch days indexed by year,
+ * and the snapshot is swapped whenever holidays are created, updated or deleted.
+ * Lookups never touch the database. Saturdays and Sundays are treated as non-working days.
+ */
+@Component
+public class HolidayCalendar {
+
+    private static final Logger log = LoggerFactory.getLogger(HolidayCalendar.class);
+
+    private final HolidayRepository holidayRepository;
+
+    private volatile Snapshot snapshot;
+
+    public HolidayCalendar(HolidayRepository holidayRepository) {
+        this.holidayRepository = holidayRepository;
+    }
+
+    /**
+     * Checks if the given date is a registered holiday (weekends are not holidays).
+     */
+    public boolean isHoliday(LocalDate date) {
+        return date != null && current().contains(date);
+    }
+
+    /**
+     * Checks if the given date is a weekday that is not a holiday.
+     */
+    public boolean isWorkingDay(LocalDate date) {
+        return !isWeekend(date) && !isHoliday(date);
+    }
+
+    /**
+     * Returns the first working day strictly after the given date.
+     */
+    public LocalDate nextWorkingDay(LocalDate date) {
+        Snapshot s = current();
+        LocalDate next = date.plusDays(1);
+        while (true) {
+            DayOfWeek dow = next.getDayOfWeek();
+            if (dow == DayOfWeek.SATURDAY) {
+                next = next.plusDays(2);
+            } else if (dow == DayOfWeek.SUNDAY) {
+                next = next.plusDays(1);
+            } else if (s.contains(next)) {
+                next = next.plusDays(1);
+            } else {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Adds the specified number of working days to the start date, skipping
+     * weekends and holidays.
+     */
+    public LocalDate addWorkingDays(LocalDate start, int workingDays) {
+        LocalDate date = start;
+        for (int i = 0; i < workingDays; i++) {
+            date = nextWorkingDay(date);
+        }
+        return date;
+    }
+
+    /**
+     * Counts working days in the half-open range [startInclusive, endExclusive).
+     * Runs in O(log n) using weekday arithmetic and a prefix count of weekday holidays.
+     */
+    public long workingDaysBetween(LocalDate startInclusive, LocalDate endExclusive) {
+        long from = startInclusive.toEpochDay();
+        long to = endExclusive.toEpochDay();
+        if (to <= from) {
+            return 0;
+        }
+        long weekdays = weekdaysBefore(to) - weekdaysBefore(from);
+        return weekdays - current().weekdayHolidaysBetween(from, to);
+    }
+
+    /**
+     * Returns the holiday dates of the given year in ascending order.
+     */
+    public List<LocalDate> holidaysInYear(int year) {
+        Snapshot s = current();
+        int[] range = s.yearRanges.get(year);
+        if (range == null) {
+            return Collections.emptyList();
+        }
+        List<LocalDate> dates = new ArrayList<>(range[1] - range[0]);
+        for (int i = range[0]; i < range[1]; i++) {
+            dates.add(LocalDate.ofEpochDay(s.days[i]));
+        }
+        return dates;
+    }
+
+    /**
+     * Rebuilds the snapshot from the database and swaps it in.
+     */
+    public void reload() {
+        List<Holiday> holidays = holidayRepository.findAll();
+        this.snapshot = Snapshot.of(holidays);
+        log.debug("Holiday calendar loaded with {} holidays", holidays.size());
+    }
+
+    /**
+     * Schedules a reload once the current transaction commits.
+     */
+    public void reloadAfterCommit() {
+        AfterCommit.run(this::reload);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                s = snapshot;
+                if (s == null) {
+                    reload();
+                    s = snapshot;
+                }
+            }
+        }
+        return s;
+    }
+
+    private static boolean isWeekend(LocalDate date) {
+        DayOfWeek dow = date.getDayOfWeek();
+        return dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY;
+    }
+
+    /**
+     * Number of weekdays in [1969-12-29 (a Monday), epochDay), negative for earlier dates.
+     */
+    static long weekdaysBefore(long epochDay) {
+        long sinceMonday = epochDay + 3;
+        return Math.floorDiv(sinceMonday, 7) * 5 + Math.min(Math.floorMod(sinceMonday, 7), 5);
+    }
+
+    private static final class Snapshot {
+        final long[] days;
+        final int[] weekdayPrefix;
+        final Map<Integer, int[]> yearRanges;
+
+        private Snapshot(long[] days, int[] weekdayPrefix, Map<Integer, int[]> yearRanges) {
+            this.days = days;
+            this.weekdayPrefix = weekdayPrefix;
+            this.yearRanges = yearRanges;
+        }
+
+        static Snapshot of(List<Holiday> holidays) {
+            long[] days = holidays.stream()
+                    .map(Holiday::getDate)
+                    .filter(d -> d != null)
+                    .mapToLong(LocalDate::toEpochDay)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            int[] prefix = new int[days.length + 1];
+            Map<Integer, int[]> years = new HashMap<>();
+            for (int i = 0; i < days.length; i++) {
+                LocalDate d = LocalDate.ofEpochDay(days[i]);
+                prefix[i + 1] = prefix[i] + (isWeekend(d) ? 0 : 1);
+                int[] range = years.computeIfAbsent(d.getYear(), y -> new int[] { days.length, 0 });
+                range[0] = Math.min(range[0], i);
+                range[1] = i + 1;
+            }
+            return new Snapshot(days, prefix, Collections.unmodifiableMap(years));
+        }
+
+        boolean contains(LocalDate date) {
+            int[] range = yearRanges.get(date.getYear());
+            return range != null && Arrays.binarySearch(days, range[0], range[1], date.toEpochDay()) >= 0;
+        }
+
+        long weekdayHolidaysBetween(long from, long to) {
+            return weekdayPrefix[lowerBound(to)] - weekdayPrefix[lowerBound(from)];
+        }
+
+        private int lowerBound(long key) {
+            int idx = Arrays.binarySearch(days, key);
+            return idx >= 0 ? idx : -idx - 1;
+        }
+    }
+}
@@ -5,8 +5,8 @@ import com.school.hrm.dto.HolidayDTO;
 import com.school.hrm.model.Holiday;
 import com.school.hrm.model.Holiday.HolidayType;
 import com.school.hrm.repository.HolidayRepository;
+import com.school.hrm.service.HolidayCalendar;
 import com.school.hrm.service.HolidayService;
-import com.school.hrm.util.HolidayThreadLocal;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,9 +22,11 @@ public class HolidayServiceImpl implements HolidayService {
     private static final Logger log = LoggerFactory.getLogger(HolidayServiceImpl.class);
 
     private final HolidayRepository holidayRepository;
+    private final HolidayCalendar holidayCalendar;
 
-    public HolidayServiceImpl(HolidayRepository holidayRepository) {
+    public HolidayServiceImpl(HolidayRepository holidayRepository, HolidayCalendar holidayCalendar) {
         this.holidayRepository = holidayRepository;
+        this.holidayCalendar = holidayCalendar;
     }
 
     @Override
@@ -32,6 +34,7 @@ public class HolidayServiceImpl implements HolidayService {
     public HolidayDTO createHoliday(HolidayDTO holidayDTO) {
         Holiday holiday = convertToEntity(holidayDTO);
         Holiday savedHoliday = holidayRepository.save(holiday);
+        holidayCalendar.reloadAfterCommit();
         return convertToDTO(savedHoliday);
     }
 
@@ -47,6 +50,7 @@ public class HolidayServiceImpl implements HolidayService {
         holiday.setType(holidayDTO.getType());
         
         Holiday updatedHoliday = holidayRepository.save(holiday);
+        holidayCalendar.reloadAfterCommit();
         return convertToDTO(updatedHoliday);
     }
 
@@ -57,6 +61,7 @@ public class HolidayServiceImpl implements HolidayService {
             throw new ResourceNotFoundException("Holiday not found with id: " + id);
         }
         holidayRepository.deleteById(id);
+        holidayCalendar.reloadAfterCommit();
     }
 
     @Override
@@ -100,24 +105,9 @@ public class HolidayServiceImpl implements HolidayService {
     @Override
     public Map<String, Boolean> checkIfHoliday(LocalDate date) {
         Map<String, Boolean> response = new HashMap<>();
-        
-        log.debug("Checking if {} is a holiday", date);
-        
-        // Check if the date is a holiday
-        Optional<Holiday> holidayOpt = holidayRepository.findByDate(date);
-        if (holidayOpt.isPresent()) {
-            Holiday holiday = holidayOpt.get();
-            log.info("Found holiday: {} for date: {}", holiday.getName(), date);
-            response.put("isHoliday", true);
-            
-            // Store the actual name and description in thread local for retrieval
-            HolidayThreadLocal.setHolidayName(holiday.getName());
-            HolidayThreadLocal.setHolidayDescription(holiday.getDescription());
-        } else {
-            log.info("No holiday found for date: {}", date);
-            response.put("isHoliday", false);
-        }
-        
+        boolean holiday = holidayCalendar.isHoliday(date);
+        log.debug("Holiday check for {}: {}", date, holiday);
+        response.put("isHoliday", holiday);
         return response;
     }
 
@@ -137,6 +127,7 @@ public class HolidayServiceImpl implements HolidayService {
         defaultHolidays.add(createDefaultHoliday(LocalDate.of(year, 12, 25), "Christmas", "Christmas Day celebration", HolidayType.RELIGIOUS_HOLIDAY));
         
         List<Holiday> savedHolidays = holidayRepository.saveAll(defaultHolidays);
+        holidayCalendar.reloadAfterCommit();
         return savedHolidays.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
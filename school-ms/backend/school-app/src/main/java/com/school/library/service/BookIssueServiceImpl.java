@@ -1,6 +1,6 @@
 package com.school.library.service;
 
-import com.school.attendance.service.HolidayAttendanceService;
+import com.school.hrm.service.HolidayCalendar;
 import com.school.library.model.Book;
 import com.school.library.model.BookIssue;
 import com.school.library.repository.BookIssueRepository;
@@ -9,7 +9,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -22,14 +21,14 @@ public class BookIssueServiceImpl implements BookIssueService {
 
     private final BookIssueRepository bookIssueRepository;
     private final BookRepository bookRepository;
-    private final HolidayAttendanceService holidayAttendanceService;
+    private final HolidayCalendar holidayCalendar;
 
     public BookIssueServiceImpl(@Qualifier("libraryBookIssueRepositoryImpl") BookIssueRepository bookIssueRepository,
             @Qualifier("libraryBookRepositoryImpl") BookRepository bookRepository,
-            HolidayAttendanceService holidayAttendanceService) {
+            HolidayCalendar holidayCalendar) {
         this.bookIssueRepository = bookIssueRepository;
         this.bookRepository = bookRepository;
-        this.holidayAttendanceService = holidayAttendanceService;
+        this.holidayCalendar = holidayCalendar;
     }
 
     @Override
@@ -72,7 +71,7 @@ public class BookIssueServiceImpl implements BookIssueService {
         // Set due date if not provided: default to +5 working days (skip weekends and
         // holidays)
         if (bookIssue.getDueDate() == null) {
-            bookIssue.setDueDate(addWorkingDays(bookIssue.getIssueDate(), 5));
+            bookIssue.setDueDate(holidayCalendar.addWorkingDays(bookIssue.getIssueDate(), 5));
         }
 
         // Check if book is available
@@ -182,23 +181,4 @@ public class BookIssueServiceImpl implements BookIssueService {
                         Collectors.counting()));
     }
 
-    /**
-     * Adds the specified number of working days to the start date, skipping
-     * weekends and holidays.
-     */
-    private LocalDate addWorkingDays(LocalDate start, int workingDays) {
-        LocalDate date = start;
-        int added = 0;
-        while (added < workingDays) {
-            date = date.plusDays(1);
-            DayOfWeek dow = date.getDayOfWeek();
-            boolean weekend = (dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY);
-            boolean holiday = holidayAttendanceService != null && holidayAttendanceService.isHoliday(date);
-            if (!weekend && !holiday) {
-                added++;
-            }
-        }
-        return date;
-    }
-
 }
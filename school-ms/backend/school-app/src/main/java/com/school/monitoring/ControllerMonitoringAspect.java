@@ -1,6 +1,5 @@
 package com.school.monitoring;
 
-import io.micrometer.core.instrument.Timer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -9,9 +8,9 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.web.bind.annotation.*;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Aspect that monitors the performance of REST controller methods.
@@ -55,80 +54,40 @@ public class ControllerMonitoringAspect {
     }
 
     /**
-     * Advice that tracks timing for endpoint invocations
+     * Advice that tracks timing for endpoint invocations. The meters are resolved once per
+     * handler method, so a call only costs a map lookup and one timer record.
      */
     @Around("restEndpoint()")
     public Object monitorEndpointPerformance(ProceedingJoinPoint joinPoint) throws Throwable {
-        // Get method information
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        String className = signature.getDeclaringType().getSimpleName();
-        String methodName = method.getName();
-        String endpointName = className + "." + methodName;
-
-        // Determine HTTP method
-        String httpMethod = determineHttpMethod(method);
-
-        // Start timing
-        Timer.Sample timerSample = monitoringService.startTimer();
-    // traceId available via MDC if needed for future logging
-
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        PerformanceMonitoringService.EndpointMeters meters = monitoringService.metersFor(method);
+        SqlRequestStats sql = SqlRequestStats.current();
+        int queriesBefore = sql != null ? sql.count() : 0;
+        long sqlNanosBefore = sql != null ? sql.elapsedNanos() : 0;
+        long start = System.nanoTime();
         try {
-            // Execute the method
             Object result = joinPoint.proceed();
-
-            // Record successful invocation
-            monitoringService.incrementCounter("api.invocation",
-                    "endpoint", endpointName,
-                    "method", httpMethod,
-                    "status", "success");
-
+            long elapsed = System.nanoTime() - start;
+            meters.success().record(elapsed, TimeUnit.NANOSECONDS);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Endpoint {} executed in {} ms", meters.endpoint(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
             return result;
         } catch (Exception e) {
-            // Record failed invocation
-            monitoringService.incrementCounter("api.invocation",
-                    "endpoint", endpointName,
-                    "method", httpMethod,
-                    "status", "error",
-                    "exception", e.getClass().getSimpleName());
+            meters.error().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
             // Downgrade to WARN for common client-side errors to avoid noisy ERROR logs
             if (e instanceof IllegalArgumentException || e instanceof org.springframework.web.method.annotation.MethodArgumentTypeMismatchException) {
-                logger.warn("Error executing endpoint {}.{}: {}",
-                        className, methodName, e.getMessage());
+                logger.warn("Error executing endpoint {}: {}", meters.endpoint(), e.getMessage());
             } else {
-                logger.error("Error executing endpoint {}.{}: {}",
-                        className, methodName, e.getMessage(), e);
+                logger.error("Error executing endpoint {}: {}", meters.endpoint(), e.getMessage(), e);
             }
             throw e;
         } finally {
-            // Stop timing and record duration
-            monitoringService.stopTimer(timerSample, "endpoint." + endpointName);
-
-            // Log execution time for debugging
-            logger.debug("Endpoint {}.{} executed in {} ms",
-                    className, methodName, timerSample.stop(monitoringService.getOrCreateTimer(endpointName)));
-        }
-    }
-
-    /**
-     * Determines the HTTP method (GET, POST, etc.) from the method annotations
-     */
-    private String determineHttpMethod(Method method) {
-        if (method.isAnnotationPresent(GetMapping.class)) {
-            return "GET";
-        } else if (method.isAnnotationPresent(PostMapping.class)) {
-            return "POST";
-        } else if (method.isAnnotationPresent(PutMapping.class)) {
-            return "PUT";
-        } else if (method.isAnnotationPresent(DeleteMapping.class)) {
-            return "DELETE";
-        } else if (method.isAnnotationPresent(RequestMapping.class)) {
-            RequestMethod[] methods = method.getAnnotation(RequestMapping.class).method();
-            if (methods.length > 0) {
-                return methods[0].name();
+            if (sql != null) {
+                meters.sqlQueries().record(sql.count() - queriesBefore);
+                meters.sqlTime().record(sql.elapsedNanos() - sqlNanosBefore, TimeUnit.NANOSECONDS);
             }
         }
-        return "UNKNOWN";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.school.monitoring;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Names the {@code GET /actuator/jfr/{id}} download ({@code school-<id>.jfr}), which an actuator
+ * endpoint response cannot do itself. Runs after Spring Security, so only authorized downloads of
+ * an existing recording get the header.
+ */
+@Component
+public class JfrDownloadFilter extends OncePerRequestFilter {
+
+    private static final Pattern DOWNLOAD = Pattern.compile("/actuator/jfr/(\\d{1,18})");
+
+    private final JfrProfilingEndpoint endpoint;
+
+    public JfrDownloadFilter(JfrProfilingEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Matcher m = DOWNLOAD.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        String name = m.matches() ? endpoint.downloadName(Long.parseLong(m.group(1))) : null;
+        if (name != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(name).build().toString());
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,249 @@
+package com.school.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-demand Java Flight Recorder profiling ({@code /actuator/jfr}, ADMIN only).
+ * <ul>
+ * <li>{@code POST /actuator/jfr} with {@code {"profile": "profile", "durationSeconds": 60}} starts a
+ * time-boxed recording; {@code profile} is one of the JDK settings, {@code default} (about 1%
+ * overhead) or {@code profile} (more detail, about 2%).</li>
+ * <li>{@code GET /actuator/jfr} lists the recent recordings and their state.</li>
+ * <li>{@code GET /actuator/jfr/{id}} downloads the finished {@code .jfr} file for JDK Mission
+ * Control, named {@code school-<id>.jfr}.</li>
+ * <li>{@code GET /actuator/jfr/{id}/summary} returns hot methods, allocations and lock contention
+ * parsed from the recording.</li>
+ * </ul>
+ * Only one recording runs at a time and only the last few files are kept on disk; a file whose
+ * summary is being parsed is kept until the parse finishes.
+ */
+@Component
+@Endpoint(id = "jfr")
+public class JfrProfilingEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(JfrProfilingEndpoint.class);
+
+    private static final int DEFAULT_DURATION_SECONDS = 60;
+    private static final int MAX_KEPT_RECORDINGS = 3;
+    private static final long MAX_RECORDING_BYTES = 100L * 1024 * 1024;
+
+    private final int maxDurationSeconds;
+    private final Path directory;
+    private final Map<Long, ProfilingRecording> recordings = new LinkedHashMap<>();
+
+    public JfrProfilingEndpoint(@Value("${profiling.jfr.max-duration-seconds:300}") int maxDurationSeconds,
+            @Value("${profiling.jfr.directory:${java.io.tmpdir}/school-jfr}") String directory) {
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.directory = Path.of(directory);
+    }
+
+    public record RecordingInfo(long id, String profile, int durationSeconds, Instant startedAt, String state,
+            Long sizeBytes) {
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Object> start(@Nullable String profile, @Nullable Integer durationSeconds) {
+        String settings = profile == null || profile.isBlank() ? "default" : profile;
+        int seconds = durationSeconds == null ? DEFAULT_DURATION_SECONDS : durationSeconds;
+        if (seconds < 1 || seconds > maxDurationSeconds) {
+            return new WebEndpointResponse<>("durationSeconds must be between 1 and " + maxDurationSeconds,
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (recordings.values().stream().anyMatch(ProfilingRecording::isRunning)) {
+            return new WebEndpointResponse<>("A recording is already running", 409);
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>("Unknown profile '" + settings + "', use 'default' or 'profile'",
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        try {
+            Files.createDirectories(directory);
+            Recording recording = new Recording(configuration);
+            Path file = directory.resolve("school-" + recording.getId() + ".jfr");
+            recording.setName("school-" + recording.getId());
+            recording.setDuration(Duration.ofSeconds(seconds));
+            recording.setMaxSize(MAX_RECORDING_BYTES);
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            recording.start();
+            ProfilingRecording started = new ProfilingRecording(recording, settings, seconds, Instant.now(), file);
+            recordings.put(recording.getId(), started);
+            pruneOldRecordings();
+            log.info("Started JFR recording {} with profile '{}' for {} s", recording.getId(), settings, seconds);
+            return new WebEndpointResponse<>(started.info());
+        } catch (IOException e) {
+            log.error("Could not start JFR recording", e);
+            return new WebEndpointResponse<>("Could not start recording: " + e.getMessage(),
+                    WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @ReadOperation
+    public synchronized List<RecordingInfo> recordings() {
+        List<RecordingInfo> infos = new ArrayList<>();
+        for (ProfilingRecording recording : recordings.values()) {
+            infos.add(recording.info());
+        }
+        return infos;
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Resource> recording(@Selector long id) {
+        ProfilingRecording recording = finished(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(recording.file));
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<JfrSummary> summary(@Selector long id, @Selector String part) {
+        if (!"summary".equals(part)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        // Pinned, so a recording started meanwhile cannot prune the file while it is parsed
+        ProfilingRecording recording = pin(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            return new WebEndpointResponse<>(recording.summary());
+        } catch (IOException e) {
+            log.error("Could not read JFR recording {}", id, e);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        } finally {
+            unpin(recording);
+        }
+    }
+
+    /**
+     * File name a finished recording is downloaded as, or null when there is nothing to download.
+     * Used by {@link JfrDownloadFilter}, since an endpoint response cannot carry headers.
+     */
+    String downloadName(long id) {
+        ProfilingRecording recording = finished(id);
+        return recording == null ? null : recording.file.getFileName().toString();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        for (ProfilingRecording recording : recordings.values()) {
+            recording.recording.close();
+        }
+    }
+
+    /**
+     * The recording if it exists and has been written to disk, otherwise null.
+     */
+    private synchronized ProfilingRecording finished(long id) {
+        ProfilingRecording recording = recordings.get(id);
+        return recording != null && !recording.isRunning() && Files.exists(recording.file) ? recording : null;
+    }
+
+    private synchronized ProfilingRecording pin(long id) {
+        ProfilingRecording recording = finished(id);
+        if (recording != null) {
+            recording.readers++;
+        }
+        return recording;
+    }
+
+    private synchronized void unpin(ProfilingRecording recording) {
+        recording.readers--;
+        // Catch up on a prune that skipped this recording while it was read
+        pruneOldRecordings();
+    }
+
+    private void pruneOldRecordings() {
+        Iterator<ProfilingRecording> oldestFirst = recordings.values().iterator();
+        while (recordings.size() > MAX_KEPT_RECORDINGS && oldestFirst.hasNext()) {
+            ProfilingRecording old = oldestFirst.next();
+            if (old.isRunning() || old.readers > 0) {
+                continue;
+            }
+            old.recording.close();
+            try {
+                Files.deleteIfExists(old.file);
+            } catch (IOException e) {
+                log.warn("Could not delete old JFR recording {}", old.file, e);
+            }
+            oldestFirst.remove();
+        }
+    }
+
+    private static final class ProfilingRecording {
+
+        private final Recording recording;
+        private final String profile;
+        private final int durationSeconds;
+        private final Instant startedAt;
+        private final Path file;
+        private JfrSummary summary;
+        // Summaries being parsed from the file; guarded by the endpoint lock
+        private int readers;
+
+        ProfilingRecording(Recording recording, String profile, int durationSeconds, Instant startedAt, Path file) {
+            this.recording = recording;
+            this.profile = profile;
+            this.durationSeconds = durationSeconds;
+            this.startedAt = startedAt;
+            this.file = file;
+        }
+
+        boolean isRunning() {
+            RecordingState state = recording.getState();
+            return state == RecordingState.NEW || state == RecordingState.DELAYED || state == RecordingState.RUNNING;
+        }
+
+        RecordingInfo info() {
+            Long size = null;
+            if (!isRunning()) {
+                try {
+                    size = Files.size(file);
+                } catch (IOException ignore) {
+                    // not written (yet), size stays unknown
+                }
+            }
+            return new RecordingInfo(recording.getId(), profile, durationSeconds, startedAt,
+                    recording.getState().name(), size);
+        }
+
+        // Parsing a large recording takes a while, so the result is kept with the recording
+        synchronized JfrSummary summary() throws IOException {
+            if (summary == null) {
+                summary = JfrSummary.read(file);
+            }
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.school.monitoring;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Condensed view of a JFR recording: where the CPU samples landed, what was allocated and where
+ * threads waited on locks. Allocation and lock entries are attributed to the first application
+ * frame ({@code com.school}) on the stack, since the top frame is almost always inside the JDK.
+ *
+ * @param executionSamples total CPU samples in the recording
+ * @param hotMethods top frames by number of CPU samples
+ * @param allocationBytes allocated class and site by sampled bytes
+ * @param lockWaitMillis monitor or parked-on class and site by total blocked time
+ */
+public record JfrSummary(long executionSamples, List<Entry> hotMethods, List<Entry> allocationBytes,
+        List<Entry> lockWaitMillis) {
+
+    private static final int TOP = 20;
+    private static final String APPLICATION_PACKAGE = "com.school.";
+
+    public record Entry(String name, long value) {
+    }
+
+    public static JfrSummary read(Path recording) throws IOException {
+        long samples = 0;
+        Map<String, Long> hot = new HashMap<>();
+        Map<String, Long> allocations = new HashMap<>();
+        Map<String, Long> locks = new HashMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample" -> {
+                        samples++;
+                        hot.merge(topFrame(event.getStackTrace()), 1L, Long::sum);
+                    }
+                    case "jdk.ObjectAllocationSample" -> allocations.merge(
+                            className(event.getClass("objectClass")) + " @ " + applicationFrame(event.getStackTrace()),
+                            event.getLong("weight"), Long::sum);
+                    case "jdk.JavaMonitorEnter" -> locks.merge(
+                            className(event.getClass("monitorClass")) + " @ " + applicationFrame(event.getStackTrace()),
+                            event.getDuration().toNanos(), Long::sum);
+                    case "jdk.ThreadPark" -> {
+                        // Idle pool threads park all the time; only waits inside our code matter
+                        String site = applicationFrameOrNull(event.getStackTrace());
+                        if (site != null) {
+                            locks.merge(className(event.getClass("parkedClass")) + " @ " + site,
+                                    event.getDuration().toNanos(), Long::sum);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        locks.replaceAll((name, nanos) -> nanos / 1_000_000);
+        return new JfrSummary(samples, top(hot), top(allocations), top(locks));
+    }
+
+    private static List<Entry> top(Map<String, Long> totals) {
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP)
+                .map(e -> new Entry(e.getKey(), e.getValue()))
+                .toList();
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "<unknown>";
+        }
+        return methodName(stackTrace.getFrames().get(0).getMethod());
+    }
+
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        String site = applicationFrameOrNull(stackTrace);
+        return site != null ? site : topFrame(stackTrace);
+    }
+
+    private static String applicationFrameOrNull(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            RecordedMethod method = frame.getMethod();
+            if (method != null && method.getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return methodName(method);
+            }
+        }
+        return null;
+    }
+
+    private static String methodName(RecordedMethod method) {
+        return method == null ? "<unknown>" : method.getType().getName() + "." + method.getName();
+    }
+
+    private static String className(RecordedClass recordedClass) {
+        return recordedClass == null ? "<unknown>" : recordedClass.getName();
+    }
+}
@@ -1,22 +1,45 @@
 package com.school.monitoring;
 
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 /**
- * Service for monitoring application performance metrics.
- * Provides methods to track and record performance data across the application.
+ * Holds the per-endpoint meters used by {@link ControllerMonitoringAspect}.
+ * <p>
+ * One success and one error timer are registered for every handler method when the application
+ * is ready, tagged with the endpoint, HTTP method and URI pattern taken from the handler mappings.
+ * The aspect then only does a map lookup and a {@link Timer#record} per request, so nothing is
+ * allocated on the hot path. The timers publish a bounded histogram for Prometheus to compute
+ * quantiles from, rather than client-side percentiles that are recomputed on every record.
  */
 @Service
 public class PerformanceMonitoringService {
 
+    private static final Logger log = LoggerFactory.getLogger(PerformanceMonitoringService.class);
+
+    static final String TIMER_NAME = "api.call.duration";
+    static final String SQL_QUERIES_NAME = "api.sql.queries";
+    static final String SQL_TIME_NAME = "api.sql.duration";
+
     private final MeterRegistry meterRegistry;
-    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<Method, EndpointMeters> meters = new ConcurrentHashMap<>();
 
     @Autowired
     public PerformanceMonitoringService(MeterRegistry meterRegistry) {
@@ -24,63 +47,82 @@ public class PerformanceMonitoringService {
     }
 
     /**
-     * Records the duration of an API call.
-     *
-     * @param apiName        The name of the API or operation
-     * @param durationMillis The duration in milliseconds
+     * Meters for one handler method: call timers split by outcome, and the number of SQL
+     * statements and SQL time per call.
      */
-    public void recordApiCallDuration(String apiName, long durationMillis) {
-        Timer timer = getOrCreateTimer(apiName);
-        timer.record(durationMillis, TimeUnit.MILLISECONDS);
+    public record EndpointMeters(String endpoint, Timer success, Timer error,
+            DistributionSummary sqlQueries, Timer sqlTime) {
     }
 
-    /**
-     * Starts timing an operation.
-     * 
-     * @param operationName The name of the operation
-     * @return A Timer.Sample that can be used to stop the timer
-     */
-    public Timer.Sample startTimer() {
-        return Timer.start(meterRegistry);
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerEndpoints(ApplicationReadyEvent event) {
+        // Looked up here rather than injected: the aspect that uses this service is built before MVC
+        RequestMappingHandlerMapping handlerMapping = event.getApplicationContext()
+                .getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            Method method = entry.getValue().getMethod();
+            meters.computeIfAbsent(method, m -> create(m, httpMethod(entry.getKey()), uri(entry.getKey())));
+        }
+        log.info("Registered endpoint timers for {} handler methods", meters.size());
     }
 
     /**
-     * Stops timing an operation and records the duration.
-     * 
-     * @param sample        The Timer.Sample returned by startTimer()
-     * @param operationName The name of the operation
+     * Returns the meters for a controller method. Methods missing from the handler mappings (or
+     * called before the application is ready) get theirs registered on first use.
      */
-    public void stopTimer(Timer.Sample sample, String operationName) {
-        Timer timer = getOrCreateTimer(operationName);
-        sample.stop(timer);
+    public EndpointMeters metersFor(Method method) {
+        EndpointMeters endpointMeters = meters.get(method);
+        if (endpointMeters != null) {
+            return endpointMeters;
+        }
+        return meters.computeIfAbsent(method, m -> create(m, "UNKNOWN", "UNKNOWN"));
     }
 
-    /**
-     * Gets an existing timer or creates a new one if it doesn't exist.
-     * 
-     * @param name The name of the timer
-     * @return The Timer instance
-     */
-    public Timer getOrCreateTimer(String name) {
-        return timers.computeIfAbsent(name, key -> Timer.builder("api.call.duration")
-                .tag("api", key)
+    private EndpointMeters create(Method method, String httpMethod, String uri) {
+        String endpoint = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        return new EndpointMeters(endpoint,
+                timer(endpoint, httpMethod, uri, "success"),
+                timer(endpoint, httpMethod, uri, "error"),
+                DistributionSummary.builder(SQL_QUERIES_NAME)
+                        .description("SQL statements executed per API call")
+                        .tag("api", endpoint)
+                        .tag("method", httpMethod)
+                        .tag("uri", uri)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(1.0)
+                        .maximumExpectedValue(1000.0)
+                        .register(meterRegistry),
+                Timer.builder(SQL_TIME_NAME)
+                        .description("Time spent in SQL per API call")
+                        .tag("api", endpoint)
+                        .tag("method", httpMethod)
+                        .tag("uri", uri)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(30))
+                        .register(meterRegistry));
+    }
+
+    private Timer timer(String endpoint, String httpMethod, String uri, String outcome) {
+        return Timer.builder(TIMER_NAME)
                 .description("API call duration")
+                .tag("api", endpoint)
+                .tag("method", httpMethod)
+                .tag("uri", uri)
+                .tag("outcome", outcome)
                 .publishPercentileHistogram()
-                .publishPercentiles(0.5, 0.95, 0.99)
-                .register(meterRegistry));
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
     }
 
-    /**
-     * Records a custom counter metric.
-     * 
-     * @param metricName The name of the metric
-     * @param tags       Additional tags as key-value pairs (must be even length)
-     */
-    public void incrementCounter(String metricName, String... tags) {
-        if (tags.length % 2 != 0) {
-            throw new IllegalArgumentException("Tags must be provided as key-value pairs");
-        }
+    private static String httpMethod(RequestMappingInfo info) {
+        Set<RequestMethod> methods = info.getMethodsCondition().getMethods();
+        return methods.isEmpty() ? "ANY" : methods.iterator().next().name();
+    }
 
-        meterRegistry.counter(metricName, tags).increment();
+    private static String uri(RequestMappingInfo info) {
+        Set<String> patterns = info.getPatternValues();
+        return patterns.isEmpty() ? "UNKNOWN" : patterns.iterator().next();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package com.school.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Counts the SQL statements each request executes.
+ * <p>
+ * The count goes out in the {@code X-Query-Count} header (set just before the body is written)
+ * and, with the total SQL time, into request attributes picked up by {@link RequestTracingFilter}.
+ * When one statement shape runs more than {@code monitoring.sql.repeat-warn-threshold} times in a
+ * request, a warning names the endpoint and the statement, which is usually an N+1 loop.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "monitoring.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_COUNT_ATTRIBUTE = "sqlQueryCount";
+    public static final String QUERY_TIME_ATTRIBUTE = "sqlQueryTimeMs";
+
+    private final int repeatWarnThreshold;
+
+    public QueryCountFilter(@Value("${monitoring.sql.repeat-warn-threshold:10}") int repeatWarnThreshold) {
+        this.repeatWarnThreshold = repeatWarnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        SqlRequestStats stats = new SqlRequestStats();
+        SqlRequestStats.bind(stats);
+        try {
+            filterChain.doFilter(request, new QueryCountResponse(response, stats));
+        } finally {
+            SqlRequestStats.clear();
+            // Bodyless responses never asked for a stream, so the header still fits here
+            if (!response.isCommitted() && !response.containsHeader(QUERY_COUNT_HEADER)) {
+                response.setHeader(QUERY_COUNT_HEADER, Integer.toString(stats.count()));
+            }
+            request.setAttribute(QUERY_COUNT_ATTRIBUTE, stats.count());
+            request.setAttribute(QUERY_TIME_ATTRIBUTE, stats.elapsedMillis());
+            for (SqlRequestStats.RepeatedStatement repeated : stats.repeatedMoreThan(repeatWarnThreshold)) {
+                logger.warn("Possible N+1: {} {} ran the same statement {} times ({} statements in total): {}",
+                        request.getMethod(), request.getRequestURI(), repeated.executions(), stats.count(),
+                        repeated.sql());
+            }
+        }
+    }
+
+    /**
+     * Adds the query count header the first time the body or an error is about to be sent, which
+     * is the last moment headers can still be changed.
+     */
+    private static final class QueryCountResponse extends HttpServletResponseWrapper {
+
+        private final SqlRequestStats stats;
+        private boolean headerWritten;
+
+        QueryCountResponse(HttpServletResponse response, SqlRequestStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        private void writeHeader() {
+            if (!headerWritten) {
+                headerWritten = true;
+                if (!isCommitted()) {
+                    setHeader(QUERY_COUNT_HEADER, Integer.toString(stats.count()));
+                }
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.school.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Adds each statement executed through the proxied data source to the current request's
+ * {@link SqlRequestStats}. Statements run outside a request (schedulers, startup) are ignored.
+ * Execution time is measured here in nanoseconds: the proxy's own elapsed time is whole
+ * milliseconds, which reports most indexed lookups as zero.
+ */
+public class QueryCountListener implements QueryExecutionListener {
+
+    // "in (?, ?, ?)" lists vary with the batch size but are the same statement shape
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+
+    private static final String STARTED_AT = QueryCountListener.class.getName() + ".startedAt";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (SqlRequestStats.current() != null) {
+            execInfo.addCustomValue(STARTED_AT, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        // A JDBC batch is one round trip, so it counts once under its first statement
+        String sql = queryInfoList.get(0).getQuery();
+        Long startedAt = execInfo.getCustomValue(STARTED_AT, Long.class);
+        long elapsedNanos = startedAt != null ? System.nanoTime() - startedAt
+                : TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+        stats.record(shapeOf(sql, execInfo.getStatementType()), elapsedNanos);
+    }
+
+    static String shapeOf(String sql, StatementType type) {
+        String shape = sql;
+        if (type == StatementType.STATEMENT) {
+            shape = NUMBER_LITERAL.matcher(STRING_LITERAL.matcher(shape).replaceAll("?")).replaceAll("?");
+        }
+        if (shape.indexOf(',') >= 0 && shape.indexOf('?') >= 0) {
+            shape = PARAMETER_LIST.matcher(shape).replaceAll("?");
+        }
+        return shape;
+    }
+}
@@ -7,6 +7,8 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -19,6 +21,7 @@ import java.util.UUID;
  * metrics.
  */
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class RequestTracingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestTracingFilter.class);
@@ -53,11 +56,13 @@ public class RequestTracingFilter extends OncePerRequestFilter {
 
             // Log request details
             logger.info(
-                    "Request completed - method: {}, uri: {}, status: {}, duration: {} ms, trace: {}",
+                    "Request completed - method: {}, uri: {}, status: {}, duration: {} ms, queries: {} ({} ms), trace: {}",
                     request.getMethod(),
                     request.getRequestURI(),
                     response.getStatus(),
                     duration,
+                    request.getAttribute(QueryCountFilter.QUERY_COUNT_ATTRIBUTE),
+                    request.getAttribute(QueryCountFilter.QUERY_TIME_ATTRIBUTE),
                     traceId);
 
             // Clean up the MDC
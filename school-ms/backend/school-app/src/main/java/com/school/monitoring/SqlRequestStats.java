@@ -0,0 +1,82 @@
+package com.school.monitoring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL statements executed on behalf of one HTTP request.
+ * <p>
+ * {@link QueryCountFilter} binds an instance to the request thread and {@link QueryCountListener}
+ * adds every statement run through the proxied data source. Work handed to another thread (such as
+ * the report bulkhead) binds the same instance there with {@link #bind}. Statements are grouped by
+ * their SQL text so a shape repeated many times in one request (an N+1 loop) can be reported.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    // Shapes beyond this are still counted but no longer tracked individually
+    private static final int MAX_TRACKED_SHAPES = 256;
+
+    private int count;
+    private long elapsedNanos;
+    private final Map<String, int[]> shapes = new HashMap<>();
+
+    public record RepeatedStatement(String sql, int executions) {
+    }
+
+    public static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    public static void bind(SqlRequestStats stats) {
+        if (stats == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stats);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    synchronized void record(String sql, long elapsedNanos) {
+        this.count++;
+        this.elapsedNanos += elapsedNanos;
+        int[] executions = shapes.get(sql);
+        if (executions != null) {
+            executions[0]++;
+        } else if (shapes.size() < MAX_TRACKED_SHAPES) {
+            shapes.put(sql, new int[] { 1 });
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    public synchronized long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public synchronized long elapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * Statements executed more than {@code threshold} times in this request, most frequent first.
+     */
+    public synchronized List<RepeatedStatement> repeatedMoreThan(int threshold) {
+        List<RepeatedStatement> repeated = new ArrayList<>();
+        for (Map.Entry<String, int[]> shape : shapes.entrySet()) {
+            if (shape.getValue()[0] > threshold) {
+                repeated.add(new RepeatedStatement(shape.getKey(), shape.getValue()[0]));
+            }
+        }
+        repeated.sort((a, b) -> Integer.compare(b.executions(), a.executions()));
+        return repeated;
+    }
+}
@@ -12,12 +12,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import javax.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Enumeration;
 import org.slf4j.Logger;
@@ -67,7 +69,7 @@ public class AuthController {
             log.debug("Request IP: {}", getClientIpAddress());
             log.debug("Password length: {}", request.getPassword() != null ? request.getPassword().length() : 0);
             
-            AuthResponse response = authService.login(request);
+            AuthResponse response = authService.login(request, clientIpForThrottling());
             
             log.info("Login successful for user: {}", request.getUsername());
             log.debug("Response token present: {}", response.getToken() != null);
@@ -75,6 +77,11 @@ public class AuthController {
             log.debug("Response role: {}", response.getRole());
             
             return ResponseEntity.ok(response);
+        } catch (ResponseStatusException e) {
+            // Rate limit or login pool saturated; tell the client to back off
+            return ResponseEntity.status(e.getStatus())
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .body(new ErrorResponse("TOO_MANY_REQUESTS", e.getReason()));
         } catch (BadCredentialsException e) {
             log.warn("Login failed for user: {} - Invalid credentials", request.getUsername());
             log.debug("BadCredentialsException details: {}", e.getMessage());
@@ -113,6 +120,13 @@ public class AuthController {
         }
     }
     
+    // Client IP for login rate limiting. Only the peer address is used: forwarded headers are
+    // client controlled, and Tomcat already resolves them for requests from trusted proxies
+    private String clientIpForThrottling() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        return attributes != null ? attributes.getRequest().getRemoteAddr() : null;
+    }
+
     // Helper method to get client IP address
     private String getClientIpAddress() {
         try {
@@ -17,6 +17,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 // Removed Lombok slf4j import
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -43,6 +44,9 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private LoginThrottle loginThrottle;
+
     @Transactional
     public AuthResponse register(RegisterRequest request) {
         log.info("Processing registration request for username: {}", request.getUsername());
@@ -81,6 +85,14 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest request) {
+        return login(request, null);
+    }
+
+    /**
+     * Authenticates on the bounded login pool, rate limited per username and per client IP.
+     * Overload is reported as a 429 ResponseStatusException.
+     */
+    public AuthResponse login(LoginRequest request, String clientIp) {
         try {
             log.info("Attempting authentication for user: {}", request.getUsername());
             log.debug("Checking if user exists in repository before authentication");
@@ -142,7 +154,9 @@ public class AuthService {
             log.info("Submitting authentication request to AuthenticationManager...");
             Authentication authentication = null;
             try {
-                authentication = authenticationManager.authenticate(authToken);
+                // BCrypt runs on the login pool, not on this request thread
+                authentication = loginThrottle.authenticate(request.getUsername(), clientIp,
+                        () -> authenticationManager.authenticate(authToken));
                 log.info("Authentication successful for user: {}", request.getUsername());
                 log.debug("Authentication details: isAuthenticated={}, authorities={}",
                         authentication.isAuthenticated(),
@@ -161,6 +175,8 @@ public class AuthService {
                         .role(user.getRole())
                         .message("Login successful")
                         .build();
+            } catch (ResponseStatusException e) {
+                throw e;
             } catch (Exception e) {
                 log.error("Authentication manager threw exception during authentication", e);
                 // Re-throw to be caught by outer exception handler
@@ -172,6 +188,9 @@ public class AuthService {
             log.error("Authentication failed for user: {} - Reason: {}", request.getUsername(), e.getMessage());
             log.debug("Authentication exception details", e);
             throw new BadCredentialsException("Invalid username or password");
+        } catch (ResponseStatusException e) {
+            log.warn("Login throttled for user: {} - {}", request.getUsername(), e.getReason());
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error during login for user: {}", request.getUsername(), e);
             throw e;
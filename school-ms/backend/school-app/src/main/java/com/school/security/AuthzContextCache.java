@@ -0,0 +1,166 @@
+package com.school.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.school.common.util.AfterCommit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user authorization facts behind the {@code @authz} checks.
+ * <p>
+ * A user's staff and student links (staff id, teacher_details_id, student id, grade, section and the
+ * class of that grade) are resolved together on first use and cached by user id; students looked up
+ * by teacher checks and section id to letter mappings are cached the same way. Entries expire after
+ * a few minutes and student, staff or user writes drop them after commit, so a check is a couple of map
+ * lookups instead of several queries. Teacher class-sections come from
+ * {@link com.school.staff.service.TeacherEligibilityIndex}, which has its own invalidation.
+ */
+@Component
+public class AuthzContextCache {
+
+    private static final long TTL_MINUTES = 5;
+    private static final long MAX_USERS = 10_000;
+    private static final long MAX_STUDENTS = 20_000;
+
+    private final JdbcTemplate jdbc;
+
+    private final Cache<Long, AuthzContext> contexts = Caffeine.newBuilder()
+            .maximumSize(MAX_USERS)
+            .expireAfterWrite(TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
+    private final Cache<Long, StudentPlacement> placements = Caffeine.newBuilder()
+            .maximumSize(MAX_STUDENTS)
+            .expireAfterWrite(TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
+    // Grades and sections are reference data; the TTL alone keeps them fresh
+    private final Cache<Integer, Optional<Long>> classByGrade = Caffeine.newBuilder()
+            .maximumSize(100)
+            .expireAfterWrite(TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
+    private final Cache<Long, Optional<String>> sectionNames = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(TTL_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    public AuthzContextCache(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * What the user is in the school; fields are null where the user is not staff or not a student.
+     */
+    public record AuthzContext(String staffId, Long teacherDetailsId, Long studentId, Integer studentGrade,
+            String studentSection, Long studentClassId) {
+    }
+
+    /**
+     * Grade, section letter and class of a student; all null when the student does not exist.
+     */
+    public record StudentPlacement(Integer grade, String section, Long classId) {
+    }
+
+    public AuthzContext contextOf(User user) {
+        if (user == null || user.getId() == null) {
+            return null;
+        }
+        return contexts.get(user.getId(), id -> load(id, user.getEmail()));
+    }
+
+    public StudentPlacement placementOf(Long studentId) {
+        return placements.get(studentId, id -> {
+            StudentPlacement p = jdbc.query("select grade, section from students where id = ?",
+                    rs -> rs.next() ? new StudentPlacement((Integer) rs.getObject(1), rs.getString(2), null) : null,
+                    id);
+            if (p == null || p.grade() == null) {
+                return new StudentPlacement(null, null, null);
+            }
+            return new StudentPlacement(p.grade(), p.section(), classIdForGrade(p.grade()));
+        });
+    }
+
+    public Long classIdForGrade(Integer grade) {
+        if (grade == null) {
+            return null;
+        }
+        return classByGrade.get(grade, g -> {
+            Long classId = jdbc.query(
+                    "select id from classes where lower(name) = lower(cast(? as varchar)) or lower(name) = lower(?) limit 1",
+                    rs -> rs.next() ? rs.getLong(1) : null,
+                    g, "class " + g);
+            if (classId == null) {
+                // Fallback via grade_levels table
+                classId = jdbc.query(
+                        "select c.id from classes c join grade_levels gl on lower(c.name)=lower(cast(gl.grade_number as varchar)) where gl.grade_number = ? limit 1",
+                        rs -> rs.next() ? rs.getLong(1) : null,
+                        g);
+            }
+            return Optional.ofNullable(classId);
+        }).orElse(null);
+    }
+
+    /**
+     * Section letter for a sections.id, or null when there is no such section.
+     */
+    public String sectionName(long sectionId) {
+        return sectionNames.get(sectionId, id -> Optional.ofNullable(jdbc.query(
+                "select section_name from sections where id = ?",
+                rs -> rs.next() ? rs.getString(1) : null,
+                id))).orElse(null);
+    }
+
+    /**
+     * Drops every user context and student placement once the current transaction commits.
+     * Student rows are matched to users by email, so a student edit can affect any context.
+     */
+    public void studentsChangedAfterCommit() {
+        AfterCommit.run(() -> {
+            contexts.invalidateAll();
+            placements.invalidateAll();
+        });
+    }
+
+    /**
+     * Drops every user context once the current transaction commits.
+     */
+    public void staffChangedAfterCommit() {
+        AfterCommit.run(contexts::invalidateAll);
+    }
+
+    /**
+     * Drops one user's context once the current transaction commits. Contexts are cached by user id
+     * but students are matched by email, so an email change must not keep the old match.
+     */
+    public void userChangedAfterCommit(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        AfterCommit.run(() -> contexts.invalidate(userId));
+    }
+
+    private AuthzContext load(Long userId, String email) {
+        Object[] staff = jdbc.query(
+                "select staff_id, teacher_details_id from school_staff where user_id = ?",
+                rs -> rs.next() ? new Object[] { rs.getString(1), toLong(rs.getObject(2)) } : null,
+                userId);
+        Object[] student = email == null ? null : jdbc.query(
+                "select id, grade, section from students where lower(email) = lower(?)",
+                rs -> rs.next() ? new Object[] { rs.getLong(1), rs.getObject(2), rs.getString(3) } : null,
+                email);
+        Integer grade = student != null ? (Integer) student[1] : null;
+        return new AuthzContext(
+                staff != null ? (String) staff[0] : null,
+                staff != null ? (Long) staff[1] : null,
+                student != null ? (Long) student[0] : null,
+                grade,
+                student != null ? (String) student[2] : null,
+                classIdForGrade(grade));
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+}
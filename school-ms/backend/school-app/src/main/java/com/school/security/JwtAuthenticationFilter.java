@@ -1,5 +1,6 @@
 package com.school.security;
 
+import io.jsonwebtoken.Claims;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -17,6 +18,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private UserDetailsService userDetailsService;
+    private JwtUserCache userCache;
 
     public JwtAuthenticationFilter(JwtTokenProvider tokenProvider) {
         this.tokenProvider = tokenProvider;
@@ -26,17 +28,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
-            String jwt = getJwtFromRequest(request);
+            // Already authenticated by the Prometheus scrape token; that bearer value is not a JWT
+            boolean authenticated = SecurityContextHolder.getContext().getAuthentication() != null;
+            String jwt = authenticated ? null : getJwtFromRequest(request);
+            // Parse once; the claims are reused to build the principal
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt) : null;
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (claims != null) {
+                UserDetails userDetails = resolveUser(claims);
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -45,6 +51,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolveUser(Claims claims) {
+        String username = claims.getSubject();
+        if (userCache == null) {
+            return userDetailsService.loadUserByUsername(username);
+        }
+        // Tokens with identity claims skip the user load; only the cached status is checked
+        User principal = tokenProvider.userFromClaims(claims);
+        if (principal != null) {
+            if (!userCache.isCurrent(principal)) {
+                logger.debug("Rejecting token for disabled user or revoked token version: " + username);
+                return null;
+            }
+            return principal;
+        }
+        return userCache.user(username, userDetailsService::loadUserByUsername);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -56,4 +79,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     public void setUserDetailsService(UserDetailsService userDetailsService) {
         this.userDetailsService = userDetailsService;
     }
+
+    public void setUserCache(JwtUserCache userCache) {
+        this.userCache = userCache;
+    }
 }
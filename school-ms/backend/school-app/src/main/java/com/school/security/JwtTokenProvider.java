@@ -7,6 +7,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.List;
 import java.nio.charset.StandardCharsets;
 // Removed Lombok slf4j import
 import org.slf4j.Logger;
@@ -17,6 +18,13 @@ import org.slf4j.LoggerFactory;
 public class JwtTokenProvider {
     private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    // Claims that let the filter build the principal without loading the user
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_FULL_NAME = "name";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     private final SecretKey key;
     private final long jwtExpiration;
 
@@ -43,7 +51,13 @@ public class JwtTokenProvider {
                 .toList();
                 
         log.debug("Adding authorities to token: {}", authorities);
-        claims.put("roles", authorities);
+        claims.put(CLAIM_ROLES, authorities);
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_EMAIL, user.getEmail());
+            claims.put(CLAIM_FULL_NAME, user.getFullName());
+            claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
 
         log.debug("Building JWT token with claims");
         return Jwts.builder()
@@ -71,35 +85,71 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    /**
+     * Verifies the token and returns its claims, or null when it is missing, expired or invalid.
+     * Callers that need both validation and claims should use this to parse the token once.
+     */
+    public Claims parseClaims(String token) {
         log.debug("Validating JWT token");
         if (token == null) {
             log.warn("Token is null - cannot validate");
-            return false;
+            return null;
         }
         
         try {
-            Jwts.parserBuilder()
+            Claims claims = Jwts.parserBuilder()
                     .setSigningKey(key)
                     .build()
-                    .parseClaimsJws(token);
+                    .parseClaimsJws(token)
+                    .getBody();
                     
             log.debug("Token validation successful");
-            return true;
+            return claims;
         } catch (ExpiredJwtException e) {
             log.warn("JWT token expired: {}", e.getMessage());
-            return false;
+            return null;
         } catch (UnsupportedJwtException e) {
             log.warn("Unsupported JWT token: {}", e.getMessage());
-            return false;
+            return null;
         } catch (MalformedJwtException e) {
             log.warn("Malformed JWT token: {}", e.getMessage());
-            return false;
+            return null;
         } catch (SignatureException e) {
             log.warn("Invalid JWT signature: {}", e.getMessage());
-            return false;
+            return null;
         } catch (JwtException | IllegalArgumentException ex) {
             log.warn("JWT token validation failed: {}", ex.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    /**
+     * Builds the principal from the identity claims, or returns null for tokens issued before they
+     * were added. The user is not loaded, so the caller must check it is still active.
+     */
+    public User userFromClaims(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        if (userId == null || roles == null || roles.isEmpty()) {
+            return null;
+        }
+        String role = String.valueOf(roles.get(0));
+        Number version = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        try {
+            return User.builder()
+                    .id(userId.longValue())
+                    .username(claims.getSubject())
+                    .email(claims.get(CLAIM_EMAIL, String.class))
+                    .fullName(claims.get(CLAIM_FULL_NAME, String.class))
+                    .role(UserRole.valueOf(role.startsWith("ROLE_") ? role.substring(5) : role))
+                    .tokenVersion(version != null ? version.intValue() : 0)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown role in JWT token: {}", role);
+            return null;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.school.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Short-lived user lookups for {@link JwtAuthenticationFilter}.
+ * <p>
+ * Tokens carrying identity claims only need to know the user is still active, still has the role
+ * the token was issued with, and the token version has not been bumped; that status is cached per
+ * user id for {@code TTL_SECONDS}, which bounds how long a disabled user, changed role or revoked
+ * token keeps working. Older tokens without the claims still load the user, cached by username for
+ * the same time.
+ */
+@Component
+public class JwtUserCache {
+
+    private static final long TTL_SECONDS = 30;
+    private static final long MAX_USERS = 10_000;
+
+    private final JdbcTemplate jdbc;
+
+    private final Cache<Long, Optional<Status>> statuses = Caffeine.newBuilder()
+            .maximumSize(MAX_USERS)
+            .expireAfterWrite(TTL_SECONDS, TimeUnit.SECONDS)
+            .build();
+    private final Cache<String, UserDetails> users = Caffeine.newBuilder()
+            .maximumSize(MAX_USERS)
+            .expireAfterWrite(TTL_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    public JwtUserCache(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record Status(boolean active, int tokenVersion, String role) {
+    }
+
+    /**
+     * True when the user exists, is enabled, not locked or expired, still has the principal's role,
+     * and has not revoked tokens of this version.
+     */
+    public boolean isCurrent(User principal) {
+        Optional<Status> status = statuses.get(principal.getId(), id -> Optional.ofNullable(jdbc.query(
+                "select enabled, account_non_locked, account_non_expired, credentials_non_expired, token_version, "
+                        + "role from users where id = ?",
+                rs -> rs.next()
+                        ? new Status(rs.getBoolean(1) && rs.getBoolean(2) && rs.getBoolean(3) && rs.getBoolean(4),
+                                rs.getInt(5), rs.getString(6))
+                        : null,
+                id)));
+        return status.isPresent() && status.get().active()
+                && status.get().tokenVersion() == principal.getTokenVersion()
+                && principal.getRole() != null && principal.getRole().name().equals(status.get().role());
+    }
+
+    public UserDetails user(String username, Function<String, UserDetails> loader) {
+        return users.get(username, loader);
+    }
+}
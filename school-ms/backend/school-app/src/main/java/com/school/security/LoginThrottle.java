@@ -0,0 +1,129 @@
+package com.school.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps login bursts off the request threads.
+ * <p>
+ * Password verification (BCrypt) runs on a small dedicated pool sized to the CPUs with a bounded
+ * queue; when the queue is full the login is refused with 429 straight away instead of tying up
+ * more Tomcat threads. Before queuing, each attempt takes a permit from per-username and per-IP
+ * rate limiters. The per-IP limit is generous because a whole school often logs in from one NAT
+ * address at 8 AM; the per-username limit is what stops password guessing.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginThrottle.class);
+
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long WAIT_SECONDS = 15;
+    private static final int LOGINS_PER_USERNAME_PER_MINUTE = 10;
+    private static final int LOGINS_PER_IP_PER_MINUTE = 300;
+
+    private final ThreadPoolExecutor executor;
+    private final RateLimiterConfig usernameLimit = limit(LOGINS_PER_USERNAME_PER_MINUTE);
+    private final RateLimiterConfig ipLimit = limit(LOGINS_PER_IP_PER_MINUTE);
+    // Idle limiters are dropped so one-off usernames and addresses do not accumulate
+    private final Cache<String, RateLimiter> limiters = Caffeine.newBuilder()
+            .maximumSize(50_000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    public LoginThrottle() {
+        this(loginPool(Math.max(2, Runtime.getRuntime().availableProcessors()), QUEUE_CAPACITY));
+    }
+
+    LoginThrottle(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    static ThreadPoolExecutor loginPool(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("login-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs the authentication on the login pool after checking the rate limits.
+     *
+     * @throws ResponseStatusException with 429 when a limit is exceeded or the pool is saturated
+     */
+    public <T> T authenticate(String username, String clientIp, Supplier<T> authentication) {
+        if (username != null && !acquire("user:" + username.trim().toLowerCase(Locale.ROOT), usernameLimit)) {
+            throw tooManyRequests("Too many login attempts for this user, please wait a minute");
+        }
+        if (clientIp != null && !acquire("ip:" + clientIp, ipLimit)) {
+            throw tooManyRequests("Too many login attempts from this address, please wait a minute");
+        }
+        Future<T> result;
+        try {
+            result = executor.submit(authentication::get);
+        } catch (RejectedExecutionException e) {
+            log.warn("Login pool saturated ({} queued), rejecting login for {}", executor.getQueue().size(), username);
+            throw tooManyRequests("Server is busy, please retry shortly");
+        }
+        try {
+            return result.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // Authentication failures surface unchanged so callers keep mapping them to 401
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new IllegalStateException("Login failed", cause);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw tooManyRequests("Server is busy, please retry shortly");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw tooManyRequests("Server is busy, please retry shortly");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private boolean acquire(String key, RateLimiterConfig config) {
+        return limiters.get(key, k -> RateLimiter.of(k, config)).acquirePermission();
+    }
+
+    private static RateLimiterConfig limit(int perMinute) {
+        return RateLimiterConfig.custom()
+                .limitForPeriod(perMinute)
+                .limitRefreshPeriod(Duration.ofMinutes(1))
+                .timeoutDuration(Duration.ZERO)
+                .build();
+    }
+
+    private static ResponseStatusException tooManyRequests(String message) {
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, message);
+    }
+}
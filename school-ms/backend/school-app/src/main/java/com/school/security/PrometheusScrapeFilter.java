@@ -0,0 +1,53 @@
+package com.school.security;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Authenticates the Prometheus scraper on {@code /actuator/prometheus} with a static bearer token
+ * ({@code monitoring.prometheus.scrape-token}), so the scrape config does not need an admin JWT that
+ * expires. The token only grants {@link #SCRAPER_ROLE}, which no other endpoint accepts. Disabled when
+ * the token is blank; any other bearer value is left to the JWT filter.
+ */
+public class PrometheusScrapeFilter extends OncePerRequestFilter {
+
+    public static final String SCRAPER_ROLE = "METRICS_SCRAPER";
+
+    private static final RequestMatcher PROMETHEUS = new AntPathRequestMatcher("/actuator/prometheus");
+
+    private final byte[] token;
+
+    public PrometheusScrapeFilter(String token) {
+        this.token = token == null ? new byte[0] : token.trim().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return token.length == 0 || !PROMETHEUS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")
+                && MessageDigest.isEqual(token, header.substring(7).trim().getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "prometheus", null, List.of(new SimpleGrantedAuthority("ROLE_" + SCRAPER_ROLE))));
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -35,18 +35,23 @@ public class SecurityConfig {
 
         @Value("${jwt.expiration}")
         private long jwtExpiration;
+
+        @Value("${monitoring.prometheus.scrape-token:}")
+        private String prometheusScrapeToken;
         private final CorsFilter corsFilter;
         private final UserDetailsService userDetailsService;
         private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+        private final JwtUserCache jwtUserCache;
         private final Environment environment;
 
         public SecurityConfig(CorsFilter corsFilter, UserDetailsService userDetailsService,
                         JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
-                        Environment environment) {
+                        JwtUserCache jwtUserCache, Environment environment) {
                 // Inject the corsFilter from CorsConfig
                 this.corsFilter = corsFilter;
                 this.userDetailsService = userDetailsService;
                 this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
+                this.jwtUserCache = jwtUserCache;
                 this.environment = environment;
         }
 
@@ -59,6 +64,7 @@ public class SecurityConfig {
         public JwtAuthenticationFilter jwtAuthenticationFilter() {
                 JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtTokenProvider());
                 filter.setUserDetailsService(userDetailsService);
+                filter.setUserCache(jwtUserCache);
                 return filter;
         }
 
@@ -139,6 +145,9 @@ public class SecurityConfig {
                                         auth.antMatchers("/h2-console/**").permitAll();
                                         // Only health open; secure other actuator endpoints
                                         auth.antMatchers("/actuator/health").permitAll();
+                                        auth.antMatchers("/actuator/prometheus")
+                                                        .hasAnyRole("ADMIN", PrometheusScrapeFilter.SCRAPER_ROLE);
+                                        auth.antMatchers("/actuator/jfr/**").hasRole("ADMIN");
                                         auth.antMatchers("/actuator/**").authenticated(); // IMPORTANT: Override the
                                                                                           // method-level security for
                                                                                           // fee report endpoints
@@ -172,7 +181,9 @@ public class SecurityConfig {
                                 })
                                 // Add the corsFilter and JWT filter in the correct order
                                 .addFilterBefore(corsFilter, UsernamePasswordAuthenticationFilter.class)
-                                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                                .addFilterBefore(new PrometheusScrapeFilter(prometheusScrapeToken),
+                                                JwtAuthenticationFilter.class);
 
                 return http.build();
         }
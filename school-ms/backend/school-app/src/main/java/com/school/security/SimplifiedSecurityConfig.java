@@ -37,19 +37,25 @@ public class SimplifiedSecurityConfig {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    @Value("${monitoring.prometheus.scrape-token:}")
+    private String prometheusScrapeToken;
+
     private final CorsFilter corsFilter;
     private final UserDetailsService userDetailsService;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private final JwtUserCache jwtUserCache;
     private final Environment environment;
 
     public SimplifiedSecurityConfig(
             CorsFilter corsFilter,
             UserDetailsService userDetailsService,
             JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
+            JwtUserCache jwtUserCache,
             Environment environment) {
         this.corsFilter = corsFilter;
         this.userDetailsService = userDetailsService;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
+        this.jwtUserCache = jwtUserCache;
         this.environment = environment;
     }
 
@@ -62,6 +68,7 @@ public class SimplifiedSecurityConfig {
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtTokenProvider());
         filter.setUserDetailsService(userDetailsService);
+        filter.setUserCache(jwtUserCache);
         return filter;
     }
 
@@ -136,6 +143,8 @@ public class SimplifiedSecurityConfig {
 
             // Development tools
             auth.antMatchers("/h2-console/**").permitAll();
+            auth.antMatchers("/actuator/prometheus").hasAnyRole("ADMIN", PrometheusScrapeFilter.SCRAPER_ROLE);
+            auth.antMatchers("/actuator/jfr/**").hasRole("ADMIN");
             auth.antMatchers("/actuator/**").permitAll();
 
             // Database test endpoints (for development)
@@ -176,7 +185,8 @@ public class SimplifiedSecurityConfig {
 
         // Add the filters
         http.addFilterBefore(corsFilter, UsernamePasswordAuthenticationFilter.class)
-                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new PrometheusScrapeFilter(prometheusScrapeToken), JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -12,6 +12,7 @@ import java.util.Collections;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -56,6 +57,11 @@ public class User implements UserDetails {
     @Builder.Default
     @Column(name = "credentials_non_expired")
     private boolean credentialsNonExpired = true;
+
+    // Bumped to revoke tokens issued before the change
+    @Builder.Default
+    @Column(name = "token_version")
+    private int tokenVersion = 0;
     
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -63,6 +69,39 @@ public class User implements UserDetails {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Password, role and account status as loaded, to tell when an update must revoke issued tokens
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Access loadedAccess;
+
+    @PostLoad
+    void rememberAccess() {
+        loadedAccess = access();
+    }
+
+    /**
+     * Bumps the token version when the password, role or account status changed since the user was
+     * loaded, so tokens issued before the change stop working.
+     */
+    @PreUpdate
+    void revokeTokensOnAccessChange() {
+        Access current = access();
+        if (loadedAccess != null && !loadedAccess.equals(current)) {
+            tokenVersion++;
+        }
+        loadedAccess = current;
+    }
+
+    private Access access() {
+        return new Access(password, role, enabled, accountNonExpired, accountNonLocked, credentialsNonExpired);
+    }
+
+    // Compared field by field, so no two different states can look alike
+    private record Access(String password, UserRole role, boolean enabled, boolean accountNonExpired,
+            boolean accountNonLocked, boolean credentialsNonExpired) {
+    }
+
     /**
      * Gets the username
      * 
@@ -0,0 +1,28 @@
+package com.school.security;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Keeps the per-user caches in step with writes to the users table, wherever the write comes from.
+ * Hibernate obtains this listener from the Spring context, so it can reach the caches.
+ */
+@Component
+public class UserChangeListener {
+
+    private final AuthzContextCache authzContextCache;
+
+    // Lazy, so creating the entity manager factory does not pull in the cache
+    public UserChangeListener(@Lazy AuthzContextCache authzContextCache) {
+        this.authzContextCache = authzContextCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void userChanged(User user) {
+        authzContextCache.userChangedAfterCommit(user.getId());
+    }
+}
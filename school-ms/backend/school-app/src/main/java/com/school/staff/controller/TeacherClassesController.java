@@ -6,6 +6,7 @@ import com.school.exam.model.SchoolClass;
 import com.school.exam.repository.SchoolClassRepository;
 import com.school.staff.model.TeacherClassMap;
 import com.school.staff.repository.TeacherClassMapRepository;
+import com.school.staff.service.TeacherEligibilityIndex;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -21,13 +22,16 @@ public class TeacherClassesController {
     private final TeacherDetailsRepository teacherDetailsRepository;
     private final SchoolClassRepository classRepository;
     private final TeacherClassMapRepository mapRepository;
+    private final TeacherEligibilityIndex eligibilityIndex;
 
     public TeacherClassesController(TeacherDetailsRepository tdr,
             SchoolClassRepository scr,
-            TeacherClassMapRepository mpr) {
+            TeacherClassMapRepository mpr,
+            TeacherEligibilityIndex eligibilityIndex) {
         this.teacherDetailsRepository = tdr;
         this.classRepository = scr;
         this.mapRepository = mpr;
+        this.eligibilityIndex = eligibilityIndex;
     }
 
     public static class ClassMapDto {
@@ -87,6 +91,7 @@ public class TeacherClassesController {
             map.setAcademicYear(academicYear);
             mapRepository.save(map);
         }
+        eligibilityIndex.reloadAfterCommit();
         return ResponseEntity.noContent().build();
     }
 }
@@ -6,6 +6,7 @@ import com.school.core.model.TeacherDetails;
 import com.school.staff.model.TeacherSubjectMap;
 import com.school.staff.repository.TeacherSubjectMapRepository;
 import com.school.core.repository.TeacherDetailsRepository;
+import com.school.staff.service.TeacherEligibilityIndex;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -20,13 +21,16 @@ public class TeacherSubjectsController {
     private final TeacherDetailsRepository teacherDetailsRepository;
     private final SubjectRepository subjectRepository;
     private final TeacherSubjectMapRepository mapRepository;
+    private final TeacherEligibilityIndex eligibilityIndex;
 
     public TeacherSubjectsController(TeacherDetailsRepository tdr,
             SubjectRepository sr,
-            TeacherSubjectMapRepository mr) {
+            TeacherSubjectMapRepository mr,
+            TeacherEligibilityIndex eligibilityIndex) {
         this.teacherDetailsRepository = tdr;
         this.subjectRepository = sr;
         this.mapRepository = mr;
+        this.eligibilityIndex = eligibilityIndex;
     }
 
     static class SubjectDto {
@@ -66,6 +70,7 @@ public class TeacherSubjectsController {
             m.setSubject(s);
             mapRepository.save(m);
         }
+        eligibilityIndex.reloadAfterCommit();
         return ResponseEntity.noContent().build();
     }
 }
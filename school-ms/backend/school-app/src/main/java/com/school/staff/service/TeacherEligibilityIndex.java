@@ -0,0 +1,205 @@
+package com.school.staff.service;
+
+import com.school.common.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory index of which teachers may teach what, shared by timetabling and authorization.
+ * <p>
+ * teacher_class_map and teacher_subject_map are loaded into an immutable snapshot of sorted id
+ * arrays: eligible teachers per (class, section, subject), teachers per subject, subjects per
+ * (class, section) and the class-sections of each teacher. The snapshot is rebuilt at startup and
+ * swapped whenever either mapping is replaced, so lookups never touch the database. Sections are the letters stored in
+ * teacher_class_map and compare exactly, as the SQL they replace did.
+ */
+@Component
+public class TeacherEligibilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TeacherEligibilityIndex.class);
+
+    private static final long[] NONE = new long[0];
+
+    private final JdbcTemplate jdbc;
+
+    private volatile Snapshot snapshot;
+
+    public TeacherEligibilityIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Ids of teachers mapped to both the class-section and the subject, ascending.
+     */
+    public long[] eligibleTeachers(Long classId, String section, Long subjectId) {
+        if (classId == null || section == null || subjectId == null) {
+            return NONE;
+        }
+        long[] ids = current().teachersBySubject.get(new SubjectKey(classId, section, subjectId));
+        return ids == null ? NONE : ids.clone();
+    }
+
+    /**
+     * Ids of teachers mapped to the subject in any class, ascending.
+     */
+    public long[] teachersOf(Long subjectId) {
+        if (subjectId == null) {
+            return NONE;
+        }
+        long[] ids = current().teachersBySubjectOnly.get(subjectId);
+        return ids == null ? NONE : ids.clone();
+    }
+
+    /**
+     * Ids of subjects taught by any teacher mapped to the class-section, ascending.
+     */
+    public long[] subjectsOf(Long classId, String section) {
+        if (classId == null || section == null) {
+            return NONE;
+        }
+        long[] ids = current().subjectsBySection.get(new SectionKey(classId, section));
+        return ids == null ? NONE : ids.clone();
+    }
+
+    public boolean isEligible(Long teacherDetailsId, Long classId, String section, Long subjectId) {
+        if (teacherDetailsId == null || classId == null || section == null || subjectId == null) {
+            return false;
+        }
+        long[] ids = current().teachersBySubject.get(new SubjectKey(classId, section, subjectId));
+        return ids != null && Arrays.binarySearch(ids, teacherDetailsId) >= 0;
+    }
+
+    public boolean teachesClassSection(Long teacherDetailsId, Long classId, String section) {
+        if (teacherDetailsId == null || classId == null || section == null) {
+            return false;
+        }
+        Set<SectionKey> sections = current().sectionsByTeacher.get(teacherDetailsId);
+        return sections != null && sections.contains(new SectionKey(classId, section));
+    }
+
+    public boolean teachesClass(Long teacherDetailsId, Long classId) {
+        if (teacherDetailsId == null || classId == null) {
+            return false;
+        }
+        long[] classes = current().classesByTeacher.get(teacherDetailsId);
+        return classes != null && Arrays.binarySearch(classes, classId) >= 0;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    /**
+     * Rebuilds the snapshot from the database and swaps it in.
+     */
+    public synchronized void reload() {
+        // teacher id -> subject ids
+        Map<Long, Set<Long>> subjectsByTeacher = new HashMap<>();
+        jdbc.query("select teacher_details_id, subject_id from teacher_subject_map",
+                rs -> {
+                    subjectsByTeacher.computeIfAbsent(rs.getLong(1), k -> new TreeSet<>()).add(rs.getLong(2));
+                });
+        Map<Long, Set<SectionKey>> sectionsByTeacher = new HashMap<>();
+        jdbc.query("select teacher_details_id, class_id, section from teacher_class_map",
+                rs -> {
+                    sectionsByTeacher.computeIfAbsent(rs.getLong(1), k -> new HashSet<>())
+                            .add(new SectionKey(rs.getLong(2), rs.getString(3)));
+                });
+        this.snapshot = Snapshot.of(subjectsByTeacher, sectionsByTeacher);
+        log.debug("Teacher eligibility index loaded for {} teachers", sectionsByTeacher.size());
+    }
+
+    /**
+     * Schedules a reload once the current transaction commits.
+     */
+    public void reloadAfterCommit() {
+        AfterCommit.run(this::reload);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                s = snapshot;
+                if (s == null) {
+                    reload();
+                    s = snapshot;
+                }
+            }
+        }
+        return s;
+    }
+
+    private record SectionKey(long classId, String section) {
+    }
+
+    private record SubjectKey(long classId, String section, long subjectId) {
+    }
+
+    private static final class Snapshot {
+        final Map<SubjectKey, long[]> teachersBySubject;
+        final Map<Long, long[]> teachersBySubjectOnly;
+        final Map<SectionKey, long[]> subjectsBySection;
+        final Map<Long, Set<SectionKey>> sectionsByTeacher;
+        final Map<Long, long[]> classesByTeacher;
+
+        private Snapshot(Map<SubjectKey, long[]> teachersBySubject, Map<Long, long[]> teachersBySubjectOnly,
+                Map<SectionKey, long[]> subjectsBySection, Map<Long, Set<SectionKey>> sectionsByTeacher,
+                Map<Long, long[]> classesByTeacher) {
+            this.teachersBySubject = teachersBySubject;
+            this.teachersBySubjectOnly = teachersBySubjectOnly;
+            this.subjectsBySection = subjectsBySection;
+            this.sectionsByTeacher = sectionsByTeacher;
+            this.classesByTeacher = classesByTeacher;
+        }
+
+        static Snapshot of(Map<Long, Set<Long>> subjectsByTeacher, Map<Long, Set<SectionKey>> sectionsByTeacher) {
+            Map<SubjectKey, Set<Long>> teachers = new HashMap<>();
+            Map<Long, Set<Long>> bySubject = new HashMap<>();
+            subjectsByTeacher.forEach((teacher, taught) -> {
+                for (Long subject : taught) {
+                    bySubject.computeIfAbsent(subject, k -> new TreeSet<>()).add(teacher);
+                }
+            });
+            Map<SectionKey, Set<Long>> subjects = new HashMap<>();
+            Map<Long, long[]> classes = new HashMap<>();
+            Map<Long, Set<SectionKey>> sections = new HashMap<>();
+            for (Map.Entry<Long, Set<SectionKey>> e : sectionsByTeacher.entrySet()) {
+                Long teacher = e.getKey();
+                Set<Long> taught = subjectsByTeacher.getOrDefault(teacher, Collections.emptySet());
+                for (SectionKey sk : e.getValue()) {
+                    subjects.computeIfAbsent(sk, k -> new TreeSet<>()).addAll(taught);
+                    for (Long subject : taught) {
+                        teachers.computeIfAbsent(new SubjectKey(sk.classId(), sk.section(), subject),
+                                k -> new TreeSet<>()).add(teacher);
+                    }
+                }
+                classes.put(teacher, e.getValue().stream().mapToLong(SectionKey::classId).sorted().distinct()
+                        .toArray());
+                sections.put(teacher, Set.copyOf(e.getValue()));
+            }
+            return new Snapshot(toArrays(teachers), toArrays(bySubject), toArrays(subjects),
+                    Collections.unmodifiableMap(sections), Collections.unmodifiableMap(classes));
+        }
+
+        private static <K> Map<K, long[]> toArrays(Map<K, Set<Long>> sets) {
+            Map<K, long[]> arrays = new HashMap<>(sets.size() * 2);
+            // TreeSets iterate in ascending order, so the arrays come out sorted
+            sets.forEach((k, v) -> arrays.put(k, v.stream().mapToLong(Long::longValue).toArray()));
+            return Collections.unmodifiableMap(arrays);
+        }
+    }
+}
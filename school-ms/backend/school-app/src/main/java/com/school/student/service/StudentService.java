@@ -8,6 +8,7 @@ import com.school.student.exception.DuplicateStudentException;
 import com.school.exception.StudentDeletionNotAllowedException;
 import com.school.fee.repository.PaymentRepository;
 import com.school.attendance.repository.AttendanceRepository;
+import com.school.attendance.service.AttendanceService;
 import com.school.fee.repository.FeePaymentRepository;
 import com.school.fee.repository.FeePaymentScheduleRepository;
 import com.school.fee.repository.StudentFeeAssignmentRepository;
@@ -19,6 +20,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.school.student.dto.StudentDeletionImpactDTO;
+import com.school.security.AuthzContextCache;
 
 @Service
 @Transactional
@@ -35,6 +37,9 @@ public class StudentService {
     @Autowired
     private AttendanceRepository attendanceRepository;
 
+    @Autowired
+    private AttendanceService attendanceService;
+
     @Autowired
     private FeePaymentRepository feePaymentRepository;
 
@@ -44,6 +49,9 @@ public class StudentService {
     @Autowired
     private StudentFeeAssignmentRepository studentFeeAssignmentRepository;
 
+    @Autowired
+    private AuthzContextCache authzContextCache;
+
     public Student createStudent(Student student) {
         log.info("Creating new student: {} {}", student.getFirstName(), student.getLastName());
         validateNewStudent(student);
@@ -63,6 +71,7 @@ public class StudentService {
             student.getAdmission().setStudent(student);
         }
 
+        authzContextCache.studentsChangedAfterCommit();
         try {
             return studentRepository.save(student);
         } catch (Exception e) {
@@ -72,12 +81,18 @@ public class StudentService {
     }
 
     public Student updateStudent(Long id, Student student) {
-        if (!studentRepository.existsById(id)) {
-            throw new StudentNotFoundException("Student not found with id: " + id);
-        }
+        Student existing = studentRepository.findById(id)
+                .orElseThrow(() -> new StudentNotFoundException("Student not found with id: " + id));
         validateExistingStudent(id, student);
+        // Captured before the save, which merges the new state into the loaded entity
+        Integer oldGrade = existing.getGrade();
+        String oldSection = existing.getSection();
         student.setId(id);
-        return studentRepository.save(student);
+        authzContextCache.studentsChangedAfterCommit();
+        Student saved = studentRepository.save(student);
+        // Attendance summaries are keyed by the student's class, so move their history with them
+        attendanceService.moveStudentClass(id, oldGrade, oldSection, saved.getGrade(), saved.getSection());
+        return saved;
     }
 
     public Student getStudent(Long id) {
@@ -180,8 +195,9 @@ public class StudentService {
         // delete attendance)
         if (attendance > 0) {
             try {
-                long deleted = attendanceRepository.deleteByStudent_Id(id);
-                log.info("Deleted {} attendance record(s) for student {} prior to student deletion", deleted, id);
+                // Goes through the attendance service so the class summary and live counters follow
+                attendanceService.deleteAllForStudent(id);
+                log.info("Deleted {} attendance record(s) for student {} prior to student deletion", attendance, id);
                 attendance = 0; // cleared
             } catch (Exception e) {
                 log.error("Failed to delete attendance for student {}: {}", id, e.getMessage(), e);
@@ -243,6 +259,7 @@ public class StudentService {
         }
 
         studentRepository.deleteById(id);
+        authzContextCache.studentsChangedAfterCommit();
     }
 
     /**
@@ -264,6 +281,7 @@ public class StudentService {
         }
 
         // Save all students
+        authzContextCache.studentsChangedAfterCommit();
         return studentRepository.saveAll(students);
     }
 
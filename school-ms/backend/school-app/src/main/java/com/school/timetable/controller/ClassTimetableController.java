@@ -1,16 +1,25 @@
 package com.school.timetable.controller;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
+import com.school.staff.service.TeacherEligibilityIndex;
 import com.school.timetable.model.TimetableSettings;
 import com.school.timetable.model.TimetableSlot;
 import com.school.timetable.repository.TimetableSettingsRepository;
 import com.school.timetable.repository.TimetableSlotRepository;
+import com.school.timetable.service.TeacherOccupancy;
+import com.school.timetable.service.TeacherScheduleIndex;
+import com.school.timetable.service.TimetableGridCache;
+import com.school.timetable.service.TimetableSolverService;
+import com.school.timetable.service.TimetableValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/timetable")
@@ -19,14 +28,32 @@ public class ClassTimetableController {
     private final TimetableSlotRepository slotRepo;
     private final TimetableSettingsRepository settingsRepo;
     private final JdbcTemplate jdbc;
+    private final TimetableSolverService solverService;
+    private final TeacherEligibilityIndex eligibilityIndex;
+    private final TeacherOccupancy occupancy;
+    private final TeacherScheduleIndex scheduleIndex;
+    private final TimetableValidationService validationService;
+    private final TimetableGridCache gridCache;
 
     @Autowired
     public ClassTimetableController(TimetableSlotRepository slotRepo,
             TimetableSettingsRepository settingsRepo,
-            JdbcTemplate jdbc) {
+            JdbcTemplate jdbc,
+            TimetableSolverService solverService,
+            TeacherEligibilityIndex eligibilityIndex,
+            TeacherOccupancy occupancy,
+            TeacherScheduleIndex scheduleIndex,
+            TimetableValidationService validationService,
+            TimetableGridCache gridCache) {
         this.slotRepo = slotRepo;
         this.settingsRepo = settingsRepo;
         this.jdbc = jdbc;
+        this.solverService = solverService;
+        this.eligibilityIndex = eligibilityIndex;
+        this.occupancy = occupancy;
+        this.scheduleIndex = scheduleIndex;
+        this.validationService = validationService;
+        this.gridCache = gridCache;
     }
 
     public record GenerateRequest(Long classId,
@@ -35,6 +62,15 @@ public class ClassTimetableController {
             boolean lockExisting){
     }
 
+    public record ClassSectionRef(Long classId, @JsonAlias( {
+            "section", "sectionId" }) String sectionId) {
+    }
+
+    // Empty classSections means every class-section with requirements; a null seed picks a random one
+    public record GenerateSchoolRequest(List<ClassSectionRef> classSections, boolean lockExisting,
+            Long timeBudgetMs, Long seed) {
+    }
+
     // Grid cell returned to the UI (IDs retained for compatibility; display fields
     // added)
     public record GridCell(Long subjectId, Long teacherDetailsId, boolean locked,
@@ -84,24 +120,33 @@ public class ClassTimetableController {
     @GetMapping("/slots")
     @org.springframework.security.access.prepost.PreAuthorize("hasAnyRole('ADMIN','PRINCIPAL') or (hasRole('TEACHER') and @authz.isTeacherOfClassSection(#classId, #section)) or (hasRole('STUDENT') and @authz.isCurrentStudentsClassSection(#classId, #section))")
     public ResponseEntity<SlotsResponse> getSlots(@RequestParam Long classId,
-            @RequestParam String section) {
-        TimetableSettings settings = settingsRepo.findTopByOrderByIdAsc()
-                .orElseGet(() -> {
-                    TimetableSettings s = new TimetableSettings();
-                    s.setPeriodsPerDay(8);
-                    s.setLunchAfterPeriod(4);
-                    s.setWorkingDaysMask(31); // 11111b Mon..Fri
-                    return s;
-                });
-
+            @RequestParam String section,
+            WebRequest request) {
         // Resolve section id from grade+section name using exam tables (if section is a
         // letter)
         Long sectionId = resolveSectionIdIfNeeded(classId, section);
 
-        List<TimetableSlot> slots = slotRepo.findByClassIdAndSectionIdOrderByDayOfWeekAscPeriodNoAsc(classId,
-                sectionId);
-        int periodsPerDay = settings.getPeriodsPerDay() != null ? settings.getPeriodsPerDay() : 8;
-        return ResponseEntity.ok(buildGridResponse(periodsPerDay, slots));
+        // The grid only changes on slot writes; answer revalidations with 304 and serve
+        // the rendered grid from the cache otherwise
+        String etag = gridCache.classSectionEtag(classId, sectionId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        SlotsResponse body = gridCache.get(etag, () -> {
+            TimetableSettings settings = settingsRepo.findTopByOrderByIdAsc()
+                    .orElseGet(() -> {
+                        TimetableSettings s = new TimetableSettings();
+                        s.setPeriodsPerDay(8);
+                        s.setLunchAfterPeriod(4);
+                        s.setWorkingDaysMask(31); // 11111b Mon..Fri
+                        return s;
+                    });
+            List<TimetableSlot> slots = slotRepo.findByClassIdAndSectionIdOrderByDayOfWeekAscPeriodNoAsc(classId,
+                    sectionId);
+            int periodsPerDay = settings.getPeriodsPerDay() != null ? settings.getPeriodsPerDay() : 8;
+            return buildGridResponse(periodsPerDay, slots);
+        });
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body);
     }
 
     @PostMapping("/generate")
@@ -164,21 +209,13 @@ public class ClassTimetableController {
                 "select subject_id, weekly_periods from timetable_requirements where class_id = ? and section_id = ?",
                 req.classId(), resolvedSectionId);
 
-        // Build subject -> eligible teacher ids using intersection of teacher_class_map
-        // and teacher_subject_map
+        // Build subject -> eligible teacher ids from the eligibility index (keyed by
+        // the section letter stored in teacher_class_map)
         Map<Long, List<Long>> subjectTeachers = new HashMap<>();
-        // Ensure we use section letter for the teacher_class_map join (it stores
-        // letters like 'A')
         for (Map<String, Object> row : reqs) {
             Long subjectId = ((Number) row.get("subject_id")).longValue();
-            List<Long> teacherIds = jdbc.query(
-                    "select ts.teacher_details_id " +
-                            "from teacher_subject_map ts " +
-                            "join teacher_class_map tc on tc.teacher_details_id = ts.teacher_details_id and tc.class_id = ? and tc.section = ? "
-                            +
-                            "where ts.subject_id = ?",
-                    (rs, rn) -> rs.getLong(1), req.classId(), sectionLetter, subjectId);
-            subjectTeachers.put(subjectId, teacherIds);
+            long[] teacherIds = eligibilityIndex.eligibleTeachers(req.classId(), sectionLetter, subjectId);
+            subjectTeachers.put(subjectId, Arrays.stream(teacherIds).boxed().collect(Collectors.toList()));
         }
 
         // day -> teacherId -> count assigned today
@@ -269,6 +306,10 @@ public class ClassTimetableController {
         if (!toSave.isEmpty()) {
             slotRepo.saveAll(toSave);
         }
+        occupancy.reloadAfterCommit();
+        scheduleIndex.reloadAfterCommit();
+        // Regeneration can drop teachers that are no longer eligible, so bump every view
+        gridCache.allChanged();
 
         // Return the latest grid
         List<TimetableSlot> slots = slotRepo.findByClassIdAndSectionIdOrderByDayOfWeekAscPeriodNoAsc(req.classId(),
@@ -276,6 +317,27 @@ public class ClassTimetableController {
         return ResponseEntity.ok(buildGridResponse(periodsPerDay, slots));
     }
 
+    // Generate all (or the listed) class-sections together so teacher clashes are avoided school-wide
+    @PostMapping("/generate-school")
+    @org.springframework.security.access.prepost.PreAuthorize("hasAnyRole('ADMIN','PRINCIPAL','STAFF')")
+    public ResponseEntity<TimetableSolverService.SolveResult> generateSchool(
+            @RequestBody(required = false) GenerateSchoolRequest req) {
+        List<TimetableSolverService.ClassSection> scope = new ArrayList<>();
+        if (req != null && req.classSections() != null) {
+            for (ClassSectionRef ref : req.classSections()) {
+                if (ref.classId() == null || ref.sectionId() == null || ref.sectionId().isBlank()) {
+                    return ResponseEntity.badRequest().build();
+                }
+                scope.add(new TimetableSolverService.ClassSection(ref.classId(),
+                        resolveSectionIdIfNeeded(ref.classId(), ref.sectionId())));
+            }
+        }
+        boolean lockExisting = req != null && req.lockExisting();
+        Long budget = req != null ? req.timeBudgetMs() : null;
+        Long seed = req != null ? req.seed() : null;
+        return ResponseEntity.ok(solverService.generate(scope, lockExisting, budget, seed));
+    }
+
     // List eligible teachers for a given class/section/subject
     @GetMapping("/eligible-teachers")
     @org.springframework.security.access.prepost.PreAuthorize("hasAnyRole('ADMIN','PRINCIPAL','STAFF') or (hasRole('TEACHER') and @authz.isTeacherOfClassSection(#classId, #section))")
@@ -283,17 +345,18 @@ public class ClassTimetableController {
             @RequestParam String section,
             @RequestParam Long subjectId) {
         String sectionLetter = resolveSectionNameIfNeeded(section);
-        // Intersect teacher_subject_map and teacher_class_map, with name from
+        // Eligibility comes from the index; only names are read, with name from
         // school_staff if present
+        long[] teacherIds = eligibilityIndex.eligibleTeachers(classId, sectionLetter, subjectId);
+        if (teacherIds.length == 0) {
+            return ResponseEntity.ok(new EligibleTeachersResponse(Collections.emptyList()));
+        }
         List<Map<String, Object>> rows = jdbc.queryForList(
                 "select td.id as id, coalesce(ss.first_name || ' ' || ss.last_name, cast(td.id as varchar)) as name " +
-                        "from teacher_subject_map ts " +
-                        "join teacher_details td on td.id = ts.teacher_details_id " +
-                        "join teacher_class_map tc on tc.teacher_details_id = td.id and tc.class_id = ? and tc.section = ? "
-                        +
+                        "from teacher_details td " +
                         "left join school_staff ss on ss.teacher_details_id = td.id " +
-                        "where ts.subject_id = ?",
-                classId, sectionLetter, subjectId);
+                        "where td.id in (" + placeholders(teacherIds.length) + ")",
+                Arrays.stream(teacherIds).boxed().toArray());
         return ResponseEntity.ok(new EligibleTeachersResponse(rows));
     }
 
@@ -312,18 +375,27 @@ public class ClassTimetableController {
         if (rows == null || rows.isEmpty()) {
             // Fallback: union of subjects taught by any teacher assigned to this
             // class/section
+            long[] subjectIds = eligibilityIndex.subjectsOf(classId, sectionLetter);
+            if (subjectIds.length == 0) {
+                return ResponseEntity.ok(new EligibleSubjectsResponse(Collections.emptyList()));
+            }
             rows = jdbc.queryForList(
-                    "select distinct s.id as id, s.code as code, s.name as name " +
-                            "from teacher_class_map tc " +
-                            "join teacher_subject_map ts on ts.teacher_details_id = tc.teacher_details_id " +
-                            "join subjects s on s.id = ts.subject_id " +
-                            "where tc.class_id = ? and tc.section = ? " +
+                    "select s.id as id, s.code as code, s.name as name from subjects s " +
+                            "where s.id in (" + placeholders(subjectIds.length) + ") " +
                             "order by s.name",
-                    classId, sectionLetter);
+                    Arrays.stream(subjectIds).boxed().toArray());
         }
         return ResponseEntity.ok(new EligibleSubjectsResponse(rows));
     }
 
+    // Whole-school check for double-booked teachers, over-limit days, ineligible
+    // teachers and slots outside the working week
+    @GetMapping("/conflicts")
+    @org.springframework.security.access.prepost.PreAuthorize("hasAnyRole('ADMIN','PRINCIPAL','STAFF')")
+    public ResponseEntity<TimetableValidationService.ConflictReport> conflicts() {
+        return ResponseEntity.ok(validationService.validate());
+    }
+
     // Update a specific slot (subject and/or teacher). Performs basic conflict
     // checks.
     @PostMapping("/update-slot")
@@ -351,25 +423,18 @@ public class ClassTimetableController {
         }
 
         // If teacher provided, ensure no conflict: same teacher already teaching
-        // another class at that time
-        if (req.teacherDetailsId() != null) {
-            Integer count = jdbc.queryForObject(
-                    "select count(1) from timetable_slots where teacher_details_id = ? and day_of_week = ? and period_no = ? and not (class_id = ? and section_id = ?)",
-                    Integer.class, req.teacherDetailsId(), req.dayOfWeek(), req.periodNo(), req.classId(), sectionId);
-            if (count != null && count > 0) {
-                return ResponseEntity.status(409).build();
-            }
+        // another class at that time, or already at the daily limit
+        Long previousTeacherId = slot.getTeacherDetailsId();
+        if (validationService.checkAssignment(previousTeacherId, req.teacherDetailsId(), req.dayOfWeek(),
+                req.periodNo()) != null) {
+            return ResponseEntity.status(409).build();
         }
 
         // If subject provided, ensure teacher (if provided) is eligible for this
         // class/section/subject
         if (req.subjectId() != null && req.teacherDetailsId() != null) {
             String sectionLetter = resolveSectionNameIfNeeded(String.valueOf(sectionId));
-            Integer ok = jdbc.query(
-                    "select 1 from teacher_subject_map ts join teacher_class_map tc on tc.teacher_details_id = ts.teacher_details_id and tc.class_id = ? and tc.section = ? where ts.teacher_details_id = ? and ts.subject_id = ?",
-                    rs -> rs.next() ? 1 : 0,
-                    req.classId(), sectionLetter, req.teacherDetailsId(), req.subjectId());
-            if (ok == null || ok == 0) {
+            if (!eligibilityIndex.isEligible(req.teacherDetailsId(), req.classId(), sectionLetter, req.subjectId())) {
                 return ResponseEntity.status(422).build();
             }
         }
@@ -384,6 +449,11 @@ public class ClassTimetableController {
             slot.setLocked(req.locked());
         slot.setGeneratedBy("MANUAL");
         slotRepo.save(slot);
+        occupancy.reassignAfterCommit(previousTeacherId, slot.getTeacherDetailsId(), req.dayOfWeek(), req.periodNo());
+        scheduleIndex.slotChangedAfterCommit(previousTeacherId, slot.getTeacherDetailsId(), req.classId(), sectionId,
+                req.dayOfWeek(), req.periodNo(), slot.getSubjectId());
+        gridCache.classSectionChanged(req.classId(), sectionId);
+        gridCache.teachersChanged(previousTeacherId, slot.getTeacherDetailsId());
 
         // return refreshed grid
         List<TimetableSlot> slots = slotRepo.findByClassIdAndSectionIdOrderByDayOfWeekAscPeriodNoAsc(req.classId(),
@@ -469,6 +539,10 @@ public class ClassTimetableController {
         load.put(teacherId, load.getOrDefault(teacherId, 0) + 1);
     }
 
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
     private Long resolveSectionIdIfNeeded(Long classId, String section) {
         // If 'section' is numeric, assume it's the sectionId already; else try to
         // derive from grade and name
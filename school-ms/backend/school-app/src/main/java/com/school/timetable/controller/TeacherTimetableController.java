@@ -0,0 +1,197 @@
+package com.school.timetable.controller;
+
+import com.school.security.AuthorizationService;
+import com.school.timetable.model.TimetableSettings;
+import com.school.timetable.repository.TimetableSettingsRepository;
+import com.school.timetable.service.TeacherScheduleIndex;
+import com.school.timetable.service.TimetableGridCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * A teacher's own timetable ("my week"), answered from {@link TeacherScheduleIndex}.
+ */
+@RestController
+@RequestMapping("/api/timetable/teachers")
+public class TeacherTimetableController {
+
+    private final TeacherScheduleIndex scheduleIndex;
+    private final TimetableGridCache gridCache;
+    private final TimetableSettingsRepository settingsRepo;
+    private final JdbcTemplate jdbc;
+    private final AuthorizationService authz;
+
+    @Autowired
+    public TeacherTimetableController(TeacherScheduleIndex scheduleIndex, TimetableGridCache gridCache,
+            TimetableSettingsRepository settingsRepo, JdbcTemplate jdbc, AuthorizationService authz) {
+        this.scheduleIndex = scheduleIndex;
+        this.gridCache = gridCache;
+        this.settingsRepo = settingsRepo;
+        this.jdbc = jdbc;
+        this.authz = authz;
+    }
+
+    // One period of the teacher's timetable. substitution=true marks a class the teacher is
+    // covering on the date; coveredByTeacherId is set when someone else covers their own class
+    public record TeacherCell(Long classId, Long sectionId, String className, String sectionName,
+            Long subjectId, String subjectCode, String subjectName, boolean substitution,
+            Long coveredByTeacherId) {
+    }
+
+    // Same shape as the class grid: periodsPerDay + days + grid(dayIdx -> periodNo -> cell).
+    // With a date only that day is filled and substitutions are applied
+    public record TeacherTimetableResponse(Long teacherDetailsId, LocalDate date, int periodsPerDay,
+            List<String> days, Map<Integer, Map<Integer, TeacherCell>> grid) {
+    }
+
+    @GetMapping("/me")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<TeacherTimetableResponse> myTimetable(
+            @RequestParam(required = false) LocalDate date,
+            WebRequest request) {
+        Long teacherDetailsId = authz.currentTeacherDetailsId();
+        if (teacherDetailsId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return timetable(teacherDetailsId, date, request);
+    }
+
+    @GetMapping("/{teacherDetailsId}")
+    @PreAuthorize("hasAnyRole('ADMIN','PRINCIPAL','STAFF') or (hasRole('TEACHER') and @authz.isMyTeacherDetailsId(#teacherDetailsId))")
+    public ResponseEntity<TeacherTimetableResponse> teacherTimetable(@PathVariable Long teacherDetailsId,
+            @RequestParam(required = false) LocalDate date,
+            WebRequest request) {
+        return timetable(teacherDetailsId, date, request);
+    }
+
+    private ResponseEntity<TeacherTimetableResponse> timetable(Long teacherDetailsId, LocalDate date,
+            WebRequest request) {
+        // The teacher's version is bumped by slot and substitution writes that involve them
+        String etag = gridCache.teacherEtag(teacherDetailsId, date == null ? "week" : date.toString());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        TeacherTimetableResponse body = gridCache.get(etag, () -> render(teacherDetailsId, date));
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body);
+    }
+
+    private TeacherTimetableResponse render(Long teacherDetailsId, LocalDate date) {
+        int periodsPerDay = settingsRepo.findTopByOrderByIdAsc()
+                .map(TimetableSettings::getPeriodsPerDay).orElse(8);
+        List<String> days = Arrays.asList("Mon", "Tue", "Wed", "Thu", "Fri");
+        Map<Integer, Map<Integer, TeacherCell>> grid = new HashMap<>();
+        for (int d = 0; d < days.size(); d++) {
+            grid.put(d, new HashMap<>());
+        }
+
+        Integer onlyDay = date != null ? date.getDayOfWeek().getValue() : null;
+        List<TeacherScheduleIndex.Lesson> lessons = new ArrayList<>();
+        for (TeacherScheduleIndex.Lesson l : scheduleIndex.lessonsOf(teacherDetailsId)) {
+            if (onlyDay == null || l.dayOfWeek() == onlyDay) {
+                lessons.add(l);
+            }
+        }
+        // Own classes covered by someone else, keyed by class-section and period; and covers
+        // this teacher takes, with the subject taken from the covered teacher's lesson
+        Map<String, Long> coveredBy = new HashMap<>();
+        List<TeacherScheduleIndex.Cover> covering = new ArrayList<>();
+        if (date != null) {
+            for (TeacherScheduleIndex.Cover c : scheduleIndex.coversOf(teacherDetailsId, date)) {
+                if (Objects.equals(c.substituteTeacherId(), teacherDetailsId)) {
+                    covering.add(c);
+                } else {
+                    coveredBy.put(c.classId() + ":" + c.sectionId() + ":" + c.periodNo(), c.substituteTeacherId());
+                }
+            }
+        }
+
+        Names names = names(lessons, covering, onlyDay);
+        for (TeacherScheduleIndex.Lesson l : lessons) {
+            if (l.dayOfWeek() < 1 || l.dayOfWeek() > days.size()) {
+                continue;
+            }
+            Long cover = coveredBy.get(l.classId() + ":" + l.sectionId() + ":" + l.periodNo());
+            grid.get(l.dayOfWeek() - 1).put(l.periodNo(),
+                    names.cell(l.classId(), l.sectionId(), l.subjectId(), false, cover));
+        }
+        if (onlyDay != null && onlyDay <= days.size()) {
+            for (TeacherScheduleIndex.Cover c : covering) {
+                TeacherScheduleIndex.Lesson covered = scheduleIndex.lessonAt(c.originalTeacherId(), c.classId(),
+                        c.sectionId(), onlyDay, c.periodNo());
+                grid.get(onlyDay - 1).put(c.periodNo(), names.cell(c.classId(), c.sectionId(),
+                        covered != null ? covered.subjectId() : null, true, null));
+            }
+        }
+        return new TeacherTimetableResponse(teacherDetailsId, date, periodsPerDay, days, grid);
+    }
+
+    // Display names for just the classes, sections and subjects on this timetable
+    private Names names(List<TeacherScheduleIndex.Lesson> lessons, List<TeacherScheduleIndex.Cover> covering,
+            Integer day) {
+        Set<Long> classIds = new HashSet<>();
+        Set<Long> sectionIds = new HashSet<>();
+        Set<Long> subjectIds = new HashSet<>();
+        for (TeacherScheduleIndex.Lesson l : lessons) {
+            classIds.add(l.classId());
+            sectionIds.add(l.sectionId());
+            if (l.subjectId() != null) {
+                subjectIds.add(l.subjectId());
+            }
+        }
+        for (TeacherScheduleIndex.Cover c : covering) {
+            classIds.add(c.classId());
+            sectionIds.add(c.sectionId());
+            TeacherScheduleIndex.Lesson covered = scheduleIndex.lessonAt(c.originalTeacherId(), c.classId(),
+                    c.sectionId(), day, c.periodNo());
+            if (covered != null && covered.subjectId() != null) {
+                subjectIds.add(covered.subjectId());
+            }
+        }
+        Names names = new Names();
+        if (!classIds.isEmpty()) {
+            jdbc.query("select id, name from classes where id in (" + placeholders(classIds.size()) + ")",
+                    rs -> {
+                        names.classNames.put(rs.getLong(1), rs.getString(2));
+                    }, classIds.toArray());
+        }
+        if (!sectionIds.isEmpty()) {
+            jdbc.query("select id, section_name from sections where id in (" + placeholders(sectionIds.size()) + ")",
+                    rs -> {
+                        names.sectionNames.put(rs.getLong(1), rs.getString(2));
+                    }, sectionIds.toArray());
+        }
+        if (!subjectIds.isEmpty()) {
+            jdbc.query("select id, code, name from subjects where id in (" + placeholders(subjectIds.size()) + ")",
+                    rs -> {
+                        names.subjectCodes.put(rs.getLong(1), rs.getString(2));
+                        names.subjectNames.put(rs.getLong(1), rs.getString(3));
+                    }, subjectIds.toArray());
+        }
+        return names;
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    private static final class Names {
+        final Map<Long, String> classNames = new HashMap<>();
+        final Map<Long, String> sectionNames = new HashMap<>();
+        final Map<Long, String> subjectCodes = new HashMap<>();
+        final Map<Long, String> subjectNames = new HashMap<>();
+
+        TeacherCell cell(Long classId, Long sectionId, Long subjectId, boolean substitution, Long coveredBy) {
+            return new TeacherCell(classId, sectionId, classNames.get(classId), sectionNames.get(sectionId),
+                    subjectId, subjectId != null ? subjectCodes.get(subjectId) : null,
+                    subjectId != null ? subjectNames.get(subjectId) : null, substitution, coveredBy);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.school.timetable.controller;
 
 import com.school.timetable.model.TimetableSettings;
 import com.school.timetable.repository.TimetableSettingsRepository;
+import com.school.timetable.service.TimetableGridCache;
+import com.school.timetable.service.TimetableValidationService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -14,9 +16,14 @@ import java.time.LocalTime;
 public class TimetableSettingsController {
 
     private final TimetableSettingsRepository repo;
+    private final TimetableGridCache gridCache;
+    private final TimetableValidationService validationService;
 
-    public TimetableSettingsController(TimetableSettingsRepository repo) {
+    public TimetableSettingsController(TimetableSettingsRepository repo, TimetableGridCache gridCache,
+            TimetableValidationService validationService) {
         this.repo = repo;
+        this.gridCache = gridCache;
+        this.validationService = validationService;
     }
 
     @GetMapping
@@ -32,7 +39,9 @@ public class TimetableSettingsController {
             def.setMaxPeriodsPerTeacherPerDay(5);
             def.setStartTime(LocalTime.of(8, 30));
             def.setEndTime(LocalTime.of(15, 30));
-            return ResponseEntity.ok(repo.save(def));
+            TimetableSettings saved = repo.save(def);
+            validationService.settingsChanged();
+            return ResponseEntity.ok(saved);
         }
         return ResponseEntity.ok(list.get(0));
     }
@@ -56,6 +65,10 @@ public class TimetableSettingsController {
         // Fall back to defaults if null
         toSave.setStartTime(incoming.getStartTime() != null ? incoming.getStartTime() : LocalTime.of(8, 30));
         toSave.setEndTime(incoming.getEndTime() != null ? incoming.getEndTime() : LocalTime.of(15, 30));
-        return ResponseEntity.ok(repo.save(toSave));
+        TimetableSettings saved = repo.save(toSave);
+        // Periods per day is part of every rendered grid
+        gridCache.allChanged();
+        validationService.settingsChanged();
+        return ResponseEntity.ok(saved);
     }
 }
@@ -1,5 +1,9 @@
 package com.school.timetable.controller;
 
+import com.school.staff.service.TeacherEligibilityIndex;
+import com.school.timetable.service.TeacherOccupancy;
+import com.school.timetable.service.TeacherScheduleIndex;
+import com.school.timetable.service.TimetableGridCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -15,10 +19,20 @@ import java.util.stream.Collectors;
 public class TimetableSubstitutionsController {
 
     private final JdbcTemplate jdbc;
+    private final TeacherOccupancy occupancy;
+    private final TeacherEligibilityIndex eligibilityIndex;
+    private final TeacherScheduleIndex scheduleIndex;
+    private final TimetableGridCache gridCache;
 
     @Autowired
-    public TimetableSubstitutionsController(JdbcTemplate jdbc) {
+    public TimetableSubstitutionsController(JdbcTemplate jdbc, TeacherOccupancy occupancy,
+            TeacherEligibilityIndex eligibilityIndex, TeacherScheduleIndex scheduleIndex,
+            TimetableGridCache gridCache) {
         this.jdbc = jdbc;
+        this.occupancy = occupancy;
+        this.eligibilityIndex = eligibilityIndex;
+        this.scheduleIndex = scheduleIndex;
+        this.gridCache = gridCache;
     }
 
     public record SubstitutionRequest(
@@ -84,6 +98,11 @@ public class TimetableSubstitutionsController {
             @RequestParam Long teacherId,
             @RequestParam LocalDate date) {
 
+        // Nothing to cover when the teacher has no slots that day
+        if (!occupancy.hasClassesOn(teacherId, date)) {
+            return ResponseEntity.ok(Collections.emptyList());
+        }
+
         // Get day of week (1=Monday, 7=Sunday)
         int dayOfWeek = date.getDayOfWeek().getValue();
 
@@ -120,7 +139,6 @@ public class TimetableSubstitutionsController {
             @RequestParam LocalDate date,
             @RequestParam(required = false) Long subjectId) {
 
-        int dayOfWeek = date.getDayOfWeek().getValue();
         Long sectionId = resolveSectionIdIfNeeded(classId, section);
 
         // Get max periods per teacher per day from settings (default 5)
@@ -130,46 +148,21 @@ public class TimetableSubstitutionsController {
         if (maxPeriodsPerDay == null)
             maxPeriodsPerDay = 5;
 
-        // Find all teachers who:
-        // 1. Teach the subject (if specified)
-        // 2. Are NOT teaching another class at this time
-        // 3. Calculate their current load for this day
-
-        String sql;
-        Object[] params;
-
-        if (subjectId != null) {
-            // Filter by subject
-            sql = "SELECT DISTINCT td.id, " +
-                    "COALESCE(ss.first_name || ' ' || ss.last_name, 'Teacher #' || td.id) as name, " +
-                    "ss.department, " +
-                    "(SELECT COUNT(*) FROM timetable_slots WHERE teacher_details_id = td.id AND day_of_week = ?) as current_load "
-                    +
-                    "FROM teacher_details td " +
-                    "JOIN teacher_subject_map tsm ON tsm.teacher_details_id = td.id " +
-                    "LEFT JOIN school_staff ss ON ss.teacher_details_id = td.id " +
-                    "WHERE tsm.subject_id = ? " +
-                    "AND td.id NOT IN ( " +
-                    "  SELECT teacher_details_id FROM timetable_slots " +
-                    "  WHERE day_of_week = ? AND period_no = ? AND teacher_details_id IS NOT NULL " +
-                    ") " +
-                    "ORDER BY current_load, name";
-            params = new Object[] { dayOfWeek, subjectId, dayOfWeek, periodNo };
-        } else {
-            // All available teachers
-            sql = "SELECT DISTINCT td.id, " +
-                    "COALESCE(ss.first_name || ' ' || ss.last_name, 'Teacher #' || td.id) as name, " +
-                    "ss.department, " +
-                    "(SELECT COUNT(*) FROM timetable_slots WHERE teacher_details_id = td.id AND day_of_week = ?) as current_load "
-                    +
-                    "FROM teacher_details td " +
-                    "LEFT JOIN school_staff ss ON ss.teacher_details_id = td.id " +
-                    "WHERE td.id NOT IN ( " +
-                    "  SELECT teacher_details_id FROM timetable_slots " +
-                    "  WHERE day_of_week = ? AND period_no = ? AND teacher_details_id IS NOT NULL " +
-                    ") " +
-                    "ORDER BY current_load, name";
-            params = new Object[] { dayOfWeek, dayOfWeek, periodNo };
+        // Candidates teach the subject (if specified); availability and current load
+        // for the day come from the occupancy bitsets, so SQL only supplies names
+        long[] candidates = subjectId != null ? eligibilityIndex.teachersOf(subjectId) : null;
+        if (candidates != null && candidates.length == 0) {
+            return ResponseEntity.ok(Collections.emptyList());
+        }
+        String sql = "SELECT DISTINCT td.id, " +
+                "COALESCE(ss.first_name || ' ' || ss.last_name, 'Teacher #' || td.id) as name, " +
+                "ss.department " +
+                "FROM teacher_details td " +
+                "LEFT JOIN school_staff ss ON ss.teacher_details_id = td.id";
+        Object[] params = new Object[0];
+        if (candidates != null) {
+            sql += " WHERE td.id IN (" + String.join(",", Collections.nCopies(candidates.length, "?")) + ")";
+            params = Arrays.stream(candidates).boxed().toArray();
         }
 
         List<Map<String, Object>> teachers = jdbc.queryForList(sql, params);
@@ -177,11 +170,12 @@ public class TimetableSubstitutionsController {
         // Convert to SuggestedTeacher with workload warnings
         final int maxLoad = maxPeriodsPerDay;
         List<SuggestedTeacher> suggestions = teachers.stream()
+                .filter(t -> occupancy.isFree(((Number) t.get("id")).longValue(), date, periodNo))
                 .map(t -> {
                     Long id = ((Number) t.get("id")).longValue();
                     String name = (String) t.get("name");
                     String dept = (String) t.get("department");
-                    Integer currentLoad = ((Number) t.get("current_load")).intValue();
+                    Integer currentLoad = occupancy.load(id, date);
                     boolean isOverloaded = currentLoad >= maxLoad;
 
                     String warning = null;
@@ -197,6 +191,8 @@ public class TimetableSubstitutionsController {
 
                     return new SuggestedTeacher(id, name, dept, currentLoad, maxLoad, isOverloaded, warning);
                 })
+                .sorted(Comparator.comparing(SuggestedTeacher::currentLoad)
+                        .thenComparing(SuggestedTeacher::name, Comparator.nullsLast(Comparator.naturalOrder())))
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(suggestions);
@@ -230,13 +226,9 @@ public class TimetableSubstitutionsController {
             return ResponseEntity.status(409).build(); // Conflict
         }
 
-        // Check if substitute teacher is available (not teaching another class at this time)
-        int dayOfWeek = req.date().getDayOfWeek().getValue();
-        Integer conflicts = jdbc.queryForObject(
-                "SELECT COUNT(*) FROM timetable_slots WHERE teacher_details_id = ? AND day_of_week = ? AND period_no = ?",
-                Integer.class, req.substituteTeacherId(), dayOfWeek, req.periodNo());
-
-        if (conflicts != null && conflicts > 0) {
+        // Check if substitute teacher is available (not teaching or covering another
+        // class at this time)
+        if (!occupancy.isFree(req.substituteTeacherId(), req.date(), req.periodNo())) {
             return ResponseEntity.status(422).build(); // Unprocessable - teacher has conflict
         }
 
@@ -248,6 +240,9 @@ public class TimetableSubstitutionsController {
                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
                 req.date(), req.classId(), sectionId, req.periodNo(), req.originalTeacherId(),
                 req.substituteTeacherId(), req.reason(), approvedBy);
+        occupancy.substitutionChangedAfterCommit(req.date(), req.substituteTeacherId());
+        scheduleIndex.invalidateCovers(req.date());
+        gridCache.teachersChanged(req.originalTeacherId(), req.substituteTeacherId());
 
         // Fetch the created substitution
         Map<String, Object> created = jdbc.queryForMap(
@@ -266,15 +261,29 @@ public class TimetableSubstitutionsController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','PRINCIPAL')")
     public ResponseEntity<Void> deleteSubstitution(@PathVariable Long id) {
-        int deleted = jdbc.update("DELETE FROM timetable_substitutions WHERE id = ?", id);
+        // RETURNING tells us which date and teachers to refresh
+        List<Map<String, Object>> deleted = jdbc.queryForList(
+                "DELETE FROM timetable_substitutions WHERE id = ? " +
+                        "RETURNING date, original_teacher_details_id, substitute_teacher_details_id",
+                id);
 
-        if (deleted == 0) {
+        if (deleted.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        Map<String, Object> row = deleted.get(0);
+        LocalDate date = ((java.sql.Date) row.get("date")).toLocalDate();
+        occupancy.substitutionChangedAfterCommit(date, toLong(row.get("substitute_teacher_details_id")));
+        scheduleIndex.invalidateCovers(date);
+        gridCache.teachersChanged(toLong(row.get("original_teacher_details_id")),
+                toLong(row.get("substitute_teacher_details_id")));
 
         return ResponseEntity.noContent().build();
     }
 
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
     private Long resolveSectionIdIfNeeded(Long classId, String section) {
         try {
             return Long.parseLong(section);
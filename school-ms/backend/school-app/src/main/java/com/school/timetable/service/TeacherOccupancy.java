@@ -0,0 +1,257 @@
+package com.school.timetable.service;
+
+import com.school.common.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory teacher x day x period occupancy used for substitution lookups and slot edit checks.
+ * <p>
+ * The weekly timetable is held as one bitset per teacher per day (bit {@code p - 1} set when the
+ * teacher has a slot in period {@code p}). Bulk slot writes swap in a fresh map; single-slot edits
+ * replace just the affected teachers' arrays (copy on write), so readers never see a torn array.
+ * Both run under the instance lock, so an edit committed during a reload is never lost.
+ * Substitutions are date specific and kept as a per-date overlay of the periods each substitute
+ * covers, loaded on first use; a substitution change refreshes only that substitute on that date.
+ * Free checks and daily load are a few bit operations; no query runs once both are loaded.
+ */
+@Component
+public class TeacherOccupancy {
+
+    private static final Logger log = LoggerFactory.getLogger(TeacherOccupancy.class);
+
+    private static final int DAYS = 7;
+    private static final int MAX_PERIOD = 64;
+    private static final int MAX_CACHED_DATES = 64;
+
+    private final JdbcTemplate jdbc;
+
+    private volatile Map<Long, long[]> weekly;
+    private final Map<LocalDate, Map<Long, Long>> substitutions = new ConcurrentHashMap<>();
+    // Bumped on every substitution change; a date loaded across one is returned but not cached
+    private final AtomicLong substitutionVersion = new AtomicLong();
+
+    public TeacherOccupancy(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * True when the teacher has neither a timetable slot nor a substitution in that period.
+     */
+    public boolean isFree(Long teacherDetailsId, LocalDate date, int periodNo) {
+        if (teacherDetailsId == null || periodNo < 1 || periodNo > MAX_PERIOD) {
+            return false;
+        }
+        return (busyPeriods(teacherDetailsId, date) & (1L << (periodNo - 1))) == 0;
+    }
+
+    /**
+     * Number of periods the teacher is occupied on the date, substitutions included.
+     */
+    public int load(Long teacherDetailsId, LocalDate date) {
+        return Long.bitCount(busyPeriods(teacherDetailsId, date));
+    }
+
+    /**
+     * True when the teacher has any timetable slot on that day of the week.
+     */
+    public boolean hasClassesOn(Long teacherDetailsId, LocalDate date) {
+        return weekdayPeriods(teacherDetailsId, date.getDayOfWeek().getValue()) != 0;
+    }
+
+    /**
+     * True when the weekly timetable already has the teacher in that period (1=Mon .. 7=Sun).
+     */
+    public boolean isBusyOnWeekday(Long teacherDetailsId, int dayOfWeek, int periodNo) {
+        if (periodNo < 1 || periodNo > MAX_PERIOD) {
+            return false;
+        }
+        return (weekdayPeriods(teacherDetailsId, dayOfWeek) & (1L << (periodNo - 1))) != 0;
+    }
+
+    /**
+     * Number of periods the teacher has in the weekly timetable on that day (1=Mon .. 7=Sun).
+     */
+    public int weekdayLoad(Long teacherDetailsId, int dayOfWeek) {
+        return Long.bitCount(weekdayPeriods(teacherDetailsId, dayOfWeek));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        currentWeekly();
+    }
+
+    /**
+     * Rebuilds the weekly bitsets from timetable_slots and swaps them in.
+     */
+    public synchronized void reload() {
+        Map<Long, long[]> bits = new ConcurrentHashMap<>();
+        jdbc.query("select teacher_details_id, day_of_week, period_no from timetable_slots "
+                + "where teacher_details_id is not null",
+                rs -> {
+                    int day = rs.getInt(2);
+                    int period = rs.getInt(3);
+                    if (day >= 1 && day <= DAYS && period >= 1 && period <= MAX_PERIOD) {
+                        bits.computeIfAbsent(rs.getLong(1), k -> new long[DAYS])[day - 1] |= 1L << (period - 1);
+                    }
+                });
+        this.weekly = bits;
+        log.debug("Teacher occupancy loaded for {} teachers", bits.size());
+    }
+
+    /**
+     * Schedules a reload of the weekly bitsets once the current transaction commits.
+     */
+    public void reloadAfterCommit() {
+        AfterCommit.run(this::reload);
+    }
+
+    /**
+     * Moves one weekly period from {@code fromTeacherId} to {@code toTeacherId} (either may be null)
+     * once the current transaction commits. The previous teacher's day is re-read rather than
+     * cleared, since they may still hold another slot in the same period (a double booking).
+     * Runs under the same lock as {@link #reload}, so a reload that started before the commit
+     * cannot swap in a map without this change.
+     */
+    public void reassignAfterCommit(Long fromTeacherId, Long toTeacherId, int dayOfWeek, int periodNo) {
+        if (Objects.equals(fromTeacherId, toTeacherId) || dayOfWeek < 1 || dayOfWeek > DAYS || periodNo < 1
+                || periodNo > MAX_PERIOD) {
+            return;
+        }
+        long bit = 1L << (periodNo - 1);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Map<Long, long[]> w = currentWeekly();
+                if (fromTeacherId != null) {
+                    long periods = dayPeriods(fromTeacherId, dayOfWeek);
+                    w.compute(fromTeacherId, (k, days) -> {
+                        long[] copy = days == null ? new long[DAYS] : days.clone();
+                        copy[dayOfWeek - 1] = periods;
+                        return copy;
+                    });
+                }
+                if (toTeacherId != null) {
+                    w.compute(toTeacherId, (k, days) -> {
+                        long[] copy = days == null ? new long[DAYS] : days.clone();
+                        copy[dayOfWeek - 1] |= bit;
+                        return copy;
+                    });
+                }
+            }
+        });
+    }
+
+    private long dayPeriods(Long teacherDetailsId, int dayOfWeek) {
+        long[] periods = new long[1];
+        jdbc.query("select period_no from timetable_slots where teacher_details_id = ? and day_of_week = ?",
+                rs -> {
+                    int period = rs.getInt(1);
+                    if (period >= 1 && period <= MAX_PERIOD) {
+                        periods[0] |= 1L << (period - 1);
+                    }
+                }, teacherDetailsId, dayOfWeek);
+        return periods[0];
+    }
+
+    /**
+     * Refreshes one substitute's covered periods on a date once the current transaction commits.
+     * The rest of that date's overlay and every other cached date are kept. The substitute's periods
+     * are re-read rather than patched, since they may still cover another class on that date.
+     */
+    public void substitutionChangedAfterCommit(LocalDate date, Long substituteTeacherId) {
+        AfterCommit.run(() -> {
+            substitutionVersion.incrementAndGet();
+            if (substituteTeacherId == null || !substitutions.containsKey(date)) {
+                return;
+            }
+            long periods = coveredPeriods(substituteTeacherId, date);
+            substitutions.computeIfPresent(date, (d, overlay) -> {
+                Map<Long, Long> copy = new HashMap<>(overlay);
+                if (periods == 0) {
+                    copy.remove(substituteTeacherId);
+                } else {
+                    copy.put(substituteTeacherId, periods);
+                }
+                return Collections.unmodifiableMap(copy);
+            });
+        });
+    }
+
+    private long coveredPeriods(Long substituteTeacherId, LocalDate date) {
+        long[] periods = new long[1];
+        jdbc.query("select period_no from timetable_substitutions "
+                + "where date = ? and substitute_teacher_details_id = ?",
+                rs -> {
+                    int period = rs.getInt(1);
+                    if (period >= 1 && period <= MAX_PERIOD) {
+                        periods[0] |= 1L << (period - 1);
+                    }
+                }, date, substituteTeacherId);
+        return periods[0];
+    }
+
+    private long weekdayPeriods(Long teacherDetailsId, int dayOfWeek) {
+        if (teacherDetailsId == null || dayOfWeek < 1 || dayOfWeek > DAYS) {
+            return 0L;
+        }
+        long[] days = currentWeekly().get(teacherDetailsId);
+        return days == null ? 0L : days[dayOfWeek - 1];
+    }
+
+    private long busyPeriods(Long teacherDetailsId, LocalDate date) {
+        long bits = weekdayPeriods(teacherDetailsId, date.getDayOfWeek().getValue());
+        Long covering = substitutionsOn(date).get(teacherDetailsId);
+        return covering == null ? bits : bits | covering;
+    }
+
+    private Map<Long, Long> substitutionsOn(LocalDate date) {
+        Map<Long, Long> cached = substitutions.get(date);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = substitutionVersion.get();
+        Map<Long, Long> loaded = new HashMap<>();
+        jdbc.query("select substitute_teacher_details_id, period_no from timetable_substitutions "
+                + "where date = ? and substitute_teacher_details_id is not null",
+                rs -> {
+                    int period = rs.getInt(2);
+                    if (period >= 1 && period <= MAX_PERIOD) {
+                        loaded.merge(rs.getLong(1), 1L << (period - 1), (a, b) -> a | b);
+                    }
+                }, date);
+        Map<Long, Long> overlay = Collections.unmodifiableMap(loaded);
+        if (substitutionVersion.get() == seen) {
+            if (substitutions.size() >= MAX_CACHED_DATES) {
+                substitutions.clear();
+            }
+            substitutions.putIfAbsent(date, overlay);
+        }
+        return overlay;
+    }
+
+    private Map<Long, long[]> currentWeekly() {
+        Map<Long, long[]> w = weekly;
+        if (w == null) {
+            synchronized (this) {
+                w = weekly;
+                if (w == null) {
+                    reload();
+                    w = weekly;
+                }
+            }
+        }
+        return w;
+    }
+}
@@ -0,0 +1,206 @@
+package com.school.timetable.service;
+
+import com.school.common.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index from teacher to the slots they teach, behind the teacher personal timetable.
+ * <p>
+ * Each teacher maps to an immutable list of lessons sorted by (day, period). Bulk slot writes swap in
+ * a fresh index; single-slot edits replace only the affected teachers' lists, under the same lock as
+ * the reload so neither can overwrite the other. Substitutions are date specific and held as a
+ * per-date list of covers, loaded on first use and dropped when a substitution on that date changes,
+ * so a teacher's week or day never scans timetable_slots.
+ */
+@Component
+public class TeacherScheduleIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TeacherScheduleIndex.class);
+
+    private static final int MAX_CACHED_DATES = 64;
+    private static final Comparator<Lesson> ORDER = Comparator.comparingInt(Lesson::dayOfWeek)
+            .thenComparingInt(Lesson::periodNo);
+
+    private final JdbcTemplate jdbc;
+
+    private volatile Map<Long, List<Lesson>> lessons;
+    private final Map<LocalDate, List<Cover>> covers = new ConcurrentHashMap<>();
+    // Bumped on every substitution change; a date loaded across one is returned but not cached
+    private final AtomicLong coverVersion = new AtomicLong();
+
+    public TeacherScheduleIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public record Lesson(int dayOfWeek, int periodNo, Long classId, Long sectionId, Long subjectId) {
+    }
+
+    public record Cover(LocalDate date, int periodNo, Long classId, Long sectionId, Long originalTeacherId,
+            Long substituteTeacherId) {
+    }
+
+    /**
+     * The teacher's weekly lessons ordered by day and period.
+     */
+    public List<Lesson> lessonsOf(Long teacherDetailsId) {
+        if (teacherDetailsId == null) {
+            return Collections.emptyList();
+        }
+        return currentLessons().getOrDefault(teacherDetailsId, Collections.emptyList());
+    }
+
+    /**
+     * Substitutions on the date in which the teacher is either the original or the substitute.
+     */
+    public List<Cover> coversOf(Long teacherDetailsId, LocalDate date) {
+        List<Cover> result = new ArrayList<>();
+        for (Cover c : coversOn(date)) {
+            if (Objects.equals(c.originalTeacherId(), teacherDetailsId)
+                    || Objects.equals(c.substituteTeacherId(), teacherDetailsId)) {
+                result.add(c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The lesson held in a class-section at a weekday period by the given teacher, if any.
+     */
+    public Lesson lessonAt(Long teacherDetailsId, Long classId, Long sectionId, int dayOfWeek, int periodNo) {
+        for (Lesson l : lessonsOf(teacherDetailsId)) {
+            if (l.dayOfWeek() == dayOfWeek && l.periodNo() == periodNo && Objects.equals(l.classId(), classId)
+                    && Objects.equals(l.sectionId(), sectionId)) {
+                return l;
+            }
+        }
+        return null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        currentLessons();
+    }
+
+    /**
+     * Rebuilds the lesson lists from timetable_slots and swaps them in.
+     */
+    public synchronized void reload() {
+        Map<Long, List<Lesson>> byTeacher = new HashMap<>();
+        jdbc.query("select teacher_details_id, day_of_week, period_no, class_id, section_id, subject_id "
+                + "from timetable_slots where teacher_details_id is not null",
+                rs -> {
+                    Long subjectId = rs.getObject(6) == null ? null : rs.getLong(6);
+                    byTeacher.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>())
+                            .add(new Lesson(rs.getInt(2), rs.getInt(3), rs.getLong(4), rs.getLong(5), subjectId));
+                });
+        Map<Long, List<Lesson>> index = new ConcurrentHashMap<>();
+        byTeacher.forEach((teacher, list) -> {
+            list.sort(ORDER);
+            index.put(teacher, Collections.unmodifiableList(list));
+        });
+        this.lessons = index;
+        log.debug("Teacher schedule index loaded for {} teachers", index.size());
+    }
+
+    /**
+     * Schedules a reload of the lesson lists once the current transaction commits.
+     */
+    public void reloadAfterCommit() {
+        AfterCommit.run(this::reload);
+    }
+
+    /**
+     * Applies a single-slot edit once the current transaction commits: the slot leaves
+     * {@code previousTeacherId}'s list and joins {@code teacherDetailsId}'s with its new subject.
+     * Runs under the same lock as {@link #reload}, so a reload that started before the commit
+     * cannot swap in an index without this edit.
+     */
+    public void slotChangedAfterCommit(Long previousTeacherId, Long teacherDetailsId, Long classId, Long sectionId,
+            int dayOfWeek, int periodNo, Long subjectId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Map<Long, List<Lesson>> index = currentLessons();
+                if (previousTeacherId != null) {
+                    index.computeIfPresent(previousTeacherId, (k, list) -> {
+                        List<Lesson> copy = new ArrayList<>(list);
+                        copy.removeIf(l -> l.dayOfWeek() == dayOfWeek && l.periodNo() == periodNo
+                                && Objects.equals(l.classId(), classId) && Objects.equals(l.sectionId(), sectionId));
+                        return copy.isEmpty() ? null : Collections.unmodifiableList(copy);
+                    });
+                }
+                if (teacherDetailsId != null) {
+                    index.compute(teacherDetailsId, (k, list) -> {
+                        List<Lesson> copy = list == null ? new ArrayList<>() : new ArrayList<>(list);
+                        copy.removeIf(l -> l.dayOfWeek() == dayOfWeek && l.periodNo() == periodNo
+                                && Objects.equals(l.classId(), classId) && Objects.equals(l.sectionId(), sectionId));
+                        copy.add(new Lesson(dayOfWeek, periodNo, classId, sectionId, subjectId));
+                        copy.sort(ORDER);
+                        return Collections.unmodifiableList(copy);
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the covers of one date once the current transaction commits.
+     */
+    public void invalidateCovers(LocalDate date) {
+        AfterCommit.run(() -> {
+            coverVersion.incrementAndGet();
+            covers.remove(date);
+        });
+    }
+
+    private List<Cover> coversOn(LocalDate date) {
+        List<Cover> cached = covers.get(date);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = coverVersion.get();
+        List<Cover> loaded = jdbc.query("select period_no, class_id, section_id, original_teacher_details_id, "
+                + "substitute_teacher_details_id from timetable_substitutions where date = ? order by period_no",
+                (rs, rn) -> new Cover(date, rs.getInt(1), rs.getLong(2), rs.getLong(3),
+                        rs.getObject(4) == null ? null : rs.getLong(4),
+                        rs.getObject(5) == null ? null : rs.getLong(5)),
+                date);
+        List<Cover> result = Collections.unmodifiableList(loaded);
+        if (coverVersion.get() == seen) {
+            if (covers.size() >= MAX_CACHED_DATES) {
+                covers.clear();
+            }
+            covers.putIfAbsent(date, result);
+        }
+        return result;
+    }
+
+    private Map<Long, List<Lesson>> currentLessons() {
+        Map<Long, List<Lesson>> l = lessons;
+        if (l == null) {
+            synchronized (this) {
+                l = lessons;
+                if (l == null) {
+                    reload();
+                    l = lessons;
+                }
+            }
+        }
+        return l;
+    }
+}
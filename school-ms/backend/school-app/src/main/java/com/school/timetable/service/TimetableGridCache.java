@@ -0,0 +1,105 @@
+package com.school.timetable.service;
+
+import com.school.common.util.AfterCommit;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Version stamps and rendered-view cache for timetable reads.
+ * <p>
+ * Every class-section grid and teacher timetable has a version that slot writers bump after commit;
+ * the ETag of a view is built from its key, its version and a global epoch (bumped by bulk
+ * generation, settings changes and staff or subject edits, since teacher names and subject codes
+ * are rendered into the views). Conditional GETs whose If-None-Match still matches are answered
+ * with 304 without touching the database, and rendered views are kept in a bounded LRU keyed by
+ * ETag, so a bump simply makes the old entry unreachable until it ages out.
+ */
+@Component
+public class TimetableGridCache {
+
+    private static final int MAX_ENTRIES = 512;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<String, Object> rendered = Collections.synchronizedMap(
+            new LinkedHashMap<String, Object>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    public String classSectionEtag(Long classId, Long sectionId) {
+        return etag("cs-" + classId + "-" + sectionId, "");
+    }
+
+    /**
+     * ETag of a teacher view; {@code variant} (e.g. a date) distinguishes views sharing the
+     * teacher's version.
+     */
+    public String teacherEtag(Long teacherDetailsId, String variant) {
+        return etag("t-" + teacherDetailsId, variant == null ? "" : "-" + variant);
+    }
+
+    /**
+     * Returns the view cached under the ETag, rendering and caching it on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String etag, Supplier<T> render) {
+        Object cached = rendered.get(etag);
+        if (cached != null) {
+            return (T) cached;
+        }
+        // A write racing with rendering bumps the version, so this ETag is never handed out again
+        T view = render.get();
+        if (view != null) {
+            rendered.put(etag, view);
+        }
+        return view;
+    }
+
+    /**
+     * Bumps one class-section grid once the current transaction commits.
+     */
+    public void classSectionChanged(Long classId, Long sectionId) {
+        AfterCommit.run(() -> bump("cs-" + classId + "-" + sectionId));
+    }
+
+    /**
+     * Bumps the timetables of the given teachers (nulls ignored) once the current transaction commits.
+     */
+    public void teachersChanged(Long... teacherDetailsIds) {
+        AfterCommit.run(() -> {
+            for (Long id : teacherDetailsIds) {
+                if (id != null) {
+                    bump("t-" + id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Bumps every view once the current transaction commits.
+     */
+    public void allChanged() {
+        AfterCommit.run(() -> {
+            epoch.incrementAndGet();
+            rendered.clear();
+        });
+    }
+
+    private String etag(String key, String suffix) {
+        AtomicLong v = versions.get(key);
+        return "\"" + key + suffix + "-" + epoch.get() + "." + (v == null ? 0 : v.get()) + "\"";
+    }
+
+    private void bump(String key) {
+        versions.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,522 @@
+package com.school.timetable.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Constraint-based timetable solver for many class-sections at once.
+ * <p>
+ * Hard constraints are never violated by any state the solver produces: a teacher is in at most one
+ * place per period (including fixed occupancy from slots outside the run), a teacher teaches at most
+ * {@code maxPerTeacherPerDay} periods a day, and blocked cells (lunch, locked slots) stay empty.
+ * Lessons that cannot be placed are left unplaced at a large penalty. Soft costs are repeats of a
+ * subject on the same day, uneven teacher daily load and not using a requirement's preferred teacher.
+ * <p>
+ * A greedy construction (most constrained requirements first) is improved by simulated annealing:
+ * several workers start from the same solution with different seeds, run in parallel until the time
+ * budget is spent, and the cheapest result wins. Each worker keeps incremental counters so a move is
+ * checked and costed in O(1) (O(lessons of the requirement) for a teacher change).
+ */
+public final class TimetableSolver {
+
+    static final long UNPLACED_WEIGHT = 10_000;
+    static final long REPEAT_WEIGHT = 50;
+    static final long PREFERENCE_WEIGHT = 20;
+    static final long BALANCE_WEIGHT = 1;
+
+    private static final double START_TEMPERATURE = 30.0;
+    private static final double END_TEMPERATURE = 0.2;
+
+    private TimetableSolver() {
+    }
+
+    /**
+     * One subject of one section: {@code lessons} periods a week taught by one of the eligible teachers
+     * (indices into the problem's teachers). {@code preferredTeacher} is -1 when there is none.
+     */
+    public record Requirement(int section, long subjectId, int lessons, int[] eligibleTeachers, int preferredTeacher) {
+    }
+
+    /**
+     * The week is {@code days} x {@code periods} cells per section, cell = day * periods + period.
+     */
+    public static final class Problem {
+        final int sections;
+        final int days;
+        final int periods;
+        final int teachers;
+        final int maxPerTeacherPerDay;
+        final boolean[][] blocked; // [section][cell]
+        final int[][] fixedBusy; // [teacher][cell], occupancy the solver may not move
+        final List<Requirement> requirements;
+
+        public Problem(int sections, int days, int periods, int teachers, int maxPerTeacherPerDay,
+                boolean[][] blocked, int[][] fixedBusy, List<Requirement> requirements) {
+            this.sections = sections;
+            this.days = days;
+            this.periods = periods;
+            this.teachers = teachers;
+            this.maxPerTeacherPerDay = maxPerTeacherPerDay;
+            this.blocked = blocked;
+            this.fixedBusy = fixedBusy;
+            this.requirements = requirements;
+        }
+
+        int cells() {
+            return days * periods;
+        }
+    }
+
+    /**
+     * Lessons are listed per requirement in order; {@code lessonCell} is -1 for unplaced lessons and
+     * {@code requirementTeacher} is -1 where no teacher is eligible.
+     */
+    public record Solution(int[] lessonRequirement, int[] lessonCell, int[] requirementTeacher, long cost,
+            int unplaced, long iterations, int workers) {
+    }
+
+    /**
+     * Builds an initial timetable and improves it on {@code workers} threads for {@code budgetMillis}.
+     */
+    public static Solution solve(Problem problem, long budgetMillis, int workers, long seed) {
+        State initial = construct(problem);
+        if (initial.lessonCount() == 0 || budgetMillis <= 0) {
+            return initial.toSolution(0, 1);
+        }
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        int threads = Math.max(1, workers);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "timetable-solver");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Result>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                State start = new State(initial);
+                SplittableRandom random = new SplittableRandom(seed + 7919L * i);
+                futures.add(pool.submit(() -> anneal(start, random, deadline, budgetMillis)));
+            }
+            Result best = null;
+            long iterations = 0;
+            for (Future<Result> f : futures) {
+                Result r = f.get();
+                iterations += r.iterations;
+                if (best == null || r.state.cost < best.state.cost) {
+                    best = r;
+                }
+            }
+            return best.state.toSolution(iterations, threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return initial.toSolution(0, threads);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Timetable solver failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Greedy start: requirements with the fewest eligible teachers and most lessons first, each given
+     * its preferred (or least loaded) teacher and placed on the cheapest feasible cells.
+     */
+    static State construct(Problem pb) {
+        State s = new State(pb);
+        Integer[] order = new Integer[pb.requirements.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(r -> {
+            int n = pb.requirements.get(r).eligibleTeachers().length;
+            return n == 0 ? Integer.MAX_VALUE : n;
+        }).thenComparingInt(r -> -pb.requirements.get(r).lessons()));
+
+        int[] weeklyLoad = new int[pb.teachers];
+        for (int r : order) {
+            Requirement req = pb.requirements.get(r);
+            int teacher = -1;
+            if (req.preferredTeacher() >= 0 && contains(req.eligibleTeachers(), req.preferredTeacher())) {
+                teacher = req.preferredTeacher();
+            } else {
+                for (int t : req.eligibleTeachers()) {
+                    if (teacher < 0 || weeklyLoad[t] < weeklyLoad[teacher]) {
+                        teacher = t;
+                    }
+                }
+            }
+            s.setTeacher(r, teacher);
+            for (int l : s.requirementLessons[r]) {
+                int bestCell = -1;
+                long bestScore = Long.MAX_VALUE;
+                for (int cell = 0; cell < pb.cells(); cell++) {
+                    if (!s.canPlace(l, cell)) {
+                        continue;
+                    }
+                    int day = cell / pb.periods;
+                    long score = 100L * s.requirementDay[r][day] + (teacher >= 0 ? s.teacherDay[teacher][day] : 0);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestCell = cell;
+                    }
+                }
+                if (bestCell >= 0) {
+                    s.place(l, bestCell);
+                    if (teacher >= 0) {
+                        weeklyLoad[teacher]++;
+                    }
+                }
+            }
+        }
+        return s;
+    }
+
+    private static Result anneal(State s, SplittableRandom random, long deadline, long budgetMillis) {
+        Problem pb = s.pb;
+        int lessons = s.lessonCount();
+        int cells = pb.cells();
+        int[] bestCells = s.lessonCell.clone();
+        int[] bestTeachers = s.requirementTeacher.clone();
+        long bestCost = s.cost;
+        long iterations = 0;
+        double budgetNanos = budgetMillis * 1_000_000.0;
+        double temperature = START_TEMPERATURE;
+
+        while (true) {
+            if ((iterations & 1023) == 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0 || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                double progress = 1.0 - left / budgetNanos;
+                temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, progress);
+            }
+            iterations++;
+            long before = s.cost;
+            if (random.nextInt(10) == 0) {
+                int r = random.nextInt(pb.requirements.size());
+                int[] eligible = pb.requirements.get(r).eligibleTeachers();
+                if (eligible.length < 2) {
+                    continue;
+                }
+                int oldTeacher = s.requirementTeacher[r];
+                int newTeacher = eligible[random.nextInt(eligible.length)];
+                if (newTeacher == oldTeacher || !s.changeTeacher(r, newTeacher)) {
+                    continue;
+                }
+                if (!accept(s.cost - before, temperature, random)) {
+                    s.changeTeacher(r, oldTeacher);
+                }
+            } else {
+                int l = random.nextInt(lessons);
+                int section = pb.requirements.get(s.lessonRequirement[l]).section();
+                int target = random.nextInt(cells);
+                if (pb.blocked[section][target] || s.lessonCell[l] == target) {
+                    continue;
+                }
+                int from = s.lessonCell[l];
+                int other = s.sectionCell[section][target];
+                if (!s.move(l, other, from, target)) {
+                    continue;
+                }
+                if (!accept(s.cost - before, temperature, random)) {
+                    // Undo: put both lessons back where they were
+                    if (from >= 0) {
+                        s.move(l, other, target, from);
+                    } else {
+                        s.unplace(l);
+                        if (other >= 0) {
+                            s.place(other, target);
+                        }
+                    }
+                }
+            }
+            if (s.cost < bestCost) {
+                bestCost = s.cost;
+                System.arraycopy(s.lessonCell, 0, bestCells, 0, lessons);
+                System.arraycopy(s.requirementTeacher, 0, bestTeachers, 0, bestTeachers.length);
+            }
+        }
+        return new Result(State.rebuild(pb, s.lessonRequirement, bestCells, bestTeachers), iterations);
+    }
+
+    private static boolean accept(long delta, double temperature, SplittableRandom random) {
+        return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Result(State state, long iterations) {
+    }
+
+    /**
+     * Mutable assignment with incremental occupancy counters and cost.
+     */
+    static final class State {
+        final Problem pb;
+        final int[] lessonRequirement;
+        final int[][] requirementLessons;
+        final int[] lessonCell;
+        final int[] requirementTeacher;
+        final int[][] sectionCell; // [section][cell] -> lesson, -1 when free
+        final int[][] busy; // [teacher][cell], including fixed occupancy
+        final int[][] teacherDay; // [teacher][day], including fixed occupancy
+        final int[][] requirementDay; // [requirement][day]
+        long cost;
+        int unplaced;
+
+        State(Problem pb) {
+            this.pb = pb;
+            int total = 0;
+            for (Requirement r : pb.requirements) {
+                total += Math.max(0, r.lessons());
+            }
+            lessonRequirement = new int[total];
+            requirementLessons = new int[pb.requirements.size()][];
+            int l = 0;
+            for (int r = 0; r < pb.requirements.size(); r++) {
+                int n = Math.max(0, pb.requirements.get(r).lessons());
+                requirementLessons[r] = new int[n];
+                for (int i = 0; i < n; i++) {
+                    lessonRequirement[l] = r;
+                    requirementLessons[r][i] = l++;
+                }
+            }
+            lessonCell = new int[total];
+            Arrays.fill(lessonCell, -1);
+            requirementTeacher = new int[pb.requirements.size()];
+            Arrays.fill(requirementTeacher, -1);
+            sectionCell = new int[pb.sections][pb.cells()];
+            for (int[] row : sectionCell) {
+                Arrays.fill(row, -1);
+            }
+            busy = new int[pb.teachers][];
+            teacherDay = new int[pb.teachers][pb.days];
+            for (int t = 0; t < pb.teachers; t++) {
+                busy[t] = pb.fixedBusy[t].clone();
+                for (int cell = 0; cell < pb.cells(); cell++) {
+                    teacherDay[t][cell / pb.periods] += busy[t][cell];
+                }
+                for (int d = 0; d < pb.days; d++) {
+                    cost += BALANCE_WEIGHT * teacherDay[t][d] * teacherDay[t][d];
+                }
+            }
+            requirementDay = new int[pb.requirements.size()][pb.days];
+            unplaced = total;
+            cost += UNPLACED_WEIGHT * total;
+            for (int r = 0; r < pb.requirements.size(); r++) {
+                cost += preferenceCost(r, -1);
+            }
+        }
+
+        State(State o) {
+            pb = o.pb;
+            lessonRequirement = o.lessonRequirement;
+            requirementLessons = o.requirementLessons;
+            lessonCell = o.lessonCell.clone();
+            requirementTeacher = o.requirementTeacher.clone();
+            sectionCell = deepCopy(o.sectionCell);
+            busy = deepCopy(o.busy);
+            teacherDay = deepCopy(o.teacherDay);
+            requirementDay = deepCopy(o.requirementDay);
+            cost = o.cost;
+            unplaced = o.unplaced;
+        }
+
+        static State rebuild(Problem pb, int[] lessonRequirement, int[] cells, int[] teachers) {
+            State s = new State(pb);
+            for (int r = 0; r < teachers.length; r++) {
+                s.setTeacher(r, teachers[r]);
+            }
+            for (int l = 0; l < lessonRequirement.length; l++) {
+                if (cells[l] >= 0) {
+                    s.place(l, cells[l]);
+                }
+            }
+            return s;
+        }
+
+        int lessonCount() {
+            return lessonRequirement.length;
+        }
+
+        Solution toSolution(long iterations, int workers) {
+            return new Solution(lessonRequirement.clone(), lessonCell.clone(), requirementTeacher.clone(), cost,
+                    unplaced, iterations, workers);
+        }
+
+        boolean canPlace(int l, int cell) {
+            int r = lessonRequirement[l];
+            if (pb.blocked[pb.requirements.get(r).section()][cell]
+                    || sectionCell[pb.requirements.get(r).section()][cell] != -1) {
+                return false;
+            }
+            int t = requirementTeacher[r];
+            return t < 0 || (busy[t][cell] == 0 && teacherDay[t][cell / pb.periods] < pb.maxPerTeacherPerDay);
+        }
+
+        void place(int l, int cell) {
+            int r = lessonRequirement[l];
+            int day = cell / pb.periods;
+            lessonCell[l] = cell;
+            sectionCell[pb.requirements.get(r).section()][cell] = l;
+            cost += REPEAT_WEIGHT * (repeat(requirementDay[r][day] + 1) - repeat(requirementDay[r][day]));
+            requirementDay[r][day]++;
+            int t = requirementTeacher[r];
+            if (t >= 0) {
+                addTeacherLoad(t, cell, 1);
+            }
+            unplaced--;
+            cost -= UNPLACED_WEIGHT;
+        }
+
+        void unplace(int l) {
+            int cell = lessonCell[l];
+            int r = lessonRequirement[l];
+            int day = cell / pb.periods;
+            lessonCell[l] = -1;
+            sectionCell[pb.requirements.get(r).section()][cell] = -1;
+            cost += REPEAT_WEIGHT * (repeat(requirementDay[r][day] - 1) - repeat(requirementDay[r][day]));
+            requirementDay[r][day]--;
+            int t = requirementTeacher[r];
+            if (t >= 0) {
+                addTeacherLoad(t, cell, -1);
+            }
+            unplaced++;
+            cost += UNPLACED_WEIGHT;
+        }
+
+        /**
+         * Moves lesson {@code l} from {@code from} (-1 if unplaced) to {@code to}, and lesson
+         * {@code other} (-1 if none) from {@code to} to {@code from}, unplacing it if {@code from} is -1.
+         * Returns false, leaving the state unchanged, if the result breaks a hard constraint.
+         */
+        boolean move(int l, int other, int from, int to) {
+            if (from >= 0) {
+                unplace(l);
+            }
+            if (other >= 0) {
+                unplace(other);
+            }
+            boolean ok = canPlace(l, to);
+            if (ok) {
+                place(l, to);
+                if (other >= 0 && from >= 0) {
+                    ok = canPlace(other, from);
+                    if (ok) {
+                        place(other, from);
+                    } else {
+                        unplace(l);
+                    }
+                }
+            }
+            if (!ok) {
+                if (other >= 0) {
+                    place(other, to);
+                }
+                if (from >= 0) {
+                    place(l, from);
+                }
+            }
+            return ok;
+        }
+
+        /**
+         * Reassigns all lessons of a requirement to another teacher, or returns false (state unchanged)
+         * if the new teacher is busy or over the daily limit for any of them.
+         */
+        boolean changeTeacher(int r, int newTeacher) {
+            int oldTeacher = requirementTeacher[r];
+            int[] lessons = requirementLessons[r];
+            if (oldTeacher >= 0) {
+                for (int l : lessons) {
+                    if (lessonCell[l] >= 0) {
+                        addTeacherLoad(oldTeacher, lessonCell[l], -1);
+                    }
+                }
+            }
+            int done = 0;
+            boolean ok = true;
+            for (; done < lessons.length; done++) {
+                int cell = lessonCell[lessons[done]];
+                if (cell < 0) {
+                    continue;
+                }
+                if (busy[newTeacher][cell] != 0
+                        || teacherDay[newTeacher][cell / pb.periods] >= pb.maxPerTeacherPerDay) {
+                    ok = false;
+                    break;
+                }
+                addTeacherLoad(newTeacher, cell, 1);
+            }
+            if (!ok) {
+                for (int i = 0; i < done; i++) {
+                    if (lessonCell[lessons[i]] >= 0) {
+                        addTeacherLoad(newTeacher, lessonCell[lessons[i]], -1);
+                    }
+                }
+                if (oldTeacher >= 0) {
+                    for (int l : lessons) {
+                        if (lessonCell[l] >= 0) {
+                            addTeacherLoad(oldTeacher, lessonCell[l], 1);
+                        }
+                    }
+                }
+                return false;
+            }
+            cost += preferenceCost(r, newTeacher) - preferenceCost(r, oldTeacher);
+            requirementTeacher[r] = newTeacher;
+            return true;
+        }
+
+        /**
+         * Sets the teacher of a requirement with no lessons placed yet.
+         */
+        void setTeacher(int r, int teacher) {
+            cost += preferenceCost(r, teacher) - preferenceCost(r, requirementTeacher[r]);
+            requirementTeacher[r] = teacher;
+        }
+
+        private void addTeacherLoad(int t, int cell, int delta) {
+            int day = cell / pb.periods;
+            int before = teacherDay[t][day];
+            busy[t][cell] += delta;
+            teacherDay[t][day] = before + delta;
+            cost += BALANCE_WEIGHT * ((long) (before + delta) * (before + delta) - (long) before * before);
+        }
+
+        private long preferenceCost(int r, int teacher) {
+            Requirement req = pb.requirements.get(r);
+            if (req.preferredTeacher() < 0 || !contains(req.eligibleTeachers(), req.preferredTeacher())) {
+                return 0;
+            }
+            return teacher == req.preferredTeacher() ? 0 : PREFERENCE_WEIGHT;
+        }
+
+        private static int repeat(int count) {
+            return Math.max(0, count - 1);
+        }
+
+        private static int[][] deepCopy(int[][] a) {
+            int[][] c = new int[a.length][];
+            for (int i = 0; i < a.length; i++) {
+                c[i] = a[i].clone();
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.school.timetable.service;
+
+import com.school.exception.TimetableGenerationInProgressException;
+import com.school.staff.service.TeacherEligibilityIndex;
+import com.school.timetable.model.TimetableSettings;
+import com.school.timetable.model.TimetableSlot;
+import com.school.timetable.repository.TimetableSettingsRepository;
+import com.school.timetable.repository.TimetableSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates the timetable of many class-sections in one run, so teacher clashes and daily limits
+ * are enforced across the whole school rather than per class.
+ * <p>
+ * Settings, requirements and existing slots are loaded in a few bulk queries, combined with
+ * {@link TeacherEligibilityIndex}, and handed to {@link TimetableSolver}. Slots of class-sections
+ * outside the run (and locked slots inside it when {@code lockExisting} is set) are fixed: they block
+ * their cell and keep their teacher busy. Only the final write runs in a transaction; one run is allowed at a time.
+ */
+@Service
+public class TimetableSolverService {
+
+    private static final Logger log = LoggerFactory.getLogger(TimetableSolverService.class);
+
+    private static final long DEFAULT_BUDGET_MS = 5_000;
+    private static final long MAX_BUDGET_MS = 30_000;
+    private static final int MAX_WORKERS = 4;
+
+    private final TimetableSlotRepository slotRepo;
+    private final TimetableSettingsRepository settingsRepo;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final TeacherEligibilityIndex eligibilityIndex;
+    private final TeacherOccupancy occupancy;
+    private final TeacherScheduleIndex scheduleIndex;
+    private final TimetableGridCache gridCache;
+    private final ReentrantLock running = new ReentrantLock();
+
+    public TimetableSolverService(TimetableSlotRepository slotRepo, TimetableSettingsRepository settingsRepo,
+            JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+            TeacherEligibilityIndex eligibilityIndex, TeacherOccupancy occupancy, TeacherScheduleIndex scheduleIndex,
+            TimetableGridCache gridCache) {
+        this.slotRepo = slotRepo;
+        this.settingsRepo = settingsRepo;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.eligibilityIndex = eligibilityIndex;
+        this.occupancy = occupancy;
+        this.scheduleIndex = scheduleIndex;
+        this.gridCache = gridCache;
+    }
+
+    public record ClassSection(Long classId, Long sectionId) {
+    }
+
+    public record UnplacedLesson(Long classId, Long sectionId, Long subjectId, int periods) {
+    }
+
+    public record SolveResult(int classSections, int lessons, int placed, int lessonsWithoutTeacher,
+            List<UnplacedLesson> unplaced, long softCost, int workers, long iterations, long elapsedMs, long seed) {
+    }
+
+    /**
+     * Solves and saves the timetable of the given class-sections, or of every class-section with
+     * requirements when {@code scope} is empty. A null {@code seed} picks a random one; the seed used
+     * is returned so a run can be repeated.
+     */
+    public SolveResult generate(Collection<ClassSection> scope, boolean lockExisting, Long budgetMs, Long seed) {
+        if (!running.tryLock()) {
+            throw new TimetableGenerationInProgressException("A timetable generation is already running");
+        }
+        try {
+            long started = System.currentTimeMillis();
+            long budget = budgetMs == null || budgetMs <= 0 ? DEFAULT_BUDGET_MS : Math.min(budgetMs, MAX_BUDGET_MS);
+            Model model = load(scope, lockExisting);
+            int workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), MAX_WORKERS));
+            long runSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+            TimetableSolver.Solution solution = TimetableSolver.solve(model.problem, budget, workers, runSeed);
+            List<TimetableSlot> slots = toSlots(model, solution);
+            tx.executeWithoutResult(status -> save(model.sections, lockExisting, slots));
+
+            SolveResult result = summarize(model, solution, slots.size(), System.currentTimeMillis() - started,
+                    runSeed);
+            log.info("Timetable generated for {} class-sections: {} of {} lessons placed, cost {}, "
+                    + "{} iterations in {} ms, seed {}", result.classSections(), result.placed(), result.lessons(),
+                    result.softCost(), result.iterations(), result.elapsedMs(), result.seed());
+            return result;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private Model load(Collection<ClassSection> scope, boolean lockExisting) {
+        TimetableSettings settings = settingsRepo.findTopByOrderByIdAsc()
+                .orElseThrow(() -> new IllegalStateException("Timetable settings not configured"));
+        int periods = Optional.ofNullable(settings.getPeriodsPerDay()).orElse(8);
+        int lunchAfter = Optional.ofNullable(settings.getLunchAfterPeriod()).orElse(4);
+        int maxPerDay = Optional.ofNullable(settings.getMaxPeriodsPerTeacherPerDay()).orElse(periods);
+        int mask = Optional.ofNullable(settings.getWorkingDaysMask()).orElse(31);
+
+        // Mon..Fri, as in the single-class generate
+        List<Integer> workingDays = new ArrayList<>();
+        for (int d = 1; d <= 5; d++) {
+            if ((mask & (1 << (d - 1))) != 0) {
+                workingDays.add(d);
+            }
+        }
+        if (workingDays.isEmpty()) {
+            throw new IllegalArgumentException("No working days configured");
+        }
+
+        Set<ClassSection> wanted = scope == null ? Set.of() : new HashSet<>(scope);
+        List<Map<String, Object>> reqRows = jdbc.queryForList(
+                "select class_id, section_id, subject_id, preferred_teacher_details_id, weekly_periods "
+                        + "from timetable_requirements order by class_id, section_id, subject_id");
+        Map<ClassSection, Integer> sectionIndex = new LinkedHashMap<>();
+        for (Map<String, Object> row : reqRows) {
+            ClassSection cs = new ClassSection(toLong(row.get("class_id")), toLong(row.get("section_id")));
+            if (wanted.isEmpty() || wanted.contains(cs)) {
+                sectionIndex.putIfAbsent(cs, sectionIndex.size());
+            }
+        }
+        List<ClassSection> sections = new ArrayList<>(sectionIndex.keySet());
+
+        // teacher_class_map stores the section letter, requirements the section id
+        Map<Long, String> sectionNames = new HashMap<>();
+        jdbc.query("select id, section_name from sections",
+                rs -> {
+                    sectionNames.put(rs.getLong(1), rs.getString(2));
+                });
+
+        Indexer teachers = new Indexer();
+        int days = workingDays.size();
+        int cells = days * periods;
+        boolean[][] blocked = new boolean[sections.size()][cells];
+        for (boolean[] row : blocked) {
+            for (int d = 0; d < days; d++) {
+                if (lunchAfter >= 1 && lunchAfter <= periods) {
+                    row[d * periods + lunchAfter - 1] = true;
+                }
+            }
+        }
+
+        // Existing slots: fixed teacher occupancy outside the run, locked cells inside it
+        List<long[]> fixed = new ArrayList<>(); // [teacher index, cell]
+        Map<String, Integer> alreadyTaught = new HashMap<>();
+        jdbc.query("select class_id, section_id, day_of_week, period_no, subject_id, teacher_details_id, locked "
+                + "from timetable_slots",
+                rs -> {
+                    int day = workingDays.indexOf(rs.getInt(3));
+                    int period = rs.getInt(4) - 1;
+                    if (day < 0 || period < 0 || period >= periods) {
+                        return;
+                    }
+                    int cell = day * periods + period;
+                    Integer s = sectionIndex.get(new ClassSection(rs.getLong(1), rs.getLong(2)));
+                    boolean kept = s == null || (lockExisting && rs.getBoolean(7));
+                    if (!kept) {
+                        return;
+                    }
+                    if (s != null) {
+                        blocked[s][cell] = true;
+                        long subjectId = rs.getLong(5);
+                        if (!rs.wasNull()) {
+                            alreadyTaught.merge(s + ":" + subjectId, 1, Integer::sum);
+                        }
+                    }
+                    long teacherId = rs.getLong(6);
+                    if (!rs.wasNull()) {
+                        fixed.add(new long[] { teachers.index(teacherId), cell });
+                    }
+                });
+
+        List<TimetableSolver.Requirement> requirements = new ArrayList<>();
+        for (Map<String, Object> row : reqRows) {
+            ClassSection cs = new ClassSection(toLong(row.get("class_id")), toLong(row.get("section_id")));
+            Integer s = sectionIndex.get(cs);
+            if (s == null) {
+                continue;
+            }
+            long subjectId = toLong(row.get("subject_id"));
+            int lessons = ((Number) row.get("weekly_periods")).intValue()
+                    - alreadyTaught.getOrDefault(s + ":" + subjectId, 0);
+            if (lessons <= 0) {
+                continue;
+            }
+            long[] teacherIds = eligibilityIndex.eligibleTeachers(cs.classId(), sectionNames.get(cs.sectionId()),
+                    subjectId);
+            int[] eligibleIdx = new int[teacherIds.length];
+            for (int i = 0; i < teacherIds.length; i++) {
+                eligibleIdx[i] = teachers.index(teacherIds[i]);
+            }
+            Long preferred = toLong(row.get("preferred_teacher_details_id"));
+            int preferredIdx = preferred == null ? -1 : teachers.index(preferred);
+            requirements.add(new TimetableSolver.Requirement(s, subjectId, lessons, eligibleIdx, preferredIdx));
+        }
+
+        int[][] fixedBusy = new int[teachers.size()][cells];
+        for (long[] f : fixed) {
+            fixedBusy[(int) f[0]][(int) f[1]]++;
+        }
+        TimetableSolver.Problem problem = new TimetableSolver.Problem(sections.size(), days, periods, teachers.size(),
+                maxPerDay, blocked, fixedBusy, requirements);
+        return new Model(problem, sections, workingDays, teachers.ids);
+    }
+
+    private List<TimetableSlot> toSlots(Model model, TimetableSolver.Solution solution) {
+        TimetableSolver.Problem pb = model.problem;
+        List<TimetableSlot> slots = new ArrayList<>();
+        for (int l = 0; l < solution.lessonCell().length; l++) {
+            int cell = solution.lessonCell()[l];
+            if (cell < 0) {
+                continue;
+            }
+            int r = solution.lessonRequirement()[l];
+            TimetableSolver.Requirement req = pb.requirements.get(r);
+            ClassSection cs = model.sections.get(req.section());
+            int teacher = solution.requirementTeacher()[r];
+            TimetableSlot slot = new TimetableSlot();
+            slot.setClassId(cs.classId());
+            slot.setSectionId(cs.sectionId());
+            slot.setDayOfWeek(model.workingDays.get(cell / pb.periods));
+            slot.setPeriodNo(cell % pb.periods + 1);
+            slot.setSubjectId(req.subjectId());
+            slot.setTeacherDetailsId(teacher >= 0 ? model.teacherIds.get(teacher) : null);
+            slot.setLocked(false);
+            slot.setGeneratedBy("AUTO");
+            slots.add(slot);
+        }
+        return slots;
+    }
+
+    private void save(List<ClassSection> sections, boolean lockExisting, List<TimetableSlot> slots) {
+        String sql = lockExisting
+                ? "delete from timetable_slots where class_id = ? and section_id = ? "
+                        + "and coalesce(locked, false) = false"
+                : "delete from timetable_slots where class_id = ? and section_id = ?";
+        List<Object[]> args = new ArrayList<>(sections.size());
+        for (ClassSection cs : sections) {
+            args.add(new Object[] { cs.classId(), cs.sectionId() });
+        }
+        jdbc.batchUpdate(sql, args, new int[] { Types.BIGINT, Types.BIGINT });
+        slotRepo.saveAll(slots);
+        occupancy.reloadAfterCommit();
+        scheduleIndex.reloadAfterCommit();
+        gridCache.allChanged();
+    }
+
+    private SolveResult summarize(Model model, TimetableSolver.Solution solution, int placed, long elapsedMs,
+            long seed) {
+        TimetableSolver.Problem pb = model.problem;
+        int withoutTeacher = 0;
+        Map<Integer, Integer> unplacedByRequirement = new LinkedHashMap<>();
+        for (int l = 0; l < solution.lessonCell().length; l++) {
+            int r = solution.lessonRequirement()[l];
+            if (solution.lessonCell()[l] < 0) {
+                unplacedByRequirement.merge(r, 1, Integer::sum);
+            } else if (solution.requirementTeacher()[r] < 0) {
+                withoutTeacher++;
+            }
+        }
+        List<UnplacedLesson> unplaced = new ArrayList<>();
+        unplacedByRequirement.forEach((r, count) -> {
+            TimetableSolver.Requirement req = pb.requirements.get(r);
+            ClassSection cs = model.sections.get(req.section());
+            unplaced.add(new UnplacedLesson(cs.classId(), cs.sectionId(), req.subjectId(), count));
+        });
+        long softCost = solution.cost() - TimetableSolver.UNPLACED_WEIGHT * solution.unplaced();
+        return new SolveResult(model.sections.size(), solution.lessonCell().length, placed, withoutTeacher, unplaced,
+                softCost, solution.workers(), solution.iterations(), elapsedMs, seed);
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private record Model(TimetableSolver.Problem problem, List<ClassSection> sections, List<Integer> workingDays,
+            List<Long> teacherIds) {
+    }
+
+    // Dense indices for teacher_details ids
+    private static final class Indexer {
+        final Map<Long, Integer> index = new HashMap<>();
+        final List<Long> ids = new ArrayList<>();
+
+        int index(Long id) {
+            return index.computeIfAbsent(id, k -> {
+                ids.add(k);
+                return ids.size() - 1;
+            });
+        }
+
+        int size() {
+            return ids.size();
+        }
+    }
+}
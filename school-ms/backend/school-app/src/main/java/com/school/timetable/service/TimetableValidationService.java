@@ -0,0 +1,179 @@
+package com.school.timetable.service;
+
+import com.school.common.util.AfterCommit;
+import com.school.staff.service.TeacherEligibilityIndex;
+import com.school.timetable.model.TimetableSettings;
+import com.school.timetable.repository.TimetableSettingsRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks the whole-school timetable for constraint violations.
+ * <p>
+ * {@link #validate()} reads every slot once and checks all constraints in a single pass, keyed by
+ * (teacher, day, period) and (teacher, day) records: teacher double-booking across classes,
+ * daily teacher load over the configured maximum, teachers not mapped to the slot's class-section
+ * and subject, and slots outside the configured week. {@link #checkAssignment} is the incremental
+ * counterpart used by single-slot edits and answers from {@link TeacherOccupancy} in O(1); the
+ * settings it checks against are cached until {@link #settingsChanged()}.
+ */
+@Service
+public class TimetableValidationService {
+
+    public static final String DOUBLE_BOOKED = "TEACHER_DOUBLE_BOOKED";
+    public static final String DAILY_LIMIT = "TEACHER_DAILY_LIMIT";
+    public static final String NOT_ELIGIBLE = "TEACHER_NOT_ELIGIBLE";
+    public static final String OUTSIDE_WEEK = "OUTSIDE_WORKING_WEEK";
+
+    private final JdbcTemplate jdbc;
+    private final TimetableSettingsRepository settingsRepo;
+    private final TeacherEligibilityIndex eligibilityIndex;
+    private final TeacherOccupancy occupancy;
+
+    private volatile Limits limits;
+    // Bumped on every settings change; limits loaded across one are used but not cached
+    private final AtomicLong settingsVersion = new AtomicLong();
+
+    public TimetableValidationService(JdbcTemplate jdbc, TimetableSettingsRepository settingsRepo,
+            TeacherEligibilityIndex eligibilityIndex, TeacherOccupancy occupancy) {
+        this.jdbc = jdbc;
+        this.settingsRepo = settingsRepo;
+        this.eligibilityIndex = eligibilityIndex;
+        this.occupancy = occupancy;
+    }
+
+    public record SlotRef(Long classId, Long sectionId, Integer dayOfWeek, Integer periodNo, Long subjectId,
+            Long teacherDetailsId) {
+    }
+
+    public record Conflict(String type, Long teacherDetailsId, Integer dayOfWeek, Integer periodNo,
+            List<SlotRef> slots, String message) {
+    }
+
+    public record ConflictReport(int slotsChecked, int conflictCount, List<Conflict> conflicts) {
+    }
+
+    /**
+     * Validates every slot of the timetable.
+     */
+    public ConflictReport validate() {
+        Limits limits = limits();
+        Map<Long, String> sectionNames = new HashMap<>();
+        jdbc.query("select id, section_name from sections",
+                rs -> {
+                    sectionNames.put(rs.getLong(1), rs.getString(2));
+                });
+
+        List<Conflict> conflicts = new ArrayList<>();
+        Map<TeacherPeriod, List<SlotRef>> byPeriod = new HashMap<>();
+        Map<TeacherDay, List<SlotRef>> byDay = new HashMap<>();
+        int[] checked = new int[1];
+        jdbc.query("select class_id, section_id, day_of_week, period_no, subject_id, teacher_details_id "
+                + "from timetable_slots order by day_of_week, period_no, class_id, section_id",
+                rs -> {
+                    checked[0]++;
+                    Long subjectId = rs.getObject(5) == null ? null : rs.getLong(5);
+                    Long teacherId = rs.getObject(6) == null ? null : rs.getLong(6);
+                    SlotRef slot = new SlotRef(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getInt(4), subjectId,
+                            teacherId);
+                    boolean filled = subjectId != null || teacherId != null;
+                    if (filled && !limits.inWeek(slot.dayOfWeek(), slot.periodNo())) {
+                        conflicts.add(new Conflict(OUTSIDE_WEEK, teacherId, slot.dayOfWeek(), slot.periodNo(),
+                                List.of(slot), "Slot is outside the configured working days or periods"));
+                    }
+                    if (teacherId == null) {
+                        return;
+                    }
+                    // Record keys, so out-of-range days or periods cannot collide with another teacher's
+                    byPeriod.computeIfAbsent(new TeacherPeriod(teacherId, slot.dayOfWeek(), slot.periodNo()),
+                            k -> new ArrayList<>(1)).add(slot);
+                    byDay.computeIfAbsent(new TeacherDay(teacherId, slot.dayOfWeek()), k -> new ArrayList<>())
+                            .add(slot);
+                    if (subjectId != null && !eligibilityIndex.isEligible(teacherId, slot.classId(),
+                            sectionNames.get(slot.sectionId()), subjectId)) {
+                        conflicts.add(new Conflict(NOT_ELIGIBLE, teacherId, slot.dayOfWeek(), slot.periodNo(),
+                                List.of(slot), "Teacher is not mapped to this class-section and subject"));
+                    }
+                });
+
+        for (List<SlotRef> slots : byPeriod.values()) {
+            if (slots.size() > 1) {
+                SlotRef first = slots.get(0);
+                conflicts.add(new Conflict(DOUBLE_BOOKED, first.teacherDetailsId(), first.dayOfWeek(),
+                        first.periodNo(), slots, "Teacher is scheduled in " + slots.size() + " classes at once"));
+            }
+        }
+        for (List<SlotRef> slots : byDay.values()) {
+            if (slots.size() > limits.maxPerTeacherPerDay()) {
+                SlotRef first = slots.get(0);
+                conflicts.add(new Conflict(DAILY_LIMIT, first.teacherDetailsId(), first.dayOfWeek(), null, slots,
+                        "Teacher has " + slots.size() + " periods (max " + limits.maxPerTeacherPerDay() + ")"));
+            }
+        }
+        return new ConflictReport(checked[0], conflicts.size(), conflicts);
+    }
+
+    /**
+     * Checks putting {@code teacherDetailsId} into a slot currently taught by
+     * {@code currentTeacherId}. Returns the conflict type, or null when the edit is allowed.
+     */
+    public String checkAssignment(Long currentTeacherId, Long teacherDetailsId, int dayOfWeek, int periodNo) {
+        if (teacherDetailsId == null || teacherDetailsId.equals(currentTeacherId)) {
+            return null;
+        }
+        if (occupancy.isBusyOnWeekday(teacherDetailsId, dayOfWeek, periodNo)) {
+            return DOUBLE_BOOKED;
+        }
+        if (occupancy.weekdayLoad(teacherDetailsId, dayOfWeek) + 1 > limits().maxPerTeacherPerDay()) {
+            return DAILY_LIMIT;
+        }
+        return null;
+    }
+
+    /**
+     * Drops the cached settings once the current transaction commits.
+     */
+    public void settingsChanged() {
+        AfterCommit.run(() -> {
+            settingsVersion.incrementAndGet();
+            limits = null;
+        });
+    }
+
+    private Limits limits() {
+        Limits cached = limits;
+        if (cached != null) {
+            return cached;
+        }
+        long seen = settingsVersion.get();
+        Optional<TimetableSettings> settings = settingsRepo.findTopByOrderByIdAsc();
+        int periods = settings.map(TimetableSettings::getPeriodsPerDay).orElse(8);
+        int maxPerDay = settings.map(TimetableSettings::getMaxPeriodsPerTeacherPerDay).orElse(periods);
+        int mask = settings.map(TimetableSettings::getWorkingDaysMask).orElse(31);
+        Limits loaded = new Limits(periods, maxPerDay, mask);
+        if (settingsVersion.get() == seen) {
+            limits = loaded;
+        }
+        return loaded;
+    }
+
+    private record TeacherDay(long teacherId, int dayOfWeek) {
+    }
+
+    private record TeacherPeriod(long teacherId, int dayOfWeek, int periodNo) {
+    }
+
+    private record Limits(int periodsPerDay, int maxPerTeacherPerDay, int workingDaysMask) {
+        boolean inWeek(int dayOfWeek, int periodNo) {
+            return dayOfWeek >= 1 && dayOfWeek <= 7 && (workingDaysMask & (1 << (dayOfWeek - 1))) != 0
+                    && periodNo >= 1 && periodNo <= periodsPerDay;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- Materialized per-day, per-class attendance counts used by trend reports
+-- Maintained incrementally on attendance writes; backfill with POST /api/attendance/summary/rebuild
+CREATE TABLE IF NOT EXISTS attendance_daily_class_summary (
+    id BIGSERIAL PRIMARY KEY,
+    summary_date DATE NOT NULL,
+    grade INTEGER NOT NULL,
+    section VARCHAR(50) NOT NULL,
+    present_count BIGINT NOT NULL DEFAULT 0,
+    absent_count BIGINT NOT NULL DEFAULT 0,
+    late_count BIGINT NOT NULL DEFAULT 0,
+    total_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    CONSTRAINT uq_attendance_summary_day_class UNIQUE (summary_date, grade, section)
+);
+
+CREATE INDEX IF NOT EXISTS idx_attendance_summary_grade_date ON attendance_daily_class_summary(grade, summary_date);
@@ -0,0 +1,16 @@
+-- Append-only audit of marks locking and post-lock edits, written in JDBC batches
+CREATE TABLE IF NOT EXISTS exam_mark_audit (
+    id BIGSERIAL PRIMARY KEY,
+    exam_id BIGINT NOT NULL,
+    subject_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    question_format_id BIGINT,
+    action VARCHAR(20) NOT NULL,
+    old_marks DOUBLE PRECISION,
+    new_marks DOUBLE PRECISION,
+    reason TEXT,
+    changed_by VARCHAR(255),
+    changed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_exam_mark_audit_exam_subject ON exam_mark_audit(exam_id, subject_id, student_id);
@@ -0,0 +1,19 @@
+-- Stored item analysis (difficulty / discrimination) per question and per unit, replaced per exam on each run
+CREATE TABLE IF NOT EXISTS exam_item_analysis (
+    id BIGSERIAL PRIMARY KEY,
+    exam_id BIGINT NOT NULL,
+    subject_id BIGINT NOT NULL,
+    level VARCHAR(20) NOT NULL,
+    question_format_id BIGINT,
+    question_number INTEGER,
+    unit_name VARCHAR(255),
+    responses BIGINT NOT NULL DEFAULT 0,
+    max_marks DOUBLE PRECISION,
+    mean_marks DOUBLE PRECISION,
+    std_dev DOUBLE PRECISION,
+    difficulty_index DOUBLE PRECISION,
+    discrimination_index DOUBLE PRECISION,
+    computed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_exam_item_analysis_exam_subject ON exam_item_analysis(exam_id, subject_id);
@@ -0,0 +1,3 @@
+-- Row versions for optimistic concurrency on marks entry
+ALTER TABLE exam_mark_summaries ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE exam_mark_details ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
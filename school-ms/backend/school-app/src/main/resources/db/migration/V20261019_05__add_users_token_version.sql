@@ -0,0 +1,2 @@
+-- Bumped to revoke a user's issued tokens; JWTs carry the version they were issued with
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- Per-student mark entry did not set class_id; recover it from the question paper rows the marks were entered against
+UPDATE exam_mark_summaries s
+SET class_id = q.class_id
+FROM exam_mark_details d
+JOIN question_paper_format q ON q.id = d.question_format_id
+WHERE d.summary_id = s.id
+  AND s.class_id IS NULL;
@@ -426,6 +426,7 @@ CREATE TABLE IF NOT EXISTS exam_mark_summaries (
 	locked BOOLEAN DEFAULT FALSE,
 	created_at TIMESTAMP,
 	updated_at TIMESTAMP,
+	version BIGINT NOT NULL DEFAULT 0,
 	UNIQUE(exam_id, subject_id, student_id)
 );
 
@@ -443,9 +444,43 @@ CREATE TABLE IF NOT EXISTS exam_mark_details (
 	last_edit_at TIMESTAMP,
 	created_at TIMESTAMP,
 	updated_at TIMESTAMP,
+	version BIGINT NOT NULL DEFAULT 0,
 	UNIQUE(summary_id, question_format_id)
 );
 
+CREATE TABLE IF NOT EXISTS exam_mark_audit (
+	id BIGSERIAL PRIMARY KEY,
+	exam_id BIGINT NOT NULL,
+	subject_id BIGINT NOT NULL,
+	student_id BIGINT NOT NULL,
+	question_format_id BIGINT,
+	action VARCHAR(20) NOT NULL,
+	old_marks DOUBLE PRECISION,
+	new_marks DOUBLE PRECISION,
+	reason TEXT,
+	changed_by VARCHAR(255),
+	changed_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_exam_mark_audit_exam_subject ON exam_mark_audit(exam_id, subject_id, student_id);
+
+CREATE TABLE IF NOT EXISTS exam_item_analysis (
+	id BIGSERIAL PRIMARY KEY,
+	exam_id BIGINT NOT NULL,
+	subject_id BIGINT NOT NULL,
+	level VARCHAR(20) NOT NULL,
+	question_format_id BIGINT,
+	question_number INTEGER,
+	unit_name VARCHAR(255),
+	responses BIGINT NOT NULL DEFAULT 0,
+	max_marks DOUBLE PRECISION,
+	mean_marks DOUBLE PRECISION,
+	std_dev DOUBLE PRECISION,
+	difficulty_index DOUBLE PRECISION,
+	discrimination_index DOUBLE PRECISION,
+	computed_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_exam_item_analysis_exam_subject ON exam_item_analysis(exam_id, subject_id);
+
 -- ================= MESSAGING =================
 CREATE TABLE IF NOT EXISTS employees (
 	id BIGSERIAL PRIMARY KEY,
@@ -509,6 +544,7 @@ CREATE TABLE IF NOT EXISTS users (
 	account_non_expired BOOLEAN DEFAULT TRUE,
 	account_non_locked BOOLEAN DEFAULT TRUE,
 	credentials_non_expired BOOLEAN DEFAULT TRUE,
+	token_version INTEGER NOT NULL DEFAULT 0,
 	created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
 	updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
 	created_by VARCHAR(100),
@@ -660,6 +696,22 @@ CREATE TABLE IF NOT EXISTS fee_payments (
 	updated_at TIMESTAMP
 );
 
+-- ================= ATTENDANCE (DERIVED) =================
+-- Materialized per-day, per-class attendance counts used by trend reports
+CREATE TABLE IF NOT EXISTS attendance_daily_class_summary (
+	id BIGSERIAL PRIMARY KEY,
+	summary_date DATE NOT NULL,
+	grade INTEGER NOT NULL,
+	section VARCHAR(50) NOT NULL,
+	present_count BIGINT NOT NULL DEFAULT 0,
+	absent_count BIGINT NOT NULL DEFAULT 0,
+	late_count BIGINT NOT NULL DEFAULT 0,
+	total_count BIGINT NOT NULL DEFAULT 0,
+	updated_at TIMESTAMP,
+	CONSTRAINT uq_attendance_summary_day_class UNIQUE (summary_date, grade, section)
+);
+CREATE INDEX IF NOT EXISTS idx_attendance_summary_grade_date ON attendance_daily_class_summary(grade, summary_date);
+
 -- ================= FKs =================
 -- PostgreSQL <15 does not support ADD CONSTRAINT IF NOT EXISTS; implement idempotent FK creation via helper function.
 -- Helper: add FK NOT VALID to avoid failing when existing legacy data violates it;
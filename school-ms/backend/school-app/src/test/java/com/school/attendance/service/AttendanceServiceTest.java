@@ -36,6 +36,12 @@ class AttendanceServiceTest {
     @Mock
     private AttendanceValidator attendanceValidator;
 
+    @Mock
+    private LiveAttendanceCounters liveAttendanceCounters;
+
+    @Mock
+    private AttendanceSummaryService attendanceSummaryService;
+
     @InjectMocks
     private AttendanceServiceImpl attendanceService;
 
@@ -0,0 +1,226 @@
+package com.school.attendance.service;
+
+import com.school.attendance.dto.StaffAttendanceStats;
+import com.school.attendance.dto.StaffMonthlyAttendanceReport;
+import com.school.attendance.model.StaffAttendanceStatus;
+import com.school.attendance.repository.StaffAttendanceRepository;
+import com.school.core.model.Staff;
+import com.school.hrm.service.HolidayCalendar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the grouped-count reports against the per-record counting they replaced
+ * (load every StaffAttendance row and group by status in memory).
+ */
+@ExtendWith(MockitoExtension.class)
+class StaffAttendanceReportsTest {
+
+    private static final StaffAttendanceStatus[] PATTERN = {
+            StaffAttendanceStatus.PRESENT, StaffAttendanceStatus.PRESENT, StaffAttendanceStatus.LATE,
+            StaffAttendanceStatus.PRESENT, StaffAttendanceStatus.ABSENT, StaffAttendanceStatus.HALF_DAY,
+            StaffAttendanceStatus.PRESENT, StaffAttendanceStatus.ON_LEAVE };
+
+    @Mock
+    private StaffAttendanceRepository repository;
+
+    @Mock
+    private HolidayCalendar holidayCalendar;
+
+    private StaffAttendanceReports reports;
+
+    private final List<Staff> staff = List.of(
+            staff(1L, "Asha", null, "Rao", "Science"),
+            staff(2L, "Vikram", "K", "Singh", "Admin"),
+            staff(3L, "Meera", "", "Iyer", "Maths"));
+    private final Map<Long, String> roles = Map.of(1L, "Senior Teacher", 2L, "Accountant", 3L, "Teacher");
+    private final List<Mark> records = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        reports = new StaffAttendanceReports(repository, holidayCalendar);
+        lenient().when(holidayCalendar.workingDaysBetween(any(), any())).thenReturn(20L);
+    }
+
+    @Test
+    void monthlyReport_PastMonthMatchesPerRecordCounts() {
+        YearMonth month = YearMonth.of(2025, 3);
+        mark(month);
+        stubGroupedQueries();
+
+        StaffMonthlyAttendanceReport report = reports.monthlyReport(2025, 3, "ALL");
+
+        assertEquals(staff.size(), report.getEmployeeSummaries().size());
+        for (StaffMonthlyAttendanceReport.EmployeeSummary summary : report.getEmployeeSummaries()) {
+            Map<StaffAttendanceStatus, Long> expected = perRecordCounts(month.atDay(1), month.atEndOfMonth(),
+                    r -> r.staff.getId().equals(summary.getEmployeeId()));
+            assertEquals(expected.get(StaffAttendanceStatus.PRESENT), summary.getPresentDays());
+            assertEquals(expected.get(StaffAttendanceStatus.ABSENT), summary.getAbsentDays());
+            assertEquals(expected.get(StaffAttendanceStatus.LATE), summary.getLateDays());
+            assertEquals(expected.get(StaffAttendanceStatus.HALF_DAY), summary.getHalfDays());
+            assertEquals(expected.get(StaffAttendanceStatus.ON_LEAVE), summary.getLeaveDays());
+        }
+        verify(repository, never()).findByAttendanceDateBetween(any(), any());
+    }
+
+    @Test
+    void monthlyReport_RowsMatchPerEmployeeStats() {
+        YearMonth month = YearMonth.of(2025, 3);
+        mark(month);
+        stubGroupedQueries();
+
+        StaffMonthlyAttendanceReport report = reports.monthlyReport(2025, 3, "ALL");
+
+        for (StaffMonthlyAttendanceReport.EmployeeSummary summary : report.getEmployeeSummaries()) {
+            Staff member = staff.stream().filter(s -> s.getId().equals(summary.getEmployeeId())).findFirst().orElseThrow();
+            StaffAttendanceStats stats = reports.employeeStats(member, month.atDay(1), month.atEndOfMonth());
+            assertEquals(member.getFullName(), summary.getEmployeeName());
+            assertEquals(stats.getPresentDays(), summary.getPresentDays());
+            assertEquals(stats.getAbsentDays(), summary.getAbsentDays());
+            assertEquals(stats.getLateDays(), summary.getLateDays());
+            assertEquals(stats.getHalfDays(), summary.getHalfDays());
+            assertEquals(stats.getLeaveDays(), summary.getLeaveDays());
+            assertEquals(stats.getAttendancePercentage(), summary.getAttendancePercentage());
+        }
+    }
+
+    @Test
+    void statusCounts_PastRangeMatchesPerRecordCountsForEachType() {
+        YearMonth month = YearMonth.of(2025, 3);
+        mark(month);
+        stubGroupedQueries();
+        LocalDate start = month.atDay(3);
+        LocalDate end = month.atDay(17);
+
+        assertEquals(perRecordCounts(start, end, r -> true), reports.statusCounts(start, end, "ALL"));
+        assertEquals(perRecordCounts(start, end, r -> isTeaching(r)), reports.statusCounts(start, end, "TEACHING"));
+        assertEquals(perRecordCounts(start, end, r -> !isTeaching(r)), reports.statusCounts(start, end, "NON_TEACHING"));
+    }
+
+    @Test
+    void currentMonthSnapshot_MatchesPerRecordCounts() {
+        YearMonth month = YearMonth.now();
+        mark(month);
+        stubGroupedQueries();
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.atDay(Math.min(12, month.lengthOfMonth()));
+
+        assertEquals(perRecordCounts(start, end, r -> true), reports.statusCounts(start, end, "ALL"));
+        assertEquals(perRecordCounts(start, end, r -> isTeaching(r)), reports.statusCounts(start, end, "TEACHING"));
+        StaffMonthlyAttendanceReport report = reports.monthlyReport(month.getYear(), month.getMonthValue(), "NON_TEACHING");
+        assertEquals(1, report.getEmployeeSummaries().size());
+        assertEquals(perRecordCounts(month.atDay(1), month.atEndOfMonth(), r -> r.staff.getId() == 2L)
+                .get(StaffAttendanceStatus.PRESENT), report.getEmployeeSummaries().get(0).getPresentDays());
+        // Both reads came from one snapshot load
+        verify(repository, times(1)).countByStaffAndStatusBetween(any(), any());
+        verify(repository, times(1)).countByDateRoleAndStatusBetween(any(), any());
+        verify(repository, never()).countByRoleAndStatusBetween(any(), any());
+    }
+
+    private void mark(YearMonth month) {
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            for (int i = 0; i < staff.size(); i++) {
+                // Leave a gap per staff member so the per-staff totals differ
+                if ((day + i) % 7 == 0) {
+                    continue;
+                }
+                records.add(new Mark(staff.get(i), month.atDay(day), PATTERN[(day * (i + 1)) % PATTERN.length]));
+            }
+        }
+    }
+
+    /**
+     * Answers the grouped queries the way the database would, from the same records.
+     */
+    private void stubGroupedQueries() {
+        lenient().when(repository.countByStaffAndStatusBetween(any(), any())).thenAnswer(inv ->
+                grouped(inv.getArgument(0), inv.getArgument(1), r -> true,
+                        r -> List.of(r.staff.getId(), r.staff.getFirstName(), nullToEmpty(r.staff.getMiddleName()),
+                                r.staff.getLastName(), r.staff.getDepartment(), role(r), r.status)));
+        lenient().when(repository.countByDateRoleAndStatusBetween(any(), any())).thenAnswer(inv ->
+                grouped(inv.getArgument(0), inv.getArgument(1), r -> true, r -> List.of(r.date, role(r), r.status)));
+        lenient().when(repository.countByRoleAndStatusBetween(any(), any())).thenAnswer(inv ->
+                grouped(inv.getArgument(0), inv.getArgument(1), r -> true, r -> List.of(role(r), r.status)));
+        lenient().when(repository.countByStatusForStaffBetween(anyLong(), any(), any())).thenAnswer(inv -> {
+            Long staffId = inv.getArgument(0);
+            return grouped(inv.getArgument(1), inv.getArgument(2), r -> r.staff.getId().equals(staffId),
+                    r -> List.of(r.status));
+        });
+    }
+
+    private List<Object[]> grouped(LocalDate start, LocalDate end, Predicate<Mark> filter,
+                                   Function<Mark, List<Object>> key) {
+        Map<List<Object>, Long> counts = records.stream()
+                .filter(r -> !r.date.isBefore(start) && !r.date.isAfter(end) && filter.test(r))
+                .collect(Collectors.groupingBy(key, LinkedHashMap::new, Collectors.counting()));
+        List<Object[]> rows = new ArrayList<>();
+        counts.forEach((k, count) -> {
+            List<Object> row = new ArrayList<>(k);
+            row.add(count);
+            rows.add(row.toArray());
+        });
+        return rows;
+    }
+
+    /**
+     * The replaced implementation: load the records and count them per status.
+     */
+    private Map<StaffAttendanceStatus, Long> perRecordCounts(LocalDate start, LocalDate end,
+                                                             Predicate<Mark> filter) {
+        Map<StaffAttendanceStatus, Long> stats = records.stream()
+                .filter(r -> !r.date.isBefore(start) && !r.date.isAfter(end) && filter.test(r))
+                .collect(Collectors.groupingBy(r -> r.status, () -> new EnumMap<>(StaffAttendanceStatus.class),
+                        Collectors.counting()));
+        for (StaffAttendanceStatus status : StaffAttendanceStatus.values()) {
+            stats.putIfAbsent(status, 0L);
+        }
+        return stats;
+    }
+
+    private String role(Mark r) {
+        return roles.get(r.staff.getId());
+    }
+
+    private boolean isTeaching(Mark r) {
+        return role(r).toLowerCase().contains("teacher");
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static Staff staff(Long id, String first, String middle, String last, String department) {
+        return Staff.builder().id(id).firstName(first).middleName(middle).lastName(last).department(department).build();
+    }
+
+    private static final class Mark {
+        final Staff staff;
+        final LocalDate date;
+        final StaffAttendanceStatus status;
+
+        Mark(Staff staff, LocalDate date, StaffAttendanceStatus status) {
+            this.staff = staff;
+            this.date = date;
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.school.common.report;
+
+import com.school.exception.ErrorResponse;
+import com.school.exception.GlobalExceptionHandler;
+import com.school.exception.ReportBusyException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeavyReportAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private ThreadPoolBulkhead bulkhead;
+    private HeavyReportAspect aspect;
+    private final CountDownLatch releaseBlockers = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        bulkhead = ThreadPoolBulkhead.of("reports-test", ThreadPoolBulkheadConfig.custom()
+                .coreThreadPoolSize(1)
+                .maxThreadPoolSize(1)
+                .queueCapacity(1)
+                .build());
+        aspect = new HeavyReportAspect(bulkhead, TransactionOperations.withoutTransaction(), Duration.ofMillis(300));
+        lenient().when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        releaseBlockers.countDown();
+        bulkhead.close();
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void runOnBulkhead_CarriesSecurityContextAndRequestAttributesToTheWorker() throws Throwable {
+        Authentication auth = new UsernamePasswordAuthenticationToken("alice", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        RequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        AtomicReference<Authentication> seenAuth = new AtomicReference<>();
+        AtomicReference<RequestAttributes> seenAttributes = new AtomicReference<>();
+        when(joinPoint.proceed()).thenAnswer(inv -> {
+            worker.set(Thread.currentThread());
+            seenAuth.set(SecurityContextHolder.getContext().getAuthentication());
+            seenAttributes.set(RequestContextHolder.getRequestAttributes());
+            return "report";
+        });
+
+        assertEquals("report", aspect.runOnBulkhead(joinPoint));
+
+        assertNotSame(Thread.currentThread(), worker.get());
+        assertSame(auth, seenAuth.get());
+        assertSame(attributes, seenAttributes.get());
+        // The caller's own context is left as it was
+        assertSame(auth, SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void runOnBulkhead_ClearsTheWorkerContextAfterTheReport() throws Throwable {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("alice", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        when(joinPoint.proceed()).thenReturn("report");
+        aspect.runOnBulkhead(joinPoint);
+
+        // The same bulkhead thread must not still hold the previous caller's identity
+        SecurityContextHolder.clearContext();
+        AtomicReference<Authentication> seenAuth = new AtomicReference<>();
+        AtomicReference<RequestAttributes> seenAttributes = new AtomicReference<>();
+        bulkhead.executeCallable(() -> {
+            seenAuth.set(SecurityContextHolder.getContext().getAuthentication());
+            seenAttributes.set(RequestContextHolder.getRequestAttributes());
+            return null;
+        }).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertNull(seenAuth.get());
+        assertNull(seenAttributes.get());
+    }
+
+    @Test
+    void runOnBulkhead_RejectsWith503AndShortRetryAfterWhenFull() throws Throwable {
+        occupyBulkhead();
+
+        ReportBusyException ex = assertThrows(ReportBusyException.class, () -> aspect.runOnBulkhead(joinPoint));
+
+        assertEquals(5, ex.getRetryAfterSeconds());
+        verify(joinPoint, never()).proceed();
+        ResponseEntity<ErrorResponse> response = new GlobalExceptionHandler().handleReportBusy(ex);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void runOnBulkhead_TimesOutWithLongRetryAfterAndInterruptsTheWorker() throws Throwable {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(joinPoint.proceed()).thenAnswer(inv -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return "report";
+        });
+
+        ReportBusyException ex = assertThrows(ReportBusyException.class, () -> aspect.runOnBulkhead(joinPoint));
+
+        assertEquals(60, ex.getRetryAfterSeconds());
+        assertEquals("60", new GlobalExceptionHandler().handleReportBusy(ex).getHeaders()
+                .getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        // The slot is free again, and the next report does not inherit the interrupt
+        AtomicReference<Boolean> nextInterrupted = new AtomicReference<>();
+        bulkhead.executeCallable(() -> {
+            nextInterrupted.set(Thread.currentThread().isInterrupted());
+            return null;
+        }).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertFalse(nextInterrupted.get());
+    }
+
+    @Test
+    void runOnBulkhead_SkipsAQueuedReportWhoseCallerTimedOut() throws Throwable {
+        CountDownLatch started = new CountDownLatch(1);
+        bulkhead.executeCallable(() -> {
+            started.countDown();
+            releaseBlockers.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Queued behind the blocker until the caller gives up
+        assertThrows(ReportBusyException.class, () -> aspect.runOnBulkhead(joinPoint));
+        releaseBlockers.countDown();
+        drain();
+
+        verify(joinPoint, never()).proceed();
+    }
+
+    /**
+     * Waits until everything queued so far has run: the single thread runs the queue in order.
+     */
+    private void drain() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            try {
+                bulkhead.executeCallable(() -> null).toCompletableFuture().get(5, TimeUnit.SECONDS);
+                return;
+            } catch (BulkheadFullException | ExecutionException e) {
+                Thread.sleep(10);
+            }
+        }
+        fail("Report bulkhead did not drain");
+    }
+
+    private void occupyBulkhead() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        bulkhead.executeCallable(() -> {
+            started.countDown();
+            releaseBlockers.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        bulkhead.executeCallable(() -> null);
+    }
+}
@@ -0,0 +1,132 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.StudentMarksDTO;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.model.QuestionPaperFormat;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExamMarksReadModelTest {
+
+    private static final long EXAM = 1L;
+    private static final long CLASS = 10L;
+    private static final long MATHS = 100L;
+    private static final long STUDENT = 7L;
+
+    @Mock
+    private QuestionPaperFormatRepository qpfRepo;
+
+    @Mock
+    private ExamMarkSummaryRepository summaryRepo;
+
+    @Mock
+    private ExamMarkDetailRepository detailRepo;
+
+    private ExamMarksReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        readModel = new ExamMarksReadModel(qpfRepo, summaryRepo, detailRepo);
+    }
+
+    @Test
+    void getStudentMarks_EvictsLeastRecentlyUsedSubjectBeyondCapacity() {
+        when(qpfRepo.findByExamIdAndClassIdAndSubjectId(anyLong(), anyLong(), anyLong()))
+                .thenReturn(Collections.emptyList());
+        when(summaryRepo.findByExamIdAndSubjectIdAndStudentId(anyLong(), anyLong(), anyLong()))
+                .thenReturn(Optional.empty());
+        for (long subject = 1; subject <= 256; subject++) {
+            readModel.getStudentMarks(EXAM, CLASS, subject, STUDENT);
+        }
+        // Touch subject 1 so subject 2 becomes the least recently used
+        readModel.getStudentMarks(EXAM, CLASS, 1L, STUDENT);
+
+        readModel.getStudentMarks(EXAM, CLASS, 257L, STUDENT);
+
+        Map<String, Long> stats = readModel.stats();
+        assertEquals(256L, stats.get("entries"));
+        assertEquals(1L, stats.get("evictions"));
+        readModel.getStudentMarks(EXAM, CLASS, 1L, STUDENT);
+        verify(qpfRepo, times(1)).findByExamIdAndClassIdAndSubjectId(EXAM, CLASS, 1L);
+        readModel.getStudentMarks(EXAM, CLASS, 2L, STUDENT);
+        verify(qpfRepo, times(2)).findByExamIdAndClassIdAndSubjectId(EXAM, CLASS, 2L);
+    }
+
+    @Test
+    void getStudentMarks_QuestionLoadRacingAnInvalidationIsNotCached() {
+        when(qpfRepo.findByExamIdAndClassIdAndSubjectId(EXAM, CLASS, MATHS)).thenAnswer(inv -> {
+            // A question paper save commits while this load is reading the old rows
+            readModel.invalidateQuestions(EXAM, CLASS, MATHS);
+            return List.of(question(5.0));
+        }).thenReturn(List.of(question(6.0)));
+        when(summaryRepo.findByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, STUDENT)).thenReturn(Optional.empty());
+
+        StudentMarksDTO raced = readModel.getStudentMarks(EXAM, CLASS, MATHS, STUDENT);
+        StudentMarksDTO reloaded = readModel.getStudentMarks(EXAM, CLASS, MATHS, STUDENT);
+        StudentMarksDTO cached = readModel.getStudentMarks(EXAM, CLASS, MATHS, STUDENT);
+
+        assertEquals(5.0, raced.getQuestionMarks().get(0).getMaxMarks());
+        assertEquals(6.0, reloaded.getQuestionMarks().get(0).getMaxMarks());
+        assertEquals(6.0, cached.getQuestionMarks().get(0).getMaxMarks());
+        verify(qpfRepo, times(2)).findByExamIdAndClassIdAndSubjectId(EXAM, CLASS, MATHS);
+    }
+
+    @Test
+    void getStudentMarks_MarksLoadRacingAnInvalidationIsNotCached() {
+        when(qpfRepo.findByExamIdAndClassIdAndSubjectId(EXAM, CLASS, MATHS)).thenReturn(List.of(question(5.0)));
+        when(summaryRepo.findByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, STUDENT)).thenAnswer(inv -> {
+            // A marks save for this student commits while the old summary is being read
+            readModel.invalidateStudents(EXAM, MATHS, List.of(STUDENT));
+            return Optional.of(summary(1L, 3.0));
+        }).thenReturn(Optional.of(summary(2L, 4.0)));
+        when(detailRepo.findBySummaryId(50L)).thenReturn(Collections.emptyList());
+
+        StudentMarksDTO raced = readModel.getStudentMarks(EXAM, CLASS, MATHS, STUDENT);
+        StudentMarksDTO reloaded = readModel.getStudentMarks(EXAM, CLASS, MATHS, STUDENT);
+        StudentMarksDTO cached = readModel.getStudentMarks(EXAM, CLASS, MATHS, STUDENT);
+
+        assertEquals(1L, raced.getVersion());
+        assertEquals(2L, reloaded.getVersion());
+        assertEquals(4.0, cached.getTotalTheoryMarks());
+        verify(summaryRepo, times(2)).findByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, STUDENT);
+        verify(qpfRepo, times(1)).findByExamIdAndClassIdAndSubjectId(EXAM, CLASS, MATHS);
+    }
+
+    private static QuestionPaperFormat question(Double marks) {
+        QuestionPaperFormat q = new QuestionPaperFormat();
+        q.setId(30L);
+        q.setExamId(EXAM);
+        q.setClassId(CLASS);
+        q.setSubjectId(MATHS);
+        q.setQuestionNumber(1);
+        q.setMarks(marks);
+        return q;
+    }
+
+    private static ExamMarkSummary summary(Long version, Double theory) {
+        ExamMarkSummary s = new ExamMarkSummary();
+        s.setId(50L);
+        s.setExamId(EXAM);
+        s.setSubjectId(MATHS);
+        s.setStudentId(STUDENT);
+        s.setTotalTheoryMarks(theory);
+        s.setVersion(version);
+        return s;
+    }
+}
@@ -0,0 +1,422 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.MarksConflictDTO;
+import com.school.exam.dto.MarksMatrixResponse;
+import com.school.exam.dto.MarksMatrixSaveRequest;
+import com.school.exam.dto.StudentMarksDTO;
+import com.school.exam.exception.MarksConflictException;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.model.QuestionPaperFormat;
+import com.school.exam.model.Subject;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import com.school.exam.repository.SubjectRepository;
+import com.school.student.model.Student;
+import com.school.student.repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExamMarksServiceTest {
+
+    private static final long EXAM = 1L;
+    private static final long CLASS = 10L;
+    private static final long MATHS = 100L;
+    private static final long STUDENT = 7L;
+
+    @Mock
+    private ExamMarkSummaryRepository summaryRepo;
+
+    @Mock
+    private ExamMarkDetailRepository detailRepo;
+
+    @Mock
+    private QuestionPaperFormatRepository qpfRepo;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private SubjectRepository subjectRepository;
+
+    @Mock
+    private ExamRankingService rankingService;
+
+    @Mock
+    private MarksAuditLog auditLog;
+
+    @Mock
+    private ExamMarksReadModel readModel;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private ExamMarksService marksService;
+
+    @BeforeEach
+    void setUp() {
+        MarksBatchWriter marksBatchWriter = new MarksBatchWriter(qpfRepo, summaryRepo, detailRepo, jdbc);
+        marksService = new ExamMarksService(summaryRepo, detailRepo, qpfRepo, studentRepository, subjectRepository,
+                marksBatchWriter, rankingService, auditLog, readModel, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void saveStudentMarks_StaleVersionIsRejectedWithCurrentValues() {
+        ExamMarkSummary stored = summary(3L, 72.0);
+        when(summaryRepo.findByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, STUDENT)).thenReturn(Optional.of(stored));
+        when(detailRepo.findBySummaryId(50L)).thenReturn(Collections.emptyList());
+
+        MarksConflictException ex = assertThrows(MarksConflictException.class,
+                () -> marksService.saveStudentMarks(dto(2L, 80.0)));
+
+        MarksConflictDTO.Cell cell = ex.getConflicts().get(0);
+        assertEquals(STUDENT, cell.getStudentId());
+        assertEquals(3L, cell.getCurrentVersion());
+        assertEquals(72.0, cell.getTheoryMarks());
+        verify(summaryRepo, never()).save(any());
+        verifyNoInteractions(rankingService);
+    }
+
+    @Test
+    void saveStudentMarks_ConcurrentFirstEntryIsAConflictNotAnIntegrityError() {
+        // Empty when this request looked, then the other evaluator's row once the insert has lost
+        when(summaryRepo.findByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, STUDENT))
+                .thenReturn(Optional.empty(), Optional.of(summary(0L, 64.0)));
+        when(qpfRepo.findDistinctClassIdsByExamIdAndSubjectId(EXAM, MATHS)).thenReturn(List.of(CLASS));
+        when(summaryRepo.saveAndFlush(any(ExamMarkSummary.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_exam_subject_student"));
+
+        MarksConflictException ex = assertThrows(MarksConflictException.class,
+                () -> marksService.saveStudentMarks(dto(null, 80.0)));
+
+        MarksConflictDTO.Cell cell = ex.getConflicts().get(0);
+        assertEquals(MATHS, cell.getSubjectId());
+        assertEquals(0L, cell.getCurrentVersion());
+        assertEquals(64.0, cell.getTheoryMarks());
+        verifyNoInteractions(rankingService);
+    }
+
+    @Test
+    void saveMarksMatrix_ZeroUpdateCountReportsTheStaleCell() {
+        when(qpfRepo.sumMarksBySubjectForExamAndClass(EXAM, CLASS))
+                .thenReturn(Collections.singletonList(new Object[] { MATHS, 100.0 }));
+        when(jdbc.batchUpdate(anyString(), anyList(), any(int[].class))).thenReturn(new int[] { 0 });
+        when(summaryRepo.findByExamIdAndStudentIdIn(eq(EXAM), anyCollection())).thenReturn(List.of(summary(5L, 91.0)));
+
+        MarksMatrixSaveRequest.Cell cell = new MarksMatrixSaveRequest.Cell();
+        cell.setSubjectId(MATHS);
+        cell.setTheoryMarks(60.0);
+        cell.setVersion(4L);
+        MarksMatrixSaveRequest.Row row = new MarksMatrixSaveRequest.Row();
+        row.setStudentId(STUDENT);
+        row.setSubjects(List.of(cell));
+        MarksMatrixSaveRequest request = new MarksMatrixSaveRequest();
+        request.setExamId(EXAM);
+        request.setClassId(CLASS);
+        request.setRows(List.of(row));
+
+        MarksConflictException ex = assertThrows(MarksConflictException.class,
+                () -> marksService.saveMarksMatrix(request));
+
+        assertEquals(1, ex.getConflicts().size());
+        assertEquals(5L, ex.getConflicts().get(0).getCurrentVersion());
+        assertEquals(91.0, ex.getConflicts().get(0).getTheoryMarks());
+        verifyNoInteractions(rankingService);
+    }
+
+    @Test
+    void lockMarks_AuditsOnlyTheRowsThatChanged() {
+        signIn("teacher", "ROLE_TEACHER");
+        // 8 has no marks yet and 9 was already locked
+        when(jdbc.queryForList(anyString(), any(Object[].class), any(int[].class), eq(Long.class)))
+                .thenReturn(List.of(7L));
+
+        withAuditLog().lockMarks(EXAM, MATHS, List.of(7L, 8L, 9L, 7L));
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).queryForList(contains("locked IS DISTINCT FROM ?"), args.capture(), any(int[].class),
+                eq(Long.class));
+        assertEquals(List.of(7L, 8L, 9L), List.of(args.getValue()).subList(5, 8));
+        List<Object[]> audit = auditRows();
+        assertEquals(1, audit.size());
+        assertEquals(STUDENT, audit.get(0)[2]);
+        assertEquals(MarksAuditLog.LOCK, audit.get(0)[4]);
+        assertEquals("teacher", audit.get(0)[8]);
+    }
+
+    @Test
+    void unlockMarks_ByAdminIsAuditedAsUnlock() {
+        signIn("admin", "ROLE_ADMIN");
+        when(jdbc.queryForList(anyString(), any(Object[].class), any(int[].class), eq(Long.class)))
+                .thenReturn(List.of(7L, 8L));
+
+        withAuditLog().unlockMarks(EXAM, MATHS, List.of(7L, 8L));
+
+        List<Object[]> audit = auditRows();
+        assertEquals(List.of(7L, 8L), audit.stream().map(r -> r[2]).toList());
+        for (Object[] row : audit) {
+            assertEquals(EXAM, row[0]);
+            assertEquals(MATHS, row[1]);
+            assertEquals(MarksAuditLog.UNLOCK, row[4]);
+            assertEquals("admin", row[8]);
+        }
+    }
+
+    @Test
+    void unlockMarks_NothingToUnlockWritesNoAudit() {
+        signIn("admin", "ROLE_ADMIN");
+        when(jdbc.queryForList(anyString(), any(Object[].class), any(int[].class), eq(Long.class)))
+                .thenReturn(Collections.emptyList());
+
+        withAuditLog().unlockMarks(EXAM, MATHS, List.of(7L));
+
+        verify(jdbc, never()).batchUpdate(startsWith("INSERT INTO exam_mark_audit"), anyList(), any(int[].class));
+    }
+
+    @Test
+    void editLockedMark_AuditsOldAndNewMarksWithReason() {
+        signIn("admin", "ROLE_ADMIN");
+        when(summaryRepo.findIdByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, STUDENT)).thenReturn(Optional.of(50L));
+        when(detailRepo.findMarksBySummaryIdAndQuestionFormatId(50L, 30L))
+                .thenReturn(Collections.singletonList(new Object[] { 4.0, 5.0 }));
+
+        withAuditLog().editLockedMark(EXAM, MATHS, STUDENT, 30L, 4.5, "Re-evaluation");
+
+        verify(detailRepo).updateObtainedMarks(eq(50L), eq(30L), eq(4.5), eq("Re-evaluation"), any());
+        ArgumentCaptor<Object[]> row = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbc).update(startsWith("INSERT INTO exam_mark_audit"), row.capture(), any(int[].class));
+        assertEquals(List.of(EXAM, MATHS, STUDENT, 30L, MarksAuditLog.EDIT, 4.0, 4.5, "Re-evaluation", "admin"),
+                List.of(row.getValue()).subList(0, 9));
+    }
+
+    @Test
+    void editLockedMark_AboveMaximumIsRejectedWithoutAudit() {
+        when(summaryRepo.findIdByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, STUDENT)).thenReturn(Optional.of(50L));
+        when(detailRepo.findMarksBySummaryIdAndQuestionFormatId(50L, 30L))
+                .thenReturn(Collections.singletonList(new Object[] { 4.0, 5.0 }));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> withAuditLog().editLockedMark(EXAM, MATHS, STUDENT, 30L, 6.0, "Typo"));
+        verify(detailRepo, never()).updateObtainedMarks(any(), any(), any(), any(), any());
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void getMarksMatrix_BulkFetchMatchesPerCellLookups() {
+        List<Subject> subjects = List.of(subject(MATHS, "Maths"), subject(200L, "Science"), subject(300L, "English"));
+        List<QuestionPaperFormat> qpf = List.of(qpf(MATHS, 1, 40.0), qpf(MATHS, 2, 60.0), qpf(200L, 1, 50.0),
+                qpf(200L, 2, null), qpf(300L, 1, 80.0));
+        List<Student> students = List.of(student(7L, "Anu", "Das", "1"), student(8L, "Ravi", "Kumar", "2"),
+                student(9L, "Zoya", "Khan", "3"));
+        List<ExamMarkSummary> summaries = new ArrayList<>();
+        summaries.add(cell(7L, MATHS, 81.0, 12.0, false, null, 2L));
+        summaries.add(cell(7L, 300L, 55.5, null, false, null, 0L));
+        summaries.add(cell(8L, MATHS, null, null, true, "Medical", 1L));
+        summaries.add(cell(9L, 200L, 33.0, 10.0, false, null, 4L));
+        // Marks for a subject this class does not take in the exam
+        summaries.add(cell(9L, 999L, 70.0, null, false, null, 0L));
+
+        Map<Long, Double> totals = qpf.stream().collect(Collectors.groupingBy(QuestionPaperFormat::getSubjectId,
+                TreeMap::new, Collectors.summingDouble(q -> q.getMarks() == null ? 0.0 : q.getMarks())));
+        when(qpfRepo.sumMarksBySubjectForExamAndClass(EXAM, CLASS)).thenReturn(totals.entrySet().stream()
+                .map(e -> new Object[] { e.getKey(), e.getValue() }).collect(Collectors.toList()));
+        when(subjectRepository.findAllById(anyIterable())).thenReturn(subjects);
+        when(studentRepository.findByGradeAndSection(5, "A")).thenReturn(students);
+        when(summaryRepo.findByExamIdAndStudentIdIn(eq(EXAM), anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(1);
+            return summaries.stream().filter(s -> ids.contains(s.getStudentId())).collect(Collectors.toList());
+        });
+
+        MarksMatrixResponse bulk = marksService.getMarksMatrix(EXAM, CLASS, 5, "A");
+        MarksMatrixResponse perCell = perCellMatrix(subjects, qpf, students, summaries);
+
+        assertEquals(perCell.getSubjects().size(), bulk.getSubjects().size());
+        for (int i = 0; i < perCell.getSubjects().size(); i++) {
+            MarksMatrixResponse.SubjectColumn expected = perCell.getSubjects().get(i);
+            MarksMatrixResponse.SubjectColumn actual = bulk.getSubjects().get(i);
+            assertEquals(expected.getSubjectId(), actual.getSubjectId());
+            assertEquals(expected.getSubjectName(), actual.getSubjectName());
+            assertEquals(expected.getTotalMaxMarks(), actual.getTotalMaxMarks());
+        }
+        assertEquals(perCell.getStudents().size(), bulk.getStudents().size());
+        for (int i = 0; i < perCell.getStudents().size(); i++) {
+            MarksMatrixResponse.StudentRow expected = perCell.getStudents().get(i);
+            MarksMatrixResponse.StudentRow actual = bulk.getStudents().get(i);
+            assertEquals(expected.getStudentId(), actual.getStudentId());
+            assertEquals(expected.getStudentName(), actual.getStudentName());
+            assertEquals(expected.getRollNumber(), actual.getRollNumber());
+            assertEquals(expected.getCells().size(), actual.getCells().size());
+            for (int j = 0; j < expected.getCells().size(); j++) {
+                MarksMatrixResponse.StudentSubjectCell e = expected.getCells().get(j);
+                MarksMatrixResponse.StudentSubjectCell a = actual.getCells().get(j);
+                assertEquals(e.getSubjectId(), a.getSubjectId());
+                assertEquals(e.getTheoryMarks(), a.getTheoryMarks());
+                assertEquals(e.getPracticalMarks(), a.getPracticalMarks());
+                assertEquals(e.getAbsent(), a.getAbsent());
+                assertEquals(e.getAbsenceReason(), a.getAbsenceReason());
+                assertEquals(e.getVersion(), a.getVersion());
+            }
+        }
+        verify(summaryRepo, times(1)).findByExamIdAndStudentIdIn(eq(EXAM), anyCollection());
+        verify(summaryRepo, never()).findByExamIdAndSubjectIdAndStudentId(anyLong(), anyLong(), anyLong());
+        verify(qpfRepo, never()).findByExamIdAndClassIdAndSubjectId(anyLong(), anyLong(), anyLong());
+    }
+
+    /**
+     * The matrix as the per-cell implementation built it: one QPF read per subject column and
+     * one summary lookup per (student, subject).
+     */
+    private static MarksMatrixResponse perCellMatrix(List<Subject> subjects, List<QuestionPaperFormat> qpf,
+                                                     List<Student> students, List<ExamMarkSummary> summaries) {
+        List<MarksMatrixResponse.SubjectColumn> cols = new ArrayList<>();
+        for (Subject s : subjects) {
+            MarksMatrixResponse.SubjectColumn c = new MarksMatrixResponse.SubjectColumn();
+            c.setSubjectId(s.getId());
+            c.setSubjectName(s.getName());
+            c.setTotalMaxMarks(qpf.stream().filter(q -> q.getSubjectId().equals(s.getId()))
+                    .mapToDouble(q -> q.getMarks() == null ? 0.0 : q.getMarks()).sum());
+            cols.add(c);
+        }
+        List<MarksMatrixResponse.StudentRow> rows = new ArrayList<>();
+        for (Student st : students) {
+            MarksMatrixResponse.StudentRow r = new MarksMatrixResponse.StudentRow();
+            r.setStudentId(st.getId());
+            r.setStudentName(st.getFirstName() + " " + st.getLastName());
+            r.setRollNumber(st.getRollNumber());
+            List<MarksMatrixResponse.StudentSubjectCell> cells = new ArrayList<>();
+            for (MarksMatrixResponse.SubjectColumn c : cols) {
+                MarksMatrixResponse.StudentSubjectCell cell = new MarksMatrixResponse.StudentSubjectCell();
+                cell.setSubjectId(c.getSubjectId());
+                summaries.stream()
+                        .filter(sum -> sum.getStudentId().equals(st.getId()) && sum.getSubjectId().equals(c.getSubjectId()))
+                        .findFirst()
+                        .ifPresent(sum -> {
+                            cell.setAbsent(Boolean.TRUE.equals(sum.getIsAbsent()));
+                            cell.setAbsenceReason(sum.getAbsenceReason());
+                            cell.setTheoryMarks(sum.getTotalTheoryMarks());
+                            cell.setPracticalMarks(sum.getTotalPracticalMarks());
+                            cell.setVersion(sum.getVersion());
+                        });
+                cells.add(cell);
+            }
+            r.setCells(cells);
+            rows.add(r);
+        }
+        MarksMatrixResponse resp = new MarksMatrixResponse();
+        resp.setSubjects(cols);
+        resp.setStudents(rows);
+        return resp;
+    }
+
+    private static Subject subject(Long id, String name) {
+        Subject s = new Subject();
+        s.setId(id);
+        s.setName(name);
+        return s;
+    }
+
+    private static QuestionPaperFormat qpf(Long subjectId, int question, Double marks) {
+        QuestionPaperFormat q = new QuestionPaperFormat();
+        q.setExamId(EXAM);
+        q.setClassId(CLASS);
+        q.setSubjectId(subjectId);
+        q.setQuestionNumber(question);
+        q.setMarks(marks);
+        return q;
+    }
+
+    private static Student student(Long id, String first, String last, String roll) {
+        return Student.builder().id(id).firstName(first).lastName(last).rollNumber(roll).build();
+    }
+
+    private static ExamMarkSummary cell(Long studentId, Long subjectId, Double theory, Double practical,
+                                        boolean absent, String reason, Long version) {
+        ExamMarkSummary s = new ExamMarkSummary();
+        s.setExamId(EXAM);
+        s.setSubjectId(subjectId);
+        s.setStudentId(studentId);
+        s.setTotalTheoryMarks(theory);
+        s.setTotalPracticalMarks(practical);
+        s.setIsAbsent(absent);
+        s.setAbsenceReason(reason);
+        s.setVersion(version);
+        return s;
+    }
+
+    /**
+     * The service with a real audit log writing through the mocked JdbcTemplate.
+     */
+    private ExamMarksService withAuditLog() {
+        return new ExamMarksService(summaryRepo, detailRepo, qpfRepo, studentRepository, subjectRepository,
+                new MarksBatchWriter(qpfRepo, summaryRepo, detailRepo, jdbc), rankingService, new MarksAuditLog(jdbc),
+                readModel, transactionManager);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> auditRows() {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbc).batchUpdate(startsWith("INSERT INTO exam_mark_audit"), rows.capture(), any(int[].class));
+        return rows.getValue();
+    }
+
+    private static void signIn(String user, String role) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    private StudentMarksDTO dto(Long version, Double theory) {
+        StudentMarksDTO dto = new StudentMarksDTO();
+        dto.setExamId(EXAM);
+        dto.setSubjectId(MATHS);
+        dto.setStudentId(STUDENT);
+        dto.setTotalTheoryMarks(theory);
+        dto.setQuestionMarks(Collections.emptyList());
+        dto.setVersion(version);
+        return dto;
+    }
+
+    private ExamMarkSummary summary(Long version, Double theory) {
+        ExamMarkSummary s = new ExamMarkSummary();
+        s.setId(50L);
+        s.setExamId(EXAM);
+        s.setClassId(CLASS);
+        s.setSubjectId(MATHS);
+        s.setStudentId(STUDENT);
+        s.setTotalTheoryMarks(theory);
+        s.setVersion(version);
+        return s;
+    }
+}
@@ -0,0 +1,169 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.QuestionMarkDTO;
+import com.school.exam.dto.RankDTO;
+import com.school.exam.dto.StudentMarksDTO;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import com.school.exam.repository.SubjectRepository;
+import com.school.student.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExamRankingServiceTest {
+
+    private static final long EXAM = 1L;
+    private static final long CLASS = 10L;
+    private static final long MATHS = 100L;
+    private static final long SCIENCE = 200L;
+
+    @Mock
+    private ExamMarkSummaryRepository summaryRepo;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private ExamMarkDetailRepository detailRepo;
+
+    @Mock
+    private QuestionPaperFormatRepository qpfRepo;
+
+    @Mock
+    private SubjectRepository subjectRepository;
+
+    @Mock
+    private MarksBatchWriter marksBatchWriter;
+
+    @Mock
+    private MarksAuditLog auditLog;
+
+    @Mock
+    private ExamMarksReadModel readModel;
+
+    private ExamRankingService rankingService;
+
+    @BeforeEach
+    void setUp() {
+        when(summaryRepo.findByExamIdAndClassId(EXAM, CLASS)).thenReturn(Arrays.asList(
+                summary(MATHS, 1L, 80.0, false),
+                summary(MATHS, 2L, 90.0, false),
+                summary(MATHS, 3L, 80.0, false),
+                summary(MATHS, 4L, 50.0, false),
+                summary(MATHS, 5L, null, true),
+                summary(SCIENCE, 1L, 70.0, false),
+                summary(SCIENCE, 4L, 60.0, false)));
+        rankingService = new ExamRankingService(summaryRepo, studentRepository);
+    }
+
+    @Test
+    void getStudentRanks_TiesShareRankAndAbsentIsNotRanked() {
+        List<RankDTO> ranks = rankingService.getStudentRanks(EXAM, CLASS, 3L);
+
+        // Overall: 1 -> 150, 4 -> 110, 2 -> 90, 3 -> 80
+        RankDTO overall = ranks.get(0);
+        assertNull(overall.getSubjectId());
+        assertEquals(4, overall.getRank());
+        assertEquals(4, overall.getOutOf());
+
+        RankDTO maths = ranks.get(1);
+        assertEquals(MATHS, maths.getSubjectId());
+        assertEquals(2, maths.getRank());
+        assertEquals(4, maths.getOutOf());
+        // one below, two tied (counted as half each) out of four
+        assertEquals(50.0, maths.getPercentile());
+
+        assertTrue(rankingService.getStudentRanks(EXAM, CLASS, 5L).isEmpty());
+        verify(summaryRepo, times(1)).findByExamIdAndClassId(EXAM, CLASS);
+    }
+
+    @Test
+    void recordScores_UpdatesLoadedBoardsIncrementally() {
+        rankingService.getStudentRanks(EXAM, CLASS, 4L);
+
+        rankingService.recordScores(EXAM, CLASS, Arrays.asList(
+                new ExamRankingService.ScoreChange(MATHS, 4L, 95.0),
+                new ExamRankingService.ScoreChange(MATHS, 2L, null)));
+
+        RankDTO maths = rankingService.getStudentRanks(EXAM, CLASS, 4L).get(1);
+        assertEquals(1, maths.getRank());
+        assertEquals(3, maths.getOutOf());
+        // Overall for 4 is now 95 + 60
+        assertEquals(155.0, rankingService.getStudentRanks(EXAM, CLASS, 4L).get(0).getScore());
+        verify(summaryRepo, times(1)).findByExamIdAndClassId(EXAM, CLASS);
+    }
+
+    @Test
+    void getTop_ReturnsPrefixInScoreOrder() {
+        when(studentRepository.findAllById(anyList())).thenReturn(Collections.emptyList());
+
+        List<RankDTO> top = rankingService.getTop(EXAM, CLASS, MATHS, 3);
+
+        assertEquals(Arrays.asList(2L, 1L, 3L), top.stream().map(RankDTO::getStudentId).toList());
+        assertEquals(Arrays.asList(1, 2, 2), top.stream().map(RankDTO::getRank).toList());
+        // Same percentiles as the per-student lookup: 2 is above three of four, 1 and 3 tie above one
+        assertEquals(Arrays.asList(87.5, 50.0, 50.0), top.stream().map(RankDTO::getPercentile).toList());
+        assertEquals(rankingService.getStudentRanks(EXAM, CLASS, 1L).get(1).getPercentile(), top.get(1).getPercentile());
+    }
+
+    @Test
+    void saveStudentMarks_NewSummaryGetsClassFromQuestionPaperAndIsRanked() {
+        ExamMarksService marksService = new ExamMarksService(summaryRepo, detailRepo, qpfRepo, studentRepository,
+                subjectRepository, marksBatchWriter, rankingService, auditLog, readModel,
+                mock(PlatformTransactionManager.class));
+        rankingService.getStudentRanks(EXAM, CLASS, 1L);
+        when(summaryRepo.findByExamIdAndSubjectIdAndStudentId(EXAM, MATHS, 6L)).thenReturn(Optional.empty());
+        when(qpfRepo.findDistinctClassIdsByIdIn(List.of(500L))).thenReturn(List.of(CLASS));
+        when(summaryRepo.saveAndFlush(any(ExamMarkSummary.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        QuestionMarkDTO question = new QuestionMarkDTO();
+        question.setQuestionId(500L);
+        question.setObtainedMarks(85.0);
+        StudentMarksDTO dto = new StudentMarksDTO();
+        dto.setExamId(EXAM);
+        dto.setSubjectId(MATHS);
+        dto.setStudentId(6L);
+        dto.setTotalTheoryMarks(85.0);
+        dto.setQuestionMarks(List.of(question));
+        marksService.saveStudentMarks(dto);
+
+        ArgumentCaptor<ExamMarkSummary> saved = ArgumentCaptor.forClass(ExamMarkSummary.class);
+        verify(summaryRepo).saveAndFlush(saved.capture());
+        assertEquals(CLASS, saved.getValue().getClassId());
+
+        // Maths: 90, 85, 80, 80, 50 -> second of five
+        List<RankDTO> ranks = rankingService.getStudentRanks(EXAM, CLASS, 6L);
+        assertEquals(2, ranks.get(1).getRank());
+        assertEquals(5, ranks.get(1).getOutOf());
+        verify(summaryRepo, times(1)).findByExamIdAndClassId(EXAM, CLASS);
+    }
+
+    private ExamMarkSummary summary(long subjectId, long studentId, Double theory, boolean absent) {
+        ExamMarkSummary s = new ExamMarkSummary();
+        s.setExamId(EXAM);
+        s.setClassId(CLASS);
+        s.setSubjectId(subjectId);
+        s.setStudentId(studentId);
+        s.setTotalTheoryMarks(theory);
+        s.setIsAbsent(absent);
+        return s;
+    }
+}
@@ -0,0 +1,93 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.ItemAnalysisDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemAnalysisServiceTest {
+
+    @Test
+    void itemStats_MatchesTwoPassMeanAndVariance() {
+        double[] marks = { 4, 2, 5, 0, 3, 5, 1 };
+        ItemAnalysisService.ItemStats stats = new ItemAnalysisService.ItemStats();
+        for (double m : marks) {
+            stats.add(m, 5, 0);
+        }
+
+        double mean = Arrays.stream(marks).average().orElse(0);
+        double variance = Arrays.stream(marks).map(m -> (m - mean) * (m - mean)).sum() / marks.length;
+        assertEquals(mean, stats.mean, 1e-12);
+        assertEquals(Math.sqrt(variance), stats.stdDev(), 1e-12);
+        assertEquals(20.0 / 35.0, stats.difficulty(), 1e-12);
+        assertNull(stats.discrimination());
+    }
+
+    @Test
+    void itemStats_DiscriminationIsUpperMinusLowerRatio() {
+        ItemAnalysisService.ItemStats stats = new ItemAnalysisService.ItemStats();
+        stats.add(5, 5, 1);
+        stats.add(4, 5, 1);
+        stats.add(3, 5, 0);
+        stats.add(1, 5, -1);
+        stats.add(0, 5, -1);
+
+        assertEquals(0.9 - 0.1, stats.discrimination(), 1e-12);
+    }
+
+    @Test
+    void splitGroups_Takes27PercentFromEachEnd() {
+        List<double[]> totals = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            totals.add(new double[] { id, id * 10 });
+        }
+
+        Map<Long, Integer> groups = ItemAnalysisService.splitGroups(totals);
+
+        // round(10 * 0.27) = 3 per group
+        assertEquals(6, groups.size());
+        assertEquals(1, groups.get(10L));
+        assertEquals(1, groups.get(8L));
+        assertEquals(-1, groups.get(1L));
+        assertEquals(-1, groups.get(3L));
+        assertNull(groups.get(5L));
+        assertTrue(ItemAnalysisService.splitGroups(new ArrayList<>(List.<double[]>of(new double[] { 1, 50 }))).isEmpty());
+    }
+
+    @Test
+    void detailStream_UnitFiguresAreOverEachStudentsUnitTotal() {
+        ItemAnalysisService.DetailStream stream = new ItemAnalysisService.DetailStream(1L,
+                Map.of(100L, Map.of(1L, 1, 2L, -1)), LocalDateTime.now());
+        // Question 31 (max 5) and 32 (max 3) of unit Algebra; student 3 has no mark for 32
+        stream.add(31L, 100L, 1L, 1, "Algebra", 5, 5);
+        stream.add(31L, 100L, 2L, 1, "Algebra", 5, 2);
+        stream.add(31L, 100L, 3L, 1, "Algebra", 5, 4);
+        stream.add(32L, 100L, 1L, 2, "Algebra", 3, 3);
+        stream.add(32L, 100L, 2L, 2, "Algebra", 3, 1);
+
+        List<ItemAnalysisDTO> results = stream.finish();
+
+        assertEquals(3, results.size());
+        ItemAnalysisDTO unit = results.get(2);
+        assertEquals(ItemAnalysisService.LEVEL_UNIT, unit.getLevel());
+        // One response per student: totals 8/8, 3/8 and 4/5
+        assertEquals(3, unit.getResponses());
+        assertEquals(5.0, unit.getMeanMarks(), 1e-4);
+        assertEquals(7.0, unit.getMaxMarks(), 1e-4);
+        assertEquals(Math.sqrt(14.0 / 3.0), unit.getStdDev(), 1e-4);
+        assertEquals(15.0 / 21.0, unit.getDifficultyIndex(), 1e-4);
+        assertEquals(8.0 / 8.0 - 3.0 / 8.0, unit.getDiscriminationIndex(), 1e-4);
+
+        ItemAnalysisDTO first = results.get(0);
+        assertEquals(ItemAnalysisService.LEVEL_QUESTION, first.getLevel());
+        assertEquals(31L, first.getQuestionFormatId());
+        assertEquals(3, first.getResponses());
+        assertEquals(2, results.get(1).getResponses());
+    }
+}
@@ -0,0 +1,125 @@
+package com.school.exam.service;
+
+import com.school.exam.dto.BulkMarksUpdateRequest;
+import com.school.exam.model.ExamMarkSummary;
+import com.school.exam.model.QuestionPaperFormat;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarksBatchWriterTest {
+
+    private static final long EXAM = 1L;
+    private static final long CLASS = 10L;
+    private static final long MATHS = 100L;
+    private static final long STUDENT = 7L;
+
+    @Mock
+    private QuestionPaperFormatRepository qpfRepo;
+
+    @Mock
+    private ExamMarkSummaryRepository summaryRepo;
+
+    @Mock
+    private ExamMarkDetailRepository detailRepo;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private MarksBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new MarksBatchWriter(qpfRepo, summaryRepo, detailRepo, jdbc);
+    }
+
+    @Test
+    void bulkUpdate_RejectsQuestionOfAnotherExam() {
+        when(qpfRepo.findAllById(anyCollection())).thenReturn(List.of(question(30L, 2L, CLASS, MATHS)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.bulkUpdate(EXAM, CLASS, MATHS, List.of(item(30L, 4.0))));
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void bulkUpdate_RejectsQuestionOfAnotherClass() {
+        when(qpfRepo.findAllById(anyCollection())).thenReturn(List.of(question(30L, EXAM, 11L, MATHS)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.bulkUpdate(EXAM, CLASS, MATHS, List.of(item(30L, 4.0))));
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void bulkUpdate_RejectsQuestionOfAnotherSubject() {
+        when(qpfRepo.findAllById(anyCollection())).thenReturn(List.of(question(30L, EXAM, CLASS, 200L)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.bulkUpdate(EXAM, CLASS, MATHS, List.of(item(30L, 4.0))));
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void bulkUpdate_RejectsMarksAboveTheQuestionMaximum() {
+        when(qpfRepo.findAllById(anyCollection())).thenReturn(List.of(question(30L, EXAM, CLASS, MATHS)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> writer.bulkUpdate(EXAM, CLASS, MATHS, List.of(item(30L, 5.5))));
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bulkUpdate_WritesQuestionsOfTheRequestedExamClassAndSubject() {
+        when(qpfRepo.findAllById(anyCollection())).thenReturn(List.of(question(30L, EXAM, CLASS, MATHS)));
+        ExamMarkSummary summary = new ExamMarkSummary();
+        summary.setId(50L);
+        summary.setStudentId(STUDENT);
+        when(summaryRepo.findByExamIdAndSubjectIdAndStudentIdIn(eq(EXAM), eq(MATHS), anyCollection()))
+                .thenReturn(List.of(summary));
+        when(jdbc.batchUpdate(anyString(), anyList(), any(int[].class))).thenReturn(new int[] { 1 });
+
+        writer.bulkUpdate(EXAM, CLASS, MATHS, List.of(item(30L, 4.0)));
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbc, times(2)).batchUpdate(anyString(), args.capture(), any(int[].class));
+        Object[] detail = args.getAllValues().get(1).get(0);
+        assertEquals(50L, detail[0]);
+        assertEquals(30L, detail[1]);
+        assertEquals(4.0, detail[6]);
+    }
+
+    private static QuestionPaperFormat question(Long id, Long examId, Long classId, Long subjectId) {
+        QuestionPaperFormat q = new QuestionPaperFormat();
+        q.setId(id);
+        q.setExamId(examId);
+        q.setClassId(classId);
+        q.setSubjectId(subjectId);
+        q.setQuestionNumber(1);
+        q.setMarks(5.0);
+        return q;
+    }
+
+    private static BulkMarksUpdateRequest.BulkMarkItem item(Long questionFormatId, Double obtained) {
+        BulkMarksUpdateRequest.BulkMarkItem item = new BulkMarksUpdateRequest.BulkMarkItem();
+        item.setStudentId(STUDENT);
+        item.setQuestionFormatId(questionFormatId);
+        item.setObtainedMarks(obtained);
+        return item;
+    }
+}
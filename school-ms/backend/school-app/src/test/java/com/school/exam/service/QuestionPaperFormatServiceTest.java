@@ -0,0 +1,83 @@
+package com.school.exam.service;
+
+import com.school.exam.model.QuestionPaperFormat;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionPaperFormatServiceTest {
+
+    private static final long EXAM = 1L;
+    private static final long CLASS = 10L;
+    private static final long MATHS = 100L;
+    private static final long SCIENCE = 200L;
+
+    @Mock
+    private QuestionPaperFormatRepository repository;
+
+    @Mock
+    private ExamMarksReadModel marksReadModel;
+
+    @InjectMocks
+    private QuestionPaperFormatService service;
+
+    @Test
+    void save_RowMovedToAnotherSubjectInvalidatesOldAndNewEntries() {
+        QuestionPaperFormat moved = qpf(30L, SCIENCE);
+        when(repository.findById(30L)).thenReturn(Optional.of(qpf(30L, MATHS)));
+        when(repository.save(moved)).thenReturn(moved);
+
+        service.save(moved);
+
+        verify(marksReadModel).invalidateQuestions(EXAM, CLASS, MATHS);
+        verify(marksReadModel).invalidateQuestions(EXAM, CLASS, SCIENCE);
+    }
+
+    @Test
+    void save_NewRowInvalidatesOnlyItsEntry() {
+        QuestionPaperFormat created = qpf(null, MATHS);
+        when(repository.save(created)).thenReturn(created);
+
+        service.save(created);
+
+        verify(repository, never()).findById(any());
+        verify(marksReadModel).invalidateQuestions(EXAM, CLASS, MATHS);
+        verifyNoMoreInteractions(marksReadModel);
+    }
+
+    @Test
+    void saveBatch_RowsMovedInInvalidateTheirOldEntry() {
+        QuestionPaperFormat moved = qpf(30L, MATHS);
+        List<QuestionPaperFormat> rows = List.of(moved);
+        when(repository.findByExamIdAndClassIdAndSubjectId(EXAM, CLASS, SCIENCE)).thenReturn(Collections.emptyList());
+        when(repository.findAllById(List.of(30L))).thenReturn(List.of(qpf(30L, MATHS)));
+        when(repository.saveAll(rows)).thenReturn(rows);
+
+        service.saveBatch(EXAM, CLASS, SCIENCE, rows);
+
+        verify(marksReadModel).invalidateQuestions(EXAM, CLASS, MATHS);
+        verify(marksReadModel).invalidateQuestions(EXAM, CLASS, SCIENCE);
+    }
+
+    private static QuestionPaperFormat qpf(Long id, Long subjectId) {
+        QuestionPaperFormat q = new QuestionPaperFormat();
+        q.setId(id);
+        q.setExamId(EXAM);
+        q.setClassId(CLASS);
+        q.setSubjectId(subjectId);
+        q.setQuestionNumber(1);
+        q.setMarks(5.0);
+        return q;
+    }
+}
@@ -0,0 +1,205 @@
+package com.school.exam.service;
+
+import com.school.attendance.repository.AttendanceRepository;
+import com.school.exam.dto.ReportCardJobDTO;
+import com.school.exam.model.Exam;
+import com.school.exam.repository.ExamMarkDetailRepository;
+import com.school.exam.repository.ExamMarkSummaryRepository;
+import com.school.exam.repository.ExamRepository;
+import com.school.exam.repository.QuestionPaperFormatRepository;
+import com.school.exam.repository.SubjectRepository;
+import com.school.exception.ResourceNotFoundException;
+import com.school.security.AuthzContextCache;
+import com.school.student.repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportCardServiceTest {
+
+    private static final long EXAM = 1L;
+    private static final long CLASS = 10L;
+
+    @Mock
+    private ExamRepository examRepository;
+
+    @Mock
+    private ExamMarkSummaryRepository summaryRepo;
+
+    @Mock
+    private ExamMarkDetailRepository detailRepo;
+
+    @Mock
+    private QuestionPaperFormatRepository qpfRepo;
+
+    @Mock
+    private SubjectRepository subjectRepository;
+
+    @Mock
+    private StudentRepository studentRepository;
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private ExamRankingService rankingService;
+
+    @Mock
+    private AuthzContextCache authzContextCache;
+
+    private ThreadPoolExecutor jobPool;
+    private ReportCardService service;
+
+    @BeforeEach
+    void setUp() {
+        jobPool = ReportCardService.jobPool(1, 1);
+        service = new ReportCardService(examRepository, summaryRepo, detailRepo, qpfRepo, subjectRepository,
+                studentRepository, attendanceRepository, rankingService, authzContextCache, jobPool,
+                ReportCardService.renderPool());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void submit_RejectsClassThatIsNotTheClassOfTheGrade() {
+        // Authorized on class 10, but grade 9's students would be loaded
+        when(authzContextCache.classIdForGrade(9)).thenReturn(20L);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(EXAM, CLASS, 9, "A", "PDF", null, null));
+        verifyNoInteractions(examRepository, studentRepository, summaryRepo);
+    }
+
+    @Test
+    void submit_RejectsGradeWithNoKnownClass() {
+        when(authzContextCache.classIdForGrade(9)).thenReturn(null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.submit(EXAM, CLASS, 9, "A", "PDF", null, null));
+        verifyNoInteractions(examRepository, studentRepository);
+    }
+
+    @Test
+    void submit_AcceptsClassOfTheGrade() {
+        when(authzContextCache.classIdForGrade(5)).thenReturn(CLASS);
+        when(examRepository.findById(EXAM)).thenReturn(Optional.empty());
+
+        // Past the class check; fails later on the missing exam
+        assertThrows(ResourceNotFoundException.class,
+                () -> service.submit(EXAM, CLASS, 5, "A", "PDF", null, null));
+        verify(examRepository).findById(EXAM);
+        verify(studentRepository, never()).findByGradeAndSection(anyInt(), anyString());
+    }
+
+    @Test
+    void getJob_OnlySubmitterOrAdminCanSeeTheJob() throws Exception {
+        String jobId = submitEmptyClassAs("alice");
+
+        signIn("bob", "ROLE_TEACHER");
+        assertThrows(AccessDeniedException.class, () -> service.getJob(jobId));
+        assertThrows(AccessDeniedException.class, () -> service.getResult(jobId));
+
+        signIn("admin", "ROLE_ADMIN");
+        assertEquals(jobId, service.getJob(jobId).getJobId());
+
+        signIn("alice", "ROLE_TEACHER");
+        awaitCompletion(jobId);
+        assertEquals("application/pdf", service.getResult(jobId).contentType());
+    }
+
+    @Test
+    void submit_Returns503WhenTheJobPoolIsFull() throws Exception {
+        signIn("alice", "ROLE_TEACHER");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        jobPool.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        jobPool.execute(() -> { });
+        stubEmptyClass();
+
+        try {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> service.submit(EXAM, CLASS, 5, "A", "PDF", null, null));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void purgeFinishedJobs_DropsResultsThirtyMinutesAfterTheJobFinished() throws Exception {
+        String jobId = submitEmptyClassAs("alice");
+        awaitCompletion(jobId);
+        LocalDateTime finishedAt = service.getJob(jobId).getFinishedAt();
+
+        service.purgeFinishedJobs(finishedAt.plusMinutes(29));
+        assertEquals(jobId, service.getJob(jobId).getJobId());
+
+        service.purgeFinishedJobs(finishedAt.plusMinutes(31));
+        assertThrows(ResourceNotFoundException.class, () -> service.getJob(jobId));
+    }
+
+    private String submitEmptyClassAs(String user) {
+        signIn(user, "ROLE_TEACHER");
+        stubEmptyClass();
+        return service.submit(EXAM, CLASS, 5, "A", "PDF", null, null).getJobId();
+    }
+
+    private void stubEmptyClass() {
+        Exam exam = new Exam();
+        exam.setId(EXAM);
+        exam.setName("Term 1");
+        when(authzContextCache.classIdForGrade(5)).thenReturn(CLASS);
+        when(examRepository.findById(EXAM)).thenReturn(Optional.of(exam));
+        when(studentRepository.findByGradeAndSection(5, "A")).thenReturn(List.of());
+    }
+
+    private void awaitCompletion(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReportCardJobDTO job = service.getJob(jobId);
+            // Status is set before the finish time; wait for both
+            if ("COMPLETED".equals(job.getStatus()) && job.getFinishedAt() != null) {
+                return;
+            }
+            assertNotEquals("FAILED", job.getStatus(), job.getError());
+            Thread.sleep(10);
+        }
+        fail("Report card job did not finish");
+    }
+
+    private static void signIn(String user, String role) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of(new SimpleGrantedAuthority(role))));
+    }
+}
@@ -0,0 +1,84 @@
+package com.school.hrm.service;
+
+import com.school.hrm.model.Holiday;
+import com.school.hrm.repository.HolidayRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HolidayCalendarTest {
+
+    @Mock
+    private HolidayRepository holidayRepository;
+
+    private HolidayCalendar holidayCalendar;
+
+    @BeforeEach
+    void setUp() {
+        // Wednesday 2025-01-01, Friday 2025-01-03 and Saturday 2025-01-04 are holidays
+        when(holidayRepository.findAll()).thenReturn(Arrays.asList(
+                holiday(LocalDate.of(2025, 1, 1)),
+                holiday(LocalDate.of(2025, 1, 3)),
+                holiday(LocalDate.of(2025, 1, 4)),
+                holiday(LocalDate.of(2024, 12, 25))));
+        holidayCalendar = new HolidayCalendar(holidayRepository);
+    }
+
+    @Test
+    void isHoliday_UsesSnapshotLoadedOnce() {
+        assertTrue(holidayCalendar.isHoliday(LocalDate.of(2025, 1, 1)));
+        assertTrue(holidayCalendar.isHoliday(LocalDate.of(2024, 12, 25)));
+        assertFalse(holidayCalendar.isHoliday(LocalDate.of(2025, 1, 2)));
+
+        verify(holidayRepository, times(1)).findAll();
+    }
+
+    @Test
+    void nextWorkingDay_SkipsHolidaysAndWeekends() {
+        // Thursday 2 Jan -> Friday 3 Jan is a holiday, then weekend -> Monday 6 Jan
+        assertEquals(LocalDate.of(2025, 1, 6), holidayCalendar.nextWorkingDay(LocalDate.of(2025, 1, 2)));
+        assertEquals(LocalDate.of(2025, 1, 2), holidayCalendar.nextWorkingDay(LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void workingDaysBetween_ExcludesWeekdayHolidaysOnly() {
+        // 30 Dec 2024 .. 10 Jan 2025 (exclusive): 9 weekdays, minus 1 Jan and 3 Jan
+        assertEquals(7, holidayCalendar.workingDaysBetween(LocalDate.of(2024, 12, 30), LocalDate.of(2025, 1, 10)));
+        assertEquals(0, holidayCalendar.workingDaysBetween(LocalDate.of(2025, 1, 4), LocalDate.of(2025, 1, 6)));
+        assertEquals(0, holidayCalendar.workingDaysBetween(LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 1)));
+    }
+
+    @Test
+    void addWorkingDays_MatchesDayByDayWalk() {
+        assertEquals(LocalDate.of(2025, 1, 9), holidayCalendar.addWorkingDays(LocalDate.of(2024, 12, 31), 5));
+    }
+
+    @Test
+    void reload_SwapsSnapshot() {
+        holidayCalendar.isHoliday(LocalDate.of(2025, 1, 1));
+        when(holidayRepository.findAll()).thenReturn(Arrays.asList(holiday(LocalDate.of(2025, 1, 2))));
+
+        holidayCalendar.reload();
+
+        assertFalse(holidayCalendar.isHoliday(LocalDate.of(2025, 1, 1)));
+        assertTrue(holidayCalendar.isHoliday(LocalDate.of(2025, 1, 2)));
+        assertEquals(Arrays.asList(LocalDate.of(2025, 1, 2)), holidayCalendar.holidaysInYear(2025));
+    }
+
+    private Holiday holiday(LocalDate date) {
+        return Holiday.builder()
+                .date(date)
+                .name("Holiday " + date)
+                .type(Holiday.HolidayType.OTHER)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.school.monitoring;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrSummaryTest {
+
+    private final Object monitor = new Object();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void read_CountsSamplesAndAttributesLockWaitsToTheApplicationFrame() throws Exception {
+        Path file = dir.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(10));
+            recording.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ZERO);
+            recording.start();
+            spin(Duration.ofMillis(300));
+            waitForMonitorHeldElsewhere(Duration.ofMillis(200));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        JfrSummary summary = JfrSummary.read(file);
+
+        assertTrue(summary.executionSamples() > 0);
+        assertSortedTopEntries(summary.hotMethods());
+        assertTrue(summary.hotMethods().stream().mapToLong(JfrSummary.Entry::value).sum()
+                <= summary.executionSamples());
+        assertSortedTopEntries(summary.allocationBytes());
+        assertSortedTopEntries(summary.lockWaitMillis());
+        JfrSummary.Entry wait = summary.lockWaitMillis().stream()
+                .filter(e -> e.name().startsWith("java.lang.Object @ " + JfrSummaryTest.class.getName() + "."))
+                .findFirst().orElseThrow();
+        assertTrue(wait.value() >= 100, wait.toString());
+    }
+
+    private void waitForMonitorHeldElsewhere(Duration hold) throws InterruptedException {
+        CountDownLatch held = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (monitor) {
+                held.countDown();
+                try {
+                    Thread.sleep(hold.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        holder.start();
+        held.await();
+        synchronized (monitor) {
+            // Entered once the holder lets go
+        }
+        holder.join();
+    }
+
+    private static long spin(Duration duration) {
+        long end = System.nanoTime() + duration.toNanos();
+        long acc = 0;
+        while (System.nanoTime() < end) {
+            acc += Long.numberOfTrailingZeros(acc * 31 + 7);
+        }
+        return acc;
+    }
+
+    private static void assertSortedTopEntries(List<JfrSummary.Entry> entries) {
+        assertTrue(entries.size() <= 20);
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i - 1).value() >= entries.get(i).value());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.school.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCountListenerTest {
+
+    @AfterEach
+    void tearDown() {
+        SqlRequestStats.clear();
+    }
+
+    @Test
+    void shapeOf_ReplacesLiteralsOfPlainStatements() {
+        String shape = QueryCountListener.shapeOf(
+                "select * from students where grade = 10 and section = 'A' and name = 'O''Brien' and fee > 2.5",
+                StatementType.STATEMENT);
+
+        assertEquals("select * from students where grade = ? and section = ? and name = ? and fee > ?", shape);
+    }
+
+    @Test
+    void shapeOf_KeepsLiteralsOfPreparedStatements() {
+        String sql = "select * from exam_mark_summaries where exam_id = ? and locked = false limit 50";
+
+        assertEquals(sql, QueryCountListener.shapeOf(sql, StatementType.PREPARED));
+    }
+
+    @Test
+    void shapeOf_CollapsesInListsOfAnySize() {
+        String three = QueryCountListener.shapeOf("select * from students where id in (?, ?, ?)",
+                StatementType.PREPARED);
+        String five = QueryCountListener.shapeOf("select * from students where id in (?,?,?,?,?)",
+                StatementType.PREPARED);
+
+        assertEquals("select * from students where id in (?)", three);
+        assertEquals(three, five);
+    }
+
+    @Test
+    void repeatedMoreThan_ReportsOnlyShapesOverTheThresholdMostFrequentFirst() {
+        SqlRequestStats stats = new SqlRequestStats();
+        for (int i = 0; i < 11; i++) {
+            stats.record("select * from students where id = ?", 1_000);
+        }
+        for (int i = 0; i < 20; i++) {
+            stats.record("select * from teacher_details where id = ?", 1_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.record("select * from subjects where id = ?", 1_000);
+        }
+
+        List<SqlRequestStats.RepeatedStatement> repeated = stats.repeatedMoreThan(10);
+
+        assertEquals(List.of(
+                new SqlRequestStats.RepeatedStatement("select * from teacher_details where id = ?", 20),
+                new SqlRequestStats.RepeatedStatement("select * from students where id = ?", 11)), repeated);
+        assertEquals(41, stats.count());
+    }
+
+    @Test
+    void elapsed_SumsSubMillisecondStatements() {
+        SqlRequestStats stats = new SqlRequestStats();
+        for (int i = 0; i < 4; i++) {
+            stats.record("select 1", 400_000);
+        }
+
+        assertEquals(1_600_000, stats.elapsedNanos());
+        assertEquals(1, stats.elapsedMillis());
+    }
+
+    @Test
+    void afterQuery_RecordsBatchOnceAndFallsBackToProxyTime() {
+        SqlRequestStats stats = new SqlRequestStats();
+        SqlRequestStats.bind(stats);
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setStatementType(StatementType.PREPARED);
+        execInfo.setElapsedTime(3);
+
+        new QueryCountListener().afterQuery(execInfo, List.of(
+                new QueryInfo("update students set grade = ? where id in (?, ?)"),
+                new QueryInfo("update students set grade = ? where id in (?, ?)")));
+
+        assertEquals(1, stats.count());
+        assertEquals(3, stats.elapsedMillis());
+        assertEquals(1, stats.repeatedMoreThan(0).size());
+        assertEquals("update students set grade = ? where id in (?)", stats.repeatedMoreThan(0).get(0).sql());
+    }
+}
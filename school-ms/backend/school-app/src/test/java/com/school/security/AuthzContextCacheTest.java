@@ -0,0 +1,121 @@
+package com.school.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthzContextCacheTest {
+
+    private static final long STUDENT_USER = 5L;
+    private static final long STAFF_USER = 6L;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private AuthzContextCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AuthzContextCache(jdbc);
+        lenient().doReturn(null).when(jdbc).query(startsWith("select staff_id"), any(ResultSetExtractor.class),
+                eq(STUDENT_USER));
+        lenient().doReturn(10L).when(jdbc).query(startsWith("select id from classes"), any(ResultSetExtractor.class),
+                eq(5), eq("class 5"));
+        lenient().doReturn(11L).when(jdbc).query(startsWith("select id from classes"), any(ResultSetExtractor.class),
+                eq(6), eq("class 6"));
+    }
+
+    @Test
+    void contextOf_IsLoadedOncePerUser() {
+        stubStudent("pupil@school.test", 30L, 5, "A");
+
+        AuthzContextCache.AuthzContext first = cache.contextOf(user(STUDENT_USER, "pupil@school.test"));
+        AuthzContextCache.AuthzContext second = cache.contextOf(user(STUDENT_USER, "pupil@school.test"));
+
+        assertSame(first, second);
+        assertEquals(30L, first.studentId());
+        assertEquals(10L, first.studentClassId());
+        verify(jdbc, times(1)).query(startsWith("select id, grade, section"), any(ResultSetExtractor.class),
+                eq("pupil@school.test"));
+    }
+
+    @Test
+    void studentsChangedAfterCommit_ReloadsContextsAndPlacements() {
+        doReturn(new Object[] { 30L, 5, "A" }, (Object) new Object[] { 30L, 6, "B" }).when(jdbc)
+                .query(startsWith("select id, grade, section"), any(ResultSetExtractor.class), eq("pupil@school.test"));
+        doReturn(new AuthzContextCache.StudentPlacement(5, "A", null),
+                new AuthzContextCache.StudentPlacement(6, "B", null)).when(jdbc)
+                .query(startsWith("select grade, section from students"), any(ResultSetExtractor.class), eq(30L));
+        assertEquals(5, cache.contextOf(user(STUDENT_USER, "pupil@school.test")).studentGrade());
+        assertEquals(10L, cache.placementOf(30L).classId());
+
+        // The student is promoted
+        cache.studentsChangedAfterCommit();
+
+        AuthzContextCache.AuthzContext context = cache.contextOf(user(STUDENT_USER, "pupil@school.test"));
+        assertEquals(6, context.studentGrade());
+        assertEquals("B", context.studentSection());
+        assertEquals(11L, context.studentClassId());
+        assertEquals(new AuthzContextCache.StudentPlacement(6, "B", 11L), cache.placementOf(30L));
+    }
+
+    @Test
+    void staffChangedAfterCommit_ReloadsContextsButKeepsPlacements() {
+        doReturn(new Object[] { "S-1", 3L }, (Object) new Object[] { "S-1", 4L }).when(jdbc)
+                .query(startsWith("select staff_id"), any(ResultSetExtractor.class), eq(STAFF_USER));
+        doReturn(null).when(jdbc).query(startsWith("select id, grade, section"), any(ResultSetExtractor.class),
+                eq("teacher@school.test"));
+        doReturn(new AuthzContextCache.StudentPlacement(5, "A", null)).when(jdbc)
+                .query(startsWith("select grade, section from students"), any(ResultSetExtractor.class), eq(30L));
+        assertEquals(3L, cache.contextOf(user(STAFF_USER, "teacher@school.test")).teacherDetailsId());
+        cache.placementOf(30L);
+
+        // The staff member is linked to another teacher record
+        cache.staffChangedAfterCommit();
+
+        AuthzContextCache.AuthzContext context = cache.contextOf(user(STAFF_USER, "teacher@school.test"));
+        assertEquals("S-1", context.staffId());
+        assertEquals(4L, context.teacherDetailsId());
+        assertNull(context.studentId());
+        cache.placementOf(30L);
+        verify(jdbc, times(1)).query(startsWith("select grade, section from students"),
+                any(ResultSetExtractor.class), eq(30L));
+    }
+
+    @Test
+    void userChangedAfterCommit_MatchesTheStudentByTheNewEmail() {
+        stubStudent("old@school.test", 30L, 5, "A");
+        stubStudent("new@school.test", 31L, 6, "B");
+        doReturn(new Object[] { "S-1", 3L }).when(jdbc)
+                .query(startsWith("select staff_id"), any(ResultSetExtractor.class), eq(STAFF_USER));
+        doReturn(null).when(jdbc).query(startsWith("select id, grade, section"), any(ResultSetExtractor.class),
+                eq("teacher@school.test"));
+        assertEquals(30L, cache.contextOf(user(STUDENT_USER, "old@school.test")).studentId());
+        AuthzContextCache.AuthzContext staff = cache.contextOf(user(STAFF_USER, "teacher@school.test"));
+
+        cache.userChangedAfterCommit(STUDENT_USER);
+
+        assertEquals(31L, cache.contextOf(user(STUDENT_USER, "new@school.test")).studentId());
+        // Other users keep their cached context
+        assertSame(staff, cache.contextOf(user(STAFF_USER, "teacher@school.test")));
+    }
+
+    private void stubStudent(String email, Long studentId, int grade, String section) {
+        doReturn(new Object[] { studentId, grade, section }).when(jdbc)
+                .query(startsWith("select id, grade, section"), any(ResultSetExtractor.class), eq(email));
+    }
+
+    private static User user(Long id, String email) {
+        return User.builder().id(id).username("u" + id).fullName("User " + id).email(email)
+                .role(UserRole.STUDENT).build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.school.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtUserCacheTest {
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private JwtUserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JwtUserCache(jdbc);
+    }
+
+    @Test
+    void isCurrent_AcceptsTokenMatchingStoredRoleAndVersion() {
+        stored(new JwtUserCache.Status(true, 2, "TEACHER"));
+
+        assertTrue(cache.isCurrent(principal(UserRole.TEACHER, 2)));
+    }
+
+    @Test
+    void isCurrent_RejectsTokenWhoseRoleClaimNoLongerMatches() {
+        // Demoted from ADMIN after the token was issued
+        stored(new JwtUserCache.Status(true, 0, "TEACHER"));
+
+        assertFalse(cache.isCurrent(principal(UserRole.ADMIN, 0)));
+    }
+
+    @Test
+    void isCurrent_RejectsTokenOfOlderVersion() {
+        stored(new JwtUserCache.Status(true, 1, "ADMIN"));
+
+        assertFalse(cache.isCurrent(principal(UserRole.ADMIN, 0)));
+    }
+
+    @Test
+    void update_BumpsTokenVersionWhenRolePasswordOrStatusChange() {
+        User user = loaded();
+        user.setRole(UserRole.STAFF);
+        user.revokeTokensOnAccessChange();
+        assertEquals(1, user.getTokenVersion());
+
+        user.setPassword("new-hash");
+        user.revokeTokensOnAccessChange();
+        assertEquals(2, user.getTokenVersion());
+
+        user.setEnabled(false);
+        user.revokeTokensOnAccessChange();
+        assertEquals(3, user.getTokenVersion());
+    }
+
+    @Test
+    void update_BumpsTokenVersionWhenAccountIsLockedOrExpired() {
+        User user = loaded();
+        user.setAccountNonLocked(false);
+        user.revokeTokensOnAccessChange();
+        assertEquals(1, user.getTokenVersion());
+
+        user.setAccountNonExpired(false);
+        user.revokeTokensOnAccessChange();
+        assertEquals(2, user.getTokenVersion());
+
+        user.setCredentialsNonExpired(false);
+        user.revokeTokensOnAccessChange();
+        assertEquals(3, user.getTokenVersion());
+    }
+
+    @Test
+    void update_KeepsTokenVersionWhenAccessIsChangedAndRestored() {
+        User user = loaded();
+        user.setRole(UserRole.ADMIN);
+        user.setPassword("other-hash");
+        user.setRole(UserRole.TEACHER);
+        user.setPassword(new String("hash"));
+        user.revokeTokensOnAccessChange();
+
+        assertEquals(0, user.getTokenVersion());
+    }
+
+    @Test
+    void update_KeepsTokenVersionForProfileChanges() {
+        User user = loaded();
+        user.setFullName("Renamed Teacher");
+        user.revokeTokensOnAccessChange();
+
+        assertEquals(0, user.getTokenVersion());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stored(JwtUserCache.Status status) {
+        when(jdbc.query(anyString(), any(ResultSetExtractor.class), any())).thenReturn(status);
+    }
+
+    private static User principal(UserRole role, int tokenVersion) {
+        return User.builder().id(5L).username("teacher").role(role).tokenVersion(tokenVersion).build();
+    }
+
+    private static User loaded() {
+        User user = User.builder().id(5L).username("teacher").fullName("Teacher").email("t@school.test")
+                .password("hash").role(UserRole.TEACHER).build();
+        user.rememberAccess();
+        return user;
+    }
+}
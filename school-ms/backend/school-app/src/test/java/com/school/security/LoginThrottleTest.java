@@ -0,0 +1,81 @@
+package com.school.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private ThreadPoolExecutor pool;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        pool = LoginThrottle.loginPool(1, 1);
+        throttle = new LoginThrottle(pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        throttle.shutdown();
+    }
+
+    @Test
+    void authenticate_RejectsUsernameOverTheLimitWith429() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals("ok", throttle.authenticate("Alice", "10.0.0." + i, () -> "ok"));
+        }
+
+        // Case and whitespace do not give a fresh allowance
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> throttle.authenticate(" alice ", "10.0.0.99", () -> "ok"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getStatus());
+        assertEquals("ok", throttle.authenticate("bob", "10.0.0.1", () -> "ok"));
+    }
+
+    @Test
+    void authenticate_RejectsWhenPoolIsSaturatedWithoutRunningTheLogin() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        pool.submit(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        pool.submit(() -> null);
+
+        AtomicBoolean ran = new AtomicBoolean();
+        try {
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> throttle.authenticate("carol", "10.0.0.2", () -> {
+                        ran.set(true);
+                        return "ok";
+                    }));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getStatus());
+            assertFalse(ran.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void authenticate_PassesAuthenticationFailuresThroughUnchanged() {
+        BadCredentialsException failure = new BadCredentialsException("Invalid username or password");
+
+        BadCredentialsException ex = assertThrows(BadCredentialsException.class,
+                () -> throttle.authenticate("dave", "10.0.0.3", () -> {
+                    throw failure;
+                }));
+        assertSame(failure, ex);
+    }
+}
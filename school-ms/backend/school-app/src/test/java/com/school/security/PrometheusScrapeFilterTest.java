@@ -0,0 +1,71 @@
+package com.school.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrometheusScrapeFilterTest {
+
+    private static final String TOKEN = "0123456789abcdef";
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_AuthenticatesTheScraperWithTheConfiguredToken() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        new PrometheusScrapeFilter(TOKEN).doFilter(scrape("Bearer " + TOKEN), new MockHttpServletResponse(), chain);
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(auth);
+        assertTrue(auth.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_METRICS_SCRAPER")));
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_IgnoresAWrongToken() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        new PrometheusScrapeFilter(TOKEN).doFilter(scrape("Bearer " + TOKEN + "0"), new MockHttpServletResponse(),
+                chain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_AppliesOnlyToThePrometheusEndpoint() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/jfr");
+        request.setServletPath("/actuator/jfr");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+
+        new PrometheusScrapeFilter(TOKEN).doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilter_IsDisabledWithoutAToken() throws Exception {
+        new PrometheusScrapeFilter("").doFilter(scrape("Bearer "), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    private static MockHttpServletRequest scrape(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/prometheus");
+        request.setServletPath("/actuator/prometheus");
+        request.addHeader("Authorization", authorization);
+        return request;
+    }
+}
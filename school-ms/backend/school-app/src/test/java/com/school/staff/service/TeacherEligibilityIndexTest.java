@@ -0,0 +1,110 @@
+package com.school.staff.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TeacherEligibilityIndexTest {
+
+    private static final long CLASS = 10L;
+    private static final long MATHS = 100L;
+    private static final long SCIENCE = 200L;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private TeacherEligibilityIndex index;
+
+    // Rows of teacher_subject_map and teacher_class_map as the database currently holds them
+    private final List<Object[]> subjectMap = new ArrayList<>();
+    private final List<Object[]> classMap = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        index = new TeacherEligibilityIndex(jdbc);
+        doAnswer(inv -> replay(subjectMap, inv.getArgument(1)))
+                .when(jdbc).query(contains("teacher_subject_map"), any(RowCallbackHandler.class));
+        doAnswer(inv -> replay(classMap, inv.getArgument(1)))
+                .when(jdbc).query(contains("teacher_class_map"), any(RowCallbackHandler.class));
+        subjectMap.add(new Object[] { 3L, MATHS });
+        classMap.add(new Object[] { 3L, CLASS, "A" });
+        classMap.add(new Object[] { 5L, CLASS, "A" });
+    }
+
+    @Test
+    void isEligible_TeacherBecomesEligibleAfterSubjectMappingWrite() {
+        assertFalse(index.isEligible(5L, CLASS, "A", MATHS));
+        assertArrayEquals(new long[] { 3L }, index.eligibleTeachers(CLASS, "A", MATHS));
+
+        subjectMap.add(new Object[] { 5L, MATHS });
+        index.reloadAfterCommit();
+
+        assertTrue(index.isEligible(5L, CLASS, "A", MATHS));
+        assertArrayEquals(new long[] { 3L, 5L }, index.eligibleTeachers(CLASS, "A", MATHS));
+        assertArrayEquals(new long[] { 3L, 5L }, index.teachersOf(MATHS));
+        // Sections compare exactly, as the replaced SQL did
+        assertFalse(index.isEligible(5L, CLASS, "a", MATHS));
+        assertFalse(index.isEligible(5L, CLASS, "A", SCIENCE));
+    }
+
+    @Test
+    void isEligible_TeacherBecomesIneligibleAfterClassMappingWrite() {
+        subjectMap.add(new Object[] { 5L, MATHS });
+        assertTrue(index.isEligible(5L, CLASS, "A", MATHS));
+        assertTrue(index.teachesClass(5L, CLASS));
+
+        classMap.removeIf(row -> row[0].equals(5L));
+        index.reloadAfterCommit();
+
+        assertFalse(index.isEligible(5L, CLASS, "A", MATHS));
+        assertFalse(index.teachesClassSection(5L, CLASS, "A"));
+        assertFalse(index.teachesClass(5L, CLASS));
+        assertArrayEquals(new long[] { 3L }, index.eligibleTeachers(CLASS, "A", MATHS));
+        // Still mapped to the subject, just not to any class
+        assertArrayEquals(new long[] { 3L, 5L }, index.teachersOf(MATHS));
+    }
+
+    @Test
+    void lookups_AreServedFromTheSnapshotWithoutQueryingAgain() {
+        index.isEligible(3L, CLASS, "A", MATHS);
+        index.eligibleTeachers(CLASS, "A", MATHS);
+        index.subjectsOf(CLASS, "A");
+
+        verify(jdbc, times(1)).query(contains("teacher_subject_map"), any(RowCallbackHandler.class));
+        verify(jdbc, times(1)).query(contains("teacher_class_map"), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void eligibleTeachers_ReturnsACopyOfTheSnapshot() {
+        long[] ids = index.eligibleTeachers(CLASS, "A", MATHS);
+        ids[0] = 99L;
+
+        assertArrayEquals(new long[] { 3L }, index.eligibleTeachers(CLASS, "A", MATHS));
+    }
+
+    private static Object replay(List<Object[]> rows, RowCallbackHandler handler) throws Exception {
+        for (Object[] row : rows) {
+            ResultSet rs = mock(ResultSet.class);
+            lenient().when(rs.getLong(1)).thenReturn((Long) row[0]);
+            lenient().when(rs.getLong(2)).thenReturn((Long) row[1]);
+            if (row.length > 2) {
+                lenient().when(rs.getString(3)).thenReturn((String) row[2]);
+            }
+            handler.processRow(rs);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,164 @@
+package com.school.timetable.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TeacherOccupancyTest {
+
+    private static final long TEACHER = 5L;
+    private static final long SUBSTITUTE = 6L;
+    private static final LocalDate MONDAY = LocalDate.of(2026, 10, 19);
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private TeacherOccupancy occupancy;
+
+    // Rows of timetable_slots (teacher, day, period) and timetable_substitutions (date, substitute, period)
+    private final List<Object[]> slots = new ArrayList<>();
+    private final List<Object[]> substitutions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        occupancy = new TeacherOccupancy(jdbc);
+        lenient().doAnswer(inv -> {
+            for (Object[] s : slots) {
+                ((RowCallbackHandler) inv.getArgument(1)).processRow(row(s[0], s[1], s[2]));
+            }
+            return null;
+        }).when(jdbc).query(startsWith("select teacher_details_id, day_of_week"), any(RowCallbackHandler.class));
+        lenient().doAnswer(inv -> {
+            LocalDate date = inv.getArgument(2);
+            for (Object[] s : substitutions) {
+                if (s[0].equals(date)) {
+                    ((RowCallbackHandler) inv.getArgument(1)).processRow(row(s[1], s[2]));
+                }
+            }
+            return null;
+        }).when(jdbc).query(startsWith("select substitute_teacher_details_id"), any(RowCallbackHandler.class),
+                any(LocalDate.class));
+        lenient().doAnswer(inv -> {
+            LocalDate date = inv.getArgument(2);
+            Long teacher = inv.getArgument(3);
+            for (Object[] s : substitutions) {
+                if (s[0].equals(date) && s[1].equals(teacher)) {
+                    ((RowCallbackHandler) inv.getArgument(1)).processRow(row(s[2]));
+                }
+            }
+            return null;
+        }).when(jdbc).query(startsWith("select period_no from timetable_substitutions"), any(RowCallbackHandler.class),
+                any(LocalDate.class), anyLong());
+    }
+
+    @Test
+    void load_CountsWeeklySlotsAndSubstitutionCovers() {
+        int monday = MONDAY.getDayOfWeek().getValue();
+        slots.add(new Object[] { TEACHER, monday, 1 });
+        slots.add(new Object[] { TEACHER, monday, 3 });
+        slots.add(new Object[] { TEACHER, monday + 1, 2 });
+        substitutions.add(new Object[] { MONDAY, TEACHER, 4 });
+        // Covering a period the teacher already teaches counts once
+        substitutions.add(new Object[] { MONDAY, TEACHER, 3 });
+
+        assertEquals(3, occupancy.load(TEACHER, MONDAY));
+        assertEquals(2, occupancy.weekdayLoad(TEACHER, monday));
+        assertEquals(1, occupancy.load(TEACHER, MONDAY.plusDays(1)));
+        assertFalse(occupancy.isFree(TEACHER, MONDAY, 4));
+        assertTrue(occupancy.isFree(TEACHER, MONDAY, 2));
+        assertTrue(occupancy.isBusyOnWeekday(TEACHER, monday, 3));
+        assertFalse(occupancy.isBusyOnWeekday(TEACHER, monday, 4));
+        assertEquals(0, occupancy.load(SUBSTITUTE, MONDAY));
+    }
+
+    @Test
+    void substitutionsOn_KeepsAtMost64DatesCached() {
+        for (int i = 0; i < 64; i++) {
+            occupancy.isFree(TEACHER, MONDAY.plusDays(i), 1);
+        }
+        occupancy.isFree(TEACHER, MONDAY, 1);
+        verify(jdbc, times(64)).query(startsWith("select substitute_teacher_details_id"),
+                any(RowCallbackHandler.class), any(LocalDate.class));
+
+        // The 65th date drops the overlay, so the first date is loaded again
+        occupancy.isFree(TEACHER, MONDAY.plusDays(64), 1);
+        occupancy.isFree(TEACHER, MONDAY, 1);
+        occupancy.isFree(TEACHER, MONDAY.plusDays(64), 1);
+
+        verify(jdbc, times(66)).query(startsWith("select substitute_teacher_details_id"),
+                any(RowCallbackHandler.class), any(LocalDate.class));
+    }
+
+    @Test
+    void substitutionChangedAfterCommit_RefreshesOnlyThatSubstituteOnThatDate() {
+        LocalDate tuesday = MONDAY.plusDays(1);
+        substitutions.add(new Object[] { MONDAY, SUBSTITUTE, 2 });
+        substitutions.add(new Object[] { MONDAY, SUBSTITUTE, 5 });
+        substitutions.add(new Object[] { MONDAY, TEACHER, 6 });
+        substitutions.add(new Object[] { tuesday, SUBSTITUTE, 2 });
+        assertEquals(2, occupancy.load(SUBSTITUTE, MONDAY));
+        assertEquals(1, occupancy.load(SUBSTITUTE, tuesday));
+
+        // The period 2 cover on Monday is deleted
+        substitutions.remove(0);
+        occupancy.substitutionChangedAfterCommit(MONDAY, SUBSTITUTE);
+
+        assertTrue(occupancy.isFree(SUBSTITUTE, MONDAY, 2));
+        assertFalse(occupancy.isFree(SUBSTITUTE, MONDAY, 5));
+        assertFalse(occupancy.isFree(TEACHER, MONDAY, 6));
+        assertFalse(occupancy.isFree(SUBSTITUTE, tuesday, 2));
+        // Neither date was reloaded in full
+        verify(jdbc, times(2)).query(startsWith("select substitute_teacher_details_id"),
+                any(RowCallbackHandler.class), any(LocalDate.class));
+        verify(jdbc, times(1)).query(startsWith("select period_no from timetable_substitutions"),
+                any(RowCallbackHandler.class), eq(MONDAY), eq(SUBSTITUTE));
+    }
+
+    @Test
+    void substitutionChangedAfterCommit_DropsSubstituteWithNoCoverLeft() {
+        substitutions.add(new Object[] { MONDAY, SUBSTITUTE, 2 });
+        assertFalse(occupancy.isFree(SUBSTITUTE, MONDAY, 2));
+
+        substitutions.clear();
+        occupancy.substitutionChangedAfterCommit(MONDAY, SUBSTITUTE);
+
+        assertEquals(0, occupancy.load(SUBSTITUTE, MONDAY));
+    }
+
+    @Test
+    void substitutionChangedAfterCommit_SkipsTheQueryForAnUncachedDate() {
+        occupancy.substitutionChangedAfterCommit(MONDAY, SUBSTITUTE);
+
+        verify(jdbc, never()).query(startsWith("select period_no from timetable_substitutions"),
+                any(RowCallbackHandler.class), any(LocalDate.class), anyLong());
+    }
+
+    /**
+     * One result row: Long columns answer getLong, Integer columns getInt.
+     */
+    private static ResultSet row(Object... columns) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] instanceof Long value) {
+                lenient().when(rs.getLong(i + 1)).thenReturn(value);
+            } else {
+                lenient().when(rs.getInt(i + 1)).thenReturn((Integer) columns[i]);
+            }
+        }
+        return rs;
+    }
+}
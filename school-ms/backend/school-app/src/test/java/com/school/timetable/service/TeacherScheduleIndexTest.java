@@ -0,0 +1,114 @@
+package com.school.timetable.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TeacherScheduleIndexTest {
+
+    private static final long CLASS = 10L;
+    private static final long SECTION = 1L;
+    private static final long MATHS = 100L;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    private TeacherScheduleIndex index;
+
+    // Set by a test to hold the next reload inside its query
+    private volatile CountDownLatch reloadStarted;
+    private volatile CountDownLatch releaseReload;
+
+    @BeforeEach
+    void setUp() {
+        index = new TeacherScheduleIndex(jdbc);
+        // timetable_slots as committed before the edit: teacher 1 teaches Monday period 1
+        doAnswer(inv -> {
+            if (reloadStarted != null) {
+                reloadStarted.countDown();
+                assertTrue(releaseReload.await(5, TimeUnit.SECONDS));
+            }
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(1L);
+            when(rs.getInt(2)).thenReturn(1);
+            when(rs.getInt(3)).thenReturn(1);
+            when(rs.getLong(4)).thenReturn(CLASS);
+            when(rs.getLong(5)).thenReturn(SECTION);
+            when(rs.getObject(6)).thenReturn(MATHS);
+            when(rs.getLong(6)).thenReturn(MATHS);
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbc).query(startsWith("select teacher_details_id"), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void slotChangedAfterCommit_MovesTheLessonBetweenTeachers() {
+        assertEquals(1, index.lessonsOf(1L).size());
+
+        index.slotChangedAfterCommit(1L, 2L, CLASS, SECTION, 1, 1, MATHS);
+
+        assertTrue(index.lessonsOf(1L).isEmpty());
+        assertEquals(List.of(new TeacherScheduleIndex.Lesson(1, 1, CLASS, SECTION, MATHS)), index.lessonsOf(2L));
+        assertNotNull(index.lessonAt(2L, CLASS, SECTION, 1, 1));
+        assertNull(index.lessonAt(1L, CLASS, SECTION, 1, 1));
+    }
+
+    @Test
+    void slotChangedAfterCommit_IsNotLostToAConcurrentReload() throws Exception {
+        index.lessonsOf(1L);
+        reloadStarted = new CountDownLatch(1);
+        releaseReload = new CountDownLatch(1);
+
+        // A reload reads the slots as they were before the edit committed
+        Thread reload = new Thread(index::reload);
+        reload.start();
+        assertTrue(reloadStarted.await(5, TimeUnit.SECONDS));
+        Thread edit = new Thread(() -> index.slotChangedAfterCommit(1L, 2L, CLASS, SECTION, 1, 1, MATHS));
+        edit.start();
+        awaitBlocked(edit);
+        releaseReload.countDown();
+        reload.join(5_000);
+        edit.join(5_000);
+
+        // The edit waited for the reload and was applied on top of the index it swapped in
+        assertTrue(index.lessonsOf(1L).isEmpty());
+        assertEquals(List.of(new TeacherScheduleIndex.Lesson(1, 1, CLASS, SECTION, MATHS)), index.lessonsOf(2L));
+        verify(jdbc, times(2)).query(startsWith("select teacher_details_id"), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void lessonsOf_AreSortedByDayAndPeriodAfterEdits() {
+        index.slotChangedAfterCommit(null, 1L, CLASS, SECTION, 3, 2, MATHS);
+        index.slotChangedAfterCommit(null, 1L, 11L, SECTION, 1, 4, MATHS);
+        index.slotChangedAfterCommit(null, 1L, 12L, SECTION, 1, 2, MATHS);
+
+        List<TeacherScheduleIndex.Lesson> lessons = index.lessonsOf(1L);
+
+        assertEquals(List.of(1, 1, 1, 3), lessons.stream().map(TeacherScheduleIndex.Lesson::dayOfWeek).toList());
+        assertEquals(List.of(1, 2, 4, 2), lessons.stream().map(TeacherScheduleIndex.Lesson::periodNo).toList());
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (thread.getState() == Thread.State.BLOCKED) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Edit did not wait for the reload");
+    }
+}
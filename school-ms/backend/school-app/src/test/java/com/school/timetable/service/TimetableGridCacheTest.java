@@ -0,0 +1,80 @@
+package com.school.timetable.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableGridCacheTest {
+
+    private final TimetableGridCache cache = new TimetableGridCache();
+    private final AtomicInteger renders = new AtomicInteger();
+    private final Supplier<String> render = () -> "view-" + renders.incrementAndGet();
+
+    @Test
+    void get_RendersOncePerEtag() {
+        String etag = cache.classSectionEtag(10L, 1L);
+
+        assertEquals("view-1", cache.get(etag, render));
+        assertEquals("view-1", cache.get(etag, render));
+        assertEquals(etag, cache.classSectionEtag(10L, 1L));
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void classSectionChanged_BumpsTheEtagAndRendersAgain() {
+        String before = cache.classSectionEtag(10L, 1L);
+        String other = cache.classSectionEtag(10L, 2L);
+        cache.get(before, render);
+        cache.get(other, render);
+
+        cache.classSectionChanged(10L, 1L);
+
+        String after = cache.classSectionEtag(10L, 1L);
+        assertNotEquals(before, after);
+        assertEquals("view-3", cache.get(after, render));
+        // Other class-sections keep their ETag and cached view
+        assertEquals(other, cache.classSectionEtag(10L, 2L));
+        assertEquals("view-2", cache.get(other, render));
+    }
+
+    @Test
+    void teachersChanged_BumpsEveryVariantOfTheTeachersOnly() {
+        String today = cache.teacherEtag(5L, "2026-10-19");
+        String week = cache.teacherEtag(5L, null);
+        String otherTeacher = cache.teacherEtag(55L, null);
+        cache.get(today, render);
+
+        cache.teachersChanged(5L, null);
+
+        assertNotEquals(today, cache.teacherEtag(5L, "2026-10-19"));
+        assertNotEquals(week, cache.teacherEtag(5L, null));
+        assertEquals(otherTeacher, cache.teacherEtag(55L, null));
+        assertEquals("view-2", cache.get(cache.teacherEtag(5L, "2026-10-19"), render));
+    }
+
+    @Test
+    void allChanged_BumpsEveryEtagAndDropsCachedViews() {
+        String grid = cache.classSectionEtag(10L, 1L);
+        String teacher = cache.teacherEtag(5L, null);
+        cache.get(grid, render);
+        cache.get(teacher, render);
+
+        cache.allChanged();
+
+        assertNotEquals(grid, cache.classSectionEtag(10L, 1L));
+        assertNotEquals(teacher, cache.teacherEtag(5L, null));
+        // The old ETag is no longer served from the cache either
+        assertEquals("view-3", cache.get(grid, render));
+    }
+
+    @Test
+    void get_DoesNotCacheAMissingView() {
+        String etag = cache.classSectionEtag(10L, 1L);
+
+        assertNull(cache.get(etag, () -> null));
+        assertEquals("view-1", cache.get(etag, render));
+    }
+}
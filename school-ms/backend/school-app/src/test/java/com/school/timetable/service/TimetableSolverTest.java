@@ -0,0 +1,92 @@
+package com.school.timetable.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimetableSolverTest {
+
+    private static final int DAYS = 5;
+    private static final int PERIODS = 6;
+
+    @Test
+    void placesAllLessonsWithoutTeacherClashes() {
+        // Three sections sharing two teachers for maths and one for science
+        int sections = 3;
+        int teachers = 3;
+        List<TimetableSolver.Requirement> reqs = new ArrayList<>();
+        for (int s = 0; s < sections; s++) {
+            reqs.add(new TimetableSolver.Requirement(s, 1L, 8, new int[] { 0, 1 }, -1));
+            reqs.add(new TimetableSolver.Requirement(s, 2L, 5, new int[] { 2 }, -1));
+        }
+        TimetableSolver.Problem problem = new TimetableSolver.Problem(sections, DAYS, PERIODS, teachers, 6,
+                lunchBlocked(sections, 4), new int[teachers][DAYS * PERIODS], reqs);
+
+        TimetableSolver.Solution solution = TimetableSolver.solve(problem, 300, 2, 42L);
+
+        assertEquals(0, solution.unplaced());
+        assertNoClashes(problem, solution);
+    }
+
+    @Test
+    void respectsFixedOccupancyAndDailyLimit() {
+        // Teacher 0 is busy on every first period elsewhere and may teach two periods a day
+        int[][] fixed = new int[1][DAYS * PERIODS];
+        for (int d = 0; d < DAYS; d++) {
+            fixed[0][d * PERIODS] = 1;
+        }
+        List<TimetableSolver.Requirement> reqs = List.of(
+                new TimetableSolver.Requirement(0, 1L, 7, new int[] { 0 }, 0));
+        TimetableSolver.Problem problem = new TimetableSolver.Problem(1, DAYS, PERIODS, 1, 2,
+                lunchBlocked(1, 4), fixed, reqs);
+
+        TimetableSolver.Solution solution = TimetableSolver.solve(problem, 200, 2, 7L);
+
+        // One free period a day is left after the fixed one, so two of seven cannot be placed
+        assertEquals(2, solution.unplaced());
+        assertNoClashes(problem, solution);
+        for (int cell : solution.lessonCell()) {
+            assertTrue(cell < 0 || cell % PERIODS != 0, "placed over fixed occupancy");
+        }
+    }
+
+    private static boolean[][] lunchBlocked(int sections, int lunchPeriod) {
+        boolean[][] blocked = new boolean[sections][DAYS * PERIODS];
+        for (boolean[] row : blocked) {
+            for (int d = 0; d < DAYS; d++) {
+                row[d * PERIODS + lunchPeriod - 1] = true;
+            }
+        }
+        return blocked;
+    }
+
+    private static void assertNoClashes(TimetableSolver.Problem problem, TimetableSolver.Solution solution) {
+        int cells = DAYS * PERIODS;
+        int[][] teacherCell = new int[problem.teachers][cells];
+        int[][] teacherDay = new int[problem.teachers][DAYS];
+        for (int t = 0; t < problem.teachers; t++) {
+            for (int c = 0; c < cells; c++) {
+                teacherCell[t][c] = problem.fixedBusy[t][c];
+                teacherDay[t][c / PERIODS] += problem.fixedBusy[t][c];
+            }
+        }
+        boolean[][] sectionCell = new boolean[problem.sections][cells];
+        for (int l = 0; l < solution.lessonCell().length; l++) {
+            int cell = solution.lessonCell()[l];
+            if (cell < 0) {
+                continue;
+            }
+            TimetableSolver.Requirement req = problem.requirements.get(solution.lessonRequirement()[l]);
+            assertTrue(!problem.blocked[req.section()][cell], "lesson in a blocked cell");
+            assertTrue(!sectionCell[req.section()][cell], "two lessons in one cell");
+            sectionCell[req.section()][cell] = true;
+            int t = solution.requirementTeacher()[solution.lessonRequirement()[l]];
+            assertEquals(1, ++teacherCell[t][cell], "teacher double booked");
+            assertTrue(++teacherDay[t][cell / PERIODS] <= problem.maxPerTeacherPerDay, "daily limit exceeded");
+        }
+    }
+}
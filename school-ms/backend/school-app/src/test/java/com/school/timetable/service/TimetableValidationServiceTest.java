@@ -0,0 +1,187 @@
+package com.school.timetable.service;
+
+import com.school.staff.service.TeacherEligibilityIndex;
+import com.school.timetable.model.TimetableSettings;
+import com.school.timetable.repository.TimetableSettingsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimetableValidationServiceTest {
+
+    private static final long SECTION = 1L;
+    private static final long MATHS = 100L;
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    @Mock
+    private TimetableSettingsRepository settingsRepo;
+
+    @Mock
+    private TeacherEligibilityIndex eligibilityIndex;
+
+    @Mock
+    private TeacherOccupancy occupancy;
+
+    private TimetableValidationService service;
+
+    // Rows of timetable_slots: class, section, day, period, subject, teacher
+    private final List<Object[]> slots = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new TimetableValidationService(jdbc, settingsRepo, eligibilityIndex, occupancy);
+        lenient().when(settingsRepo.findTopByOrderByIdAsc()).thenReturn(Optional.of(settings(6, 3, 31)));
+    }
+
+    @Test
+    void validate_ReportsEachConflictType() throws Exception {
+        stubSlotQueries();
+        when(eligibilityIndex.isEligible(anyLong(), anyLong(), eq("A"), anyLong()))
+                .thenAnswer(inv -> !Long.valueOf(3L).equals(inv.getArgument(0)));
+        // Teacher 1 in two classes at once
+        slot(10L, 1, 2, MATHS, 1L);
+        slot(11L, 1, 2, MATHS, 1L);
+        // Teacher 2 over the daily limit of 3
+        for (int period = 1; period <= 4; period++) {
+            slot(10L, 2, period, MATHS, 2L);
+        }
+        // Teacher 3 not mapped to the class and subject
+        slot(10L, 3, 1, MATHS, 3L);
+        // Saturday is not a working day
+        slot(10L, 6, 1, MATHS, 4L);
+        // An empty cell outside the week is not a conflict
+        slot(10L, 7, 1, null, null);
+
+        TimetableValidationService.ConflictReport report = service.validate();
+
+        assertEquals(9, report.slotsChecked());
+        assertEquals(List.of(1L), teachersWith(report, TimetableValidationService.DOUBLE_BOOKED));
+        assertEquals(List.of(2L), teachersWith(report, TimetableValidationService.DAILY_LIMIT));
+        assertEquals(List.of(3L), teachersWith(report, TimetableValidationService.NOT_ELIGIBLE));
+        assertEquals(List.of(4L), teachersWith(report, TimetableValidationService.OUTSIDE_WEEK));
+        assertEquals(report.conflicts().size(), report.conflictCount());
+        TimetableValidationService.Conflict clash = report.conflicts().stream()
+                .filter(c -> c.type().equals(TimetableValidationService.DOUBLE_BOOKED)).findFirst().orElseThrow();
+        assertEquals(2, clash.slots().size());
+        assertEquals(1, clash.dayOfWeek());
+        assertEquals(2, clash.periodNo());
+    }
+
+    @Test
+    void validate_OutOfRangeDayDoesNotClashWithAnotherTeacher() throws Exception {
+        stubSlotQueries();
+        when(eligibilityIndex.isEligible(anyLong(), anyLong(), eq("A"), anyLong())).thenReturn(true);
+        // teacher * 8 + day would map teacher 1 on day 9 onto teacher 2 on Monday
+        slot(10L, 9, 5, MATHS, 1L);
+        slot(11L, 1, 5, MATHS, 2L);
+        // period 128 would wrap onto period 0 of the next day under dayKey * 128 + period
+        slot(12L, 2, 128, MATHS, 5L);
+        slot(13L, 3, 0, MATHS, 5L);
+
+        TimetableValidationService.ConflictReport report = service.validate();
+
+        assertEquals(List.of(), teachersWith(report, TimetableValidationService.DOUBLE_BOOKED));
+        assertEquals(List.of(1L, 5L, 5L), teachersWith(report, TimetableValidationService.OUTSIDE_WEEK));
+    }
+
+    @Test
+    void checkAssignment_ReportsClashAndDailyLimit() {
+        when(occupancy.isBusyOnWeekday(7L, 1, 2)).thenReturn(true);
+        when(occupancy.isBusyOnWeekday(7L, 1, 3)).thenReturn(false);
+        when(occupancy.weekdayLoad(7L, 1)).thenReturn(3);
+        when(occupancy.isBusyOnWeekday(8L, 1, 3)).thenReturn(false);
+        when(occupancy.weekdayLoad(8L, 1)).thenReturn(2);
+
+        assertEquals(TimetableValidationService.DOUBLE_BOOKED, service.checkAssignment(null, 7L, 1, 2));
+        assertEquals(TimetableValidationService.DAILY_LIMIT, service.checkAssignment(null, 7L, 1, 3));
+        assertNull(service.checkAssignment(null, 8L, 1, 3));
+        // Keeping the current teacher or clearing the cell is always allowed
+        assertNull(service.checkAssignment(7L, 7L, 1, 2));
+        assertNull(service.checkAssignment(7L, null, 1, 2));
+    }
+
+    @Test
+    void checkAssignment_UsesCachedSettingsUntilTheyChange() {
+        when(occupancy.isBusyOnWeekday(eq(8L), anyInt(), anyInt())).thenReturn(false);
+        when(occupancy.weekdayLoad(8L, 1)).thenReturn(3);
+
+        assertEquals(TimetableValidationService.DAILY_LIMIT, service.checkAssignment(null, 8L, 1, 3));
+        assertEquals(TimetableValidationService.DAILY_LIMIT, service.checkAssignment(null, 8L, 1, 4));
+        verify(settingsRepo, times(1)).findTopByOrderByIdAsc();
+
+        doReturn(Optional.of(settings(6, 4, 31))).when(settingsRepo).findTopByOrderByIdAsc();
+        service.settingsChanged();
+
+        assertNull(service.checkAssignment(null, 8L, 1, 3));
+        verify(settingsRepo, times(2)).findTopByOrderByIdAsc();
+    }
+
+    private void stubSlotQueries() throws Exception {
+        doAnswer(inv -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(SECTION);
+            when(rs.getString(2)).thenReturn("A");
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbc).query(startsWith("select id, section_name"), any(RowCallbackHandler.class));
+        doAnswer(inv -> {
+            for (Object[] s : slots) {
+                ((RowCallbackHandler) inv.getArgument(1)).processRow(row(s));
+            }
+            return null;
+        }).when(jdbc).query(startsWith("select class_id, section_id"), any(RowCallbackHandler.class));
+    }
+
+    private void slot(Long classId, int day, int period, Long subjectId, Long teacherId) {
+        slots.add(new Object[] { classId, SECTION, day, period, subjectId, teacherId });
+    }
+
+    private static ResultSet row(Object[] s) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        lenient().when(rs.getLong(1)).thenReturn((Long) s[0]);
+        lenient().when(rs.getLong(2)).thenReturn((Long) s[1]);
+        lenient().when(rs.getInt(3)).thenReturn((Integer) s[2]);
+        lenient().when(rs.getInt(4)).thenReturn((Integer) s[3]);
+        lenient().when(rs.getObject(5)).thenReturn(s[4]);
+        lenient().when(rs.getObject(6)).thenReturn(s[5]);
+        if (s[4] != null) {
+            lenient().when(rs.getLong(5)).thenReturn((Long) s[4]);
+        }
+        if (s[5] != null) {
+            lenient().when(rs.getLong(6)).thenReturn((Long) s[5]);
+        }
+        return rs;
+    }
+
+    private static List<Long> teachersWith(TimetableValidationService.ConflictReport report, String type) {
+        return report.conflicts().stream()
+                .filter(c -> c.type().equals(type))
+                .map(TimetableValidationService.Conflict::teacherDetailsId)
+                .sorted()
+                .toList();
+    }
+
+    private static TimetableSettings settings(int periodsPerDay, int maxPerDay, int workingDaysMask) {
+        TimetableSettings s = new TimetableSettings();
+        s.setPeriodsPerDay(periodsPerDay);
+        s.setMaxPeriodsPerTeacherPerDay(maxPerDay);
+        s.setWorkingDaysMask(workingDaysMask);
+        return s;
+    }
+}